@@ -0,0 +1,124 @@
+#!/bin/bash
+
+# Time-to-first-request for iSante Backend
+# Starts the application repeatedly and measures the wall time from launch until
+# GET /api/auth/test answers, for each build variant that is present:
+#   jar      plain fat jar                         (mvn package)
+#   aot-cds  Spring AOT + AppCDS archive            (mvn -Pfast-startup package)
+#   native   GraalVM native image                   (mvn -Pnative native:compile)
+# Database and JWT settings come from the environment or ../.env (the file spring-dotenv reads).
+#
+# Usage:
+#   scripts/measure-startup.sh                    # all available variants, 5 runs each
+#   scripts/measure-startup.sh -n 10 aot-cds jar  # selected variants, 10 runs each
+#   scripts/measure-startup.sh --build            # build jar and fast-startup variants first
+
+set -e
+
+cd "$(dirname "$0")/.."
+
+RUNS=5
+BUILD=false
+VARIANTS=()
+PORT=${SERVER_PORT:-5025}
+TIMEOUT_SECONDS=${STARTUP_TIMEOUT_SECONDS:-180}
+RESULTS_DIR="target/startup-results"
+JAR="target/eyesante-backend-0.0.1-SNAPSHOT.jar"
+APP_DIR="target/application"
+NATIVE="target/eyesante-backend"
+
+while [ $# -gt 0 ]; do
+    case "$1" in
+        -n) RUNS="$2"; shift 2 ;;
+        --build) BUILD=true; shift ;;
+        *) VARIANTS+=("$1"); shift ;;
+    esac
+done
+
+if [ -f ../.env ]; then
+    set -a
+    . ../.env
+    set +a
+fi
+
+if [ "$BUILD" = true ]; then
+    echo "🔨 Building fast-startup variant (AOT + CDS training run)..."
+    ./mvnw -B -q -Pfast-startup -DskipTests package
+fi
+
+if [ ${#VARIANTS[@]} -eq 0 ]; then
+    [ -f "$JAR" ] && VARIANTS+=("jar")
+    [ -f "$APP_DIR/application.jsa" ] && VARIANTS+=("aot-cds")
+    [ -x "$NATIVE" ] && VARIANTS+=("native")
+fi
+
+if [ ${#VARIANTS[@]} -eq 0 ]; then
+    echo "❌ Nothing to measure; build first (see usage)"
+    exit 1
+fi
+
+launch() {
+    case "$1" in
+        jar) java -jar "$JAR" ;;
+        aot-cds) (cd "$APP_DIR" && exec java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+                    -jar eyesante-backend-0.0.1-SNAPSHOT.jar) ;;
+        native) "$NATIVE" ;;
+        *) echo "❌ Unknown variant $1" >&2; return 1 ;;
+    esac
+}
+
+# Milliseconds from launch to the first successful response, or -1 on timeout
+measure_once() {
+    local variant=$1
+    local log="$RESULTS_DIR/$variant.log"
+    local start end pid
+    start=$(date +%s%N)
+    launch "$variant" > "$log" 2>&1 &
+    pid=$!
+    while true; do
+        if curl -sf -o /dev/null "http://localhost:$PORT/api/auth/test"; then
+            end=$(date +%s%N)
+            echo $(( (end - start) / 1000000 ))
+            break
+        fi
+        if ! kill -0 "$pid" 2>/dev/null || [ $(( ($(date +%s%N) - start) / 1000000000 )) -ge "$TIMEOUT_SECONDS" ]; then
+            echo -1
+            break
+        fi
+        sleep 0.05
+    done
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+}
+
+COMMIT=$(git rev-parse --short HEAD 2>/dev/null || echo "local")
+mkdir -p "$RESULTS_DIR"
+RESULT_FILE="$RESULTS_DIR/startup-$COMMIT.json"
+
+echo "⏱️  Measuring time to first request at commit $COMMIT ($RUNS runs per variant)..."
+JSON="{\"commit\":\"$COMMIT\",\"runs\":$RUNS,\"variants\":{"
+FIRST=true
+for variant in "${VARIANTS[@]}"; do
+    times=()
+    for i in $(seq 1 "$RUNS"); do
+        ms=$(measure_once "$variant")
+        if [ "$ms" -lt 0 ]; then
+            echo "❌ $variant did not answer within ${TIMEOUT_SECONDS}s, see $RESULTS_DIR/$variant.log"
+            exit 1
+        fi
+        times+=("$ms")
+        echo "   $variant run $i: ${ms} ms"
+    done
+    sorted=$(printf '%s\n' "${times[@]}" | sort -n)
+    min=$(echo "$sorted" | head -1)
+    median=$(echo "$sorted" | sed -n "$(( (RUNS + 1) / 2 ))p")
+    max=$(echo "$sorted" | tail -1)
+    printf "📊 %-8s min %6s ms   median %6s ms   max %6s ms\n" "$variant" "$min" "$median" "$max"
+    [ "$FIRST" = true ] || JSON="$JSON,"
+    FIRST=false
+    JSON="$JSON\"$variant\":{\"minMs\":$min,\"medianMs\":$median,\"maxMs\":$max,\"samplesMs\":[$(IFS=,; echo "${times[*]}")]}"
+done
+JSON="$JSON}}"
+
+echo "$JSON" > "$RESULT_FILE"
+echo "✅ Results written to $RESULT_FILE"
@@ -0,0 +1,12 @@
+#!/bin/bash
+
+# Runs once on first start of the primary container (docker-entrypoint-initdb.d):
+# creates the replication role and lets the replica stream WAL from it.
+
+set -e
+
+psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$POSTGRES_DB" <<-SQL
+    CREATE ROLE replicator WITH REPLICATION LOGIN PASSWORD 'replicator_password';
+SQL
+
+echo "host replication replicator all md5" >> "$PGDATA/pg_hba.conf"
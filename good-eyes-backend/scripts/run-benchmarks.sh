@@ -0,0 +1,46 @@
+#!/bin/bash
+
+# JMH benchmark runner for iSante Backend
+# Runs the "benchmarks" Maven profile and stores the JSON result per commit so
+# two runs can be compared.
+#
+# Usage:
+#   scripts/run-benchmarks.sh                 # run all benchmarks
+#   scripts/run-benchmarks.sh Jwt             # run benchmarks matching a regex
+#   scripts/run-benchmarks.sh --compare A B   # compare two stored result files
+
+set -e
+
+cd "$(dirname "$0")/.."
+
+RESULTS_DIR="target/benchmark-results"
+
+if [ "$1" = "--compare" ]; then
+    if [ -z "$2" ] || [ -z "$3" ]; then
+        echo "❌ Usage: $0 --compare <baseline.json> <candidate.json>"
+        exit 1
+    fi
+    echo "📊 Comparing $2 (baseline) with $3 (candidate)"
+    jq -n --slurpfile a "$2" --slurpfile b "$3" -r '
+        ($a[0] | map({key: (.benchmark + " " + ((.params // {}) | tostring)), value: .primaryMetric.score}) | from_entries) as $base
+        | $b[0][]
+        | (.benchmark + " " + ((.params // {}) | tostring)) as $k
+        | select($base[$k] != null)
+        | "\($k)\t\($base[$k] | . * 100 | round / 100)\t\(.primaryMetric.score | . * 100 | round / 100)\t\(((.primaryMetric.score - $base[$k]) / $base[$k] * 100) | round)%\t\(.primaryMetric.scoreUnit)"
+    ' | column -t -s $'\t'
+    exit 0
+fi
+
+COMMIT=$(git rev-parse --short HEAD 2>/dev/null || echo "local")
+mkdir -p "$RESULTS_DIR"
+
+echo "🚀 Running JMH benchmarks at commit $COMMIT..."
+JMH_ARGS="-rf json -rff target/jmh-result.json"
+if [ -n "$1" ]; then
+    JMH_ARGS="$JMH_ARGS $1"
+fi
+
+./mvnw -B -Pbenchmarks -DskipTests verify -Djmh.args="$JMH_ARGS"
+
+cp target/jmh-result.json "$RESULTS_DIR/jmh-$COMMIT.json"
+echo "✅ Results written to $RESULTS_DIR/jmh-$COMMIT.json"
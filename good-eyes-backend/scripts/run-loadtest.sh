@@ -0,0 +1,24 @@
+#!/bin/bash
+
+# Clinic-day load test for iSante Backend
+# Boots the application against Postgres in Testcontainers (Docker required),
+# seeds a synthetic history and replays concurrent patient journeys.
+#
+# Usage:
+#   scripts/run-loadtest.sh                       # defaults: 100k patients, 300 journeys, 16 threads
+#   scripts/run-loadtest.sh -Dloadtest.dayPatients=1000 -Dloadtest.concurrency=32
+#   scripts/run-loadtest.sh -Dloadtest.jdbcUrl=jdbc:postgresql://localhost:5432/loadtest
+
+set -e
+
+cd "$(dirname "$0")/.."
+
+RESULTS_DIR="target/loadtest-results"
+SHA=$(git rev-parse --short HEAD 2>/dev/null || echo "local")
+
+echo "🚦 Running clinic-day load test..."
+./mvnw -B -Ploadtest -DskipTests verify "$@"
+
+mkdir -p "$RESULTS_DIR"
+cp target/loadtest-report.json "$RESULTS_DIR/loadtest-$SHA.json"
+echo "✅ Report stored in $RESULTS_DIR/loadtest-$SHA.json"
@@ -0,0 +1,138 @@
+package com.rossumtechsystems.eyesante_backend.benchmark;
+
+import com.rossumtechsystems.eyesante_backend.entity.InventoryCategory;
+import com.rossumtechsystems.eyesante_backend.entity.InventoryItem;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.entity.InvoiceItem;
+import com.rossumtechsystems.eyesante_backend.entity.Patient;
+import com.rossumtechsystems.eyesante_backend.entity.PatientVisitSession;
+import com.rossumtechsystems.eyesante_backend.entity.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detached entity graphs shaped like the rows the finance and visit screens load.
+ * Built in memory so the benchmarks measure mapping cost only, not the database.
+ */
+public final class BenchmarkFixtures {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 1, 6, 8, 30);
+
+    private BenchmarkFixtures() {
+    }
+
+    public static Patient patient(long id) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setPatientNumber("ESP-" + String.format("%06d", id));
+        patient.setFirstName("Patient" + id);
+        patient.setLastName("Benchmark");
+        patient.setGender(id % 2 == 0 ? "Female" : "Male");
+        patient.setPhone("+25670" + String.format("%07d", id));
+        patient.setCreatedAt(BASE_TIME);
+        patient.setUpdatedAt(BASE_TIME);
+        patient.setCreatedBy("system");
+        patient.setUpdatedBy("system");
+        return patient;
+    }
+
+    public static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("doctor" + id);
+        user.setPassword("{noop}benchmark");
+        user.setFirstName("Doctor");
+        user.setLastName(String.valueOf(id));
+        user.setEmail("doctor" + id + "@example.com");
+        return user;
+    }
+
+    public static Invoice invoice(long id, int itemCount) {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setInvoiceNumber("INV-20250106-" + String.format("%04d", id));
+        invoice.setInvoiceDate(LocalDate.of(2025, 1, 6));
+        invoice.setDueDate(LocalDate.of(2025, 2, 5));
+        invoice.setPatient(patient(id));
+        invoice.setPatientName("Patient" + id + " Benchmark");
+        invoice.setPatientPhone("+25670" + String.format("%07d", id));
+        invoice.setUser(user(1L));
+        invoice.setDoctorName("Doctor 1");
+        invoice.setDoctorSpecialty("Ophthalmology");
+        invoice.setInvoicePurpose("TREATMENT_INVOICE_BILL");
+        invoice.setInsuranceProvider(id % 3 == 0 ? "AAR" : null);
+        invoice.setNotes("Invoice generated from submitted treatments for visit session " + id);
+        invoice.setInternalNotes("Benchmark fixture");
+        invoice.setCreatedAt(BASE_TIME);
+        invoice.setUpdatedAt(BASE_TIME);
+        invoice.setCreatedBy("cashier");
+        invoice.setUpdatedBy("cashier");
+
+        InventoryCategory category = new InventoryCategory();
+        category.setId(1L);
+        category.setName("Medicines");
+
+        List<InvoiceItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            InventoryItem inventoryItem = new InventoryItem();
+            inventoryItem.setId((long) i + 1);
+            inventoryItem.setName("Item " + i);
+            inventoryItem.setSku("SKU-" + i);
+            inventoryItem.setUnitPrice(new BigDecimal("2500.00"));
+            inventoryItem.setCategory(category);
+
+            InvoiceItem item = new InvoiceItem();
+            item.setId(id * 1000 + i);
+            item.setInvoice(invoice);
+            item.setItemName(inventoryItem.getName());
+            item.setItemDescription("Treatment item (" + inventoryItem.getSku() + ")");
+            item.setItemType("TREATMENT");
+            item.setQuantity(1 + i % 3);
+            item.setUnitPrice(inventoryItem.getUnitPrice());
+            item.setDiscountPercentage(BigDecimal.ZERO);
+            item.setTaxPercentage(new BigDecimal("18.00"));
+            item.setInsuranceCovered(false);
+            item.setInsuranceCoveragePercentage(BigDecimal.ZERO);
+            item.setInventoryItem(inventoryItem);
+            item.setSku(inventoryItem.getSku());
+            item.calculateTotals();
+            items.add(item);
+        }
+        invoice.setInvoiceItems(items);
+        invoice.calculateTotals();
+        return invoice;
+    }
+
+    public static List<Invoice> invoices(int count, int itemsPerInvoice) {
+        List<Invoice> invoices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            invoices.add(invoice(i + 1L, itemsPerInvoice));
+        }
+        return invoices;
+    }
+
+    public static PatientVisitSession visitSession(long id) {
+        PatientVisitSession session = new PatientVisitSession();
+        session.setId(id);
+        session.setPatient(patient(id));
+        session.setVisitDate(BASE_TIME.plusMinutes(id));
+        session.setVisitPurpose(PatientVisitSession.VisitPurpose.NEW_CONSULTATION);
+        session.setStatus(PatientVisitSession.VisitStatus.TRIAGE_COMPLETED);
+        session.setCurrentStage(PatientVisitSession.VisitStage.BASIC_REFRACTION_EXAM);
+        session.setConsultationFeePaid(true);
+        session.setConsultationFeeAmount(new BigDecimal("20000.00"));
+        session.setPaymentMethod(PatientVisitSession.PaymentMethod.CASH);
+        session.setChiefComplaint("Blurred vision in the left eye");
+        session.setEmergencyLevel(PatientVisitSession.EmergencyLevel.NONE);
+        session.setInvoice(invoice(id, 1));
+        session.setCreatedAt(BASE_TIME);
+        session.setUpdatedAt(BASE_TIME);
+        session.setCreatedBy("reception");
+        session.setUpdatedBy("reception");
+        return session;
+    }
+}
@@ -0,0 +1,116 @@
+package com.rossumtechsystems.eyesante_backend.benchmark;
+
+import com.rossumtechsystems.eyesante_backend.config.ConcurrencyLimitedDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Platform Tomcat threads versus virtual threads under a mixed I/O-bound request load.
+ *
+ * Each JMH thread is a client submitting one request and waiting for it, so SampleTime
+ * percentiles include queueing in the server executor. A request holds a "connection" from a
+ * 5-slot pool for a short query and, for a share of requests, blocks on a slow SMTP-like call
+ * outside the transaction, the case that starves a 200-thread Tomcat pool.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.virtualThreadScheduler.parallelism=4")
+@Threads(400)
+@State(Scope.Benchmark)
+public class ExecutionModelBenchmark {
+
+    private static final int POOL_SIZE = 5;
+    private static final long QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long SMTP_NANOS = TimeUnit.MILLISECONDS.toNanos(150);
+
+    @Param({"platform", "virtual"})
+    public String executor;
+
+    @Param({"false", "true"})
+    public boolean concurrencyGuard;
+
+    @Param({"0.0", "0.05"})
+    public double slowIoShare;
+
+    private ExecutorService server;
+    private DataSource dataSource;
+
+    @Setup
+    public void setUp() {
+        server = "virtual".equals(executor)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(200); // server.tomcat.threads.max in production
+        DataSource pool = new SimulatedPool(POOL_SIZE, 20_000);
+        dataSource = concurrencyGuard ? new ConcurrencyLimitedDataSource(pool, POOL_SIZE, 20_000) : pool;
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.shutdownNow();
+    }
+
+    @Benchmark
+    public void request() throws Exception {
+        server.submit(() -> {
+            if (ThreadLocalRandom.current().nextDouble() < slowIoShare) {
+                LockSupport.parkNanos(SMTP_NANOS);
+            }
+            try (Connection ignored = dataSource.getConnection()) {
+                LockSupport.parkNanos(QUERY_NANOS);
+            }
+            return null;
+        }).get();
+    }
+
+    /**
+     * Stand-in for Hikari: a bounded, unfair set of connection slots with a connection timeout.
+     */
+    static class SimulatedPool extends AbstractDataSource {
+
+        private final Semaphore slots;
+        private final long timeoutMillis;
+
+        SimulatedPool(int size, long timeoutMillis) {
+            this.slots = new Semaphore(size);
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            try {
+                if (!slots.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException("Connection is not available");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted", e);
+            }
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if ("close".equals(method.getName())) {
+                            slots.release();
+                        }
+                        return null;
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.rossumtechsystems.eyesante_backend.benchmark;
+
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceDto;
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceItemDto;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.entity.InvoiceItem;
+import com.rossumtechsystems.eyesante_backend.service.FinanceService;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping cost of FinanceService's private convertToDto and convertItemToDto for
+ * invoices of different sizes, called through method handles so the service keeps them private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FinanceMappingBenchmark {
+
+    // Constant handles, so the JIT inlines the call as it would a direct one
+    static final MethodHandle CONVERT_TO_DTO = privateMethod("convertToDto", InvoiceDto.class, Invoice.class);
+    static final MethodHandle CONVERT_ITEM_TO_DTO = privateMethod("convertItemToDto", InvoiceItemDto.class, InvoiceItem.class);
+
+    @Param({"1", "10", "50"})
+    private int itemsPerInvoice;
+
+    private FinanceService financeService;
+    private Invoice invoice;
+    private InvoiceItem item;
+
+    @Setup
+    public void setUp() {
+        // convertToDto only reads the entity graph, so no collaborators are needed
+        financeService = new FinanceService();
+        invoice = BenchmarkFixtures.invoice(42L, itemsPerInvoice);
+        item = invoice.getInvoiceItems().get(0);
+    }
+
+    @Benchmark
+    public InvoiceDto convertToDto() throws Throwable {
+        return (InvoiceDto) CONVERT_TO_DTO.invokeExact(financeService, invoice);
+    }
+
+    @Benchmark
+    public InvoiceItemDto convertItemToDto() throws Throwable {
+        return (InvoiceItemDto) CONVERT_ITEM_TO_DTO.invokeExact(financeService, item);
+    }
+
+    private static MethodHandle privateMethod(String name, Class<?> returnType, Class<?> parameterType) {
+        try {
+            return MethodHandles.privateLookupIn(FinanceService.class, MethodHandles.lookup())
+                    .findVirtual(FinanceService.class, name, MethodType.methodType(returnType, parameterType));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("FinanceService." + name + " not found", e);
+        }
+    }
+}
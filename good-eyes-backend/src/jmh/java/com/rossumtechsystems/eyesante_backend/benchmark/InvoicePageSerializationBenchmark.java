@@ -0,0 +1,50 @@
+package com.rossumtechsystems.eyesante_backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rossumtechsystems.eyesante_backend.config.JacksonConfig;
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceDto;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.service.FinanceService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of large {@code Page<InvoiceDto>} payloads with the application's
+ * {@link JacksonConfig} mapper, as returned by the paged finance endpoints.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvoicePageSerializationBenchmark {
+
+    @Param({"20", "100", "500"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<InvoiceDto> page;
+
+    @Setup
+    public void setUp() throws Throwable {
+        objectMapper = new JacksonConfig().objectMapper();
+        FinanceService financeService = new FinanceService();
+        List<InvoiceDto> content = new ArrayList<>();
+        for (Invoice invoice : BenchmarkFixtures.invoices(pageSize, 5)) {
+            content.add((InvoiceDto) FinanceMappingBenchmark.CONVERT_TO_DTO.invokeExact(financeService, invoice));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), pageSize * 50L);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,49 @@
+package com.rossumtechsystems.eyesante_backend.benchmark;
+
+import com.rossumtechsystems.eyesante_backend.entity.User;
+import com.rossumtechsystems.eyesante_backend.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing and verification cost of {@link JwtTokenProvider}. Verification runs on every
+ * authenticated request through the JWT filter, so it is the number to watch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private Authentication authentication;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        User user = BenchmarkFixtures.user(1L);
+        authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        accessToken = tokenProvider.generateAccessToken(authentication).getToken();
+    }
+
+    @Benchmark
+    public String sign() {
+        return tokenProvider.generateAccessToken(authentication).getToken();
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return tokenProvider.validateToken(accessToken);
+    }
+
+    @Benchmark
+    public String verifyAndExtractUsername() {
+        return tokenProvider.getUsernameFromJWT(accessToken);
+    }
+}
@@ -0,0 +1,31 @@
+package com.rossumtechsystems.eyesante_backend.benchmark;
+
+import com.rossumtechsystems.eyesante_backend.dto.PatientVisitSessionDto;
+import com.rossumtechsystems.eyesante_backend.entity.PatientVisitSession;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link PatientVisitSessionDto} entity constructor used by every visit list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatientVisitSessionDtoBenchmark {
+
+    private PatientVisitSession visitSession;
+
+    @Setup
+    public void setUp() {
+        visitSession = BenchmarkFixtures.visitSession(7L);
+    }
+
+    @Benchmark
+    public PatientVisitSessionDto construct() {
+        return new PatientVisitSessionDto(visitSession);
+    }
+}
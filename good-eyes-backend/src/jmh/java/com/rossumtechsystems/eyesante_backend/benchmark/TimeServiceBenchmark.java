@@ -0,0 +1,45 @@
+package com.rossumtechsystems.eyesante_backend.benchmark;
+
+import com.rossumtechsystems.eyesante_backend.service.TimeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TimeService} is called from auditing and most service methods, so its
+ * zone conversions sit on nearly every write path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeServiceBenchmark {
+
+    private final TimeService timeService = new TimeService();
+    private final LocalDateTime utcTime = LocalDateTime.of(2025, 1, 6, 5, 30);
+
+    @Benchmark
+    public LocalDate currentDate() {
+        return timeService.getCurrentDate();
+    }
+
+    @Benchmark
+    public LocalDateTime currentDateTime() {
+        return timeService.getCurrentDateTime();
+    }
+
+    @Benchmark
+    public LocalDateTime fromUtcToUganda() {
+        return timeService.fromUtcToUganda(utcTime);
+    }
+
+    @Benchmark
+    public LocalDateTime toUtc() {
+        return timeService.toUtc(utcTime, ZoneId.of("Africa/Kampala"));
+    }
+}
@@ -0,0 +1,249 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Branch scoping end to end: half of the generated visits and invoices are moved to a second
+ * clinic and the super admin is put in it, so a fresh login carries that branch in its token.
+ *
+ * <p>Through the real controllers, every list shape (full, {@code ?view=summary} and
+ * {@code ?fields=}) must return only the branch's rows with the branch's total, and the financial
+ * summary must count only its invoices, also right after a caller outside any branch asked for
+ * the same range (the coalescing cache is per branch). The cross-branch summary must match SQL
+ * grouped by clinic. The branch-scoped list queries are run under {@code EXPLAIN} and must read
+ * an index led by {@code clinic_id}. Rows and the user are put back afterwards.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.BranchScopingCheck
+ * </pre>
+ */
+public class BranchScopingCheck {
+
+    private record ListEndpoint(String name, String table, String path, String fields) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 20_000);
+        int years = Integer.getInteger("loadtest.years", 2);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 3);
+        int pageSize = Integer.getInteger("loadtest.pageSize", 50);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/branch-scoping-report.json");
+
+        List<ListEndpoint> endpoints = List.of(
+                new ListEndpoint("invoices", "invoices", "/api/finance/invoices?page=0&size=" + pageSize,
+                        "invoiceNumber,invoiceDate,balanceDue,status"),
+                new ListEndpoint("visits", "patient_visit_sessions", "/api/patient-visit-sessions?page=0&size=" + pageSize,
+                        "patientName,visitDate,status"));
+        String range = "startDate=2000-01-01&endDate=" + LocalDate.now().plusDays(1);
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> violations = new ArrayList<>();
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            JdbcTemplate jdbcTemplate = environment.jdbcTemplate();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    environment.context().getBean(PlatformTransactionManager.class));
+            Map<String, Object> report = new LinkedHashMap<>();
+
+            Long branchId = transactionTemplate.execute(status -> {
+                Long id = jdbcTemplate.queryForObject("""
+                        INSERT INTO clinics (name, code, is_active, is_default)
+                        VALUES ('Load Test Branch', 'LT2', TRUE, FALSE)
+                        RETURNING id
+                        """, Long.class);
+                jdbcTemplate.update("UPDATE patient_visit_sessions SET clinic_id = ? WHERE id % 2 = 0", id);
+                jdbcTemplate.update("UPDATE invoices SET clinic_id = ? WHERE id % 2 = 0", id);
+                jdbcTemplate.update("UPDATE users SET clinic_id = ? WHERE username = 'superadmin'", id);
+                return id;
+            });
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute("ANALYZE"));
+
+            try {
+                LatencyRecorder recorder = new LatencyRecorder();
+                LoadTestClient branchClient = environment.client(recorder);
+                // Taken out of the branch after the first login, whose token keeps carrying it
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.update("UPDATE users SET clinic_id = NULL WHERE username = 'superadmin'"));
+                LoadTestClient chainClient = environment.client(recorder);
+
+                System.out.printf("%n%-10s %-8s %10s %10s %6s%n", "list", "shape", "total", "expected", "rows");
+                for (ListEndpoint endpoint : endpoints) {
+                    long expected = jdbcTemplate.queryForObject(
+                            "SELECT COUNT(*) FROM " + endpoint.table() + " WHERE clinic_id = ?", Long.class, branchId);
+                    Map<String, Object> endpointReport = new LinkedHashMap<>();
+                    Map<String, String> shapes = new LinkedHashMap<>();
+                    shapes.put("full", endpoint.path());
+                    shapes.put("summary", endpoint.path() + "&view=summary");
+                    shapes.put("fields", endpoint.path() + "&fields=" + endpoint.fields());
+                    for (Map.Entry<String, String> shape : shapes.entrySet()) {
+                        String label = endpoint.name() + " " + shape.getKey();
+                        JsonNode page = branchClient.call(label, "GET", shape.getValue(), null);
+                        List<Long> ids = new ArrayList<>();
+                        page.path("content").forEach(row -> ids.add(row.path("id").asLong()));
+                        long total = page.path("totalElements").asLong();
+                        if (total != expected) {
+                            violations.add(label + " total " + total + ", branch has " + expected);
+                        }
+                        if (ids.isEmpty()) {
+                            violations.add(label + " returned no rows");
+                        } else {
+                            String idList = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+                            Long foreign = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + endpoint.table()
+                                    + " WHERE id IN (" + idList + ") AND clinic_id <> ?", Long.class, branchId);
+                            if (foreign != null && foreign > 0) {
+                                violations.add(label + " returned " + foreign + " rows of other branches");
+                            }
+                        }
+                        System.out.printf("%-10s %-8s %,10d %,10d %6d%n", endpoint.name(), shape.getKey(), total, expected, ids.size());
+                        endpointReport.put(shape.getKey(), Map.of("total", total, "expected", expected, "rows", ids.size()));
+                    }
+                    report.put(endpoint.name(), endpointReport);
+                }
+
+                // Same range from outside any branch first, so a shared cache entry would leak its totals
+                long allInvoices = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM invoices", Long.class);
+                long branchInvoices = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM invoices WHERE clinic_id = ?", Long.class, branchId);
+                long chainCount = chainClient.call("summary (all branches)", "GET", "/api/finance/summary?" + range, null)
+                        .path("totalInvoices").asLong();
+                long branchCount = branchClient.call("summary (branch)", "GET", "/api/finance/summary?" + range, null)
+                        .path("totalInvoices").asLong();
+                System.out.printf("%nSummary invoices: all branches %,d (SQL %,d), branch %,d (SQL %,d)%n",
+                        chainCount, allInvoices, branchCount, branchInvoices);
+                if (chainCount != allInvoices) {
+                    violations.add("Summary outside a branch counted " + chainCount + " invoices, SQL " + allInvoices);
+                }
+                if (branchCount != branchInvoices) {
+                    violations.add("Branch summary counted " + branchCount + " invoices, SQL " + branchInvoices);
+                }
+                report.put("summary", Map.of("allBranches", chainCount, "branch", branchCount));
+
+                checkByClinic(chainClient, jdbcTemplate, range, violations, report);
+                checkIndexUse(jdbcTemplate, mapper, branchId, pageSize, violations, report);
+            } finally {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update("UPDATE users SET clinic_id = NULL WHERE clinic_id = ?", branchId);
+                    jdbcTemplate.update("UPDATE patient_visit_sessions SET clinic_id = 1 WHERE clinic_id = ?", branchId);
+                    jdbcTemplate.update("UPDATE invoices SET clinic_id = 1 WHERE clinic_id = ?", branchId);
+                    jdbcTemplate.update("DELETE FROM clinics WHERE id = ?", branchId);
+                });
+            }
+
+            report.put("violations", violations);
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+
+        if (!violations.isEmpty()) {
+            System.out.println();
+            violations.forEach(v -> System.out.println("VIOLATION: " + v));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The cross-branch summary row for each clinic against the same sums in SQL
+     */
+    private static void checkByClinic(LoadTestClient client, JdbcTemplate jdbcTemplate, String range,
+                                      List<String> violations, Map<String, Object> report) {
+        JsonNode rows = client.call("summary by clinic", "GET", "/api/finance/summary/by-clinic?" + range, null);
+        Map<Long, Map<String, Object>> expected = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                SELECT clinic_id, COUNT(*) AS invoices,
+                       COALESCE(SUM(total_amount) FILTER (WHERE payment_status = 'PAID'), 0) AS revenue,
+                       COALESCE(SUM(balance_due) FILTER (WHERE payment_status <> 'PAID'), 0) AS outstanding
+                FROM invoices GROUP BY clinic_id
+                """, rs -> {
+            expected.put(rs.getLong("clinic_id"), Map.of("invoices", rs.getLong("invoices"),
+                    "revenue", rs.getBigDecimal("revenue"), "outstanding", rs.getBigDecimal("outstanding")));
+        });
+
+        System.out.printf("%n%-6s %-24s %10s %16s %16s%n", "clinic", "name", "invoices", "revenue", "outstanding");
+        List<Map<String, Object>> reported = new ArrayList<>();
+        for (JsonNode row : rows) {
+            long clinicId = row.path("clinicId").asLong();
+            long invoices = row.path("totalInvoices").asLong();
+            BigDecimal revenue = row.path("totalRevenue").decimalValue();
+            BigDecimal outstanding = row.path("totalOutstanding").decimalValue();
+            System.out.printf("%-6d %-24s %,10d %,16.2f %,16.2f%n", clinicId, row.path("clinicName").asText(),
+                    invoices, revenue, outstanding);
+            reported.add(Map.of("clinicId", clinicId, "invoices", invoices, "revenue", revenue, "outstanding", outstanding));
+
+            Map<String, Object> sql = expected.remove(clinicId);
+            long sqlInvoices = sql != null ? (Long) sql.get("invoices") : 0;
+            BigDecimal sqlRevenue = sql != null ? (BigDecimal) sql.get("revenue") : BigDecimal.ZERO;
+            BigDecimal sqlOutstanding = sql != null ? (BigDecimal) sql.get("outstanding") : BigDecimal.ZERO;
+            if (invoices != sqlInvoices || revenue.compareTo(sqlRevenue) != 0 || outstanding.compareTo(sqlOutstanding) != 0) {
+                violations.add("Clinic " + clinicId + " by-clinic totals " + invoices + "/" + revenue + "/" + outstanding
+                        + ", SQL " + sqlInvoices + "/" + sqlRevenue + "/" + sqlOutstanding);
+            }
+        }
+        if (!expected.isEmpty()) {
+            violations.add("Clinics with invoices missing from the by-clinic summary: " + expected.keySet());
+        }
+        report.put("byClinic", reported);
+    }
+
+    /**
+     * The list queries SparseFieldsService runs for a branch read an index led by clinic_id
+     */
+    private static void checkIndexUse(JdbcTemplate jdbcTemplate, ObjectMapper mapper, Long branchId, int pageSize,
+                                      List<String> violations, Map<String, Object> report) throws Exception {
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("invoices", "SELECT i.id FROM invoices i JOIN patients p ON p.id = i.patient_id "
+                + "WHERE i.clinic_id = ? AND (TRUE) ORDER BY i.invoice_date DESC, i.id DESC LIMIT ? OFFSET 0");
+        queries.put("visits", "SELECT v.id FROM patient_visit_sessions v LEFT JOIN patients p ON p.id = v.patient_id "
+                + "WHERE v.clinic_id = ? AND (TRUE) ORDER BY v.visit_date DESC, v.id DESC LIMIT ? OFFSET 0");
+
+        System.out.printf("%n%-10s %10s  %s%n", "query", "exec ms", "indexes");
+        Map<String, Object> plans = new LinkedHashMap<>();
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            String json = jdbcTemplate.queryForObject("EXPLAIN (ANALYZE, FORMAT JSON) " + query.getValue(),
+                    String.class, branchId, pageSize);
+            JsonNode plan = mapper.readTree(json).get(0);
+            Set<String> indexes = new TreeSet<>();
+            collectIndexes(plan.get("Plan"), indexes);
+            double executionMillis = plan.get("Execution Time").asDouble();
+            System.out.printf("%-10s %10.1f  %s%n", query.getKey(), executionMillis, indexes);
+            if (indexes.stream().noneMatch(name -> name.contains("clinic_id"))) {
+                violations.add(query.getKey() + " list for a branch used no clinic_id index: " + indexes);
+            }
+            plans.put(query.getKey(), Map.of("indexes", indexes, "executionMillis", executionMillis));
+        }
+        report.put("plans", plans);
+    }
+
+    private static void collectIndexes(JsonNode node, Set<String> indexes) {
+        if (node == null) {
+            return;
+        }
+        JsonNode loops = node.get("Actual Loops");
+        if ((loops == null || loops.asLong() > 0) && node.has("Index Name")) {
+            indexes.add(node.get("Index Name").asText());
+        }
+        JsonNode children = node.get("Plans");
+        if (children != null) {
+            children.forEach(child -> collectIndexes(child, indexes));
+        }
+    }
+}
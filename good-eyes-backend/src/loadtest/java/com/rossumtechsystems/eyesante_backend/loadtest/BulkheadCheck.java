@@ -0,0 +1,191 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rossumtechsystems.eyesante_backend.config.AdaptiveConcurrencyLimiter;
+import com.rossumtechsystems.eyesante_backend.config.Bulkheads;
+
+import java.io.File;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Floods the reporting pool with heavy requests while reception keeps registering patients, and
+ * checks that the bulkheads keep the two apart.
+ *
+ * <p>{@code loadtest.reportThreads} clients request the full patient list, the unfiltered visit
+ * search and financial summaries over shifting year-long ranges (so coalescing cannot merge them)
+ * as fast as they are answered, for {@code loadtest.seconds}. Meanwhile
+ * {@code loadtest.clinicalThreads} clients register patients and read invoices. No registration
+ * or invoice read may fail, registration p95 must stay within
+ * {@code loadtest.registrationP95Millis}, the reporting pool must never run more requests than its
+ * max-limit, and surplus reports must be refused with 503 and a Retry-After header rather than
+ * wait out the connection timeout. Limits, queues and rejections of every pool are reported.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.BulkheadCheck
+ * </pre>
+ */
+public class BulkheadCheck {
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 5_000);
+        int years = Integer.getInteger("loadtest.years", 2);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 2);
+        int reportThreads = Integer.getInteger("loadtest.reportThreads", 24);
+        int clinicalThreads = Integer.getInteger("loadtest.clinicalThreads", 4);
+        int seconds = Integer.getInteger("loadtest.seconds", 30);
+        long registrationBudgetMillis = Long.getLong("loadtest.registrationP95Millis", 2_000L);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/bulkhead-report.json");
+
+        List<String> violations = Collections.synchronizedList(new ArrayList<>());
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            Bulkheads bulkheads = environment.context().getBean(Bulkheads.class);
+            LatencyRecorder recorder = new LatencyRecorder();
+            LoadTestClient client = environment.client(recorder);
+            List<Long> invoiceIds = environment.jdbcTemplate().queryForList(
+                    "SELECT id FROM invoices ORDER BY id DESC LIMIT 200", Long.class);
+
+            AtomicInteger reportsServed = new AtomicInteger();
+            AtomicInteger reportsRefused = new AtomicInteger();
+            AtomicInteger clinicalFailures = new AtomicInteger();
+            AtomicLong phones = new AtomicLong();
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+            ExecutorService executor = Executors.newFixedThreadPool(reportThreads + clinicalThreads);
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < reportThreads; t++) {
+                Random random = new Random(seed + t);
+                futures.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpResponse<byte[]> response = report(client, random);
+                        if (response.statusCode() == 503) {
+                            reportsRefused.incrementAndGet();
+                            if (response.headers().firstValue("Retry-After").isEmpty()) {
+                                violations.add("503 without Retry-After");
+                            }
+                        } else if (response.statusCode() == 200) {
+                            reportsServed.incrementAndGet();
+                        } else {
+                            violations.add("Report returned " + response.statusCode());
+                        }
+                    }
+                }));
+            }
+            for (int t = 0; t < clinicalThreads; t++) {
+                Random random = new Random(seed * 31 + t);
+                futures.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            Map<String, Object> patient = new HashMap<>();
+                            patient.put("firstName", "Bulkhead" + random.nextInt(1_000_000));
+                            patient.put("lastName", "Check");
+                            patient.put("gender", random.nextBoolean() ? "Male" : "Female");
+                            patient.put("ageInYears", 5 + random.nextInt(80));
+                            patient.put("phone", "+2567" + String.format("%08d", phones.incrementAndGet()));
+                            client.call("POST /api/patients", "POST", "/api/patients", patient);
+                            if (!invoiceIds.isEmpty()) {
+                                long invoiceId = invoiceIds.get(random.nextInt(invoiceIds.size()));
+                                client.call("GET /api/finance/invoices/{id}", "GET", "/api/finance/invoices/" + invoiceId, null);
+                            }
+                        } catch (IllegalStateException e) {
+                            clinicalFailures.incrementAndGet();
+                            violations.add("Clinical request failed: " + e.getMessage());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            long elapsed = System.nanoTime() - start;
+
+            Map<String, LatencyRecorder.EndpointStats> stats = recorder.snapshot(elapsed);
+            System.out.printf("%n%-36s %8s %8s %10s %10s %10s%n", "endpoint", "count", "errors", "p50 ms", "p95 ms", "max ms");
+            stats.forEach((endpoint, s) -> System.out.printf("%-36s %8d %8d %10.1f %10.1f %10.1f%n",
+                    endpoint, s.getCount(), s.getErrors(), s.getP50Millis(), s.getP95Millis(), s.getMaxMillis()));
+
+            List<AdaptiveConcurrencyLimiter.Stats> pools = bulkheads.getStats();
+            System.out.printf("%n%-15s %6s %6s %9s %9s %9s %9s %11s %11s%n", "pool", "limit", "peak",
+                    "accepted", "delayed", "rejected", "timedOut", "wait ms", "latency ms");
+            for (AdaptiveConcurrencyLimiter.Stats pool : pools) {
+                System.out.printf("%-15s %6d %6d %9d %9d %9d %9d %11.1f %11.1f%n", pool.pool(), pool.limit(),
+                        pool.peakInFlight(), pool.accepted(), pool.delayed(), pool.rejected(), pool.timedOut(),
+                        pool.avgQueueWaitMillis(), pool.latencyMillis());
+                if (pool.peakInFlight() > pool.maxLimit()) {
+                    violations.add(pool.pool() + " ran " + pool.peakInFlight() + " requests at once, above its max-limit "
+                            + pool.maxLimit());
+                }
+            }
+            System.out.printf("%nReports served %d, refused %d%n", reportsServed.get(), reportsRefused.get());
+
+            LatencyRecorder.EndpointStats registrations = stats.get("POST /api/patients");
+            if (registrations == null || registrations.getCount() == 0) {
+                violations.add("No registration completed");
+            } else if (registrations.getP95Millis() > registrationBudgetMillis) {
+                violations.add("Registration p95 " + registrations.getP95Millis() + " ms above "
+                        + registrationBudgetMillis + " ms while reports ran");
+            }
+            AdaptiveConcurrencyLimiter.Stats reporting = pools.stream()
+                    .filter(pool -> pool.pool().equals("reporting")).findFirst().orElse(null);
+            if (reporting == null) {
+                violations.add("No reporting pool configured");
+            } else if (reportThreads > reporting.maxLimit() + reporting.maxQueue() && reportsRefused.get() == 0) {
+                violations.add(reportThreads + " report clients were never refused");
+            }
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("seconds", seconds);
+            report.put("reportThreads", reportThreads);
+            report.put("clinicalThreads", clinicalThreads);
+            report.put("reportsServed", reportsServed.get());
+            report.put("reportsRefused", reportsRefused.get());
+            report.put("clinicalFailures", clinicalFailures.get());
+            Map<String, Object> endpoints = new LinkedHashMap<>();
+            stats.forEach((endpoint, s) -> endpoints.put(endpoint, s.toMap()));
+            report.put("endpoints", endpoints);
+            report.put("pools", pools);
+            report.put("violations", violations);
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+
+        if (!violations.isEmpty()) {
+            System.out.println();
+            violations.stream().distinct().limit(50).forEach(v -> System.out.println("VIOLATION: " + v));
+            System.exit(1);
+        }
+    }
+
+    private static HttpResponse<byte[]> report(LoadTestClient client, Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return client.get("GET /api/patients/all", "/api/patients/all", Map.of());
+            case 1:
+                return client.get("GET /api/patient-visit-sessions/search", "/api/patient-visit-sessions/search", Map.of());
+            default:
+                LocalDate end = LocalDate.now().minusDays(random.nextInt(365));
+                return client.get("GET /api/finance/summary", "/api/finance/summary?startDate=" + end.minusYears(1)
+                        + "&endDate=" + end, Map.of());
+        }
+    }
+}
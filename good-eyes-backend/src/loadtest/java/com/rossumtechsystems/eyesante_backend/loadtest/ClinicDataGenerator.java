@@ -0,0 +1,158 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Seeds a clinic-sized history with set-based SQL so 100k patients and several years of
+ * visits load in seconds. Everything runs in one transaction so {@code setseed} applies
+ * to every statement on the same connection and each run produces the same dataset.
+ */
+public class ClinicDataGenerator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double seed;
+
+    public ClinicDataGenerator(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, double seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.seed = seed;
+    }
+
+    public void generate(int patients, int years, int visitsPerPatientPerYear) {
+        transactionTemplate.executeWithoutResult(status -> seed(patients, years, visitsPerPatientPerYear));
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute("ANALYZE"));
+    }
+
+    private void seed(int patients, int years, int visitsPerPatientPerYear) {
+        long start = System.currentTimeMillis();
+        jdbcTemplate.queryForList("SELECT setseed(?)", seed);
+
+        System.out.println("Seeding " + patients + " patients...");
+        jdbcTemplate.update("""
+            INSERT INTO patients (patient_number, first_name, last_name, gender, phone, age_in_years,
+                                  deleted, reception_timestamp, received_by, created_at, updated_at, created_by, updated_by)
+            SELECT 'LT-' || LPAD(g::TEXT, 7, '0'),
+                   'Patient' || g,
+                   'Load' || (g % 997),
+                   CASE WHEN random() < 0.5 THEN 'Male' ELSE 'Female' END,
+                   '+2567' || LPAD(g::TEXT, 8, '0'),
+                   (random() * 85)::INT,
+                   random() < 0.02,
+                   NOW() - (random() * (? * 365)) * INTERVAL '1 day',
+                   'loadtest',
+                   NOW() - (random() * (? * 365)) * INTERVAL '1 day',
+                   NOW(), 'loadtest', 'loadtest'
+            FROM generate_series(1, ?) AS g
+            """, years, years, patients);
+
+        // A fresh schema only has monthly partitions for recent history; cover the whole seeded range
+        for (String table : new String[]{"invoices", "invoice_items", "patient_visit_sessions"}) {
+            jdbcTemplate.queryForList("SELECT ensure_monthly_partitions(?, (CURRENT_DATE - ? * INTERVAL '1 year')::DATE, 1)",
+                    table, years);
+        }
+
+        System.out.println("Seeding visit history...");
+        jdbcTemplate.update("""
+            INSERT INTO patient_visit_sessions (patient_id, visit_date, visit_purpose, status, current_stage,
+                                                consultation_fee_paid, consultation_fee_amount, requires_triage,
+                                                requires_doctor_visit, is_emergency, created_at, updated_at, created_by, updated_by)
+            SELECT p.id,
+                   v.visit_date,
+                   (ARRAY['NEW_CONSULTATION','FOLLOW_UP','REVIEW','MEDICATION_REFILL'])[1 + (random() * 3)::INT],
+                   'COMPLETED', 'COMPLETED', TRUE, 20000, TRUE, TRUE, FALSE,
+                   v.visit_date, v.visit_date, 'loadtest', 'loadtest'
+            FROM patients p
+            CROSS JOIN LATERAL (
+                SELECT NOW() - (random() * (? * 365)) * INTERVAL '1 day' AS visit_date
+                FROM generate_series(1, GREATEST(1, (random() * ? * 2)::INT))
+            ) v
+            WHERE p.patient_number LIKE 'LT-%'
+            """, years, years * visitsPerPatientPerYear);
+
+        System.out.println("Seeding invoices for historical visits...");
+        jdbcTemplate.update("""
+            INSERT INTO invoices (invoice_number, invoice_date, due_date, patient_id, patient_name, patient_phone,
+                                  doctor_name, invoice_purpose, subtotal, tax_amount, discount_amount, total_amount,
+                                  amount_paid, balance_due, status, payment_status, payment_method, payment_date,
+                                  created_at, updated_at, created_by, updated_by)
+            SELECT 'LT-INV-' || v.id,
+                   v.visit_date::DATE, v.visit_date::DATE + 30,
+                   p.id, p.first_name || ' ' || p.last_name, p.phone,
+                   'Load Doctor', 'CONSULTATION_INVOICE',
+                   20000, 0, 0, 20000,
+                   CASE WHEN random() < 0.9 THEN 20000 ELSE 0 END, 0,
+                   'PAID', 'PAID', 'CASH', v.visit_date,
+                   v.visit_date, v.visit_date, 'loadtest', 'loadtest'
+            FROM patient_visit_sessions v
+            JOIN patients p ON p.id = v.patient_id
+            WHERE v.created_by = 'loadtest'
+            """);
+        jdbcTemplate.update("""
+            UPDATE invoices SET balance_due = total_amount - amount_paid,
+                                status = CASE WHEN amount_paid < total_amount THEN 'PENDING' ELSE 'PAID' END,
+                                payment_status = CASE WHEN amount_paid < total_amount THEN 'PENDING' ELSE 'PAID' END
+            WHERE created_by = 'loadtest' AND amount_paid < total_amount
+            """);
+        jdbcTemplate.update("""
+            INSERT INTO payments (invoice_id, amount, payment_method, received_at, created_by, clinic_id)
+            SELECT i.id, i.amount_paid, i.payment_method, i.payment_date, 'loadtest', i.clinic_id
+            FROM invoices i
+            WHERE i.created_by = 'loadtest' AND i.amount_paid > 0
+            """);
+        jdbcTemplate.update("""
+            INSERT INTO invoice_items (invoice_id, invoice_date, item_name, item_description, item_type, quantity,
+                                       unit_price, total_price, discount_amount, final_price, tax_amount,
+                                       created_at, updated_at, created_by, updated_by)
+            SELECT i.id, i.invoice_date, 'Consultation Fee', 'Eye consultation and examination', 'CONSULTATION', 1, 20000,
+                   20000, 0, 20000, 0, i.created_at, i.created_at, 'loadtest', 'loadtest'
+            FROM invoices i
+            WHERE i.created_by = 'loadtest'
+            """);
+
+        ensureCatalogue();
+        System.out.println("Dataset ready in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * The workload needs at least one diagnosis, procedure and stocked inventory item.
+     */
+    private void ensureCatalogue() {
+        jdbcTemplate.update("""
+            INSERT INTO diagnosis_categories (name, description, created_at, updated_at, created_by, updated_by)
+            SELECT 'Load Test', 'Load test diagnoses', NOW(), NOW(), 'loadtest', 'loadtest'
+            WHERE NOT EXISTS (SELECT 1 FROM diagnosis_categories WHERE name = 'Load Test')
+            """);
+        jdbcTemplate.update("""
+            INSERT INTO diagnoses (category_id, name, description, created_at, updated_at, created_by, updated_by)
+            SELECT c.id, 'Myopia', 'Load test diagnosis', NOW(), NOW(), 'loadtest', 'loadtest'
+            FROM diagnosis_categories c
+            WHERE c.name = 'Load Test' AND NOT EXISTS (SELECT 1 FROM diagnoses)
+            """);
+        jdbcTemplate.update("""
+            INSERT INTO procedures (name, description, category, price, is_active, created_at, updated_at, created_by, updated_by)
+            SELECT 'Visual field test', 'Load test procedure', 'DIAGNOSTIC', 35000, TRUE, NOW(), NOW(), 'loadtest', 'loadtest'
+            WHERE NOT EXISTS (SELECT 1 FROM procedures WHERE is_active = TRUE)
+            """);
+        jdbcTemplate.update("""
+            INSERT INTO inventory_items (name, description, sku, unit_price, quantity_in_stock, minimum_stock_level,
+                                         is_active, created_at, updated_at, created_by, updated_by)
+            SELECT 'Timolol 0.5% eye drops', 'Load test medicine', 'LT-TIMOLOL', 12000, 1000000, 0,
+                   TRUE, NOW(), NOW(), 'loadtest', 'loadtest'
+            WHERE NOT EXISTS (SELECT 1 FROM inventory_items WHERE sku = 'LT-TIMOLOL')
+            """);
+    }
+
+    public long diagnosisId() {
+        return jdbcTemplate.queryForObject("SELECT MIN(id) FROM diagnoses", Long.class);
+    }
+
+    public long procedureId() {
+        return jdbcTemplate.queryForObject("SELECT MIN(id) FROM procedures WHERE is_active = TRUE", Long.class);
+    }
+
+    public long inventoryItemId() {
+        return jdbcTemplate.queryForObject("SELECT id FROM inventory_items WHERE sku = 'LT-TIMOLOL'", Long.class);
+    }
+}
@@ -0,0 +1,151 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays a synthetic clinic day against the real controllers.
+ *
+ * <p>Boots the application on a random port against Postgres (Testcontainers by default,
+ * or an existing database via {@code -Dloadtest.jdbcUrl}), seeds a reproducible history,
+ * then drives concurrent patient journeys while dashboards refresh in the background.
+ * Per-endpoint throughput, p50/p95/p99 and Hibernate statements per request are printed
+ * and written to {@code target/loadtest-report.json}; the run fails when a read path exceeds its
+ * {@link StatementBudgets statement budget}.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.patients=100000 -Dloadtest.dayPatients=400 -Dloadtest.concurrency=24
+ * </pre>
+ */
+public class ClinicDayLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 100_000);
+        int years = Integer.getInteger("loadtest.years", 3);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 2);
+        int dayPatients = Integer.getInteger("loadtest.dayPatients", 300);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/loadtest-report.json");
+
+        boolean budgetsExceeded = false;
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            ClinicDataGenerator generator = environment.generator();
+            LatencyRecorder recorder = new LatencyRecorder();
+            LoadTestClient client = environment.client(recorder);
+            ClinicDayWorkload workload = new ClinicDayWorkload(client, generator.diagnosisId(),
+                    generator.procedureId(), generator.inventoryItemId());
+
+            // Warm up once so JIT and connection setup do not skew the first percentiles
+            workload.runPatientJourney(new Random(seed));
+            recorder = new LatencyRecorder();
+            client = environment.client(recorder);
+            workload = new ClinicDayWorkload(client, generator.diagnosisId(),
+                    generator.procedureId(), generator.inventoryItemId());
+            StatementCounter.reset();
+
+            String today = LocalDate.now(ZoneId.of("Africa/Kampala")).toString();
+            ScheduledExecutorService dashboards = Executors.newSingleThreadScheduledExecutor();
+            ClinicDayWorkload dashboardWorkload = workload;
+            dashboards.scheduleAtFixedRate(() -> {
+                try {
+                    dashboardWorkload.runDashboardRefresh(today);
+                } catch (RuntimeException e) {
+                    // recorded as an error by the client
+                }
+            }, 0, 2, TimeUnit.SECONDS);
+
+            ExecutorService clinicians = Executors.newFixedThreadPool(concurrency);
+            AtomicInteger failedJourneys = new AtomicInteger();
+            List<Future<?>> journeys = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < dayPatients; i++) {
+                Random random = new Random(seed + i);
+                ClinicDayWorkload journeyWorkload = workload;
+                journeys.add(clinicians.submit(() -> {
+                    try {
+                        journeyWorkload.runPatientJourney(random);
+                    } catch (RuntimeException e) {
+                        if (failedJourneys.incrementAndGet() <= 5) {
+                            System.err.println("Journey failed: " + e.getMessage());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> journey : journeys) {
+                journey.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            clinicians.shutdown();
+            dashboards.shutdownNow();
+
+            writeReport(reportPath, recorder.snapshot(elapsed), elapsed, dayPatients, failedJourneys.get(),
+                    patients, years, concurrency, seed);
+
+            List<String> violations = StatementBudgets.check(StatementCounter.statementsPerRequest());
+            violations.forEach(violation -> System.err.println("Statement budget exceeded - " + violation));
+            if (!violations.isEmpty() && Boolean.parseBoolean(System.getProperty("loadtest.enforceBudgets", "true"))) {
+                budgetsExceeded = true;
+            }
+        }
+        if (budgetsExceeded) {
+            System.exit(1);
+        }
+    }
+
+    private static void writeReport(String path, Map<String, LatencyRecorder.EndpointStats> stats, long elapsedNanos,
+                                    int dayPatients, int failedJourneys, int patients, int years,
+                                    int concurrency, long seed) throws Exception {
+        Map<String, Double> statements = StatementCounter.statementsPerRequest();
+
+        System.out.println();
+        System.out.printf("%-70s %7s %6s %8s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "stmts/req");
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((endpoint, s) -> {
+            Double perRequest = statements.get(endpoint);
+            System.out.printf("%-70s %7d %6d %8.2f %9.1f %9.1f %9.1f %9.1f%n", endpoint, s.getCount(), s.getErrors(),
+                    s.getThroughputPerSecond(), s.getP50Millis(), s.getP95Millis(), s.getP99Millis(),
+                    perRequest != null ? perRequest : Double.NaN);
+            Map<String, Object> entry = s.toMap();
+            entry.put("statementsPerRequest", perRequest);
+            endpoints.put(endpoint, entry);
+        });
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("%nJourneys: %d (%d failed) in %.1fs, %.2f journeys/s, %d Hibernate statements%n",
+                dayPatients, failedJourneys, seconds, dayPatients / seconds, StatementCounter.totalStatements());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("seed", seed);
+        report.put("seededPatients", patients);
+        report.put("seededYears", years);
+        report.put("concurrency", concurrency);
+        report.put("journeys", dayPatients);
+        report.put("failedJourneys", failedJourneys);
+        report.put("elapsedSeconds", seconds);
+        report.put("totalStatements", StatementCounter.totalStatements());
+        report.put("endpoints", endpoints);
+
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        System.out.println("Report written to " + file.getAbsolutePath());
+    }
+}
@@ -0,0 +1,138 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One patient's path through a clinic day: registration, visit creation, cashier,
+ * triage, refraction, main exam, diagnosis, procedure billing, pharmacy and payment,
+ * interleaved with the list and search screens staff keep open.
+ */
+public class ClinicDayWorkload {
+
+    private static final AtomicInteger PHONE_SEQUENCE = new AtomicInteger();
+
+    private final LoadTestClient client;
+    private final long diagnosisId;
+    private final long procedureId;
+    private final long inventoryItemId;
+
+    public ClinicDayWorkload(LoadTestClient client, long diagnosisId, long procedureId, long inventoryItemId) {
+        this.client = client;
+        this.diagnosisId = diagnosisId;
+        this.procedureId = procedureId;
+        this.inventoryItemId = inventoryItemId;
+    }
+
+    public void runPatientJourney(Random random) {
+        // Reception: look the patient up first, then register
+        client.call("GET /api/patients/search", "GET",
+                "/api/patients/search?query=Patient" + random.nextInt(100_000) + "&page=0&size=20", null);
+
+        Map<String, Object> patient = new HashMap<>();
+        patient.put("firstName", "Walkin" + random.nextInt(1_000_000));
+        patient.put("lastName", "Day");
+        patient.put("gender", random.nextBoolean() ? "Male" : "Female");
+        patient.put("ageInYears", 5 + random.nextInt(80));
+        patient.put("phone", "+2568" + String.format("%08d", PHONE_SEQUENCE.incrementAndGet()));
+        long patientId = client.call("POST /api/patients", "POST", "/api/patients", patient).path("id").asLong();
+
+        Map<String, Object> visitRequest = new HashMap<>();
+        visitRequest.put("patientId", patientId);
+        visitRequest.put("visitPurpose", "NEW_CONSULTATION");
+        visitRequest.put("chiefComplaint", "Blurred vision");
+        visitRequest.put("consultationFeeAmount", 20000);
+        visitRequest.put("consultationFeePaid", false);
+        JsonNode visit = client.call("POST /api/patient-visit-sessions", "POST", "/api/patient-visit-sessions", visitRequest);
+        long visitId = visit.path("id").asLong();
+
+        // Cashier: consultation fee
+        if (visit.hasNonNull("invoiceId")) {
+            pay(visit.path("invoiceId").asLong(), 20000);
+        }
+        client.call("GET /api/patient-visit-sessions/{id}", "GET", "/api/patient-visit-sessions/" + visitId, null);
+
+        // Triage
+        Map<String, Object> triage = new HashMap<>();
+        triage.put("visitSessionId", visitId);
+        triage.put("systolicBp", 110 + random.nextInt(40));
+        triage.put("diastolicBp", 70 + random.nextInt(20));
+        triage.put("iopRight", 12 + random.nextInt(10));
+        triage.put("iopLeft", 12 + random.nextInt(10));
+        triage.put("weightKg", 50.0 + random.nextInt(40));
+        client.call("POST /api/triage-measurements", "POST", "/api/triage-measurements", triage);
+        progress(visitId);
+
+        // Basic refraction
+        Map<String, Object> refraction = new HashMap<>();
+        refraction.put("visitSessionId", visitId);
+        client.call("POST /api/basic-refraction-exams", "POST", "/api/basic-refraction-exams", refraction);
+        progress(visitId);
+
+        // Doctor: main exam, diagnosis, procedure
+        Map<String, Object> mainExam = new HashMap<>();
+        mainExam.put("visitSessionId", visitId);
+        client.call("POST /api/main-exams", "POST", "/api/main-exams", mainExam);
+
+        Map<String, Object> diagnosis = new HashMap<>();
+        diagnosis.put("visitSessionId", visitId);
+        diagnosis.put("diagnosisId", diagnosisId);
+        diagnosis.put("eyeSide", "BOTH");
+        diagnosis.put("isPrimaryDiagnosis", true);
+        client.call("POST /api/patient-diagnoses", "POST", "/api/patient-diagnoses", diagnosis);
+
+        Map<String, Object> procedure = new HashMap<>();
+        procedure.put("visitSessionId", visitId);
+        procedure.put("procedureId", procedureId);
+        procedure.put("eyeSide", "LEFT");
+        client.call("POST /api/patient-procedures", "POST", "/api/patient-procedures", procedure);
+        JsonNode procedureInvoice = client.call("POST /api/appointments/visit-sessions/{id}/create-invoice-from-procedures",
+                "POST", "/api/appointments/visit-sessions/" + visitId + "/create-invoice-from-procedures", null);
+        pay(procedureInvoice.path("id").asLong(), procedureInvoice.path("balanceDue").asDouble());
+        progress(visitId);
+
+        // Pharmacy
+        Map<String, Object> treatment = new HashMap<>();
+        treatment.put("visitSessionId", visitId);
+        treatment.put("inventoryItemId", inventoryItemId);
+        treatment.put("quantity", 1);
+        treatment.put("dosage", "1 drop twice daily");
+        client.call("POST /api/patient-treatments", "POST", "/api/patient-treatments", treatment);
+        JsonNode treatmentInvoice = client.call("POST /api/appointments/visit-sessions/{id}/create-invoice-from-treatments",
+                "POST", "/api/appointments/visit-sessions/" + visitId + "/create-invoice-from-treatments", null);
+        pay(treatmentInvoice.path("id").asLong(), treatmentInvoice.path("balanceDue").asDouble());
+        progress(visitId);
+
+        // Screens refreshed by other staff while the patient moves through
+        client.call("GET /api/patient-visit-sessions", "GET", "/api/patient-visit-sessions?page=0&size=20", null);
+        client.call("GET /api/finance/invoices", "GET", "/api/finance/invoices?page=0&size=20", null);
+        client.call("GET /api/finance/invoices/patient/{patientId}", "GET",
+                "/api/finance/invoices/patient/" + patientId + "?page=0&size=20", null);
+        client.call("GET /api/finance/invoices/{id}", "GET", "/api/finance/invoices/" + treatmentInvoice.path("id").asLong(), null);
+        client.call("GET /api/finance/invoices/balance-due", "GET", "/api/finance/invoices/balance-due?page=0&size=20", null);
+        client.call("GET /api/patients/{id}/timeline", "GET", "/api/patients/" + patientId + "/timeline?page=0&size=50", null);
+    }
+
+    /**
+     * Dashboard traffic that runs alongside the patient journeys.
+     */
+    public void runDashboardRefresh(String today) {
+        client.call("GET /api/finance/summary", "GET",
+                "/api/finance/summary?startDate=" + today + "&endDate=" + today, null);
+        client.call("GET /api/patient-visit-sessions/statistics", "GET", "/api/patient-visit-sessions/statistics", null);
+    }
+
+    private void pay(long invoiceId, double amount) {
+        client.call("POST /api/finance/invoices/{id}/payment", "POST",
+                "/api/finance/invoices/" + invoiceId + "/payment?amount=" + amount + "&method=CASH&reference=LT", null);
+    }
+
+    private void progress(long visitId) {
+        client.call("PUT /api/patient-visit-sessions/{id}/progress-stage", "PUT",
+                "/api/patient-visit-sessions/" + visitId + "/progress-stage", null);
+    }
+}
@@ -0,0 +1,180 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rossumtechsystems.eyesante_backend.service.RequestCoalescer;
+
+import java.io.File;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fires bursts of identical dashboard requests at once and checks that each burst costs one
+ * execution of the underlying query.
+ *
+ * <p>For every {@code @Coalesced} dashboard endpoint, {@code loadtest.threads} requests are released
+ * together from behind a latch. Every response must carry the same body, and RequestCoalescer must
+ * count the whole burst as one execution, the other calls having joined it or been answered from
+ * its result. Once the window ({@code app.coalescing.ttl-ms}) has passed, a single request must
+ * execute again rather than see the old result. Database statements of a burst are reported next
+ * to those of a lone request, with the latency of both.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.CoalescingCheck
+ * </pre>
+ */
+public class CoalescingCheck {
+
+    private record Target(String name, String method, String path) {}
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 5_000);
+        int years = Integer.getInteger("loadtest.years", 2);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 2);
+        int threads = Integer.getInteger("loadtest.threads", 50);
+        int bursts = Integer.getInteger("loadtest.bursts", 5);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/coalescing-report.json");
+
+        List<String> violations = new ArrayList<>();
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            RequestCoalescer coalescer = environment.context().getBean(RequestCoalescer.class);
+            long ttlMillis = environment.context().getEnvironment()
+                    .getProperty("app.coalescing.ttl-ms", Long.class, 2000L);
+            LatencyRecorder recorder = new LatencyRecorder();
+            LoadTestClient client = environment.client(recorder);
+
+            LocalDate today = LocalDate.now();
+            List<Target> targets = List.of(
+                    new Target("financial summary", "FinanceService.getFinancialSummary",
+                            "/api/finance/summary?startDate=" + today.minusYears(years) + "&endDate=" + today),
+                    new Target("visit statistics", "PatientVisitSessionService.getVisitSessionStatistics",
+                            "/api/patient-visit-sessions/statistics"),
+                    new Target("low stock", "ConsumablesService.getLowStockItems",
+                            "/api/consumables/reports/low-stock"),
+                    new Target("stock value", "ConsumablesService.getTotalStockValue",
+                            "/api/consumables/reports/total-stock-value"),
+                    new Target("items count", "ConsumablesService.getTotalItemsCount",
+                            "/api/consumables/reports/total-items-count"));
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            System.out.printf("%n%-18s %8s %10s %10s %10s %10s %10s%n",
+                    "endpoint", "burst", "executions", "stmts solo", "stmts burst", "solo p50", "burst p95");
+            for (Target target : targets) {
+                // A lone request after the window: executes, and gives the per-request cost
+                Thread.sleep(ttlMillis + 100);
+                long executionsBefore = executions(coalescer, target.method());
+                StatementCounter.reset();
+                client.get(target.name() + " solo", target.path(), Map.of());
+                long soloStatements = StatementCounter.totalStatements();
+                if (executions(coalescer, target.method()) - executionsBefore != 1) {
+                    violations.add(target.name() + ": a request after the window did not execute");
+                }
+
+                long burstExecutions = 0;
+                long burstStatements = 0;
+                for (int b = 0; b < bursts; b++) {
+                    Thread.sleep(ttlMillis + 100);
+                    executionsBefore = executions(coalescer, target.method());
+                    StatementCounter.reset();
+                    List<byte[]> bodies = burst(executor, client, target, threads, violations);
+                    long executed = executions(coalescer, target.method()) - executionsBefore;
+                    burstExecutions += executed;
+                    burstStatements += StatementCounter.totalStatements();
+                    if (executed != 1) {
+                        violations.add(target.name() + ": burst " + b + " of " + threads + " executed " + executed + " times");
+                    }
+                    if (bodies.stream().anyMatch(body -> !Arrays.equals(body, bodies.get(0)))) {
+                        violations.add(target.name() + ": burst " + b + " returned different bodies");
+                    }
+                }
+
+                Map<String, LatencyRecorder.EndpointStats> stats = recorder.snapshot(1);
+                double soloP50 = stats.get(target.name() + " solo").getP50Millis();
+                double burstP95 = stats.get(target.name() + " burst").getP95Millis();
+                System.out.printf("%-18s %8d %10.1f %10d %10.1f %10.1f %10.1f%n", target.name(), threads,
+                        (double) burstExecutions / bursts, soloStatements, (double) burstStatements / bursts,
+                        soloP50, burstP95);
+
+                Map<String, Object> endpointReport = new LinkedHashMap<>();
+                endpointReport.put("path", target.path());
+                endpointReport.put("executionsPerBurst", (double) burstExecutions / bursts);
+                endpointReport.put("statementsSolo", soloStatements);
+                endpointReport.put("statementsPerBurst", (double) burstStatements / bursts);
+                endpointReport.put("solo", stats.get(target.name() + " solo").toMap());
+                endpointReport.put("burst", stats.get(target.name() + " burst").toMap());
+                report.put(target.name(), endpointReport);
+            }
+            executor.shutdown();
+
+            report.put("threads", threads);
+            report.put("bursts", bursts);
+            report.put("ttlMillis", ttlMillis);
+            report.put("coalescer", coalescer.getStats());
+            report.put("violations", violations);
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+
+        if (!violations.isEmpty()) {
+            System.out.println();
+            violations.forEach(v -> System.out.println("VIOLATION: " + v));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * {@code threads} requests released at the same moment; the bodies of those that succeeded
+     */
+    private static List<byte[]> burst(ExecutorService executor, LoadTestClient client, Target target, int threads,
+                                      List<String> violations) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<HttpResponse<byte[]>>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                ready.countDown();
+                go.await();
+                return client.get(target.name() + " burst", target.path(), Map.of());
+            }));
+        }
+        ready.await();
+        go.countDown();
+        List<byte[]> bodies = new ArrayList<>();
+        for (Future<HttpResponse<byte[]>> future : futures) {
+            try {
+                HttpResponse<byte[]> response = future.get();
+                if (response.statusCode() != 200) {
+                    violations.add(target.name() + ": burst request returned " + response.statusCode());
+                } else {
+                    bodies.add(response.body());
+                }
+            } catch (Exception e) {
+                violations.add(target.name() + ": burst request failed: " + e.getCause());
+            }
+        }
+        return bodies;
+    }
+
+    private static long executions(RequestCoalescer coalescer, String method) {
+        return coalescer.getStats().stream()
+                .filter(stats -> stats.method().equals(method))
+                .mapToLong(RequestCoalescer.MethodStats::executions)
+                .findFirst()
+                .orElse(0);
+    }
+}
@@ -0,0 +1,190 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rossumtechsystems.eyesante_backend.dto.PatientTimelineEntryDto;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.service.DomainEvent;
+import com.rossumtechsystems.eyesante_backend.service.DomainEventDispatcher;
+import com.rossumtechsystems.eyesante_backend.service.DomainEventPublisher;
+import com.rossumtechsystems.eyesante_backend.service.FinanceService;
+import com.rossumtechsystems.eyesante_backend.service.PatientTimelineCache;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks that domain events exist exactly for committed changes and reach other nodes.
+ *
+ * <p>A second connection LISTENs on domain_events as another replica would. {@code loadtest.payments}
+ * open invoices are settled through FinanceService: each must leave one INVOICE_PAID row in
+ * outbox_events and its NOTIFY must arrive; the delay from commit to arrival is reported. An event
+ * published in a transaction that rolls back must leave no row and send no notification. Finally
+ * an event is inserted as if by another node; the relay must hand it to this node's listeners,
+ * which evict the patient's cached timeline.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.DomainEventCheck
+ * </pre>
+ */
+public class DomainEventCheck {
+
+    private static final long WAIT_MILLIS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 5_000);
+        int years = Integer.getInteger("loadtest.years", 1);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 2);
+        int payments = Integer.getInteger("loadtest.payments", 200);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/domain-event-report.json");
+
+        List<String> violations = new ArrayList<>();
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            JdbcTemplate jdbcTemplate = environment.jdbcTemplate();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    environment.context().getBean(PlatformTransactionManager.class));
+            FinanceService financeService = environment.context().getBean(FinanceService.class);
+            DomainEventPublisher publisher = environment.context().getBean(DomainEventPublisher.class);
+            DomainEventDispatcher dispatcher = environment.context().getBean(DomainEventDispatcher.class);
+            PatientTimelineCache timelineCache = environment.context().getBean(PatientTimelineCache.class);
+            Map<String, Object> report = new LinkedHashMap<>();
+
+            try (Connection otherNode = environment.context().getBean(DataSource.class).getConnection()) {
+                otherNode.setAutoCommit(true);
+                try (Statement statement = otherNode.createStatement()) {
+                    statement.execute("LISTEN domain_events");
+                }
+                PGConnection listener = otherNode.unwrap(PGConnection.class);
+
+                // Settling payments: one event each, heard by the other node
+                List<Map<String, Object>> open = jdbcTemplate.queryForList(
+                        "SELECT invoice_id, balance_due FROM receivable_aging ORDER BY invoice_id LIMIT ?", payments);
+                double[] notifyMillis = new double[open.size()];
+                for (int i = 0; i < open.size(); i++) {
+                    Long invoiceId = ((Number) open.get(i).get("invoice_id")).longValue();
+                    financeService.recordPayment(invoiceId, (BigDecimal) open.get(i).get("balance_due"),
+                            Invoice.PaymentMethod.CASH, "LT-EVENTS", "LT-EVENTS-" + invoiceId);
+                    long committed = System.nanoTime();
+                    Long eventId = jdbcTemplate.queryForObject("""
+                            SELECT MAX(id) FROM outbox_events WHERE event_type = 'INVOICE_PAID' AND aggregate_id = ?
+                            """, Long.class, invoiceId);
+                    if (eventId == null) {
+                        violations.add("Settling invoice " + invoiceId + " left no INVOICE_PAID event");
+                        continue;
+                    }
+                    if (!awaitNotification(listener, eventId)) {
+                        violations.add("No notification for event " + eventId + " within " + WAIT_MILLIS + " ms");
+                    }
+                    notifyMillis[i] = (System.nanoTime() - committed) / 1_000_000.0;
+                }
+                Long paidEvents = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM outbox_events WHERE event_type = 'INVOICE_PAID'", Long.class);
+                if (paidEvents != open.size()) {
+                    violations.add(paidEvents + " INVOICE_PAID events for " + open.size() + " settled invoices");
+                }
+
+                // Rolled back: no row, no notification
+                Long rolledBackId = transactionTemplate.execute(status -> {
+                    DomainEvent event = publisher.publish(DomainEvent.Type.STOCK_MOVED, -1L, Map.of("reason", "LOADTEST"));
+                    status.setRollbackOnly();
+                    return event.id();
+                });
+                Integer rolledBackRows = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM outbox_events WHERE id = ?", Integer.class, rolledBackId);
+                if (rolledBackRows != 0) {
+                    violations.add("Event " + rolledBackId + " survived its rollback");
+                }
+                if (awaitNotification(listener, rolledBackId)) {
+                    violations.add("Event " + rolledBackId + " was notified although its transaction rolled back");
+                }
+
+                Arrays.sort(notifyMillis);
+                double p50 = notifyMillis.length == 0 ? 0 : notifyMillis[notifyMillis.length / 2];
+                double p99 = notifyMillis.length == 0 ? 0 : notifyMillis[(int) Math.min(notifyMillis.length - 1, notifyMillis.length * 0.99)];
+                System.out.printf("%n%d settling payments: commit to NOTIFY p50 %.2f ms, p99 %.2f ms%n", open.size(), p50, p99);
+                report.put("payments", open.size());
+                report.put("notifyP50Millis", p50);
+                report.put("notifyP99Millis", p99);
+                // The connection goes back to the pool; LISTEN would outlive it
+                try (Statement statement = otherNode.createStatement()) {
+                    statement.execute("UNLISTEN *");
+                }
+            }
+
+            // Another node's event reaches this node's listeners through the relay
+            Long patientId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM patients", Long.class);
+            timelineCache.put(patientId, List.of(new PatientTimelineEntryDto()), List.of(), timelineCache.generation());
+            long receivedBefore = dispatcher.getStats().received();
+            long inserted = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("""
+                    INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, payload, origin_node)
+                    VALUES ('VISIT_STAGE_CHANGED', 'VISIT_SESSION', -1, jsonb_build_object('patientId', ?::BIGINT), 'loadtest-other-node')
+                    """, patientId));
+            while (timelineCache.get(patientId) != null && System.nanoTime() - inserted < WAIT_MILLIS * 1_000_000L) {
+                Thread.sleep(5);
+            }
+            double relayMillis = (System.nanoTime() - inserted) / 1_000_000.0;
+            if (timelineCache.get(patientId) != null) {
+                violations.add("Remote VISIT_STAGE_CHANGED did not evict patient " + patientId + "'s timeline");
+            }
+            if (dispatcher.getStats().received() != receivedBefore + 1) {
+                violations.add("Relay received " + (dispatcher.getStats().received() - receivedBefore) + " remote events, expected 1");
+            }
+            System.out.printf("Remote event to cache eviction: %.2f ms%n", relayMillis);
+            System.out.println("Dispatcher: " + dispatcher.getStats());
+
+            report.put("remoteEvictionMillis", relayMillis);
+            report.put("dispatcher", dispatcher.getStats());
+            report.put("violations", violations);
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+
+        if (!violations.isEmpty()) {
+            System.out.println();
+            violations.forEach(v -> System.out.println("VIOLATION: " + v));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Whether the id is notified within the wait; other ids that arrive meanwhile are consumed
+     */
+    private static boolean awaitNotification(PGConnection listener, Long eventId) throws Exception {
+        Set<String> seen = new HashSet<>();
+        long deadline = System.nanoTime() + WAIT_MILLIS * 1_000_000L;
+        String expected = String.valueOf(eventId);
+        while (System.nanoTime() < deadline) {
+            PGNotification[] notifications = listener.getNotifications(50);
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    seen.add(notification.getParameter());
+                }
+            }
+            if (seen.contains(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
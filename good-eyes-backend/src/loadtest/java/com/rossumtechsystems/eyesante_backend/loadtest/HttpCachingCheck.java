@@ -0,0 +1,193 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rossumtechsystems.eyesante_backend.dto.PatientDto;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.service.FinanceService;
+import com.rossumtechsystems.eyesante_backend.service.PatientService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks conditional GETs and response compression through the real controllers, and measures
+ * what they save.
+ *
+ * <p>Every cached endpoint must answer a repeat request carrying its ETag with an empty 304, and
+ * must hand out a new ETag once what it is built from changes: a diagnosis inserted and deleted
+ * behind the application (by SQL, as any writer could), a patient edited through PatientService,
+ * a payment posted through the ledger. A JSON body over the route's threshold must come back
+ * gzipped when the client accepts gzip, and as is when it refuses it with {@code q=0}. Bytes on
+ * the wire and latency of full, compressed and 304 responses are reported per endpoint.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.HttpCachingCheck
+ * </pre>
+ */
+public class HttpCachingCheck {
+
+    private static final Map<String, String> GZIP = Map.of("Accept-Encoding", "gzip");
+    private static final Map<String, String> IDENTITY = Map.of("Accept-Encoding", "identity");
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 5_000);
+        int years = Integer.getInteger("loadtest.years", 2);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 2);
+        int repetitions = Integer.getInteger("loadtest.repetitions", 30);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/http-caching-report.json");
+
+        List<String> violations = new ArrayList<>();
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            JdbcTemplate jdbcTemplate = environment.jdbcTemplate();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    environment.context().getBean(PlatformTransactionManager.class));
+            PatientService patientService = environment.context().getBean(PatientService.class);
+            FinanceService financeService = environment.context().getBean(FinanceService.class);
+            LatencyRecorder recorder = new LatencyRecorder();
+            LoadTestClient client = environment.client(recorder);
+
+            Long patientId = jdbcTemplate.queryForObject(
+                    "SELECT id FROM patients WHERE deleted = FALSE ORDER BY id LIMIT 1", Long.class);
+            Map<String, Object> openInvoice = jdbcTemplate.queryForMap("""
+                    SELECT id, balance_due FROM invoices
+                    WHERE balance_due > 1 AND status NOT IN ('PAID', 'CANCELLED', 'REFUNDED', 'DRAFT')
+                    ORDER BY id LIMIT 1
+                    """);
+            Long invoiceId = ((Number) openInvoice.get("id")).longValue();
+
+            Map<String, String> endpoints = new LinkedHashMap<>();
+            endpoints.put("diagnoses", "/api/diagnoses?size=200");
+            endpoints.put("procedures", "/api/procedures");
+            endpoints.put("appointment types", "/api/appointment-types");
+            endpoints.put("frames", "/api/optics/frames?size=50");
+            endpoints.put("patient detail", "/api/patients/" + patientId);
+            endpoints.put("invoice detail", "/api/finance/invoices/" + invoiceId);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            Map<String, String> etags = new LinkedHashMap<>();
+            System.out.printf("%n%-18s %10s %10s %8s %9s %9s %9s%n",
+                    "endpoint", "bytes", "gzip", "304", "full p50", "gzip p50", "304 p50");
+            for (Map.Entry<String, String> endpoint : endpoints.entrySet()) {
+                String name = endpoint.getKey();
+                String path = endpoint.getValue();
+                HttpResponse<byte[]> plain = client.get(name + " full", path, IDENTITY);
+                HttpResponse<byte[]> gzipped = client.get(name + " gzip", path, GZIP);
+                String etag = plain.headers().firstValue("ETag").orElse(null);
+                if (plain.statusCode() != 200 || etag == null) {
+                    violations.add(name + ": " + plain.statusCode() + " without an ETag");
+                    continue;
+                }
+                etags.put(name, etag);
+                String encoding = gzipped.headers().firstValue("Content-Encoding").orElse("identity");
+                if (plain.headers().firstValue("Content-Encoding").isPresent()) {
+                    violations.add(name + ": compressed although the client refused it");
+                }
+                Map<String, String> conditional = Map.of("If-None-Match", etag, "Accept-Encoding", "gzip");
+                HttpResponse<byte[]> revalidated = client.get(name + " 304", path, conditional);
+                if (revalidated.statusCode() != 304 || revalidated.body().length != 0) {
+                    violations.add(name + ": revalidation with its own ETag gave " + revalidated.statusCode()
+                            + " and " + revalidated.body().length + " bytes");
+                }
+                // A gzipped copy carries the weakened tag, which must validate just the same
+                String gzipEtag = gzipped.headers().firstValue("ETag").orElse(etag);
+                if (client.get(name + " 304", path, Map.of("If-None-Match", gzipEtag)).statusCode() != 304) {
+                    violations.add(name + ": the gzipped response's ETag " + gzipEtag + " does not revalidate");
+                }
+
+                for (int i = 0; i < repetitions; i++) {
+                    client.get(name + " full", path, IDENTITY);
+                    client.get(name + " gzip", path, GZIP);
+                    client.get(name + " 304", path, conditional);
+                }
+                Map<String, LatencyRecorder.EndpointStats> stats = recorder.snapshot(1);
+                double fullP50 = stats.get(name + " full").getP50Millis();
+                double gzipP50 = stats.get(name + " gzip").getP50Millis();
+                double notModifiedP50 = stats.get(name + " 304").getP50Millis();
+                System.out.printf("%-18s %,10d %,10d %8s %9.1f %9.1f %9.1f%n", name, plain.body().length,
+                        gzipped.body().length, revalidated.statusCode() == 304 ? "yes" : "NO", fullP50, gzipP50, notModifiedP50);
+
+                Map<String, Object> endpointReport = new LinkedHashMap<>();
+                endpointReport.put("bytes", plain.body().length);
+                endpointReport.put("gzipBytes", gzipped.body().length);
+                endpointReport.put("contentEncoding", encoding);
+                endpointReport.put("fullP50Millis", fullP50);
+                endpointReport.put("gzipP50Millis", gzipP50);
+                endpointReport.put("notModifiedP50Millis", notModifiedP50);
+                report.put(name, endpointReport);
+            }
+
+            // Large catalogue bodies are compressed; a client refusing gzip by name gets them as is
+            HttpResponse<byte[]> refused = client.get("refused", "/api/diagnoses?size=200",
+                    Map.of("Accept-Encoding", "gzip;q=0, *"));
+            if (refused.headers().firstValue("Content-Encoding").isPresent()) {
+                violations.add("Compressed although Accept-Encoding refused gzip");
+            }
+            HttpResponse<byte[]> frames = client.get("frames gzip", "/api/optics/frames?size=50", GZIP);
+            if (frames.body().length > 4096 && !"gzip".equals(frames.headers().firstValue("Content-Encoding").orElse(null))) {
+                violations.add("Frames page of " + frames.body().length + " bytes not compressed");
+            }
+
+            // Writers change the validators
+            Long diagnosisId = transactionTemplate.execute(status -> jdbcTemplate.queryForObject("""
+                    INSERT INTO diagnoses (category_id, name, description, created_at, updated_at, created_by, updated_by)
+                    SELECT id, 'LT-ETag', 'HTTP caching check', NOW(), NOW(), 'loadtest', 'loadtest'
+                    FROM diagnosis_categories ORDER BY id LIMIT 1 RETURNING id
+                    """, Long.class));
+            expectChanged(client, "diagnoses after insert", endpoints.get("diagnoses"), etags, "diagnoses", violations);
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.update("DELETE FROM diagnoses WHERE id = ?", diagnosisId));
+            expectChanged(client, "diagnoses after delete", endpoints.get("diagnoses"), etags, "diagnoses", violations);
+
+            PatientDto patient = patientService.getPatientById(patientId).orElseThrow();
+            patient.setOccupation("LT-ETag");
+            patientService.updatePatient(patientId, patient);
+            expectChanged(client, "patient after update", endpoints.get("patient detail"), etags, "patient detail", violations);
+
+            financeService.recordPayment(invoiceId, BigDecimal.ONE, Invoice.PaymentMethod.CASH, "LT-ETAG", "LT-ETAG-" + invoiceId);
+            expectChanged(client, "invoice after payment", endpoints.get("invoice detail"), etags, "invoice detail", violations);
+
+            report.put("repetitions", repetitions);
+            report.put("violations", violations);
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+
+        if (!violations.isEmpty()) {
+            System.out.println();
+            violations.forEach(v -> System.out.println("VIOLATION: " + v));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The endpoint's last ETag must now miss: a 200 with a different ETag, which becomes the last one
+     */
+    private static void expectChanged(LoadTestClient client, String label, String path, Map<String, String> etags,
+                                      String name, List<String> violations) {
+        String previous = etags.get(name);
+        if (previous == null) {
+            return;
+        }
+        HttpResponse<byte[]> response = client.get(label, path, Map.of("If-None-Match", previous));
+        String current = response.headers().firstValue("ETag").orElse(null);
+        if (response.statusCode() != 200 || previous.equals(current)) {
+            violations.add(label + ": " + response.statusCode() + " with ETag " + current + " (was " + previous + ")");
+        } else {
+            etags.put(name, current);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Proposes partial and composite indexes from the plans of the application's own queries.
+ *
+ * <p>Every repository query is collected without running it ({@link RepositoryQueryCollector}) and
+ * explained with {@code EXPLAIN (GENERIC_PLAN)} (Postgres 16+) against the seeded dataset. Scans of
+ * large tables that filter rows become candidates: columns compared with a parameter form the index
+ * key (equalities first, then one range column) and conditions on constants, such as
+ * {@code NOT deleted} or {@code payment_status <> 'PAID'}, its partial predicate. Each candidate is
+ * built inside a transaction that is rolled back, the affected queries are explained again, and
+ * candidates are ranked by the planner cost they save.
+ *
+ * <p>The indexes of an already shipped migration ({@code -Dloadtest.advisor.migration}) are checked
+ * the other way round: each is dropped in a rolled-back transaction to capture the plans without it.
+ * Before/after plans for both sections go to {@code target/index-advisor-report.json}.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.IndexAdvisor
+ * </pre>
+ */
+public class IndexAdvisor {
+
+    private static final Pattern MIGRATION_INDEX = Pattern.compile(
+            "CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+IF\\s+NOT\\s+EXISTS\\s+(\\w+)\\s+ON\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    // (col), ((col)::type), lower((col)::text) is not a plain column and is ignored
+    private static final Pattern COLUMN = Pattern.compile("^\\(*([a-z_][a-z0-9_]*)\\)*(?:::[a-z ]+(?:\\[])?)?$");
+    private static final Pattern COMPARISON = Pattern.compile("^(.+?)\\s+(=|<>|<=|>=|<|>)\\s+(.+)$");
+    private static final Pattern CONSTANT = Pattern.compile(
+            "^\\(*(?:'[^']*'|-?[0-9.]+|true|false|NULL)\\)*(?:::[a-z ]+(?:\\[])?)?$");
+
+    private record ExplainedQuery(String sql, List<String> sources, Set<String> tables, double cost, String plan) {
+    }
+
+    private record Candidate(String table, List<String> keyColumns, String predicate) {
+
+        String ddl() {
+            String name = "idx_" + table + "_" + String.join("_", keyColumns) + (predicate.isEmpty() ? "" : "_partial");
+            return "CREATE INDEX IF NOT EXISTS " + name + " ON " + table + "(" + String.join(", ", keyColumns) + ")"
+                    + (predicate.isEmpty() ? "" : " WHERE " + predicate) + ";";
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 100_000);
+        int years = Integer.getInteger("loadtest.years", 3);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 2);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        long minRows = Long.getLong("loadtest.advisor.minRows", 5_000);
+        int top = Integer.getInteger("loadtest.advisor.top", 15);
+        String migration = System.getProperty("loadtest.advisor.migration",
+                "db/migration/V85__add_partial_and_composite_indexes.sql");
+        String reportPath = System.getProperty("loadtest.report", "target/index-advisor-report.json");
+
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            JdbcTemplate jdbcTemplate = environment.jdbcTemplate();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    environment.context().getBean(PlatformTransactionManager.class));
+            ObjectMapper objectMapper = new ObjectMapper();
+            IndexAdvisor advisor = new IndexAdvisor(jdbcTemplate, transactionTemplate, objectMapper);
+
+            List<String> skipped = new ArrayList<>();
+            Map<String, List<String>> statements = RepositoryQueryCollector.collect(environment.context(), skipped);
+            List<ExplainedQuery> queries = new ArrayList<>();
+            Map<Candidate, List<ExplainedQuery>> candidates = new LinkedHashMap<>();
+            statements.forEach((sql, sources) -> {
+                try {
+                    JsonNode plan = advisor.explainJson(sql);
+                    ExplainedQuery query = new ExplainedQuery(sql, sources, advisor.tables(plan),
+                            plan.path("Total Cost").asDouble(), advisor.explainText(sql));
+                    queries.add(query);
+                    advisor.propose(plan, minRows).forEach(candidate ->
+                            candidates.computeIfAbsent(candidate, c -> new ArrayList<>()).add(query));
+                } catch (RuntimeException e) {
+                    skipped.add(String.join(", ", sources) + ": " + e.getMessage());
+                }
+            });
+            System.out.printf("%nExplained %d statements from repository queries, %d skipped%n", queries.size(), skipped.size());
+
+            List<Map<String, Object>> proposals = new ArrayList<>();
+            candidates.forEach((candidate, triggering) -> {
+                Map<String, Object> evaluation = advisor.evaluate(candidate.ddl(), candidate.table(), queries);
+                if (evaluation != null && (double) evaluation.get("costSaved") > 0) {
+                    evaluation.put("table", candidate.table());
+                    evaluation.put("proposedBy", triggering.stream().flatMap(q -> q.sources().stream()).distinct().toList());
+                    proposals.add(evaluation);
+                }
+            });
+            proposals.sort(Comparator.comparingDouble(p -> -(double) p.get("costSaved")));
+            List<Map<String, Object>> best = proposals.subList(0, Math.min(top, proposals.size()));
+
+            System.out.printf("%n%-110s %12s%n", "proposed index", "cost saved");
+            best.forEach(p -> System.out.printf("%-110s %12.1f%n", p.get("ddl"), (double) p.get("costSaved")));
+
+            List<Map<String, Object>> shipped = advisor.checkMigration(migration, queries);
+            System.out.printf("%n%-60s %8s %12s %12s%n", "shipped index (" + migration + ")", "queries", "cost before", "cost after");
+            shipped.forEach(s -> System.out.printf("%-60s %8d %12.1f %12.1f%n", s.get("index"),
+                    ((List<?>) s.get("queries")).size(), (double) s.get("costBefore"), (double) s.get("costAfter")));
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("seededPatients", patients);
+            report.put("explainedStatements", queries.size());
+            report.put("skipped", skipped);
+            report.put("proposals", best);
+            report.put("migration", Map.of("file", migration, "indexes", shipped));
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<String, String> rootTables = new HashMap<>();
+    private final Map<String, Double> tableRows = new HashMap<>();
+
+    private IndexAdvisor(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    private JsonNode explainJson(String sql) {
+        String json = jdbcTemplate.queryForObject("EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + positional(sql), String.class);
+        try {
+            return objectMapper.readTree(json).get(0).get("Plan");
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable plan: " + e.getMessage(), e);
+        }
+    }
+
+    private String explainText(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + positional(sql), String.class));
+    }
+
+    /**
+     * Hibernate binds with ?; a generic plan needs numbered parameters
+     */
+    private static String positional(String sql) {
+        StringBuilder result = new StringBuilder(sql.length() + 16);
+        boolean quoted = false;
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (c == '?' && !quoted) {
+                result.append('$').append(++parameter);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Tables a plan reads, with partitions reported as their partitioned root
+     */
+    private Set<String> tables(JsonNode plan) {
+        Set<String> tables = new LinkedHashSet<>();
+        walk(plan, node -> {
+            if (node.has("Relation Name")) {
+                tables.add(root(node.get("Relation Name").asText()));
+            }
+        });
+        return tables;
+    }
+
+    private List<Candidate> propose(JsonNode plan, long minRows) {
+        List<Candidate> candidates = new ArrayList<>();
+        walk(plan, node -> {
+            String type = node.path("Node Type").asText();
+            if (!node.has("Relation Name") || !node.has("Filter") || !type.endsWith("Scan")) {
+                return;
+            }
+            String table = root(node.get("Relation Name").asText());
+            if (rows(table) < minRows) {
+                return;
+            }
+            List<String> equalities = new ArrayList<>();
+            List<String> ranges = new ArrayList<>();
+            List<String> constants = new ArrayList<>();
+            for (String condition : List.of(node.path("Index Cond").asText(""), node.get("Filter").asText())) {
+                for (String conjunct : conjuncts(condition)) {
+                    classify(conjunct, equalities, ranges, constants);
+                }
+            }
+            List<String> key = new ArrayList<>(new LinkedHashSet<>(equalities));
+            ranges.stream().filter(column -> !key.contains(column)).findFirst().ifPresent(key::add);
+            if (!key.isEmpty()) {
+                candidates.add(new Candidate(table, key, String.join(" AND ", new LinkedHashSet<>(constants))));
+            }
+        });
+        return candidates;
+    }
+
+    /**
+     * Sorts one condition into parameter equality, parameter range or constant predicate; anything
+     * else (ORs, functions, column-to-column comparisons) is not indexable here and is dropped
+     */
+    private static void classify(String conjunct, List<String> equalities, List<String> ranges, List<String> constants) {
+        String expression = unwrap(conjunct);
+        if (expression.matches("^(NOT )?[a-z_][a-z0-9_]*$")
+                || expression.matches("^\\(*[a-z_][a-z0-9_]*\\)* IS (NOT )?NULL$")) {
+            constants.add("(" + expression + ")");
+            return;
+        }
+        Matcher comparison = COMPARISON.matcher(expression);
+        if (!comparison.matches()) {
+            return;
+        }
+        Matcher column = COLUMN.matcher(comparison.group(1));
+        if (!column.matches()) {
+            return;
+        }
+        String operator = comparison.group(2);
+        String value = comparison.group(3);
+        if (value.contains("$")) {
+            (operator.equals("=") ? equalities : ranges).add(column.group(1));
+        } else if (CONSTANT.matcher(value).matches() || value.startsWith("ANY ('")) {
+            constants.add("(" + expression + ")");
+        }
+    }
+
+    /**
+     * Top-level AND terms of a deparsed condition
+     */
+    private static List<String> conjuncts(String condition) {
+        List<String> terms = new ArrayList<>();
+        String expression = unwrap(condition);
+        if (expression.isEmpty()) {
+            return terms;
+        }
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && expression.startsWith(" AND ", i)) {
+                terms.add(expression.substring(start, i));
+                start = i + 5;
+            }
+        }
+        terms.add(expression.substring(start));
+        if (terms.size() == 1 && terms.get(0).contains(" OR ")) {
+            return List.of();
+        }
+        return terms;
+    }
+
+    /**
+     * Strips parentheses that enclose the whole expression
+     */
+    private static String unwrap(String expression) {
+        String result = expression.trim();
+        while (result.startsWith("(") && result.endsWith(")")) {
+            int depth = 0;
+            boolean enclosing = true;
+            for (int i = 0; i < result.length() - 1; i++) {
+                depth += result.charAt(i) == '(' ? 1 : result.charAt(i) == ')' ? -1 : 0;
+                if (depth == 0) {
+                    enclosing = false;
+                    break;
+                }
+            }
+            if (!enclosing) {
+                break;
+            }
+            result = result.substring(1, result.length() - 1).trim();
+        }
+        return result;
+    }
+
+    /**
+     * Builds the index in a rolled-back transaction and re-plans every query reading its table
+     */
+    private Map<String, Object> evaluate(String ddl, String table, List<ExplainedQuery> queries) {
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("ddl", ddl);
+            result.putAll(transactionTemplate.execute(status -> {
+                status.setRollbackOnly();
+                jdbcTemplate.execute(ddl);
+                return compare(table, queries, false);
+            }));
+            return result;
+        } catch (RuntimeException e) {
+            System.err.println("Could not evaluate " + ddl + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Plans of the queries reading the table in the current schema, next to their baseline plans.
+     * With {@code baselineIsAfter} the recorded plans are the "after" side, as when an index that
+     * exists has just been dropped.
+     */
+    private Map<String, Object> compare(String table, List<ExplainedQuery> queries, boolean baselineIsAfter) {
+        double before = 0;
+        double after = 0;
+        List<Map<String, Object>> affected = new ArrayList<>();
+        for (ExplainedQuery query : queries) {
+            if (!query.tables().contains(table)) {
+                continue;
+            }
+            double cost = explainJson(query.sql()).path("Total Cost").asDouble();
+            if (Math.abs(cost - query.cost()) < 0.01) {
+                continue;
+            }
+            String plan = explainText(query.sql());
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("sources", query.sources());
+            entry.put("sql", query.sql());
+            entry.put("costBefore", baselineIsAfter ? cost : query.cost());
+            entry.put("costAfter", baselineIsAfter ? query.cost() : cost);
+            entry.put("planBefore", baselineIsAfter ? plan : query.plan());
+            entry.put("planAfter", baselineIsAfter ? query.plan() : plan);
+            affected.add(entry);
+            before += (double) entry.get("costBefore");
+            after += (double) entry.get("costAfter");
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("costBefore", before);
+        result.put("costAfter", after);
+        result.put("costSaved", before - after);
+        result.put("queries", affected);
+        return result;
+    }
+
+    /**
+     * Before/after plans for each index a migration creates, by dropping it in a rolled-back transaction
+     */
+    private List<Map<String, Object>> checkMigration(String migration, List<ExplainedQuery> queries) throws Exception {
+        String script = new ClassPathResource(migration).getContentAsString(StandardCharsets.UTF_8);
+        List<Map<String, Object>> results = new ArrayList<>();
+        Matcher index = MIGRATION_INDEX.matcher(script);
+        while (index.find()) {
+            String name = index.group(1);
+            String table = index.group(2);
+            Map<String, Object> result = transactionTemplate.execute(status -> {
+                status.setRollbackOnly();
+                jdbcTemplate.execute("DROP INDEX IF EXISTS " + name);
+                return compare(table, queries, true);
+            });
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("index", name);
+            entry.put("table", table);
+            entry.putAll(result);
+            if (((List<?>) result.get("queries")).isEmpty()) {
+                System.err.println("No repository query plan changes without " + name);
+            }
+            results.add(entry);
+        }
+        return results;
+    }
+
+    private String root(String relation) {
+        return rootTables.computeIfAbsent(relation, r -> jdbcTemplate.queryForObject(
+                "SELECT COALESCE(pg_partition_root(?::regclass), ?::regclass)::TEXT", String.class, r, r));
+    }
+
+    private double rows(String table) {
+        return tableRows.computeIfAbsent(table, t -> {
+            // reltuples of a partitioned root is -1; sum its leaf partitions
+            Double rows = jdbcTemplate.queryForObject("""
+                    SELECT COALESCE(SUM(GREATEST(c.reltuples, 0)), 0)
+                    FROM pg_partition_tree(?::regclass) t
+                    JOIN pg_class c ON c.oid = t.relid
+                    WHERE t.isleaf
+                    """, Double.class, t);
+            return rows != null ? rows : 0;
+        });
+    }
+
+    private static void walk(JsonNode node, Consumer<JsonNode> visitor) {
+        if (node == null) {
+            return;
+        }
+        visitor.accept(node);
+        JsonNode children = node.get("Plans");
+        if (children != null) {
+            children.forEach(child -> walk(child, visitor));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rossumtechsystems.eyesante_backend.dto.CreateInvoiceRequest;
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceItemDto;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.repository.InvoiceRepository;
+import com.rossumtechsystems.eyesante_backend.service.FinanceService;
+import com.rossumtechsystems.eyesante_backend.service.InvoiceTotalsReconciliationService;
+import com.rossumtechsystems.eyesante_backend.service.PaymentLedgerService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Shows that changing a stored invoice never loads its items.
+ *
+ * <p>An invoice with {@code loadtest.items} lines is seeded, then its status and notes are changed
+ * through JPA, a payment is posted to the ledger and an item is added and removed through
+ * FinanceService, capturing every statement Hibernate executes for each. Any SELECT of the
+ * invoice's item collection is a violation. Afterwards the stored subtotal must still equal the item sum, and the reconciliation
+ * job must repair a subtotal that was corrupted behind its back.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.InvoiceTotalsStatementCheck
+ * </pre>
+ */
+public class InvoiceTotalsStatementCheck {
+
+    // Hibernate's collection load: SELECT ... FROM invoice_items ... WHERE <alias>.invoice_id=?
+    private static final Pattern ITEM_COLLECTION_SELECT =
+            Pattern.compile("(?is)^\\s*select\\b.*\\bfrom\\s+invoice_items\\b.*\\bwhere\\b.*\\binvoice_id\\s*(=|in)");
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 2_000);
+        int years = Integer.getInteger("loadtest.years", 1);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 1);
+        int items = Integer.getInteger("loadtest.items", 200);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/invoice-totals-report.json");
+
+        List<String> violations = new ArrayList<>();
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            JdbcTemplate jdbcTemplate = environment.jdbcTemplate();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    environment.context().getBean(PlatformTransactionManager.class));
+            InvoiceRepository invoiceRepository = environment.context().getBean(InvoiceRepository.class);
+            FinanceService financeService = environment.context().getBean(FinanceService.class);
+            PaymentLedgerService paymentLedgerService = environment.context().getBean(PaymentLedgerService.class);
+            InvoiceTotalsReconciliationService reconciliation =
+                    environment.context().getBean(InvoiceTotalsReconciliationService.class);
+
+            long invoiceId = transactionTemplate.execute(status -> seedInvoice(jdbcTemplate, items));
+            Map<String, Object> scenarios = new LinkedHashMap<>();
+
+            run("status change", scenarios, violations, () -> transactionTemplate.executeWithoutResult(status ->
+                    update(invoiceRepository, invoiceId, invoice -> invoice.setStatus(Invoice.InvoiceStatus.SENT))));
+            run("note edit", scenarios, violations, () -> transactionTemplate.executeWithoutResult(status ->
+                    update(invoiceRepository, invoiceId, invoice -> invoice.setNotes("Reviewed at the front desk"))));
+            run("partial payment", scenarios, violations, () -> paymentLedgerService.post(invoiceId,
+                    new BigDecimal("5000"), Invoice.PaymentMethod.CASH, "LT-PAYMENT", null, "loadtest"));
+            run("unchanged save", scenarios, violations, () -> transactionTemplate.executeWithoutResult(status ->
+                    update(invoiceRepository, invoiceId, invoice -> { })));
+
+            CreateInvoiceRequest.CreateInvoiceItemRequest itemRequest = new CreateInvoiceRequest.CreateInvoiceItemRequest();
+            itemRequest.setItemName("Load Test Extra");
+            itemRequest.setItemType("PROCEDURE");
+            itemRequest.setQuantity(2);
+            itemRequest.setUnitPrice(new BigDecimal("7500"));
+            InvoiceItemDto[] added = new InvoiceItemDto[1];
+            run("add item", scenarios, violations, () -> added[0] = financeService.addInvoiceItem(invoiceId, itemRequest));
+            run("remove item", scenarios, violations, () -> financeService.removeInvoiceItem(invoiceId, added[0].getId()));
+
+            Map<String, Object> totals = totals(jdbcTemplate, invoiceId);
+            System.out.printf("%nStored subtotal %s, item sum %s%n", totals.get("subtotal"), totals.get("item_sum"));
+            if (((BigDecimal) totals.get("subtotal")).compareTo((BigDecimal) totals.get("item_sum")) != 0) {
+                violations.add("Stored subtotal " + totals.get("subtotal") + " drifted from item sum " + totals.get("item_sum"));
+            }
+
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.update("UPDATE invoices SET subtotal = subtotal + 1 WHERE id = ?", invoiceId));
+            int corrected = reconciliation.reconcile();
+            Map<String, Object> reconciled = totals(jdbcTemplate, invoiceId);
+            System.out.printf("Reconciliation corrected %d invoices; subtotal now %s%n", corrected, reconciled.get("subtotal"));
+            if (((BigDecimal) reconciled.get("subtotal")).compareTo((BigDecimal) reconciled.get("item_sum")) != 0) {
+                violations.add("Reconciliation left subtotal " + reconciled.get("subtotal")
+                        + " against item sum " + reconciled.get("item_sum"));
+            }
+
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, Map.of(
+                    "items", items,
+                    "scenarios", scenarios,
+                    "reconciliationCorrected", corrected,
+                    "violations", violations));
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+
+        if (!violations.isEmpty()) {
+            System.out.println();
+            violations.forEach(v -> System.out.println("VIOLATION: " + v));
+            System.exit(1);
+        }
+    }
+
+    private static void update(InvoiceRepository invoiceRepository, long invoiceId, Consumer<Invoice> change) {
+        Invoice invoice = invoiceRepository.findById(invoiceId).orElseThrow();
+        change.accept(invoice);
+        invoiceRepository.saveAndFlush(invoice);
+    }
+
+    private static void run(String name, Map<String, Object> scenarios, List<String> violations, Runnable action) {
+        List<String> statements = StatementCounter.capture(action);
+        List<String> itemSelects = statements.stream()
+                .filter(sql -> ITEM_COLLECTION_SELECT.matcher(sql).find())
+                .toList();
+        System.out.printf("%-16s %3d statements, %d item collection selects%n", name, statements.size(), itemSelects.size());
+        if (!itemSelects.isEmpty()) {
+            violations.add(name + " loaded the invoice items: " + itemSelects.get(0));
+        }
+        scenarios.put(name, Map.of("statements", statements, "itemCollectionSelects", itemSelects.size()));
+    }
+
+    /**
+     * An open invoice with the given number of lines, written directly so seeding is not measured
+     */
+    private static long seedInvoice(JdbcTemplate jdbcTemplate, int items) {
+        Long invoiceId = jdbcTemplate.queryForObject("""
+            INSERT INTO invoices (invoice_number, invoice_date, due_date, patient_id, patient_name, patient_phone,
+                                  doctor_name, invoice_purpose, subtotal, tax_amount, discount_amount, total_amount,
+                                  amount_paid, balance_due, status, payment_status,
+                                  created_at, updated_at, created_by, updated_by)
+            SELECT 'LT-TOTALS-' || clock_timestamp()::TEXT, CURRENT_DATE, CURRENT_DATE + 30,
+                   p.id, p.first_name || ' ' || p.last_name, p.phone,
+                   'Load Doctor', 'TREATMENT_INVOICE_BILL',
+                   1000 * ?, 0, 0, 1000 * ?, 0, 1000 * ?, 'PENDING', 'PENDING',
+                   NOW(), NOW(), 'loadtest', 'loadtest'
+            FROM patients p
+            WHERE p.patient_number LIKE 'LT-%' AND NOT COALESCE(p.deleted, FALSE)
+            ORDER BY p.id
+            LIMIT 1
+            RETURNING id
+            """, Long.class, items, items, items);
+        jdbcTemplate.update("""
+            INSERT INTO invoice_items (invoice_id, invoice_date, item_name, item_description, item_type, quantity,
+                                       unit_price, total_price, discount_amount, final_price, tax_amount,
+                                       created_at, updated_at, created_by, updated_by)
+            SELECT i.id, i.invoice_date, 'Load Test Line ' || n, 'Seeded line', 'MEDICATION', 1,
+                   1000, 1000, 0, 1000, 0, NOW(), NOW(), 'loadtest', 'loadtest'
+            FROM invoices i CROSS JOIN generate_series(1, ?) AS n
+            WHERE i.id = ?
+            """, items, invoiceId);
+        return invoiceId;
+    }
+
+    private static Map<String, Object> totals(JdbcTemplate jdbcTemplate, long invoiceId) {
+        return jdbcTemplate.queryForMap("""
+            SELECT i.subtotal,
+                   COALESCE((SELECT SUM(ii.unit_price * ii.quantity) FROM invoice_items ii WHERE ii.invoice_id = i.id), 0) AS item_sum
+            FROM invoices i WHERE i.id = ?
+            """, invoiceId);
+    }
+}
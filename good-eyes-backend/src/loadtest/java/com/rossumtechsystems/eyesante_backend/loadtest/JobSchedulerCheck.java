@@ -0,0 +1,189 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rossumtechsystems.eyesante_backend.dto.ScheduledJobDto;
+import com.rossumtechsystems.eyesante_backend.dto.ScheduledJobRunDto;
+import com.rossumtechsystems.eyesante_backend.exception.ResourceConflictException;
+import com.rossumtechsystems.eyesante_backend.service.JobSchedulerService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks that a job runs on one node at a time and that its runs are recorded.
+ *
+ * <p>With the invoice-overdue job's advisory lock held by another session (standing in for a
+ * second replica mid-run) every manual run must be refused with a conflict. Once released,
+ * {@code loadtest.threads} concurrent manual runs must not overlap: each either runs or is
+ * refused, and the recorded runs must not intersect in time. A RUNNING row left by a "dead node"
+ * must come out ABANDONED, the job must leave no past-due PENDING or SENT invoice behind, and its
+ * checkpoint must be back at 0 after a complete pass.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.JobSchedulerCheck
+ * </pre>
+ */
+public class JobSchedulerCheck {
+
+    private static final String JOB = "invoice-overdue";
+
+    // JobSchedulerService.LOCK_NAMESPACE
+    private static final int LOCK_NAMESPACE = 0x4A4F4253;
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 5_000);
+        int years = Integer.getInteger("loadtest.years", 2);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 2);
+        int threads = Integer.getInteger("loadtest.threads", 8);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/job-scheduler-report.json");
+
+        List<String> violations = new ArrayList<>();
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            JdbcTemplate jdbcTemplate = environment.jdbcTemplate();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    environment.context().getBean(PlatformTransactionManager.class));
+            DataSource dataSource = environment.context().getBean(DataSource.class);
+            JobSchedulerService scheduler = environment.context().getBean(JobSchedulerService.class);
+            Map<String, Object> report = new LinkedHashMap<>();
+
+            // Another node holds the lock: manual runs are refused
+            try (Connection otherNode = dataSource.getConnection()) {
+                otherNode.setAutoCommit(true);
+                advisoryLock(otherNode, "pg_advisory_lock");
+                try {
+                    scheduler.runNow(JOB);
+                    violations.add("Run went ahead while another session held the job lock");
+                } catch (ResourceConflictException expected) {
+                    report.put("refusedWhileLocked", true);
+                } finally {
+                    advisoryLock(otherNode, "pg_advisory_unlock");
+                }
+            }
+
+            // A run that died mid-way, as a crashed node would leave it
+            Long deadRunId = transactionTemplate.execute(status -> jdbcTemplate.queryForObject("""
+                    INSERT INTO scheduled_job_runs (job_name, trigger_type, node, status, started_at)
+                    VALUES (?, 'SCHEDULE', 'dead-node', 'RUNNING', NOW() - INTERVAL '1 hour') RETURNING id
+                    """, Long.class, JOB));
+
+            Long pastDueBefore = pastDueOpen(jdbcTemplate);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<ScheduledJobRunDto>> futures = new ArrayList<>();
+            Callable<ScheduledJobRunDto> run = () -> {
+                try {
+                    return scheduler.runNow(JOB);
+                } catch (ResourceConflictException refused) {
+                    return null;
+                }
+            };
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(run));
+            }
+            int ran = 0;
+            for (Future<ScheduledJobRunDto> future : futures) {
+                try {
+                    ScheduledJobRunDto result = future.get();
+                    if (result != null) {
+                        ran++;
+                        if (!"SUCCEEDED".equals(result.getStatus())) {
+                            violations.add("Run " + result.getId() + " ended " + result.getStatus() + ": " + result.getDetail());
+                        }
+                    }
+                } catch (Exception e) {
+                    violations.add("Manual run failed: " + e.getCause());
+                }
+            }
+            executor.shutdown();
+
+            Integer overlapping = jdbcTemplate.queryForObject("""
+                    SELECT COUNT(*) FROM scheduled_job_runs a JOIN scheduled_job_runs b
+                      ON a.job_name = b.job_name AND a.id < b.id
+                     AND tsrange(a.started_at, a.finished_at) && tsrange(b.started_at, b.finished_at)
+                    WHERE a.job_name = ? AND a.trigger_type = 'MANUAL' AND b.trigger_type = 'MANUAL'
+                    """, Integer.class, JOB);
+            if (overlapping != 0) {
+                violations.add(overlapping + " pairs of " + JOB + " runs overlapped");
+            }
+            if (ran == 0) {
+                violations.add("No concurrent manual run went ahead");
+            }
+            String deadRunStatus = jdbcTemplate.queryForObject(
+                    "SELECT status FROM scheduled_job_runs WHERE id = ?", String.class, deadRunId);
+            if (!"ABANDONED".equals(deadRunStatus)) {
+                violations.add("Dead node's run is " + deadRunStatus + ", expected ABANDONED");
+            }
+            Long pastDueAfter = pastDueOpen(jdbcTemplate);
+            if (pastDueAfter != 0) {
+                violations.add(pastDueAfter + " past-due invoices still PENDING or SENT");
+            }
+            ScheduledJobDto job = scheduler.getJobs().stream()
+                    .filter(j -> j.getJobName().equals(JOB)).findFirst().orElseThrow();
+            if (job.getCheckpoint() != 0) {
+                violations.add("Checkpoint left at " + job.getCheckpoint() + " after a complete pass");
+            }
+
+            System.out.printf("%n%d concurrent manual runs: %d ran, %d refused, %d overlapping%n",
+                    threads, ran, threads - ran, overlapping);
+            System.out.printf("Past-due PENDING/SENT invoices: %d before, %d after%n", pastDueBefore, pastDueAfter);
+            System.out.printf("%-28s %8s %8s %10s %10s%n", "Job", "Runs", "Failed", "Avg ms", "p95 ms");
+            for (ScheduledJobDto j : scheduler.getJobs()) {
+                System.out.printf("%-28s %8d %8d %10s %10s%n", j.getJobName(), j.getRuns(), j.getFailures(),
+                        j.getAverageDurationMs(), j.getP95DurationMs());
+            }
+
+            report.put("threads", threads);
+            report.put("ran", ran);
+            report.put("overlapping", overlapping);
+            report.put("pastDueBefore", pastDueBefore);
+            report.put("pastDueAfter", pastDueAfter);
+            report.put("jobs", scheduler.getJobs());
+            report.put("violations", violations);
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            new ObjectMapper().findAndRegisterModules().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+
+        if (!violations.isEmpty()) {
+            System.out.println();
+            violations.forEach(v -> System.out.println("VIOLATION: " + v));
+            System.exit(1);
+        }
+    }
+
+    private static Long pastDueOpen(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM invoices
+                WHERE due_date < (CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala')::DATE
+                  AND balance_due > 0 AND status IN ('PENDING', 'SENT')
+                """, Long.class);
+    }
+
+    private static void advisoryLock(Connection connection, String function) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?, hashtext(?))")) {
+            statement.setInt(1, LOCK_NAMESPACE);
+            statement.setString(2, JOB);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side latency samples per endpoint template (e.g. "POST /api/patients").
+ * Samples are kept in full so p50/p95/p99 are exact rather than estimated.
+ */
+public class LatencyRecorder {
+
+    private final Map<String, List<Long>> samples = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long nanos, boolean success) {
+        samples.computeIfAbsent(endpoint, k -> new ArrayList<>());
+        List<Long> list = samples.get(endpoint);
+        synchronized (list) {
+            list.add(nanos);
+        }
+        if (!success) {
+            errors.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    public Map<String, EndpointStats> snapshot(long wallClockNanos) {
+        Map<String, EndpointStats> result = new TreeMap<>();
+        samples.forEach((endpoint, list) -> {
+            long[] values;
+            synchronized (list) {
+                values = list.stream().mapToLong(Long::longValue).toArray();
+            }
+            Arrays.sort(values);
+            long errorCount = errors.getOrDefault(endpoint, new AtomicLong()).get();
+            result.put(endpoint, new EndpointStats(values, errorCount, wallClockNanos));
+        });
+        return result;
+    }
+
+    public static class EndpointStats {
+        private final long count;
+        private final long errors;
+        private final double throughputPerSecond;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        EndpointStats(long[] sortedNanos, long errors, long wallClockNanos) {
+            this.count = sortedNanos.length;
+            this.errors = errors;
+            this.throughputPerSecond = wallClockNanos > 0 ? count / (wallClockNanos / 1_000_000_000.0) : 0;
+            this.p50Millis = percentile(sortedNanos, 50);
+            this.p95Millis = percentile(sortedNanos, 95);
+            this.p99Millis = percentile(sortedNanos, 99);
+            this.maxMillis = sortedNanos.length == 0 ? 0 : sortedNanos[sortedNanos.length - 1] / 1_000_000.0;
+        }
+
+        private static double percentile(long[] sorted, double pct) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(pct / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", count);
+            map.put("errors", errors);
+            map.put("throughputPerSecond", throughputPerSecond);
+            map.put("p50Millis", p50Millis);
+            map.put("p95Millis", p95Millis);
+            map.put("p99Millis", p99Millis);
+            map.put("maxMillis", maxMillis);
+            return map;
+        }
+
+        public long getCount() { return count; }
+        public long getErrors() { return errors; }
+        public double getThroughputPerSecond() { return throughputPerSecond; }
+        public double getP50Millis() { return p50Millis; }
+        public double getP95Millis() { return p95Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public double getMaxMillis() { return maxMillis; }
+    }
+}
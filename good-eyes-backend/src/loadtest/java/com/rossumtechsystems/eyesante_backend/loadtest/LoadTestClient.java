@@ -0,0 +1,95 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Thin JSON client over {@link HttpClient} that times every call against its endpoint template.
+ */
+public class LoadTestClient {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final LatencyRecorder recorder;
+    private volatile String accessToken;
+
+    public LoadTestClient(String baseUrl, LatencyRecorder recorder) {
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+    }
+
+    public void login(String username, String password) {
+        JsonNode response = call("POST /api/auth/login", "POST", "/api/auth/login",
+                Map.of("username", username, "password", password));
+        this.accessToken = response.path("accessToken").asText();
+    }
+
+    /**
+     * GET with extra request headers, returning the raw response (status, headers, undecoded body)
+     * for checks on HTTP semantics rather than on the JSON
+     */
+    public HttpResponse<byte[]> get(String endpoint, String path, Map<String, String> headers) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Accept", "application/json");
+            if (accessToken != null) {
+                builder.header("Authorization", "Bearer " + accessToken);
+            }
+            headers.forEach(builder::header);
+            HttpResponse<byte[]> response = httpClient.send(builder.GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+            success = response.statusCode() < 400;
+            return response;
+        } catch (Exception e) {
+            throw new IllegalStateException(endpoint + " failed: " + e.getMessage(), e);
+        } finally {
+            recorder.record(endpoint, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * @param endpoint template used for reporting, e.g. "GET /api/patients/{id}"
+     */
+    public JsonNode call(String endpoint, String method, String path, Object body) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json");
+            if (accessToken != null) {
+                builder.header("Authorization", "Bearer " + accessToken);
+            }
+            HttpRequest.BodyPublisher publisher = body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+            HttpResponse<byte[]> response = httpClient.send(builder.method(method, publisher).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            success = response.statusCode() < 400;
+            if (!success) {
+                throw new IllegalStateException(endpoint + " returned " + response.statusCode() + ": "
+                        + new String(response.body()));
+            }
+            return response.body().length == 0 ? objectMapper.nullNode() : objectMapper.readTree(response.body());
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(endpoint + " failed: " + e.getMessage(), e);
+        } finally {
+            recorder.record(endpoint, System.nanoTime() - start, success);
+        }
+    }
+}
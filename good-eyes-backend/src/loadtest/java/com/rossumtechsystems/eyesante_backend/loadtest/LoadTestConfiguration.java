@@ -0,0 +1,24 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+/**
+ * Wiring that only exists in the load-test build: the per-request statement counter
+ * runs ahead of Spring Security so authentication queries are attributed too. Passed to the
+ * application by LoadTestEnvironment; as a test configuration it stays out of the
+ * {@code @SpringBootTest} contexts that scan the same packages.
+ */
+@TestConfiguration
+public class LoadTestConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<StatementCounter> statementCounterFilter() {
+        FilterRegistrationBean<StatementCounter> registration = new FilterRegistrationBean<>(new StatementCounter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,113 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.rossumtechsystems.eyesante_backend.EyesanteBackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Postgres plus a running application on a random port, seeded with a reproducible clinic history.
+ *
+ * <p>Uses Testcontainers unless {@code -Dloadtest.jdbcUrl} points at an existing database.
+ * Shared by every load-test and benchmark entry point in this package.
+ */
+public class LoadTestEnvironment implements AutoCloseable {
+
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfigurableApplicationContext context;
+    private final ClinicDataGenerator generator;
+    private final String baseUrl;
+
+    private LoadTestEnvironment(PostgreSQLContainer<?> postgres, ConfigurableApplicationContext context,
+                                ClinicDataGenerator generator, String baseUrl) {
+        this.postgres = postgres;
+        this.context = context;
+        this.generator = generator;
+        this.baseUrl = baseUrl;
+    }
+
+    public static LoadTestEnvironment start(int patients, int years, int visitsPerYear, long seed) {
+        PostgreSQLContainer<?> postgres = null;
+        String jdbcUrl = System.getProperty("loadtest.jdbcUrl");
+        String username = System.getProperty("loadtest.username", "postgres");
+        String password = System.getProperty("loadtest.password", "postgres");
+        if (jdbcUrl == null) {
+            postgres = new PostgreSQLContainer<>(System.getProperty("loadtest.image", "postgres:16-alpine"));
+            postgres.start();
+            jdbcUrl = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", username);
+        properties.put("spring.datasource.password", password);
+        properties.put("spring.flyway.enabled", true);
+        properties.put("spring.flyway.baseline-on-migrate", true);
+        properties.put("spring.flyway.validate-on-migrate", false);
+        properties.put("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                StatementCounter.Inspector.class.getName());
+        properties.put("server.port", 0);
+        properties.put("app.jwt-secret", "loadtest");
+        properties.put("app.jwt-expiration-milliseconds", 86400000);
+        properties.put("app.jwt-refresh-expiration-milliseconds", 604800000);
+
+        ConfigurableApplicationContext context = null;
+        try {
+            context = new SpringApplicationBuilder(EyesanteBackendApplication.class, LoadTestConfiguration.class)
+                    .properties(properties)
+                    .run();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            ClinicDataGenerator generator = new ClinicDataGenerator(context.getBean(JdbcTemplate.class),
+                    transactionTemplate, (seed % 1000) / 1000.0);
+            generator.generate(patients, years, visitsPerYear);
+
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            return new LoadTestEnvironment(postgres, context, generator, baseUrl);
+        } catch (RuntimeException e) {
+            if (context != null) {
+                context.close();
+            }
+            if (postgres != null) {
+                postgres.stop();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * New client, already logged in as the seeded super admin
+     */
+    public LoadTestClient client(LatencyRecorder recorder) {
+        LoadTestClient client = new LoadTestClient(baseUrl, recorder);
+        client.login("superadmin", "superadmin123");
+        return client;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return context.getBean(JdbcTemplate.class);
+    }
+
+    public ConfigurableApplicationContext context() {
+        return context;
+    }
+
+    public ClinicDataGenerator generator() {
+        return generator;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rossumtechsystems.eyesante_backend.util.KeysetCursor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OFFSET versus keyset pagination at increasing page depths, through the real controllers.
+ *
+ * <p>For each depth the cursor is the one a client would hold after scrolling to that page: it is
+ * built from the last row of the previous page, read straight from the database. Both variants
+ * then fetch the same page, so the latency difference is purely the cost of skipping rows.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.PaginationDepthBenchmark
+ * </pre>
+ */
+public class PaginationDepthBenchmark {
+
+    private static final int[] PAGES = {1, 100, 1000, 5000};
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 100_000);
+        int years = Integer.getInteger("loadtest.years", 3);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 2);
+        int pageSize = Integer.getInteger("loadtest.pageSize", 20);
+        int repetitions = Integer.getInteger("loadtest.repetitions", 30);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/pagination-depth-report.json");
+
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            JdbcTemplate jdbcTemplate = environment.jdbcTemplate();
+            LatencyRecorder recorder = new LatencyRecorder();
+            LoadTestClient client = environment.client(recorder);
+
+            // Warm up both paths so the first depth does not pay for JIT and plan caching
+            for (int i = 0; i < repetitions; i++) {
+                client.call("warmup", "GET", "/api/patients?page=0&size=" + pageSize, null);
+                client.call("warmup", "GET", "/api/patients/cursor?size=" + pageSize, null);
+                client.call("warmup", "GET", "/api/finance/invoices?page=0&size=" + pageSize, null);
+                client.call("warmup", "GET", "/api/finance/invoices/cursor?size=" + pageSize, null);
+            }
+            recorder = new LatencyRecorder();
+            client = environment.client(recorder);
+
+            long start = System.nanoTime();
+            for (int page : PAGES) {
+                int offset = (page - 1) * pageSize;
+                String patientCursor = cursorAt(jdbcTemplate, offset, "patients", """
+                        SELECT created_at AS sort_key, id FROM patients WHERE deleted = false
+                        ORDER BY created_at DESC, id DESC OFFSET ? LIMIT 1
+                        """);
+                String invoiceCursor = cursorAt(jdbcTemplate, offset, "invoices", """
+                        SELECT invoice_date AS sort_key, id FROM invoices
+                        ORDER BY invoice_date DESC, id DESC OFFSET ? LIMIT 1
+                        """);
+                for (int i = 0; i < repetitions; i++) {
+                    client.call("patients offset page " + page, "GET",
+                            "/api/patients?page=" + (page - 1) + "&size=" + pageSize + "&sort=createdAt,desc&sort=id,desc", null);
+                    client.call("patients cursor page " + page, "GET",
+                            "/api/patients/cursor?size=" + pageSize + cursorParam(patientCursor), null);
+                    client.call("invoices offset page " + page, "GET",
+                            "/api/finance/invoices?page=" + (page - 1) + "&size=" + pageSize, null);
+                    client.call("invoices cursor page " + page, "GET",
+                            "/api/finance/invoices/cursor?size=" + pageSize + cursorParam(invoiceCursor), null);
+                }
+            }
+
+            Map<String, LatencyRecorder.EndpointStats> stats = recorder.snapshot(System.nanoTime() - start);
+            System.out.println();
+            System.out.printf("%-32s %7s %9s %9s %9s%n", "variant", "count", "p50 ms", "p95 ms", "p99 ms");
+            Map<String, Object> report = new LinkedHashMap<>();
+            stats.forEach((variant, s) -> {
+                System.out.printf("%-32s %7d %9.1f %9.1f %9.1f%n", variant, s.getCount(),
+                        s.getP50Millis(), s.getP95Millis(), s.getP99Millis());
+                report.put(variant, s.toMap());
+            });
+
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                    .writeValue(file, Map.of("pageSize", pageSize, "repetitions", repetitions, "variants", report));
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Cursor a client would hold after reading the first {@code offset} rows; null for the first page
+     */
+    private static String cursorAt(JdbcTemplate jdbcTemplate, int offset, String scope, String sql) {
+        if (offset == 0) {
+            return null;
+        }
+        List<String> cursors = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Object sortKey = rs.getObject("sort_key");
+            if (sortKey instanceof Timestamp timestamp) {
+                sortKey = timestamp.toLocalDateTime();
+            } else if (sortKey instanceof java.sql.Date date) {
+                sortKey = date.toLocalDate();
+            }
+            return KeysetCursor.encode(scope, sortKey, rs.getLong("id"));
+        }, offset - 1);
+        if (cursors.isEmpty()) {
+            throw new IllegalStateException("Not enough " + scope + " seeded for offset " + offset);
+        }
+        return cursors.get(0);
+    }
+
+    private static String cursorParam(String cursor) {
+        return cursor != null ? "&cursor=" + cursor : "";
+    }
+}
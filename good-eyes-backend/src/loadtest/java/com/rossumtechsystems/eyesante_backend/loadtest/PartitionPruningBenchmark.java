@@ -0,0 +1,150 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Shows that monthly reports only touch the partitions for the month they cover.
+ *
+ * <p>Each report query is run under {@code EXPLAIN (ANALYZE, FORMAT JSON)} for last month and the
+ * relations actually scanned are collected from the plan, next to the number of partitions that
+ * exist. The finance summary endpoint, which runs the same queries through JPA, is then timed for
+ * the same month.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.PartitionPruningBenchmark
+ * </pre>
+ */
+public class PartitionPruningBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 100_000);
+        int years = Integer.getInteger("loadtest.years", 3);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 2);
+        int repetitions = Integer.getInteger("loadtest.repetitions", 30);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/partition-pruning-report.json");
+
+        LocalDate monthStart = LocalDate.now().withDayOfMonth(1).minusMonths(1);
+        LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
+
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            JdbcTemplate jdbcTemplate = environment.jdbcTemplate();
+            ObjectMapper objectMapper = new ObjectMapper();
+            Map<String, Object> report = new LinkedHashMap<>();
+
+            System.out.println();
+            System.out.printf("Reports for %s .. %s%n", monthStart, monthEnd);
+            System.out.printf("%-14s %10s %12s %12s%n", "report", "scanned", "partitions", "exec ms");
+            for (ReportQuery query : reports(monthStart, monthEnd)) {
+                String json = jdbcTemplate.queryForObject(
+                        "EXPLAIN (ANALYZE, FORMAT JSON) " + query.sql(), String.class, query.params());
+                JsonNode plan = objectMapper.readTree(json).get(0);
+
+                Set<String> scanned = new TreeSet<>();
+                collectRelations(plan.get("Plan"), scanned);
+                int partitions = countPartitions(jdbcTemplate, query.tables());
+                double executionMillis = plan.get("Execution Time").asDouble();
+
+                System.out.printf("%-14s %10d %12d %12.1f%n", query.name(), scanned.size(), partitions, executionMillis);
+                report.put(query.name(), Map.of(
+                        "scannedRelations", scanned,
+                        "partitions", partitions,
+                        "executionMillis", executionMillis));
+            }
+
+            LatencyRecorder recorder = new LatencyRecorder();
+            LoadTestClient client = environment.client(recorder);
+            String summaryPath = "/api/finance/summary?startDate=" + monthStart + "&endDate=" + monthEnd;
+            for (int i = 0; i < repetitions; i++) {
+                client.call("warmup", "GET", summaryPath, null);
+            }
+            recorder = new LatencyRecorder();
+            client = environment.client(recorder);
+            long start = System.nanoTime();
+            for (int i = 0; i < repetitions; i++) {
+                client.call("finance summary (1 month)", "GET", summaryPath, null);
+            }
+            recorder.snapshot(System.nanoTime() - start).forEach((endpoint, s) -> {
+                System.out.printf("%-28s p50 %.1f ms, p95 %.1f ms, p99 %.1f ms%n", endpoint,
+                        s.getP50Millis(), s.getP95Millis(), s.getP99Millis());
+                report.put(endpoint, s.toMap());
+            });
+
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(file,
+                    Map.of("monthStart", monthStart.toString(), "monthEnd", monthEnd.toString(), "reports", report));
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * The SQL behind the monthly finance and visit reports, as JPA issues it
+     */
+    private static List<ReportQuery> reports(LocalDate monthStart, LocalDate monthEnd) {
+        Date start = Date.valueOf(monthStart);
+        Date end = Date.valueOf(monthEnd);
+        return List.of(
+                new ReportQuery("revenue", new String[]{"invoices"}, """
+                        SELECT SUM(i.total_amount) FROM invoices i
+                        WHERE i.invoice_date BETWEEN ? AND ? AND i.payment_status = 'PAID'
+                        """, start, end),
+                new ReportQuery("top services", new String[]{"invoices", "invoice_items"}, """
+                        SELECT ii.item_name, COUNT(DISTINCT i.id), SUM(ii.unit_price * ii.quantity)
+                        FROM invoices i JOIN invoice_items ii ON ii.invoice_id = i.id
+                        WHERE i.invoice_date BETWEEN ? AND ? AND ii.invoice_date BETWEEN ? AND ?
+                        GROUP BY ii.item_name ORDER BY 3 DESC
+                        """, start, end, start, end),
+                new ReportQuery("visits", new String[]{"patient_visit_sessions"}, """
+                        SELECT vs.visit_purpose, COUNT(*) FROM patient_visit_sessions vs
+                        WHERE vs.visit_date >= ? AND vs.visit_date < ?
+                        GROUP BY vs.visit_purpose
+                        """, start, Date.valueOf(monthEnd.plusDays(1))));
+    }
+
+    /**
+     * Relations the executor actually read; pruned partitions do not appear in the plan at all,
+     * and run-time pruned ones are reported as never executed.
+     */
+    private static void collectRelations(JsonNode node, Set<String> relations) {
+        if (node == null) {
+            return;
+        }
+        JsonNode loops = node.get("Actual Loops");
+        boolean executed = loops == null || loops.asLong() > 0;
+        if (executed && node.has("Relation Name")) {
+            relations.add(node.get("Relation Name").asText());
+        }
+        JsonNode children = node.get("Plans");
+        if (children != null) {
+            children.forEach(child -> collectRelations(child, relations));
+        }
+    }
+
+    private static int countPartitions(JdbcTemplate jdbcTemplate, String... tables) {
+        int total = 0;
+        for (String table : tables) {
+            Integer count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_inherits WHERE inhparent = ?::regclass", Integer.class, table);
+            total += count != null ? count : 0;
+        }
+        return total;
+    }
+
+    private record ReportQuery(String name, String[] tables, String sql, Object... params) {
+    }
+}
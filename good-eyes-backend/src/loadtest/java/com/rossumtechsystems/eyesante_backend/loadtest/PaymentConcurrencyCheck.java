@@ -0,0 +1,200 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.exception.ResourceConflictException;
+import com.rossumtechsystems.eyesante_backend.service.FinanceService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Posts partial payments to the same invoices from many threads at once and checks that every
+ * amount lands exactly once.
+ *
+ * <p>{@code loadtest.invoices} open invoices are seeded, each owing
+ * {@code loadtest.paymentsPerInvoice} instalments. All instalments are posted in parallel through
+ * FinanceService, each one twice with the same idempotency key to stand in for a client retry, and
+ * then one more instalment per invoice that would overpay it. Afterwards every invoice must be
+ * PAID with amount_paid equal to its ledger sum and one ledger row per instalment, the retries
+ * must have been answered without posting, and every overpayment must have been refused.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.PaymentConcurrencyCheck
+ * </pre>
+ */
+public class PaymentConcurrencyCheck {
+
+    private static final BigDecimal INSTALMENT = new BigDecimal("1000.00");
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 2_000);
+        int years = Integer.getInteger("loadtest.years", 1);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 1);
+        int invoices = Integer.getInteger("loadtest.invoices", 20);
+        int paymentsPerInvoice = Integer.getInteger("loadtest.paymentsPerInvoice", 25);
+        int threads = Integer.getInteger("loadtest.threads", 32);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/payment-concurrency-report.json");
+
+        List<String> violations = new ArrayList<>();
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            JdbcTemplate jdbcTemplate = environment.jdbcTemplate();
+            FinanceService financeService = environment.context().getBean(FinanceService.class);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    environment.context().getBean(PlatformTransactionManager.class));
+            List<Long> invoiceIds = transactionTemplate.execute(status ->
+                    seedInvoices(jdbcTemplate, invoices, paymentsPerInvoice));
+
+            // Every instalment twice (original and retry), shuffled so retries race their originals
+            List<Runnable> posts = new ArrayList<>();
+            AtomicInteger failures = new AtomicInteger();
+            for (Long invoiceId : invoiceIds) {
+                for (int n = 0; n < paymentsPerInvoice; n++) {
+                    String key = "LT-PAY-" + invoiceId + "-" + n;
+                    Runnable post = () -> financeService.recordPayment(invoiceId, INSTALMENT,
+                            Invoice.PaymentMethod.CASH, "LT", key);
+                    posts.add(post);
+                    posts.add(post);
+                }
+            }
+            Collections.shuffle(posts, new Random(seed));
+
+            long start = System.nanoTime();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable post : posts) {
+                futures.add(executor.submit(post));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    violations.add("Payment failed: " + e.getCause());
+                }
+            }
+            double elapsedMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            // One more instalment per invoice, also in parallel: each must be refused
+            AtomicInteger refused = new AtomicInteger();
+            List<Future<?>> overpayments = new ArrayList<>();
+            for (Long invoiceId : invoiceIds) {
+                overpayments.add(executor.submit(() -> {
+                    try {
+                        financeService.recordPayment(invoiceId, INSTALMENT, Invoice.PaymentMethod.CASH, "LT",
+                                "LT-PAY-" + invoiceId + "-over");
+                    } catch (ResourceConflictException e) {
+                        refused.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : overpayments) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    violations.add("Overpayment failed with something other than a conflict: " + e.getCause());
+                }
+            }
+            executor.shutdown();
+
+            BigDecimal expected = INSTALMENT.multiply(BigDecimal.valueOf(paymentsPerInvoice));
+            List<Map<String, Object>> balances = jdbcTemplate.queryForList("""
+                SELECT i.id, i.amount_paid, i.balance_due, i.payment_status,
+                       (SELECT COUNT(*) FROM payments p WHERE p.invoice_id = i.id) AS ledger_rows,
+                       (SELECT COALESCE(SUM(p.amount), 0) FROM payments p WHERE p.invoice_id = i.id) AS ledger_sum
+                FROM invoices i WHERE i.id = ANY(?)
+                ORDER BY i.id
+                """, (Object) invoiceIds.toArray(Long[]::new));
+            int offBalance = 0;
+            for (Map<String, Object> row : balances) {
+                BigDecimal amountPaid = (BigDecimal) row.get("amount_paid");
+                long ledgerRows = ((Number) row.get("ledger_rows")).longValue();
+                if (amountPaid.compareTo(expected) != 0
+                        || amountPaid.compareTo((BigDecimal) row.get("ledger_sum")) != 0
+                        || ledgerRows != paymentsPerInvoice
+                        || ((BigDecimal) row.get("balance_due")).signum() != 0
+                        || !"PAID".equals(row.get("payment_status"))) {
+                    offBalance++;
+                    violations.add("Invoice " + row.get("id") + ": " + row);
+                }
+            }
+            if (refused.get() != invoiceIds.size()) {
+                violations.add("Overpayments refused " + refused.get() + " of " + invoiceIds.size());
+            }
+
+            System.out.printf("%n%d payment requests (%d retries) on %d invoices from %d threads in %.0f ms%n",
+                    posts.size(), posts.size() / 2, invoiceIds.size(), threads, elapsedMillis);
+            System.out.printf("Failed requests: %d, overpayments refused: %d/%d, invoices off balance: %d%n",
+                    failures.get(), refused.get(), invoiceIds.size(), offBalance);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("invoices", invoiceIds.size());
+            report.put("paymentsPerInvoice", paymentsPerInvoice);
+            report.put("requests", posts.size());
+            report.put("threads", threads);
+            report.put("elapsedMillis", elapsedMillis);
+            report.put("overpaymentsRefused", refused.get());
+            report.put("balances", balances);
+            report.put("violations", violations);
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+
+        if (!violations.isEmpty()) {
+            System.out.println();
+            violations.forEach(v -> System.out.println("VIOLATION: " + v));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Open invoices owing exactly paymentsPerInvoice instalments, each with a single line
+     */
+    private static List<Long> seedInvoices(JdbcTemplate jdbcTemplate, int invoices, int paymentsPerInvoice) {
+        BigDecimal total = INSTALMENT.multiply(BigDecimal.valueOf(paymentsPerInvoice));
+        List<Long> ids = jdbcTemplate.queryForList("""
+            INSERT INTO invoices (invoice_number, invoice_date, due_date, patient_id, patient_name, patient_phone,
+                                  doctor_name, invoice_purpose, subtotal, tax_amount, discount_amount, total_amount,
+                                  amount_paid, balance_due, status, payment_status,
+                                  created_at, updated_at, created_by, updated_by)
+            SELECT 'LT-PAYCHECK-' || p.id || '-' || extract(epoch FROM clock_timestamp())::BIGINT,
+                   CURRENT_DATE, CURRENT_DATE + 30,
+                   p.id, p.first_name || ' ' || p.last_name, p.phone,
+                   'Load Doctor', 'GENERAL_INVOICE',
+                   ?, 0, 0, ?, 0, ?, 'PENDING', 'PENDING',
+                   NOW(), NOW(), 'loadtest', 'loadtest'
+            FROM (SELECT * FROM patients WHERE patient_number LIKE 'LT-%' AND NOT COALESCE(deleted, FALSE)
+                  ORDER BY id LIMIT ?) p
+            RETURNING id
+            """, Long.class, total, total, total, invoices);
+        jdbcTemplate.update("""
+            INSERT INTO invoice_items (invoice_id, invoice_date, item_name, item_description, item_type, quantity,
+                                       unit_price, total_price, discount_amount, final_price, tax_amount,
+                                       created_at, updated_at, created_by, updated_by)
+            SELECT i.id, i.invoice_date, 'Load Test Procedure', 'Paid in instalments', 'PROCEDURE', 1,
+                   ?, ?, 0, ?, 0, NOW(), NOW(), 'loadtest', 'loadtest'
+            FROM invoices i
+            WHERE i.id = ANY(?::BIGINT[])
+            """, total, total, total, ids.toArray(Long[]::new));
+        return ids;
+    }
+}
@@ -0,0 +1,178 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rossumtechsystems.eyesante_backend.dto.ReceivableAgingDto;
+import com.rossumtechsystems.eyesante_backend.dto.ReceivableAgingInvoiceDto;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.service.FinanceService;
+import com.rossumtechsystems.eyesante_backend.service.ReceivableAgingService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Checks the receivables aging table against a scan of the invoices it summarises, and times both.
+ *
+ * <p>On the seeded history the aging summary must equal the same buckets computed directly from
+ * invoices. {@code loadtest.settle} of the oldest open invoices are then paid in full and one more
+ * cancelled through FinanceService; each must leave the aging table as that transaction commits.
+ * Finally the table is damaged behind the trigger's back (rows put in the wrong bucket, rows
+ * deleted) and the nightly refresh must put it right. Summary latency from the aging table and
+ * from the scan are reported side by side.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.ReceivableAgingCheck
+ * </pre>
+ */
+public class ReceivableAgingCheck {
+
+    // The aging buckets straight from invoices, as V88 defines open invoices and bucket boundaries
+    private static final String SCAN_SUMMARY = """
+            SELECT COALESCE(SUM(balance_due) FILTER (WHERE age <= 30), 0) AS days0to30,
+                   COALESCE(SUM(balance_due) FILTER (WHERE age BETWEEN 31 AND 60), 0) AS days31to60,
+                   COALESCE(SUM(balance_due) FILTER (WHERE age BETWEEN 61 AND 90), 0) AS days61to90,
+                   COALESCE(SUM(balance_due) FILTER (WHERE age > 90), 0) AS days90plus,
+                   COALESCE(SUM(balance_due), 0) AS total,
+                   COUNT(*) AS invoice_count
+            FROM (SELECT balance_due, (CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala')::DATE - invoice_date AS age
+                  FROM invoices
+                  WHERE balance_due > 0 AND status NOT IN ('PAID', 'CANCELLED', 'REFUNDED', 'DRAFT')) open
+            """;
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 20_000);
+        int years = Integer.getInteger("loadtest.years", 3);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 3);
+        int settle = Integer.getInteger("loadtest.settle", 25);
+        int damaged = Integer.getInteger("loadtest.damaged", 50);
+        int repetitions = Integer.getInteger("loadtest.repetitions", 20);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/receivable-aging-report.json");
+
+        List<String> violations = new ArrayList<>();
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            JdbcTemplate jdbcTemplate = environment.jdbcTemplate();
+            FinanceService financeService = environment.context().getBean(FinanceService.class);
+            ReceivableAgingService agingService = environment.context().getBean(ReceivableAgingService.class);
+            Map<String, Object> report = new LinkedHashMap<>();
+
+            compare("seeded history", jdbcTemplate, agingService, violations);
+
+            // Settle the oldest open invoices and cancel one more; each must drop out on commit
+            List<ReceivableAgingInvoiceDto> oldest = agingService.getInvoices(null, null, null, null, false,
+                    PageRequest.of(0, settle + 1)).getContent();
+            for (int i = 0; i < oldest.size(); i++) {
+                ReceivableAgingInvoiceDto invoice = oldest.get(i);
+                if (i < settle) {
+                    financeService.recordPayment(invoice.getInvoiceId(), invoice.getBalanceDue(),
+                            Invoice.PaymentMethod.CASH, "LT-AGING", "LT-AGING-" + invoice.getInvoiceId());
+                } else {
+                    financeService.updateInvoiceStatus(invoice.getInvoiceId(), Invoice.InvoiceStatus.CANCELLED);
+                }
+                Integer remaining = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM receivable_aging WHERE invoice_id = ?", Integer.class, invoice.getInvoiceId());
+                if (remaining != 0) {
+                    violations.add("Invoice " + invoice.getInvoiceId() + " still aging after "
+                            + (i < settle ? "full payment" : "cancellation"));
+                }
+            }
+            compare("after payments", jdbcTemplate, agingService, violations);
+
+            // Damage the table behind the trigger and let the nightly refresh repair it
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    environment.context().getBean(PlatformTransactionManager.class));
+            int misbucketed = transactionTemplate.execute(status -> jdbcTemplate.update("""
+                    UPDATE receivable_aging SET age_bucket = 'DAYS_0_30'
+                    WHERE invoice_id IN (SELECT invoice_id FROM receivable_aging
+                                         WHERE age_bucket <> 'DAYS_0_30' ORDER BY invoice_id LIMIT ?)
+                    """, damaged));
+            int deleted = transactionTemplate.execute(status -> jdbcTemplate.update("""
+                    DELETE FROM receivable_aging
+                    WHERE invoice_id IN (SELECT invoice_id FROM receivable_aging ORDER BY invoice_id DESC LIMIT ?)
+                    """, damaged));
+            ReceivableAgingService.RefreshResult refresh = agingService.refresh();
+            if (refresh.rebucketed() != misbucketed || refresh.resynced() != deleted) {
+                violations.add("Refresh " + refresh + " after " + misbucketed + " rows misbucketed and " + deleted + " deleted");
+            }
+            compare("after refresh", jdbcTemplate, agingService, violations);
+            report.put("refresh", refresh);
+
+            double[] agingMillis = time(repetitions, agingService::getSummary);
+            double[] scanMillis = time(repetitions, () -> jdbcTemplate.queryForMap(SCAN_SUMMARY));
+            double[] insurerMillis = time(repetitions, () -> agingService.getByDimension(
+                    ReceivableAgingService.Dimension.INSURER, PageRequest.of(0, 50)));
+            Long openInvoices = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM receivable_aging", Long.class);
+            Long allInvoices = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM invoices", Long.class);
+
+            System.out.printf("%n%,d open of %,d invoices%n", openInvoices, allInvoices);
+            System.out.printf("%-28s %10s %10s%n", "Summary", "p50 ms", "max ms");
+            System.out.printf("%-28s %10.2f %10.2f%n", "aging table", agingMillis[0], agingMillis[1]);
+            System.out.printf("%-28s %10.2f %10.2f%n", "invoices scan", scanMillis[0], scanMillis[1]);
+            System.out.printf("%-28s %10.2f %10.2f%n", "aging by insurer (page)", insurerMillis[0], insurerMillis[1]);
+
+            report.put("openInvoices", openInvoices);
+            report.put("allInvoices", allInvoices);
+            report.put("agingSummaryMillis", agingMillis);
+            report.put("scanSummaryMillis", scanMillis);
+            report.put("insurerPageMillis", insurerMillis);
+            report.put("violations", violations);
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+
+        if (!violations.isEmpty()) {
+            System.out.println();
+            violations.forEach(v -> System.out.println("VIOLATION: " + v));
+            System.exit(1);
+        }
+    }
+
+    private static void compare(String stage, JdbcTemplate jdbcTemplate, ReceivableAgingService agingService,
+                                List<String> violations) {
+        ReceivableAgingDto expected = jdbcTemplate.queryForObject(SCAN_SUMMARY, new BeanPropertyRowMapper<>(ReceivableAgingDto.class));
+        ReceivableAgingDto actual = agingService.getSummary();
+        actual.setLabel(null);
+        if (!sameFigures(expected, actual)) {
+            violations.add("Aging " + stage + ": table " + actual + " but invoices give " + expected);
+        }
+    }
+
+    private static boolean sameFigures(ReceivableAgingDto a, ReceivableAgingDto b) {
+        return a.getDays0To30().compareTo(b.getDays0To30()) == 0
+                && a.getDays31To60().compareTo(b.getDays31To60()) == 0
+                && a.getDays61To90().compareTo(b.getDays61To90()) == 0
+                && a.getDays90Plus().compareTo(b.getDays90Plus()) == 0
+                && a.getTotal().compareTo(b.getTotal()) == 0
+                && a.getInvoiceCount() == b.getInvoiceCount();
+    }
+
+    /**
+     * Median and maximum milliseconds over the repetitions, after one warm-up call
+     */
+    private static double[] time(int repetitions, Supplier<?> call) {
+        call.get();
+        double[] millis = new double[repetitions];
+        for (int i = 0; i < repetitions; i++) {
+            long start = System.nanoTime();
+            call.get();
+            millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+        return new double[]{millis[repetitions / 2], millis[repetitions - 1]};
+    }
+}
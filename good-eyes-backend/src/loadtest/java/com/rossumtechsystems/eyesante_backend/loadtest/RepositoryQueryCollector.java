@@ -0,0 +1,168 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import jakarta.persistence.Entity;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the SQL behind every query method declared on the application's Spring Data
+ * repositories. Each method is called with sample arguments under a
+ * {@link StatementCounter#dryRun dry run}, so Hibernate renders the statement but nothing executes.
+ * Inherited CRUD methods and {@link Modifying} queries are left out.
+ */
+public final class RepositoryQueryCollector {
+
+    private RepositoryQueryCollector() {
+    }
+
+    /**
+     * Statements keyed by SQL, each with the repository methods that issue it; methods that
+     * could not be called are listed under {@code skipped}
+     */
+    public static Map<String, List<String>> collect(ApplicationContext context, List<String> skipped) {
+        Repositories repositories = new Repositories(context);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        Map<String, List<String>> statements = new LinkedHashMap<>();
+
+        for (Class<?> domainType : repositories) {
+            Object repository = repositories.getRepositoryFor(domainType).orElse(null);
+            if (repository == null) {
+                continue;
+            }
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            Class<?> repositoryInterface = information.getRepositoryInterface();
+            List<Method> methods = new ArrayList<>(List.of(repositoryInterface.getDeclaredMethods()));
+            methods.sort(Comparator.comparing(Method::toGenericString));
+
+            for (Method method : methods) {
+                if (method.isDefault() || Modifier.isStatic(method.getModifiers()) || method.isSynthetic()
+                        || method.isAnnotationPresent(Modifying.class)) {
+                    continue;
+                }
+                String source = repositoryInterface.getSimpleName() + "." + method.getName();
+                Object[] arguments = sampleArguments(method);
+                if (arguments == null) {
+                    skipped.add(source + ": no sample value for its parameters");
+                    continue;
+                }
+                try {
+                    StatementCounter.dryRun(() -> transactionTemplate.executeWithoutResult(status -> {
+                        status.setRollbackOnly();
+                        ReflectionUtils.invokeMethod(method, repository, arguments);
+                    })).forEach(sql -> statements.computeIfAbsent(sql, s -> new ArrayList<>()).add(source));
+                } catch (RuntimeException e) {
+                    skipped.add(source + ": " + e.getClass().getSimpleName() + " " + e.getMessage());
+                }
+            }
+        }
+        return statements;
+    }
+
+    private static Object[] sampleArguments(Method method) {
+        Type[] types = method.getGenericParameterTypes();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            arguments[i] = sample(types[i]);
+            if (arguments[i] == null) {
+                return null;
+            }
+        }
+        return arguments;
+    }
+
+    /**
+     * A plausible value of the given type; IDs and counts are 1, dates are today
+     */
+    private static Object sample(Type type) {
+        if (type instanceof ParameterizedType parameterized) {
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            if (Collection.class.isAssignableFrom(raw)) {
+                Object element = sample(parameterized.getActualTypeArguments()[0]);
+                if (element == null) {
+                    return null;
+                }
+                return Set.class.isAssignableFrom(raw) ? Set.of(element) : List.of(element);
+            }
+            return sample(raw);
+        }
+        if (!(type instanceof Class<?> clazz)) {
+            return null;
+        }
+        if (clazz == Long.class || clazz == long.class) {
+            return 1L;
+        }
+        if (clazz == Integer.class || clazz == int.class) {
+            return 1;
+        }
+        if (clazz == Double.class || clazz == double.class) {
+            return 1.0;
+        }
+        if (clazz == Boolean.class || clazz == boolean.class) {
+            return true;
+        }
+        if (clazz == String.class) {
+            return "x";
+        }
+        if (clazz == BigDecimal.class) {
+            return BigDecimal.ONE;
+        }
+        if (clazz == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (clazz == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (clazz == LocalTime.class) {
+            return LocalTime.of(9, 0);
+        }
+        if (clazz.isEnum()) {
+            return clazz.getEnumConstants()[0];
+        }
+        if (clazz == Pageable.class) {
+            return PageRequest.of(0, 20);
+        }
+        if (clazz == Limit.class) {
+            return Limit.of(20);
+        }
+        if (clazz == Sort.class) {
+            return Sort.unsorted();
+        }
+        if (clazz.isAnnotationPresent(Entity.class)) {
+            // A detached reference with an ID binds like a foreign key value
+            try {
+                Object entity = clazz.getDeclaredConstructor().newInstance();
+                Method setId = clazz.getMethod("setId", Long.class);
+                setId.invoke(entity, 1L);
+                return entity;
+            } catch (ReflectiveOperationException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,152 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full DTO pages versus {@code ?view=summary} and {@code ?fields=} on the same list endpoints,
+ * through the real controllers: payload bytes per page and latency side by side.
+ *
+ * <p>Each list is fetched in all three shapes with the same page and sort, so every shape must
+ * return the same ids in the same order and the same total. A {@code ?fields=} row must carry
+ * exactly id plus the requested fields, and an unknown field must be refused with a 400.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.rossumtechsystems.eyesante_backend.loadtest.SparseFieldsetCheck
+ * </pre>
+ */
+public class SparseFieldsetCheck {
+
+    // Path with page and sort, and the fields a list screen would ask for
+    private record Endpoint(String name, String path, String fields) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int patients = Integer.getInteger("loadtest.patients", 20_000);
+        int years = Integer.getInteger("loadtest.years", 2);
+        int visitsPerYear = Integer.getInteger("loadtest.visitsPerPatientPerYear", 3);
+        int pageSize = Integer.getInteger("loadtest.pageSize", 50);
+        int repetitions = Integer.getInteger("loadtest.repetitions", 30);
+        long seed = Long.getLong("loadtest.seed", 20250106L);
+        String reportPath = System.getProperty("loadtest.report", "target/sparse-fieldset-report.json");
+
+        List<Endpoint> endpoints = List.of(
+                new Endpoint("invoices", "/api/finance/invoices?page=2&size=" + pageSize
+                        + "&sort=invoiceDate,desc&sort=id,desc", "invoiceNumber,invoiceDate,patientName,balanceDue,status"),
+                new Endpoint("patients", "/api/patients?page=2&size=" + pageSize
+                        + "&sort=createdAt,desc&sort=id,desc", "patientNumber,firstName,lastName,phone"),
+                new Endpoint("patient search", "/api/patients/search?query=a&page=0&size=" + pageSize
+                        + "&sort=firstName&sort=lastName&sort=id", "patientNumber,firstName,lastName,phone"),
+                new Endpoint("visits", "/api/patient-visit-sessions?page=2&size=" + pageSize,
+                        "patientName,visitDate,status,currentStage"),
+                new Endpoint("inventory items", "/api/inventory/items?page=0&size=" + pageSize + "&sort=id",
+                        "name,sku,quantityInStock,stockStatus"));
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> violations = new ArrayList<>();
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(patients, years, visitsPerYear, seed)) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            LoadTestClient client = environment.client(recorder);
+            Map<String, Object> report = new LinkedHashMap<>();
+
+            System.out.printf("%n%-18s %-8s %10s %10s %9s %9s%n", "list", "shape", "bytes", "bytes/row", "p50 ms", "max ms");
+            for (Endpoint endpoint : endpoints) {
+                Map<String, String> shapes = new LinkedHashMap<>();
+                shapes.put("full", endpoint.path());
+                shapes.put("summary", endpoint.path() + "&view=summary");
+                shapes.put("fields", endpoint.path() + "&fields=" + endpoint.fields());
+
+                Map<String, Object> endpointReport = new LinkedHashMap<>();
+                List<Long> fullIds = null;
+                long fullTotal = 0;
+                for (Map.Entry<String, String> shape : shapes.entrySet()) {
+                    String label = endpoint.name() + " " + shape.getKey();
+                    JsonNode page = client.call(label + " (warmup)", "GET", shape.getValue(), null);
+                    for (int i = 0; i < repetitions; i++) {
+                        page = client.call(label, "GET", shape.getValue(), null);
+                    }
+                    JsonNode content = page.path("content");
+                    List<Long> ids = new ArrayList<>();
+                    content.forEach(row -> ids.add(row.path("id").asLong()));
+                    long total = page.path("totalElements").asLong();
+                    if (fullIds == null) {
+                        fullIds = ids;
+                        fullTotal = total;
+                        if (ids.isEmpty()) {
+                            violations.add(endpoint.name() + ": full page is empty, nothing to compare");
+                        }
+                    } else {
+                        if (!ids.equals(fullIds)) {
+                            violations.add(label + " ids " + ids + " differ from full " + fullIds);
+                        }
+                        if (total != fullTotal) {
+                            violations.add(label + " total " + total + " differs from full " + fullTotal);
+                        }
+                    }
+                    if (shape.getKey().equals("fields")) {
+                        checkFields(label, content, endpoint.fields(), violations);
+                    }
+
+                    int bytes = mapper.writeValueAsBytes(content).length;
+                    LatencyRecorder.EndpointStats stats = recorder.snapshot(1).get(label);
+                    System.out.printf("%-18s %-8s %,10d %,10d %9.1f %9.1f%n", endpoint.name(), shape.getKey(), bytes,
+                            ids.isEmpty() ? 0 : bytes / ids.size(), stats.getP50Millis(), stats.getMaxMillis());
+                    Map<String, Object> shapeReport = new LinkedHashMap<>(stats.toMap());
+                    shapeReport.put("bytes", bytes);
+                    shapeReport.put("rows", ids.size());
+                    endpointReport.put(shape.getKey(), shapeReport);
+                }
+                report.put(endpoint.name(), endpointReport);
+            }
+
+            // Fields outside the whitelist never reach the SQL
+            try {
+                client.call("unknown field", "GET", "/api/patients?fields=firstName,password", null);
+                violations.add("Unknown field was accepted");
+            } catch (IllegalStateException expected) {
+                if (!expected.getMessage().contains("returned 400")) {
+                    violations.add("Unknown field: " + expected.getMessage());
+                }
+            }
+
+            report.put("pageSize", pageSize);
+            report.put("repetitions", repetitions);
+            report.put("violations", violations);
+            File file = new File(reportPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            System.out.println("Report written to " + file.getAbsolutePath());
+        }
+
+        if (!violations.isEmpty()) {
+            System.out.println();
+            violations.forEach(v -> System.out.println("VIOLATION: " + v));
+            System.exit(1);
+        }
+    }
+
+    private static void checkFields(String label, JsonNode content, String fields, List<String> violations) {
+        List<String> expected = new ArrayList<>();
+        expected.add("id");
+        expected.addAll(List.of(fields.split(",")));
+        for (JsonNode row : content) {
+            List<String> names = new ArrayList<>();
+            Iterator<String> it = row.fieldNames();
+            it.forEachRemaining(names::add);
+            if (!names.equals(expected)) {
+                violations.add(label + " row " + row.path("id") + " has fields " + names + ", expected " + expected);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upper bounds on Hibernate statements per request for read paths that must not regress into N+1.
+ *
+ * Every authenticated request pays about four statements in the JWT filter (user, department,
+ * roles, permissions); the budgets below include that. A run fails when an endpoint's average
+ * exceeds its budget.
+ */
+public final class StatementBudgets {
+
+    private static final Map<String, Double> BUDGETS = new LinkedHashMap<>();
+
+    static {
+        // Page query (patient joined) + count + one keyed items query
+        BUDGETS.put("GET /api/finance/invoices", 8.0);
+        BUDGETS.put("GET /api/finance/invoices/patient/{patientId}", 8.0);
+        BUDGETS.put("GET /api/finance/invoices/balance-due", 8.0);
+        // Lookup + patient + keyed items query
+        BUDGETS.put("GET /api/finance/invoices/{id}", 8.0);
+        // Ten aggregate queries
+        BUDGETS.put("GET /api/finance/summary", 15.0);
+        // One query per record type
+        BUDGETS.put("GET /api/patients/{id}/timeline", 14.0);
+    }
+
+    private StatementBudgets() {
+    }
+
+    /**
+     * Human-readable violations; empty when every measured endpoint is within budget.
+     */
+    public static List<String> check(Map<String, Double> statementsPerRequest) {
+        List<String> violations = new ArrayList<>();
+        BUDGETS.forEach((endpoint, budget) -> {
+            Double measured = statementsPerRequest.get(endpoint);
+            if (measured != null && measured > budget) {
+                violations.add(String.format("%s: %.1f statements/request exceeds budget of %.0f", endpoint, measured, budget));
+            }
+        });
+        return violations;
+    }
+}
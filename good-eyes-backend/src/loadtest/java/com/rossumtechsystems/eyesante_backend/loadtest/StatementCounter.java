@@ -0,0 +1,138 @@
+package com.rossumtechsystems.eyesante_backend.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts Hibernate-issued SQL statements per request and attributes them to the
+ * matched controller pattern. The inspector is registered through
+ * {@code hibernate.session_factory.statement_inspector}; the filter reads the
+ * thread-local count once the request has been handled.
+ * Statements issued through JdbcTemplate bypass Hibernate and are not counted.
+ *
+ * <p>{@link #dryRun(Runnable)} reuses the inspector to record the SQL an action would issue and
+ * abort it before it reaches the database; {@link #capture(Runnable)} records the SQL an action
+ * really executes.
+ */
+public class StatementCounter extends OncePerRequestFilter {
+
+    private static final ThreadLocal<long[]> CURRENT = ThreadLocal.withInitial(() -> new long[1]);
+    private static final Map<String, AtomicLong> STATEMENTS = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> REQUESTS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<List<String>> DRY_RUN = new ThreadLocal<>();
+    private static final ThreadLocal<List<String>> CAPTURE = new ThreadLocal<>();
+
+    public static class Inspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            List<String> dryRun = DRY_RUN.get();
+            if (dryRun != null) {
+                dryRun.add(sql);
+                throw new DryRunAbort();
+            }
+            List<String> capture = CAPTURE.get();
+            if (capture != null) {
+                capture.add(sql);
+            }
+            CURRENT.get()[0]++;
+            return sql;
+        }
+    }
+
+    /**
+     * Thrown from the inspector to stop a dry-run statement before it is prepared
+     */
+    private static final class DryRunAbort extends RuntimeException {
+        DryRunAbort() {
+            super("dry run", null, false, false);
+        }
+    }
+
+    /**
+     * Runs the action on this thread and returns the SQL of the first Hibernate statement it
+     * issues, which is aborted; empty when it issues none. Other failures propagate.
+     */
+    public static List<String> dryRun(Runnable action) {
+        List<String> statements = new ArrayList<>();
+        DRY_RUN.set(statements);
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            Throwable cause = e;
+            while (cause != null && !(cause instanceof DryRunAbort)) {
+                cause = cause.getCause();
+            }
+            if (cause == null) {
+                throw e;
+            }
+        } finally {
+            DRY_RUN.remove();
+        }
+        return statements;
+    }
+
+    /**
+     * Runs the action on this thread and returns the SQL of every Hibernate statement it executed
+     */
+    public static List<String> capture(Runnable action) {
+        List<String> statements = new ArrayList<>();
+        CAPTURE.set(statements);
+        try {
+            action.run();
+        } finally {
+            CAPTURE.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        long[] counter = CURRENT.get();
+        counter[0] = 0;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String key = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+            STATEMENTS.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(counter[0]);
+            REQUESTS.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+            counter[0] = 0;
+        }
+    }
+
+    public static void reset() {
+        STATEMENTS.clear();
+        REQUESTS.clear();
+    }
+
+    /**
+     * Average statements per request, keyed by endpoint template.
+     */
+    public static Map<String, Double> statementsPerRequest() {
+        Map<String, Double> result = new TreeMap<>();
+        STATEMENTS.forEach((key, total) -> {
+            long requests = REQUESTS.getOrDefault(key, new AtomicLong(1)).get();
+            result.put(key, requests == 0 ? 0 : (double) total.get() / requests);
+        });
+        return result;
+    }
+
+    public static long totalStatements() {
+        return STATEMENTS.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+}
@@ -0,0 +1,231 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit of one bulkhead, moved from observed latency.
+ *
+ * Requests beyond the limit wait in a bounded FIFO queue for a bounded time and are refused after
+ * that. Every window the limit is re-estimated the way Netflix's Gradient2 limiter does: the
+ * window's average latency is compared with a slow moving baseline, and the limit shrinks in
+ * proportion while latency is above the baseline (queueing somewhere downstream, typically for a
+ * connection) and creeps up by a small queue allowance while it is not. Gradient2's allowance is
+ * the square root of the limit, which holds a bulkhead at 4 or more however slow its requests get;
+ * this one grows with the logarithm instead, so a small pool can be pushed down to 2. A window with
+ * failed requests backs the limit off by a tenth. A window in which less than half the limit was
+ * used leaves it alone, so a quiet pool does not drift up to its maximum.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /** Latency up to this multiple of the baseline still counts as unloaded */
+    private static final double TOLERANCE = 1.5;
+    /** Windows the baseline averages over */
+    private static final int BASELINE_WINDOWS = 100;
+    /** Share of a new estimate taken into the limit per window */
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+    private static final int MIN_WINDOW_SAMPLES = 5;
+
+    public record Stats(String pool, int limit, int minLimit, int maxLimit, int inFlight, int queued, int maxQueue,
+                        long accepted, long delayed, long rejected, long timedOut, int peakInFlight,
+                        double avgQueueWaitMillis, double latencyMillis, double baselineLatencyMillis) {}
+
+    /**
+     * A held slot; {@link #release} exactly once when the request is done
+     */
+    public final class Permit {
+        private final long startNanos = ticker.getAsLong();
+        private boolean released;
+
+        public void release(boolean failed) {
+            if (!released) {
+                released = true;
+                AdaptiveConcurrencyLimiter.this.release(ticker.getAsLong() - startNanos, failed);
+            }
+        }
+    }
+
+    private final String pool;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final long windowNanos;
+    private final LongSupplier ticker;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition permitFreed = lock.newCondition();
+
+    // Guarded by lock
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private int peakInFlight;
+    private long accepted;
+    private long delayed;
+    private long rejected;
+    private long timedOut;
+    private long queueWaitNanos;
+    private double latencyNanos;
+    private double baselineNanos;
+    private long windowStart;
+    private long windowLatencySum;
+    private int windowSamples;
+    private int windowFailures;
+    private int windowPeakInFlight;
+
+    public AdaptiveConcurrencyLimiter(String pool, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                                      long queueTimeoutMillis, long windowMillis) {
+        this(pool, initialLimit, minLimit, maxLimit, maxQueue, queueTimeoutMillis, windowMillis, System::nanoTime);
+    }
+
+    /**
+     * With the clock latencies are measured on, in nanoseconds
+     */
+    AdaptiveConcurrencyLimiter(String pool, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                               long queueTimeoutMillis, long windowMillis, LongSupplier ticker) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Bulkhead " + pool + ": limits must satisfy 1 <= min <= max");
+        }
+        this.pool = pool;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.ticker = ticker;
+        this.windowStart = ticker.getAsLong();
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * A permit, after waiting in the queue if the pool is full; null when the queue is full or the
+     * wait ran out
+     */
+    public Permit tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            // Newcomers go behind anyone already queued
+            if (queued == 0 && inFlight < currentLimit()) {
+                return grant();
+            }
+            if (queued >= maxQueue) {
+                rejected++;
+                return null;
+            }
+            long waitStart = ticker.getAsLong();
+            long remaining = queueTimeoutNanos;
+            queued++;
+            try {
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        timedOut++;
+                        return null;
+                    }
+                    remaining = permitFreed.awaitNanos(remaining);
+                }
+            } finally {
+                queued--;
+            }
+            delayed++;
+            queueWaitNanos += ticker.getAsLong() - waitStart;
+            Permit permit = grant();
+            if (queued > 0 && inFlight < currentLimit()) {
+                permitFreed.signal();
+            }
+            return permit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit grant() {
+        inFlight++;
+        accepted++;
+        peakInFlight = Math.max(peakInFlight, inFlight);
+        windowPeakInFlight = Math.max(windowPeakInFlight, inFlight);
+        return new Permit();
+    }
+
+    private void release(long latency, boolean failed) {
+        lock.lock();
+        try {
+            inFlight--;
+            windowLatencySum += latency;
+            windowSamples++;
+            if (failed) {
+                windowFailures++;
+            }
+            long now = ticker.getAsLong();
+            if (now - windowStart >= windowNanos && windowSamples >= MIN_WINDOW_SAMPLES) {
+                int before = currentLimit();
+                updateLimit();
+                windowStart = now;
+                windowLatencySum = 0;
+                windowSamples = 0;
+                windowFailures = 0;
+                windowPeakInFlight = inFlight;
+                if (currentLimit() > before) {
+                    permitFreed.signalAll();
+                    return;
+                }
+            }
+            permitFreed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void updateLimit() {
+        latencyNanos = (double) windowLatencySum / windowSamples;
+        if (windowFailures > 0) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            return;
+        }
+        if (baselineNanos == 0) {
+            baselineNanos = latencyNanos;
+        } else {
+            baselineNanos += (latencyNanos - baselineNanos) / BASELINE_WINDOWS;
+            // Latency far below the baseline: the baseline still remembers a past overload
+            if (baselineNanos > 2 * latencyNanos) {
+                baselineNanos *= 0.95;
+            }
+        }
+        if (windowPeakInFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.clamp(TOLERANCE * baselineNanos / latencyNanos, 0.5, 1.0);
+        double estimate = limit * gradient + queueAllowance(limit);
+        limit = Math.clamp(limit * (1 - SMOOTHING) + estimate * SMOOTHING, minLimit, maxLimit);
+    }
+
+    /**
+     * Requests allowed to queue on top of the latency-scaled limit: 1 at a limit of 1, 2 at 10 and
+     * 3 at 100. With the gradient at its floor the limit settles where it is twice this, under 3
+     */
+    private static double queueAllowance(double limit) {
+        return Math.log10(limit) + 1;
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    public String getPool() {
+        return pool;
+    }
+
+    public Stats getStats() {
+        lock.lock();
+        try {
+            return new Stats(pool, currentLimit(), minLimit, maxLimit, inFlight, queued, maxQueue, accepted, delayed,
+                    rejected, timedOut, peakInFlight, delayed == 0 ? 0 : queueWaitNanos / 1e6 / delayed,
+                    latencyNanos / 1e6, baselineNanos / 1e6);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Grows and shrinks the Hikari pool between configured bounds from observed demand.
+ *
+ * Demand is the peak of connection holders plus waiters in each window: taken from
+ * {@link ConcurrencyLimitedDataSource} when the guard is on (it sees every acquire), otherwise
+ * sampled from the pool MXBean. The pool grows straight to the target and shrinks one connection
+ * at a time after a run of quiet windows, so a lull between clinic sessions does not drop
+ * connections the next rush needs.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.db.adaptive-pool.enabled", havingValue = "true")
+public class AdaptiveConnectionPoolSizer {
+
+    private final DataSource dataSource;
+
+    @Value("${app.db.adaptive-pool.min-size:5}")
+    private int minSize;
+
+    @Value("${app.db.adaptive-pool.max-size:20}")
+    private int maxSize;
+
+    @Value("${app.db.adaptive-pool.headroom:1.25}")
+    private double headroom;
+
+    @Value("${app.db.adaptive-pool.shrink-after-windows:12}")
+    private int shrinkAfterWindows;
+
+    private int quietWindows;
+
+    public AdaptiveConnectionPoolSizer(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${app.db.adaptive-pool.interval-ms:5000}",
+            initialDelayString = "${app.db.adaptive-pool.interval-ms:5000}")
+    public void resize() {
+        try {
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool == null) {
+                return; // pool not started yet
+            }
+            ConcurrencyLimitedDataSource limiter = dataSource.isWrapperFor(ConcurrencyLimitedDataSource.class)
+                    ? dataSource.unwrap(ConcurrencyLimitedDataSource.class) : null;
+
+            int demand = limiter != null
+                    ? limiter.drainPeakDemand()
+                    : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+            HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+            int current = config.getMaximumPoolSize();
+            int target = Math.max(minSize, Math.min(maxSize, (int) Math.ceil(demand * headroom)));
+
+            if (target > current) {
+                quietWindows = 0;
+                apply(config, limiter, current, target, demand);
+            } else if (target < current) {
+                if (++quietWindows >= shrinkAfterWindows) {
+                    quietWindows = 0;
+                    apply(config, limiter, current, current - 1, demand);
+                }
+            } else {
+                quietWindows = 0;
+            }
+        } catch (SQLException e) {
+            log.warn("Adaptive pool sizing skipped: {}", e.getMessage());
+        }
+    }
+
+    private void apply(HikariConfigMXBean config, ConcurrencyLimitedDataSource limiter,
+                       int current, int target, int demand) {
+        // Permits never exceed connections: raise the pool before the guard, lower the guard first
+        if (target > current) {
+            config.setMaximumPoolSize(target);
+            if (limiter != null) {
+                limiter.setLimit(target);
+            }
+        } else {
+            if (limiter != null) {
+                limiter.setLimit(target);
+            }
+            config.setMaximumPoolSize(target);
+        }
+        log.info("Connection pool resized from {} to {} (peak demand {})", current, target, demand);
+    }
+}
@@ -0,0 +1,20 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import com.rossumtechsystems.eyesante_backend.entity.BranchScoped;
+import com.rossumtechsystems.eyesante_backend.entity.Clinic;
+import jakarta.persistence.PrePersist;
+
+/**
+ * Puts a new branch-scoped row in the current request's branch, or the main clinic when there is
+ * none, unless the caller chose one.
+ */
+public class BranchAssignmentListener {
+
+    @PrePersist
+    public void assignBranch(Object entity) {
+        if (entity instanceof BranchScoped scoped && scoped.getClinicId() == null) {
+            Long clinicId = BranchContext.currentClinicId();
+            scoped.setClinicId(clinicId != null ? clinicId : Clinic.MAIN_CLINIC_ID);
+        }
+    }
+}
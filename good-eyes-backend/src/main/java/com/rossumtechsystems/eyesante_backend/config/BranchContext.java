@@ -0,0 +1,64 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import com.rossumtechsystems.eyesante_backend.entity.Clinic;
+
+import java.util.List;
+
+/**
+ * The branch (clinic) the current request works in, taken from the {@code clinicId} claim of its
+ * access token by the JWT filter and cleared when the request ends. Null for users not tied to a
+ * branch and for work outside a request (jobs, event listeners), which see every branch.
+ *
+ * Read when a transaction begins ({@link BranchFilteringTransactionManager}), when a branch-scoped
+ * row is inserted and when a cache key is built, so it must be set before any of those happen.
+ */
+public final class BranchContext {
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private BranchContext() {
+    }
+
+    public static Long currentClinicId() {
+        return CURRENT.get();
+    }
+
+    public static void set(Long clinicId) {
+        if (clinicId == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(clinicId);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Plain SQL is not covered by the Hibernate branch filter: {@code column = ?} for the current
+     * branch, with the branch appended to {@code args}, or {@code TRUE} outside a branch
+     */
+    public static String sqlPredicate(String column, List<Object> args) {
+        Long clinicId = CURRENT.get();
+        if (clinicId == null) {
+            return "TRUE";
+        }
+        args.add(clinicId);
+        return column + " = ?";
+    }
+
+    /**
+     * As {@link #sqlPredicate}, for a branch key that is null on rows written before V91 (cold
+     * archive snapshots): {@code COALESCE(column, ?) = ?}, counting those rows as the main clinic's
+     */
+    public static String sqlPredicateOrMainClinic(String column, List<Object> args) {
+        Long clinicId = CURRENT.get();
+        if (clinicId == null) {
+            return "TRUE";
+        }
+        args.add(Clinic.MAIN_CLINIC_ID);
+        args.add(clinicId);
+        return "COALESCE(" + column + ", ?) = ?";
+    }
+}
@@ -0,0 +1,32 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import com.rossumtechsystems.eyesante_backend.entity.Clinic;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JpaTransactionManager that turns on the branch filter for the session of every transaction it
+ * begins, when the current request has a branch. With open-in-view off each transaction (and each
+ * repository call outside one) gets a new session, so the filter follows the request that opened
+ * it; transactions joining an outer one keep the outer one's session and branch.
+ */
+public class BranchFilteringTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        Long clinicId = BranchContext.currentClinicId();
+        if (clinicId == null) {
+            return;
+        }
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(obtainEntityManagerFactory());
+        if (holder != null) {
+            holder.getEntityManager().unwrap(Session.class)
+                    .enableFilter(Clinic.BRANCH_FILTER)
+                    .setParameter("clinicId", clinicId);
+        }
+    }
+}
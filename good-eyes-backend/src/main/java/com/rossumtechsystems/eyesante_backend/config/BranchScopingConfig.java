@@ -0,0 +1,22 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Replaces Spring Boot's JpaTransactionManager with {@link BranchFilteringTransactionManager},
+ * customised the same way, so every transaction sees only the current branch's rows.
+ */
+@Configuration
+public class BranchScopingConfig {
+
+    @Bean
+    public PlatformTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> customizers) {
+        BranchFilteringTransactionManager transactionManager = new BranchFilteringTransactionManager();
+        customizers.ifAvailable(c -> c.customize(transactionManager));
+        return transactionManager;
+    }
+}
@@ -0,0 +1,90 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rossumtechsystems.eyesante_backend.dto.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Holds each request of a bulkhead pool to the pool's limit, answering 503 with Retry-After when
+ * the pool's queue is full or the wait for a slot runs out. A response with a 5xx status or an
+ * exception counts as a failure and backs the limit off.
+ *
+ * <p>Runs after security, so refusals carry CORS headers and unauthenticated requests take no
+ * slot. Pools must cover plain synchronous endpoints only: the slot is released when the handler
+ * returns, before a streamed body (delta sync) would be written.
+ */
+@Slf4j
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private final Bulkheads bulkheads;
+    private final ObjectMapper objectMapper;
+
+    public BulkheadFilter(Bulkheads bulkheads, ObjectMapper objectMapper) {
+        this.bulkheads = bulkheads;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !bulkheads.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Bulkheads.Pool pool = bulkheads.poolFor(request);
+        if (pool == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        AdaptiveConcurrencyLimiter.Permit permit;
+        try {
+            permit = pool.limiter().tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permit = null;
+        }
+        if (permit == null) {
+            refuse(request, response, pool);
+            return;
+        }
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            permit.release(failed);
+        }
+    }
+
+    private void refuse(HttpServletRequest request, HttpServletResponse response, Bulkheads.Pool pool)
+            throws IOException {
+        log.debug("Bulkhead {} full, refusing {} {}", pool.name(), request.getMethod(), request.getRequestURI());
+        int retryAfter = bulkheads.getRetryAfterSeconds();
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                "Too many " + pool.name() + " requests in progress. Please retry in " + retryAfter + " seconds.",
+                request.getRequestURI());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
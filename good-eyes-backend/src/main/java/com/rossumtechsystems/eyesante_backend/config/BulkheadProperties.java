@@ -0,0 +1,45 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code app.http.bulkheads}: the endpoint pools {@link Bulkheads} keeps apart
+ */
+@Data
+@Component
+@ConfigurationProperties("app.http.bulkheads")
+public class BulkheadProperties {
+
+    private boolean enabled = true;
+
+    /** Retry-After of a refused request */
+    private int retryAfterSeconds = 2;
+
+    /** Minimum span of latency samples behind each limit adjustment */
+    private long windowMs = 1000;
+
+    private Map<String, Pool> pools = new LinkedHashMap<>();
+
+    @Data
+    public static class Pool {
+
+        /** HTTP methods the pool takes; empty for all */
+        private List<String> methods = new ArrayList<>();
+
+        /** Ant patterns of the pool's paths */
+        private List<String> routes = new ArrayList<>();
+
+        private int initialLimit = 4;
+        private int minLimit = 1;
+        private int maxLimit = 16;
+        private int maxQueue = 20;
+        private long queueTimeoutMs = 2000;
+    }
+}
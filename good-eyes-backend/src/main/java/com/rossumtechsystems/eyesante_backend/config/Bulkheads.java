@@ -0,0 +1,91 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Endpoint pools with a concurrency limit each, so one kind of traffic cannot take every
+ * connection from the others: a burst of year-long reports queues and is refused in its own pool
+ * while registrations and payments go on.
+ *
+ * A request belongs to the pool whose route matches it most specifically, as request mappings
+ * are chosen; requests no route matches are not limited.
+ */
+@Slf4j
+@Component
+public class Bulkheads {
+
+    public record Pool(String name, Set<String> methods, List<String> routes, AdaptiveConcurrencyLimiter limiter) {
+
+        boolean accepts(String method) {
+            return methods.isEmpty() || methods.contains(method);
+        }
+    }
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final boolean enabled;
+    private final int retryAfterSeconds;
+    private final List<Pool> pools = new ArrayList<>();
+
+    public Bulkheads(BulkheadProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.retryAfterSeconds = properties.getRetryAfterSeconds();
+        for (Map.Entry<String, BulkheadProperties.Pool> entry : properties.getPools().entrySet()) {
+            BulkheadProperties.Pool pool = entry.getValue();
+            Set<String> methods = pool.getMethods().stream()
+                    .map(method -> method.trim().toUpperCase(Locale.ROOT))
+                    .collect(Collectors.toUnmodifiableSet());
+            List<String> routes = pool.getRoutes().stream().map(String::trim).filter(route -> !route.isEmpty()).toList();
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(entry.getKey(), pool.getInitialLimit(),
+                    pool.getMinLimit(), pool.getMaxLimit(), pool.getMaxQueue(), pool.getQueueTimeoutMs(),
+                    properties.getWindowMs());
+            pools.add(new Pool(entry.getKey(), methods, routes, limiter));
+            log.info("Bulkhead {}: limit {} ({}-{}), queue {} for {} routes", entry.getKey(), pool.getInitialLimit(),
+                    pool.getMinLimit(), pool.getMaxLimit(), pool.getMaxQueue(), routes.size());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && !pools.isEmpty();
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * The request's pool, or null when it is not limited
+     */
+    public Pool poolFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Comparator<String> specificity = pathMatcher.getPatternComparator(path);
+        Pool best = null;
+        String bestRoute = null;
+        for (Pool pool : pools) {
+            if (!pool.accepts(request.getMethod())) {
+                continue;
+            }
+            for (String route : pool.routes()) {
+                if (pathMatcher.match(route, path) && (bestRoute == null || specificity.compare(route, bestRoute) < 0)) {
+                    best = pool;
+                    bestRoute = route;
+                }
+            }
+        }
+        return best;
+    }
+
+    public List<AdaptiveConcurrencyLimiter.Stats> getStats() {
+        return pools.stream().map(pool -> pool.limiter().getStats()).toList();
+    }
+}
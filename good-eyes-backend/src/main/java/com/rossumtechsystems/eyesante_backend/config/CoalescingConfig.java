@@ -0,0 +1,40 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import com.rossumtechsystems.eyesante_backend.service.Coalesced;
+import com.rossumtechsystems.eyesante_backend.service.RequestCoalescer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+/**
+ * Routes calls to {@link Coalesced} methods through {@link RequestCoalescer}.
+ *
+ * The advisor is an infrastructure bean, so the auto-proxy creator already registered for
+ * {@code @Transactional} applies it without the AOP starter. It is ordered just ahead of the
+ * transaction advisor: calls that wait on another's execution never open a transaction.
+ */
+@Configuration
+public class CoalescingConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static DefaultPointcutAdvisor coalescingAdvisor(ObjectProvider<RequestCoalescer> coalescer) {
+        MethodInterceptor interceptor = invocation -> {
+            Coalesced coalesced = AnnotatedElementUtils.findMergedAnnotation(invocation.getMethod(), Coalesced.class);
+            return coalesced == null
+                    ? invocation.proceed()
+                    : coalescer.getObject().invoke(invocation, coalesced);
+        };
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(Coalesced.class), interceptor);
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return advisor;
+    }
+}
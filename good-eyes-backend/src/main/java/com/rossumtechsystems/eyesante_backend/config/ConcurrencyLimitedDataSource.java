@@ -0,0 +1,192 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how many threads may hold a connection at once.
+ *
+ * With virtual threads every request gets its own thread, so thousands of callers can pile
+ * onto the Hikari pool at the same time. The semaphore queues them fairly in front of the
+ * pool and fails with the same {@link SQLTransientConnectionException} Hikari would throw,
+ * so callers see no difference apart from the pool never being stormed.
+ *
+ * The timeout is one budget for the whole acquire: time spent queueing for a permit is taken
+ * off the wait inside a Hikari pool, so a caller never waits longer than the pool's own
+ * connectionTimeout.
+ */
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+
+    private final ResizableSemaphore permits;
+    private final long acquireTimeoutMillis;
+    private final long acquireTimeoutNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger peakDemand = new AtomicInteger();
+
+    public ConcurrencyLimitedDataSource(DataSource target, int limit, long acquireTimeoutMillis) {
+        super(target);
+        this.permits = new ResizableSemaphore(limit);
+        this.limit = new AtomicInteger(limit);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long deadline = System.nanoTime() + acquireTimeoutNanos;
+        acquire(deadline);
+        try {
+            return guard(borrow(deadline));
+        } catch (SQLException | RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire(System.nanoTime() + acquireTimeoutNanos);
+        try {
+            return guard(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * Changes the number of permits; shrinking lets in-flight holders finish and only
+     * blocks new callers until the count drops below the new limit.
+     */
+    public synchronized void setLimit(int newLimit) {
+        int delta = newLimit - limit.getAndSet(newLimit);
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reducePermits(-delta);
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * Highest holders + waiters seen since the previous call, then resets to the current value.
+     */
+    public int drainPeakDemand() {
+        return peakDemand.getAndSet(inFlight.get() + waiting.get());
+    }
+
+    private void acquire(long deadline) throws SQLException {
+        recordDemand(waiting.incrementAndGet() + inFlight.get());
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            throw new SQLTransientConnectionException("Database concurrency limit of " + limit.get()
+                    + " reached - request timed out after " + acquireTimeoutMillis + "ms");
+        }
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Takes a connection from the pool with whatever is left of the budget. Hikari only takes a
+     * per-call timeout on the pool itself, which exists once the first connection was handed out;
+     * other targets, and that first call, wait on their own terms.
+     */
+    private Connection borrow(long deadline) throws SQLException {
+        if (getTargetDataSource() instanceof HikariDataSource hikari && !hikari.isClosed()
+                && hikari.getHikariPoolMXBean() instanceof HikariPool pool) {
+            return pool.getConnection(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+        return super.getConnection();
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        permits.release();
+    }
+
+    private void recordDemand(int demand) {
+        peakDemand.accumulateAndGet(demand, Math::max);
+    }
+
+    private Connection guard(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "isClosed":
+                            if (released.get()) {
+                                return true;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                release();
+                            }
+                        }
+                        return null;
+                    }
+                    if ("unwrap".equals(method.getName()) && ((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private static class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
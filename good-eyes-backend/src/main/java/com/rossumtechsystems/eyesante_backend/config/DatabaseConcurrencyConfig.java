@@ -0,0 +1,40 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Execution-mode wiring for the database layer.
+ *
+ * Virtual threads themselves are switched on by Spring Boot ({@code spring.threads.virtual.enabled}),
+ * which moves Tomcat request handling and the task executor/scheduler onto them. This class adds the
+ * pieces that keep the connection pool safe once request concurrency is no longer capped by the
+ * Tomcat thread count.
+ */
+@Configuration
+@EnableScheduling
+public class DatabaseConcurrencyConfig {
+
+    /**
+     * Wraps the Hikari pool in a fair semaphore sized to the pool, so callers queue in front of the
+     * pool instead of inside it.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.db.concurrency-guard.enabled", havingValue = "true")
+    public static BeanPostProcessor databaseConcurrencyGuard() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    return new ConcurrencyLimitedDataSource(hikari, hikari.getMaximumPoolSize(),
+                            hikari.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
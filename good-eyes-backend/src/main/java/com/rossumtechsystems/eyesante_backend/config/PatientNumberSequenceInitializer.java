@@ -3,12 +3,16 @@ package com.rossumtechsystems.eyesante_backend.config;
 import com.rossumtechsystems.eyesante_backend.service.PatientNumberService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+// Runs in the background after startup (see StartupInitializers); patient creation upserts the
+// sequence row itself, so requests served before it finishes are unaffected
 @Component
-public class PatientNumberSequenceInitializer implements CommandLineRunner {
+public class PatientNumberSequenceInitializer {
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
@@ -19,8 +23,9 @@ public class PatientNumberSequenceInitializer implements CommandLineRunner {
     @Value("${spring.profiles.active:dev}")
     private String activeProfile;
 
-    @Override
-    public void run(String... args) throws Exception {
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
         // Skip initialization in development for faster startup
         if ("dev".equals(activeProfile)) {
             System.out.println("Skipping patient number sequence initialization in development mode for faster startup.");
@@ -0,0 +1,112 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Read/write split across the primary and a Postgres streaming replica.
+ *
+ * Only active when {@code SPRING_DATASOURCE_REPLICA_URL} is set; otherwise Spring Boot's single
+ * datasource is used unchanged. The exposed {@link DataSource} is a {@link LazyConnectionDataSourceProxy}:
+ * the physical connection is fetched on the first statement, after the transaction manager has
+ * marked it read-only, so {@code @Transactional(readOnly = true)} work goes to the replica and
+ * everything else to the primary.
+ */
+@Configuration
+@ConditionalOnExpression("'${app.datasource.replica.url:}' != ''")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${app.datasource.replica.url}") String url,
+                                              @Value("${app.datasource.replica.username}") String username,
+                                              @Value("${app.datasource.replica.password}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.getDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        // Hibernate runs with provider_disables_autocommit, same as the primary pool
+        dataSource.setAutoCommit(false);
+        // Start even when the replica is down; the health monitor keeps reads on the primary
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                                     @Value("${app.datasource.replica.max-lag-ms:5000}") long maxLagMillis) {
+        return new ReplicaHealthMonitor(replica, maxLagMillis);
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${app.datasource.replica.read-your-writes-window-ms:2000}") long windowMillis) {
+        return new ReadYourWritesTracker(windowMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaHealthMonitor monitor,
+                                 ReadYourWritesTracker tracker) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(new WriteTrackingDataSource(primary, tracker));
+        proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(replica, primary, monitor, tracker));
+        return proxy;
+    }
+
+    /**
+     * Primary side: records read-write commits so the same user's next reads avoid stale replica data.
+     */
+    static class WriteTrackingDataSource extends DelegatingDataSource {
+
+        private final ReadYourWritesTracker tracker;
+
+        WriteTrackingDataSource(DataSource primary, ReadYourWritesTracker tracker) {
+            super(primary);
+            this.tracker = tracker;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            tracker.trackCurrentTransaction();
+            return connection;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            Connection connection = super.getConnection(username, password);
+            tracker.trackCurrentTransaction();
+            return connection;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each user last committed a write so their next reads stay on the primary until
+ * the replica has had time to replay it. The window is the larger of the configured minimum and
+ * the replica lag last measured by {@link ReplicaHealthMonitor}, so a receptionist who registers
+ * a patient and immediately searches for them always finds the new row.
+ */
+public class ReadYourWritesTracker {
+
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    private final long minimumWindowMillis;
+
+    public ReadYourWritesTracker(long minimumWindowMillis) {
+        this.minimumWindowMillis = minimumWindowMillis;
+    }
+
+    /**
+     * Registers an after-commit hook for the current read-write transaction, if there is one.
+     */
+    public void trackCurrentTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        String user = currentUser();
+        if (user == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWriteByUser.put(user, System.currentTimeMillis());
+            }
+        });
+    }
+
+    public boolean requiresPrimary(long replicaLagMillis) {
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        Long lastWrite = lastWriteByUser.get(user);
+        if (lastWrite == null) {
+            return false;
+        }
+        long window = Math.max(minimumWindowMillis, replicaLagMillis);
+        if (System.currentTimeMillis() - lastWrite <= window) {
+            return true;
+        }
+        lastWriteByUser.remove(user, lastWrite);
+        return false;
+    }
+
+    private String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || "anonymousUser".equals(authentication.getName())) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
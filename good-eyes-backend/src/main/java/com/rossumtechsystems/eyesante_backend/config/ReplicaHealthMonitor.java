@@ -0,0 +1,74 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Probes the read replica on a fixed delay and publishes whether it can serve reads and how far
+ * behind the primary it is. Lag is zero while the replica has replayed everything it received;
+ * otherwise it is the age of the last replayed transaction.
+ */
+@Slf4j
+public class ReplicaHealthMonitor {
+
+    private static final String PROBE_SQL = """
+            SELECT pg_is_in_recovery(),
+                   CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END
+            """;
+
+    private final DataSource replica;
+    private final long maxLagMillis;
+
+    private volatile boolean available;
+    private volatile long lagMillis;
+
+    public ReplicaHealthMonitor(DataSource replica, long maxLagMillis) {
+        this.replica = replica;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.health-check-interval-ms:5000}")
+    public void probe() {
+        boolean wasAvailable = available;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(PROBE_SQL)) {
+            rs.next();
+            lagMillis = rs.getLong(2);
+            connection.rollback();
+            available = lagMillis <= maxLagMillis;
+            if (!available && wasAvailable) {
+                log.warn("Read replica lag {}ms exceeds {}ms - routing reads to primary", lagMillis, maxLagMillis);
+            } else if (available && !wasAvailable) {
+                log.info("Read replica available (lag {}ms) - routing read-only transactions to replica", lagMillis);
+            }
+        } catch (Exception e) {
+            markUnavailable(e);
+        }
+    }
+
+    /**
+     * Called when a replica connection fails outside the probe, so reads stop trying it right away.
+     */
+    public void markUnavailable(Exception cause) {
+        if (available) {
+            log.warn("Read replica unavailable - routing reads to primary: {}", cause.getMessage());
+        }
+        available = false;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+}
@@ -0,0 +1,57 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Read-only side of the routing: hands out replica connections while the replica is healthy and
+ * the caller has no recent write, otherwise a primary connection. A failed replica checkout is
+ * retried on the primary, so a missing replica degrades to the single-database setup.
+ */
+public class ReplicaRoutingDataSource extends DelegatingDataSource {
+
+    private final DataSource primary;
+    private final ReplicaHealthMonitor monitor;
+    private final ReadYourWritesTracker tracker;
+
+    public ReplicaRoutingDataSource(DataSource replica, DataSource primary,
+                                    ReplicaHealthMonitor monitor, ReadYourWritesTracker tracker) {
+        super(replica);
+        this.primary = primary;
+        this.monitor = monitor;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!useReplica()) {
+            return primary.getConnection();
+        }
+        try {
+            return super.getConnection();
+        } catch (SQLException e) {
+            monitor.markUnavailable(e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!useReplica()) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            return super.getConnection(username, password);
+        } catch (SQLException e) {
+            monitor.markUnavailable(e);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    private boolean useReplica() {
+        return monitor.isAvailable() && !tracker.requiresPrimary(monitor.getLagMillis());
+    }
+}
@@ -0,0 +1,169 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip for JSON responses of the configured routes, each with its own size threshold
+ * ({@code app.http.compression.routes}: {@code pattern} or {@code pattern=minBytes}, first match
+ * wins). A matched response is buffered, and sent compressed only when the client accepts gzip and
+ * the body reaches the route's threshold; smaller bodies cost more to compress than they save.
+ * Routes must be plain synchronous endpoints: streamed responses (delta sync) are left out.
+ *
+ * <p>Runs ahead of security so error bodies are treated the same way. A strong ETag on a response
+ * it encodes is weakened, since the bytes on the wire are no longer the ones it named.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    private record Route(String pattern, int minSize) {
+    }
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final boolean enabled;
+    private final List<Route> routes = new ArrayList<>();
+
+    public ResponseCompressionFilter(
+            @Value("${app.http.compression.enabled:true}") boolean enabled,
+            @Value("${app.http.compression.min-size:2048}") int defaultMinSize,
+            @Value("${app.http.compression.routes:}") List<String> routes) {
+        this.enabled = enabled;
+        for (String route : routes) {
+            String entry = route.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int eq = entry.indexOf('=');
+            if (eq < 0) {
+                this.routes.add(new Route(entry, defaultMinSize));
+            } else {
+                this.routes.add(new Route(entry.substring(0, eq).trim(), Integer.parseInt(entry.substring(eq + 1).trim())));
+            }
+        }
+        log.info("Response compression {} for {} routes", enabled ? "enabled" : "disabled", this.routes.size());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || "HEAD".equals(request.getMethod()) || route(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            completed = true;
+        } finally {
+            if (!completed) {
+                wrapper.copyBodyToResponse();
+            }
+        }
+        if (isJson(wrapper)) {
+            if (!wrapper.containsHeader(HttpHeaders.VARY)) {
+                wrapper.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            byte[] body = wrapper.getContentAsByteArray();
+            if (body.length >= route(request).minSize() && compressible(wrapper) && acceptsGzip(request)) {
+                byte[] compressed = gzip(body);
+                String etag = wrapper.getHeader(HttpHeaders.ETAG);
+                if (etag != null && etag.startsWith("\"")) {
+                    wrapper.setHeader(HttpHeaders.ETAG, "W/" + etag);
+                }
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+                response.setContentLength(compressed.length);
+                response.getOutputStream().write(compressed);
+                return;
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private Route route(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if (pathMatcher.match(route.pattern(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isJson(HttpServletResponse response) {
+        String contentType = response.getContentType();
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json");
+    }
+
+    private static boolean compressible(HttpServletResponse response) {
+        int status = response.getStatus();
+        return status != HttpServletResponse.SC_NO_CONTENT && status != HttpServletResponse.SC_PARTIAL_CONTENT
+                && status != HttpServletResponse.SC_NOT_MODIFIED && !response.containsHeader(HttpHeaders.CONTENT_ENCODING);
+    }
+
+    /**
+     * Whether Accept-Encoding allows gzip: named with a non-zero q, or covered by {@code *} without
+     * being refused by name
+     */
+    static boolean acceptsGzip(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (header == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String part : header.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                gzip = q;
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        return gzip != null ? gzip > 0 : any != null && any > 0;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,29 +1,28 @@
 package com.rossumtechsystems.eyesante_backend.config;
 
 import com.rossumtechsystems.eyesante_backend.util.SuperAdminCreator;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.ApplicationRunner;
-import org.springframework.context.annotation.Bean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.EnableAsync;
 
+/**
+ * Startup data checks run on the task executor once the application is ready, so they no longer
+ * hold back the first request. Runs in every profile; the former dev/non-dev runner pair did the
+ * same thing and a {@code @Profile} split would be frozen at build time under Spring AOT.
+ */
 @Configuration
+@EnableAsync
 public class StartupInitializers {
 
-    @Value("${spring.profiles.active:dev}")
-    private String activeProfile;
+    @Autowired
+    private SuperAdminCreator superAdminCreator;
 
-    @Bean
-    @Profile("!dev") // Only run in non-development profiles
-    public ApplicationRunner superAdminInitializer(SuperAdminCreator creator) {
-        return args -> creator.createSuperAdminIfNotExists();
-    }
-
-    @Bean
-    @Profile("dev") // Run in development but with optimization
-    public ApplicationRunner superAdminInitializerDev(SuperAdminCreator creator) {
-        return args -> creator.createSuperAdminIfNotExists();
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeSuperAdmin() {
+        superAdminCreator.createSuperAdminIfNotExists();
     }
 }
-
-
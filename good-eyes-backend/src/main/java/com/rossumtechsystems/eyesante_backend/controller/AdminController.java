@@ -1,12 +1,29 @@
 package com.rossumtechsystems.eyesante_backend.controller;
 
+import com.rossumtechsystems.eyesante_backend.config.AdaptiveConcurrencyLimiter;
+import com.rossumtechsystems.eyesante_backend.config.Bulkheads;
+import com.rossumtechsystems.eyesante_backend.dto.ScheduledJobDto;
+import com.rossumtechsystems.eyesante_backend.dto.ScheduledJobRunDto;
+import com.rossumtechsystems.eyesante_backend.service.ColdArchiveService;
+import com.rossumtechsystems.eyesante_backend.service.InvoiceTotalsReconciliationService;
+import com.rossumtechsystems.eyesante_backend.service.JobSchedulerService;
+import com.rossumtechsystems.eyesante_backend.service.ReceivableAgingService;
+import com.rossumtechsystems.eyesante_backend.service.RequestCoalescer;
 import com.rossumtechsystems.eyesante_backend.util.SuperAdminCreator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/admin")
 public class AdminController {
@@ -14,6 +31,24 @@ public class AdminController {
     @Autowired
     private SuperAdminCreator superAdminCreator;
 
+    @Autowired
+    private ColdArchiveService coldArchiveService;
+
+    @Autowired
+    private InvoiceTotalsReconciliationService invoiceTotalsReconciliationService;
+
+    @Autowired
+    private ReceivableAgingService receivableAgingService;
+
+    @Autowired
+    private JobSchedulerService jobSchedulerService;
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
     @PostMapping("/create-super-admin")
     public ResponseEntity<String> createSuperAdmin() {
         try {
@@ -24,4 +59,77 @@ public class AdminController {
                     .body("Error creating super admin: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    // Archive one batch of old completed visits and paid invoices now instead of waiting for the nightly run
+    @PostMapping("/archive/run")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<ScheduledJobRunDto> runArchive() {
+        return ResponseEntity.ok(jobSchedulerService.runNow(coldArchiveService.getJobName()));
+    }
+
+    // Recompute every invoice's totals from its items now instead of waiting for the weekly run
+    @PostMapping("/invoice-totals/reconcile")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<ScheduledJobRunDto> reconcileInvoiceTotals() {
+        return ResponseEntity.ok(jobSchedulerService.runNow(invoiceTotalsReconciliationService.getJobName()));
+    }
+
+    // Re-bucket receivables and repair aging drift now instead of waiting for the nightly run
+    @PostMapping("/receivables/aging/refresh")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<ScheduledJobRunDto> refreshReceivablesAging() {
+        return ResponseEntity.ok(jobSchedulerService.runNow(receivableAgingService.getJobName()));
+    }
+
+    // Background jobs with their schedule, last run and duration figures
+    @GetMapping("/jobs")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<List<ScheduledJobDto>> getJobs() {
+        return ResponseEntity.ok(jobSchedulerService.getJobs());
+    }
+
+    // Run history of one job, newest first
+    @GetMapping("/jobs/{jobName}/runs")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Page<ScheduledJobRunDto>> getJobRuns(@PathVariable String jobName,
+                                                               @PageableDefault(size = 50) Pageable pageable) {
+        return ResponseEntity.ok(jobSchedulerService.getRuns(jobName, pageable));
+    }
+
+    // Run a job now on this node; 409 while it is running anywhere in the cluster
+    @PostMapping("/jobs/{jobName}/run")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<ScheduledJobRunDto> runJob(@PathVariable String jobName) {
+        return ResponseEntity.ok(jobSchedulerService.runNow(jobName));
+    }
+
+    // Stop a job's scheduled runs on every node until resumed
+    @PostMapping("/jobs/{jobName}/pause")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Void> pauseJob(@PathVariable String jobName) {
+        jobSchedulerService.setPaused(jobName, true);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Resume a paused job's scheduled runs
+    @PostMapping("/jobs/{jobName}/resume")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Void> resumeJob(@PathVariable String jobName) {
+        jobSchedulerService.setPaused(jobName, false);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Calls, executions and coalescing ratio of each @Coalesced method on this node
+    @GetMapping("/coalescing")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<List<RequestCoalescer.MethodStats>> getCoalescingStats() {
+        return ResponseEntity.ok(requestCoalescer.getStats());
+    }
+
+    // Limit, queue, rejections and latency of each bulkhead pool on this node
+    @GetMapping("/bulkheads")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<List<AdaptiveConcurrencyLimiter.Stats>> getBulkheadStats() {
+        return ResponseEntity.ok(bulkheads.getStats());
+    }
+}
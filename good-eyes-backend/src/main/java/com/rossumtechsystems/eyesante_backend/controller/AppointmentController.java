@@ -1,14 +1,18 @@
 package com.rossumtechsystems.eyesante_backend.controller;
 
 import com.rossumtechsystems.eyesante_backend.dto.AppointmentDto;
+import com.rossumtechsystems.eyesante_backend.dto.BillVisitRequest;
 import com.rossumtechsystems.eyesante_backend.dto.CreateInvoiceFromItemsRequest;
 import com.rossumtechsystems.eyesante_backend.dto.BatchAvailabilityRequest;
 import com.rossumtechsystems.eyesante_backend.dto.CreateAppointmentRequest;
+import com.rossumtechsystems.eyesante_backend.dto.CursorPage;
 import com.rossumtechsystems.eyesante_backend.dto.InvoiceDto;
 import com.rossumtechsystems.eyesante_backend.dto.UpdateAppointmentRequest;
 import com.rossumtechsystems.eyesante_backend.entity.Appointment;
 import com.rossumtechsystems.eyesante_backend.service.AppointmentService;
 import com.rossumtechsystems.eyesante_backend.service.FinanceService;
+import com.rossumtechsystems.eyesante_backend.service.VisitBillingService;
+import com.rossumtechsystems.eyesante_backend.util.KeysetCursor;
 import com.rossumtechsystems.eyesante_backend.util.TimeUtils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +40,9 @@ public class AppointmentController {
     @Autowired
     private FinanceService financeService;
 
+    @Autowired
+    private VisitBillingService visitBillingService;
+
     // Create appointment
     @PostMapping
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'SUPER_ADMIN', 'RECEPTIONIST')")
@@ -82,6 +89,15 @@ public class AppointmentController {
         return ResponseEntity.ok(appointments);
     }
 
+    // Get all appointments (keyset-paginated; pass nextCursor back for the following page)
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'SUPER_ADMIN')")
+    public ResponseEntity<CursorPage<AppointmentDto>> getAppointmentsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(appointmentService.getAppointmentsAfter(cursor, KeysetCursor.clampPageSize(size)));
+    }
+
     // Get appointments by doctor
     @GetMapping("/doctor/{doctorId}")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'SUPER_ADMIN')")
@@ -279,4 +295,18 @@ public class AppointmentController {
         return ResponseEntity.ok(invoice);
     }
 
+    // Bill everything outstanding on a visit session in one go: one invoice, or one per category
+    @PostMapping("/visit-sessions/{visitSessionId}/bill-visit")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<List<InvoiceDto>> billVisit(
+            @PathVariable Long visitSessionId,
+            @RequestBody(required = false) BillVisitRequest request
+    ) {
+        org.springframework.security.core.Authentication authentication =
+                org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        String authenticatedUsername = authentication.getName();
+
+        return ResponseEntity.ok(visitBillingService.billVisit(visitSessionId, request, authenticatedUsername));
+    }
+
 } 
\ No newline at end of file
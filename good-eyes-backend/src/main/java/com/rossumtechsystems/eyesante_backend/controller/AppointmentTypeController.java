@@ -2,11 +2,13 @@ package com.rossumtechsystems.eyesante_backend.controller;
 
 import com.rossumtechsystems.eyesante_backend.entity.AppointmentType;
 import com.rossumtechsystems.eyesante_backend.service.AppointmentTypeService;
+import com.rossumtechsystems.eyesante_backend.service.HttpCacheService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,6 +20,9 @@ public class AppointmentTypeController {
     @Autowired
     private AppointmentTypeService appointmentTypeService;
 
+    @Autowired
+    private HttpCacheService httpCacheService;
+
     // Create appointment type
     @PostMapping
     @PreAuthorize("hasRole('SUPER_ADMIN')")
@@ -47,9 +52,9 @@ public class AppointmentTypeController {
     // Get appointment type by ID
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'SUPER_ADMIN')")
-    public ResponseEntity<AppointmentType> getAppointmentTypeById(@PathVariable Long id) {
-        AppointmentType appointmentType = appointmentTypeService.getAppointmentTypeById(id);
-        return ResponseEntity.ok(appointmentType);
+    public ResponseEntity<AppointmentType> getAppointmentTypeById(@PathVariable Long id, WebRequest webRequest) {
+        return httpCacheService.tables("appointment_types")
+                .respond(webRequest, () -> appointmentTypeService.getAppointmentTypeById(id));
     }
 
     // Get appointment type by name
@@ -63,17 +68,17 @@ public class AppointmentTypeController {
     // Get all active appointment types
     @GetMapping("/active")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'SUPER_ADMIN')")
-    public ResponseEntity<List<AppointmentType>> getAllActiveAppointmentTypes() {
-        List<AppointmentType> appointmentTypes = appointmentTypeService.getAllActiveAppointmentTypes();
-        return ResponseEntity.ok(appointmentTypes);
+    public ResponseEntity<List<AppointmentType>> getAllActiveAppointmentTypes(WebRequest webRequest) {
+        return httpCacheService.tables("appointment_types")
+                .respond(webRequest, appointmentTypeService::getAllActiveAppointmentTypes);
     }
 
     // Get all appointment types
     @GetMapping
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'SUPER_ADMIN')")
-    public ResponseEntity<List<AppointmentType>> getAllAppointmentTypes() {
-        List<AppointmentType> appointmentTypes = appointmentTypeService.getAllAppointmentTypes();
-        return ResponseEntity.ok(appointmentTypes);
+    public ResponseEntity<List<AppointmentType>> getAllAppointmentTypes(WebRequest webRequest) {
+        return httpCacheService.tables("appointment_types")
+                .respond(webRequest, appointmentTypeService::getAllAppointmentTypes);
     }
 
     // Get appointment types by active status
@@ -8,6 +8,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/clinic")
 @CrossOrigin(origins = "*")
@@ -16,6 +18,15 @@ public class ClinicController {
     @Autowired
     private ClinicService clinicService;
 
+    /**
+     * List all clinics (branches)
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN')")
+    public ResponseEntity<List<ClinicDto>> getAllClinics() {
+        return ResponseEntity.ok(clinicService.getAllClinics());
+    }
+
     /**
      * Get the default clinic configuration for receipts
      */
@@ -66,6 +77,26 @@ public class ClinicController {
         return ResponseEntity.ok(defaultClinic);
     }
 
+    /**
+     * Put a user in this branch; they see only its visits, invoices and stores from their next login
+     */
+    @PutMapping("/{id}/users/{userId}")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Void> assignUser(@PathVariable Long id, @PathVariable Long userId) {
+        clinicService.assignUserToClinic(userId, id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Take a user out of their branch so they work across all branches
+     */
+    @DeleteMapping("/users/{userId}")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Void> unassignUser(@PathVariable Long userId) {
+        clinicService.assignUserToClinic(userId, null);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Get receipt contact information (public endpoint)
      */
@@ -2,6 +2,7 @@ package com.rossumtechsystems.eyesante_backend.controller;
 
 import com.rossumtechsystems.eyesante_backend.dto.*;
 import com.rossumtechsystems.eyesante_backend.service.ConsumablesService;
+import com.rossumtechsystems.eyesante_backend.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -111,6 +112,13 @@ public class ConsumablesController {
         return ResponseEntity.ok(usage);
     }
     
+    @GetMapping("/usage/cursor")
+    public ResponseEntity<CursorPage<ConsumableUsageDto>> getUsageHistoryByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(consumablesService.getUsageHistoryAfter(cursor, KeysetCursor.clampPageSize(size)));
+    }
+    
     // Reports
     @GetMapping("/reports/low-stock")
     public ResponseEntity<List<ConsumableItemDto>> getLowStockItems() {
@@ -2,6 +2,7 @@ package com.rossumtechsystems.eyesante_backend.controller;
 
 import com.rossumtechsystems.eyesante_backend.dto.*;
 import com.rossumtechsystems.eyesante_backend.service.DiagnosisService;
+import com.rossumtechsystems.eyesante_backend.service.HttpCacheService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -9,6 +10,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -17,15 +19,20 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class DiagnosisController {
 
+    // Tables every diagnosis read is built from; their validator answers conditional GETs
+    private static final String[] CATALOGUE = {"diagnoses", "diagnosis_categories"};
+
     @Autowired
     private DiagnosisService diagnosisService;
 
+    @Autowired
+    private HttpCacheService httpCacheService;
+
     // Category Management
     @GetMapping("/categories")
     @PreAuthorize("hasAnyRole('DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<List<DiagnosisCategoryDto>> getAllCategories() {
-        List<DiagnosisCategoryDto> categories = diagnosisService.getAllCategories();
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<List<DiagnosisCategoryDto>> getAllCategories(WebRequest webRequest) {
+        return httpCacheService.tables(CATALOGUE).respond(webRequest, diagnosisService::getAllCategories);
     }
 
     @PostMapping("/categories")
@@ -37,9 +44,8 @@ public class DiagnosisController {
 
     @GetMapping("/categories/{id}")
     @PreAuthorize("hasAnyRole('DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<DiagnosisCategoryDto> getCategoryById(@PathVariable Long id) {
-        DiagnosisCategoryDto category = diagnosisService.getCategoryById(id);
-        return ResponseEntity.ok(category);
+    public ResponseEntity<DiagnosisCategoryDto> getCategoryById(@PathVariable Long id, WebRequest webRequest) {
+        return httpCacheService.tables(CATALOGUE).respond(webRequest, () -> diagnosisService.getCategoryById(id));
     }
 
     @PutMapping("/categories/{id}")
@@ -59,16 +65,14 @@ public class DiagnosisController {
     // Diagnosis Management
     @GetMapping
     @PreAuthorize("hasAnyRole('DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<Page<DiagnosisDto>> getAllDiagnoses(Pageable pageable) {
-        Page<DiagnosisDto> diagnoses = diagnosisService.getAllDiagnoses(pageable);
-        return ResponseEntity.ok(diagnoses);
+    public ResponseEntity<Page<DiagnosisDto>> getAllDiagnoses(Pageable pageable, WebRequest webRequest) {
+        return httpCacheService.tables(CATALOGUE).respond(webRequest, () -> diagnosisService.getAllDiagnoses(pageable));
     }
 
     @GetMapping("/category/{categoryId}")
     @PreAuthorize("hasAnyRole('DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<List<DiagnosisDto>> getDiagnosesByCategory(@PathVariable Long categoryId) {
-        List<DiagnosisDto> diagnoses = diagnosisService.getDiagnosesByCategory(categoryId);
-        return ResponseEntity.ok(diagnoses);
+    public ResponseEntity<List<DiagnosisDto>> getDiagnosesByCategory(@PathVariable Long categoryId, WebRequest webRequest) {
+        return httpCacheService.tables(CATALOGUE).respond(webRequest, () -> diagnosisService.getDiagnosesByCategory(categoryId));
     }
 
     @PostMapping
@@ -80,9 +84,8 @@ public class DiagnosisController {
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<DiagnosisDto> getDiagnosisById(@PathVariable Long id) {
-        DiagnosisDto diagnosis = diagnosisService.getDiagnosisById(id);
-        return ResponseEntity.ok(diagnosis);
+    public ResponseEntity<DiagnosisDto> getDiagnosisById(@PathVariable Long id, WebRequest webRequest) {
+        return httpCacheService.tables(CATALOGUE).respond(webRequest, () -> diagnosisService.getDiagnosisById(id));
     }
 
     @PutMapping("/{id}")
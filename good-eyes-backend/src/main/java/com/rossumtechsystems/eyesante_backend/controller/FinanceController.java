@@ -1,19 +1,32 @@
 package com.rossumtechsystems.eyesante_backend.controller;
 
+import com.rossumtechsystems.eyesante_backend.dto.BranchFinancialSummaryDto;
 import com.rossumtechsystems.eyesante_backend.dto.CreateInvoiceRequest;
+import com.rossumtechsystems.eyesante_backend.dto.CursorPage;
+import com.rossumtechsystems.eyesante_backend.dto.DailyTakingsDto;
 import com.rossumtechsystems.eyesante_backend.dto.InvoiceDto;
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceItemDto;
+import com.rossumtechsystems.eyesante_backend.dto.PaymentDto;
+import com.rossumtechsystems.eyesante_backend.dto.ReceivableAgingDto;
+import com.rossumtechsystems.eyesante_backend.dto.ReceivableAgingInvoiceDto;
 import com.rossumtechsystems.eyesante_backend.entity.Invoice;
 import com.rossumtechsystems.eyesante_backend.service.FinanceService;
+import com.rossumtechsystems.eyesante_backend.service.HttpCacheService;
+import com.rossumtechsystems.eyesante_backend.service.ReceivableAgingService;
+import com.rossumtechsystems.eyesante_backend.util.KeysetCursor;
+import com.rossumtechsystems.eyesante_backend.util.ListView;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -26,6 +39,8 @@ import java.util.List;
 public class FinanceController {
 
     private final FinanceService financeService;
+    private final ReceivableAgingService receivableAgingService;
+    private final HttpCacheService httpCacheService;
 
     // Generate invoice for appointment
     @PostMapping("/invoices/generate/{appointmentId}")
@@ -50,9 +65,11 @@ public class FinanceController {
     // Get invoice by ID
     @GetMapping("/invoices/{id}")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
-    public ResponseEntity<InvoiceDto> getInvoiceById(@PathVariable Long id) {
-        InvoiceDto invoice = financeService.getInvoiceById(id);
-        return ResponseEntity.ok(invoice);
+    public ResponseEntity<InvoiceDto> getInvoiceById(@PathVariable Long id, WebRequest webRequest) {
+        // Live invoices carry a validator (304 on If-None-Match); archived ones are served as before
+        return httpCacheService.invoice(id)
+                .map(validator -> validator.respond(webRequest, () -> financeService.getInvoiceById(id)))
+                .orElseGet(() -> ResponseEntity.ok(financeService.getInvoiceById(id)));
     }
 
     // Get invoice by invoice number
@@ -63,42 +80,90 @@ public class FinanceController {
         return ResponseEntity.ok(invoice);
     }
 
-    // Get all invoices (paginated)
+    // Get all invoices (paginated); ?view=summary or ?fields=a,b,c for lighter rows
     @GetMapping("/invoices")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
-    public ResponseEntity<Page<InvoiceDto>> getAllInvoices(Pageable pageable) {
-        Page<InvoiceDto> invoices = financeService.getAllInvoices(pageable);
-        return ResponseEntity.ok(invoices);
+    public ResponseEntity<Page<?>> getAllInvoices(
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields,
+            Pageable pageable) {
+        if (fields != null) {
+            return ResponseEntity.ok(financeService.getInvoiceFields(fields, null, null, null, pageable));
+        }
+        if (ListView.of(view) == ListView.SUMMARY) {
+            return ResponseEntity.ok(financeService.getAllInvoiceSummaries(pageable));
+        }
+        return ResponseEntity.ok(financeService.getAllInvoices(pageable));
+    }
+
+    // Get all invoices (keyset-paginated; pass nextCursor back for the following page)
+    @GetMapping("/invoices/cursor")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<CursorPage<InvoiceDto>> getInvoicesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(financeService.getInvoicesAfter(cursor, KeysetCursor.clampPageSize(size)));
     }
 
-    // Get invoices by patient
+    // Get invoices by patient; ?view=summary or ?fields=a,b,c for lighter rows
     @GetMapping("/invoices/patient/{patientId}")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
-    public ResponseEntity<Page<InvoiceDto>> getInvoicesByPatient(
+    public ResponseEntity<Page<?>> getInvoicesByPatient(
             @PathVariable Long patientId, 
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields,
             Pageable pageable) {
-        Page<InvoiceDto> invoices = financeService.getInvoicesByPatient(patientId, pageable);
-        return ResponseEntity.ok(invoices);
+        if (fields != null) {
+            return ResponseEntity.ok(financeService.getInvoiceFields(fields, patientId, null, null, pageable));
+        }
+        if (ListView.of(view) == ListView.SUMMARY) {
+            return ResponseEntity.ok(financeService.getInvoiceSummariesByPatient(patientId, pageable));
+        }
+        return ResponseEntity.ok(financeService.getInvoicesByPatient(patientId, pageable));
     }
 
-    // Get invoices by user
+    // Get invoices by user; ?view=summary or ?fields=a,b,c for lighter rows
     @GetMapping("/invoices/user/{userId}")
     @PreAuthorize("hasAnyRole('DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
-    public ResponseEntity<Page<InvoiceDto>> getInvoicesByUser(
+    public ResponseEntity<Page<?>> getInvoicesByUser(
             @PathVariable Long userId, 
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields,
             Pageable pageable) {
-        Page<InvoiceDto> invoices = financeService.getInvoicesByUser(userId, pageable);
-        return ResponseEntity.ok(invoices);
+        if (fields != null) {
+            return ResponseEntity.ok(financeService.getInvoiceFields(fields, null, userId, null, pageable));
+        }
+        if (ListView.of(view) == ListView.SUMMARY) {
+            return ResponseEntity.ok(financeService.getInvoiceSummariesByUser(userId, pageable));
+        }
+        return ResponseEntity.ok(financeService.getInvoicesByUser(userId, pageable));
     }
 
-    // Get invoices by status
+    // Get invoices by status; ?view=summary or ?fields=a,b,c for lighter rows
     @GetMapping("/invoices/status/{status}")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
-    public ResponseEntity<Page<InvoiceDto>> getInvoicesByStatus(
+    public ResponseEntity<Page<?>> getInvoicesByStatus(
             @PathVariable Invoice.InvoiceStatus status, 
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields,
             Pageable pageable) {
-        Page<InvoiceDto> invoices = financeService.getInvoicesByStatus(status, pageable);
-        return ResponseEntity.ok(invoices);
+        if (fields != null) {
+            return ResponseEntity.ok(financeService.getInvoiceFields(fields, null, null, status, pageable));
+        }
+        if (ListView.of(view) == ListView.SUMMARY) {
+            return ResponseEntity.ok(financeService.getInvoiceSummariesByStatus(status, pageable));
+        }
+        return ResponseEntity.ok(financeService.getInvoicesByStatus(status, pageable));
+    }
+
+    // Get invoices by status (keyset-paginated)
+    @GetMapping("/invoices/status/{status}/cursor")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<CursorPage<InvoiceDto>> getInvoicesByStatusCursor(
+            @PathVariable Invoice.InvoiceStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(financeService.getInvoicesByStatusAfter(status, cursor, KeysetCursor.clampPageSize(size)));
     }
 
     // Get invoices by payment status
@@ -122,11 +187,22 @@ public class FinanceController {
         return ResponseEntity.ok(invoices);
     }
 
+    // Get invoices by date range (keyset-paginated)
+    @GetMapping("/invoices/date-range/cursor")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<CursorPage<InvoiceDto>> getInvoicesByDateRangeCursor(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(financeService.getInvoicesByDateRangeAfter(startDate, endDate, cursor, KeysetCursor.clampPageSize(size)));
+    }
+
     // Get overdue invoices
     @GetMapping("/invoices/overdue")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
-    public ResponseEntity<List<InvoiceDto>> getOverdueInvoices() {
-        List<InvoiceDto> invoices = financeService.getOverdueInvoices();
+    public ResponseEntity<Page<InvoiceDto>> getOverdueInvoices(@PageableDefault(size = 50) Pageable pageable) {
+        Page<InvoiceDto> invoices = financeService.getOverdueInvoices(pageable);
         return ResponseEntity.ok(invoices);
     }
 
@@ -138,18 +214,35 @@ public class FinanceController {
         return ResponseEntity.ok(invoices);
     }
 
-    // Record payment for invoice
+    // Record payment for invoice; send an Idempotency-Key header so a retried request is not posted twice
     @PostMapping("/invoices/{id}/payment")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
     public ResponseEntity<InvoiceDto> recordPayment(
             @PathVariable Long id,
             @RequestParam BigDecimal amount,
             @RequestParam Invoice.PaymentMethod method,
-            @RequestParam(required = false) String reference) {
-        InvoiceDto invoice = financeService.recordPayment(id, amount, method, reference);
+            @RequestParam(required = false) String reference,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        InvoiceDto invoice = financeService.recordPayment(id, amount, method, reference, idempotencyKey);
         return ResponseEntity.ok(invoice);
     }
 
+    // Payments posted against an invoice
+    @GetMapping("/invoices/{id}/payments")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<List<PaymentDto>> getInvoicePayments(@PathVariable Long id) {
+        return ResponseEntity.ok(financeService.getInvoicePayments(id));
+    }
+
+    // Money received per day and payment method, from the payments ledger
+    @GetMapping("/payments/daily-takings")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<List<DailyTakingsDto>> getDailyTakings(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(financeService.getDailyTakings(startDate, endDate));
+    }
+
     // Update invoice status
     @PutMapping("/invoices/{id}/status")
     @PreAuthorize("hasAnyRole('ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
@@ -160,6 +253,24 @@ public class FinanceController {
         return ResponseEntity.ok(invoice);
     }
 
+    // Add an item to an existing invoice; totals move by the item's amount
+    @PostMapping("/invoices/{id}/items")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<InvoiceItemDto> addInvoiceItem(
+            @PathVariable Long id,
+            @Valid @RequestBody CreateInvoiceRequest.CreateInvoiceItemRequest request) {
+        InvoiceItemDto item = financeService.addInvoiceItem(id, request);
+        return ResponseEntity.ok(item);
+    }
+
+    // Remove an item from an invoice
+    @DeleteMapping("/invoices/{id}/items/{itemId}")
+    @PreAuthorize("hasAnyRole('ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<Void> removeInvoiceItem(@PathVariable Long id, @PathVariable Long itemId) {
+        financeService.removeInvoiceItem(id, itemId);
+        return ResponseEntity.noContent().build();
+    }
+
     // Delete invoice - only SUPER_ADMIN
     @DeleteMapping("/invoices/{id}")
     @PreAuthorize("hasRole('SUPER_ADMIN')")
@@ -177,4 +288,44 @@ public class FinanceController {
         FinanceService.FinancialSummaryDto summary = financeService.getFinancialSummary(startDate, endDate);
         return ResponseEntity.ok(summary);
     }
-} 
\ No newline at end of file
+
+    // Invoice totals per branch; the only finance view that crosses branches
+    @GetMapping("/summary/by-clinic")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<List<BranchFinancialSummaryDto>> getFinancialSummaryByClinic(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(financeService.getFinancialSummaryByClinic(startDate, endDate));
+    }
+
+    // Receivables aging: outstanding balances in 0-30, 31-60, 61-90 and 90+ day buckets
+    @GetMapping("/receivables/aging")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<ReceivableAgingDto> getReceivablesAging() {
+        return ResponseEntity.ok(receivableAgingService.getSummary());
+    }
+
+    // Receivables aging per patient, insurer or doctor, largest debt first
+    @GetMapping("/receivables/aging/{dimension}")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<Page<ReceivableAgingDto>> getReceivablesAgingBy(
+            @PathVariable String dimension,
+            @PageableDefault(size = 50) Pageable pageable) {
+        ReceivableAgingService.Dimension by = ReceivableAgingService.Dimension.valueOf(dimension.trim().toUpperCase());
+        return ResponseEntity.ok(receivableAgingService.getByDimension(by, pageable));
+    }
+
+    // Open invoices behind the aging figures, oldest first; insuranceProvider= (empty) selects self-pay
+    @GetMapping("/receivables/invoices")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<Page<ReceivableAgingInvoiceDto>> getReceivableInvoices(
+            @RequestParam(required = false) ReceivableAgingService.AgeBucket bucket,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) String insuranceProvider,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(defaultValue = "false") boolean overdueOnly,
+            @PageableDefault(size = 50) Pageable pageable) {
+        return ResponseEntity.ok(receivableAgingService.getInvoices(bucket, patientId, insuranceProvider, doctorId,
+                overdueOnly, pageable));
+    }
+}
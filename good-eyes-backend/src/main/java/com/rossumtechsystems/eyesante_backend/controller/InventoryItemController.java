@@ -4,6 +4,7 @@ import com.rossumtechsystems.eyesante_backend.dto.CreateInventoryItemRequest;
 import com.rossumtechsystems.eyesante_backend.dto.InventoryItemDto;
 import com.rossumtechsystems.eyesante_backend.service.InventoryItemService;
 import com.rossumtechsystems.eyesante_backend.dto.UpdateInventoryItemRequest;
+import com.rossumtechsystems.eyesante_backend.util.ListView;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -46,12 +47,19 @@ public class InventoryItemController {
         return ResponseEntity.ok(items);
     }
 
-    // Get all items with pagination and optional search
+    // Get all items with pagination and optional search; ?view=summary or ?fields=a,b,c for lighter rows
     @GetMapping
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
-    public ResponseEntity<Page<InventoryItemDto>> getAllItems(Pageable pageable, @RequestParam(required = false) String search) {
-        Page<InventoryItemDto> items = inventoryItemService.getAllItems(pageable, search);
-        return ResponseEntity.ok(items);
+    public ResponseEntity<Page<?>> getAllItems(Pageable pageable, @RequestParam(required = false) String search,
+                                               @RequestParam(required = false) String view,
+                                               @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(inventoryItemService.getItemFields(fields, pageable, search));
+        }
+        if (ListView.of(view) == ListView.SUMMARY) {
+            return ResponseEntity.ok(inventoryItemService.getItemSummaries(pageable, search));
+        }
+        return ResponseEntity.ok(inventoryItemService.getAllItems(pageable, search));
     }
 
     // Update item
@@ -1,6 +1,7 @@
 package com.rossumtechsystems.eyesante_backend.controller;
 
 import com.rossumtechsystems.eyesante_backend.dto.InventoryItemDto;
+import com.rossumtechsystems.eyesante_backend.service.HttpCacheService;
 import com.rossumtechsystems.eyesante_backend.service.OpticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -9,6 +10,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -18,9 +20,15 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class OpticsController {
 
+    // Tables every frame read is built from; their validator answers conditional GETs
+    private static final String[] CATALOGUE = {"inventory_items", "inventory_categories"};
+
     @Autowired
     private OpticsService opticsService;
 
+    @Autowired
+    private HttpCacheService httpCacheService;
+
     /**
      * Get all frame items (lenses are generated dynamically)
      */
@@ -28,10 +36,10 @@ public class OpticsController {
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
     public ResponseEntity<Page<InventoryItemDto>> getAllFrameItems(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest webRequest) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<InventoryItemDto> items = opticsService.getAllFrameItems(pageable);
-        return ResponseEntity.ok(items);
+        return httpCacheService.tables(CATALOGUE).respond(webRequest, () -> opticsService.getAllFrameItems(pageable));
     }
 
     /**
@@ -95,10 +103,8 @@ public class OpticsController {
      */
     @GetMapping("/frames/{id}")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<InventoryItemDto> getFrameItemById(@PathVariable Long id) {
-        return opticsService.getFrameItemById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<InventoryItemDto> getFrameItemById(@PathVariable Long id, WebRequest webRequest) {
+        return httpCacheService.tables(CATALOGUE).respondIfPresent(webRequest, () -> opticsService.getFrameItemById(id));
     }
 
 
@@ -124,9 +130,8 @@ public class OpticsController {
      */
     @GetMapping("/frames/shapes")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<List<String>> getAvailableFrameShapes() {
-        List<String> shapes = opticsService.getAvailableFrameShapes();
-        return ResponseEntity.ok(shapes);
+    public ResponseEntity<List<String>> getAvailableFrameShapes(WebRequest webRequest) {
+        return httpCacheService.tables(CATALOGUE).respond(webRequest, opticsService::getAvailableFrameShapes);
     }
 
     /**
@@ -134,9 +139,8 @@ public class OpticsController {
      */
     @GetMapping("/frames/materials")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<List<String>> getAvailableFrameMaterials() {
-        List<String> materials = opticsService.getAvailableFrameMaterials();
-        return ResponseEntity.ok(materials);
+    public ResponseEntity<List<String>> getAvailableFrameMaterials(WebRequest webRequest) {
+        return httpCacheService.tables(CATALOGUE).respond(webRequest, opticsService::getAvailableFrameMaterials);
     }
 
 
@@ -145,9 +149,8 @@ public class OpticsController {
      */
     @GetMapping("/frames/brands")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<List<String>> getAvailableBrands() {
-        List<String> brands = opticsService.getAvailableBrands();
-        return ResponseEntity.ok(brands);
+    public ResponseEntity<List<String>> getAvailableBrands(WebRequest webRequest) {
+        return httpCacheService.tables(CATALOGUE).respond(webRequest, opticsService::getAvailableBrands);
     }
 
     /**
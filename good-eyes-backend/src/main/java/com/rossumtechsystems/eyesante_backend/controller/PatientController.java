@@ -1,15 +1,26 @@
 package com.rossumtechsystems.eyesante_backend.controller;
 
+import com.rossumtechsystems.eyesante_backend.dto.CursorPage;
 import com.rossumtechsystems.eyesante_backend.dto.PatientDto;
+import com.rossumtechsystems.eyesante_backend.dto.PatientTimelineEntryDto;
+import com.rossumtechsystems.eyesante_backend.dto.PhoneValidationResultDto;
+import com.rossumtechsystems.eyesante_backend.service.ColdArchiveService;
+import com.rossumtechsystems.eyesante_backend.service.HttpCacheService;
 import com.rossumtechsystems.eyesante_backend.service.PatientService;
 import com.rossumtechsystems.eyesante_backend.service.PatientNumberService;
+import com.rossumtechsystems.eyesante_backend.service.PatientTimelineService;
+import com.rossumtechsystems.eyesante_backend.util.KeysetCursor;
+import com.rossumtechsystems.eyesante_backend.util.ListView;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -25,22 +36,55 @@ public class PatientController {
     
     @Autowired
     private PatientNumberService patientNumberService;
+
+    @Autowired
+    private PatientTimelineService patientTimelineService;
+
+    @Autowired
+    private ColdArchiveService coldArchiveService;
+
+    @Autowired
+    private HttpCacheService httpCacheService;
     
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    // Patient list; ?view=summary or ?fields=a,b,c for lighter rows
     @GetMapping
-    public ResponseEntity<Page<PatientDto>> getAllPatients(Pageable pageable) {
-        Page<PatientDto> patients = patientService.getAllPatients(pageable);
-        return ResponseEntity.ok(patients);
+    public ResponseEntity<Page<?>> getAllPatients(
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields,
+            Pageable pageable) {
+        if (fields != null) {
+            return ResponseEntity.ok(patientService.getPatientFields(fields, null, pageable));
+        }
+        if (ListView.of(view) == ListView.SUMMARY) {
+            return ResponseEntity.ok(patientService.getPatientSummaries(pageable));
+        }
+        return ResponseEntity.ok(patientService.getAllPatients(pageable));
+    }
+
+    // Keyset-paginated patient list; pass nextCursor back to get the following page
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<PatientDto>> getPatientsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(patientService.getPatientsAfter(cursor, KeysetCursor.clampPageSize(size)));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Page<PatientDto>> searchPatients(
+    public ResponseEntity<Page<?>> searchPatients(
             @RequestParam(required = false) String query,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields,
             Pageable pageable) {
-        Page<PatientDto> patients = patientService.searchPatients(query, pageable);
-        return ResponseEntity.ok(patients);
+        if (fields != null) {
+            return ResponseEntity.ok(patientService.getPatientFields(fields, query, pageable));
+        }
+        if (ListView.of(view) == ListView.SUMMARY) {
+            return ResponseEntity.ok(patientService.searchPatientSummaries(query, pageable));
+        }
+        return ResponseEntity.ok(patientService.searchPatients(query, pageable));
     }
 
     @GetMapping("/all")
@@ -49,9 +93,26 @@ public class PatientController {
         return ResponseEntity.ok(patients);
     }
 
+    // ETag/Last-Modified from the patient row and its eye examinations; If-None-Match gets a 304
     @GetMapping("/{id}")
-    public ResponseEntity<PatientDto> getPatientById(@PathVariable Long id) {
-        return patientService.getPatientById(id)
+    public ResponseEntity<PatientDto> getPatientById(@PathVariable Long id, WebRequest webRequest) {
+        return httpCacheService.patient(id)
+                .map(validator -> validator.respondIfPresent(webRequest, () -> patientService.getPatientById(id)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Whole patient history (visits, exams, diagnoses, procedures, treatments, investigations, invoices), newest first
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<Page<PatientTimelineEntryDto>> getPatientTimeline(
+            @PathVariable Long id,
+            @PageableDefault(size = 50) Pageable pageable) {
+        return ResponseEntity.ok(patientTimelineService.getTimeline(id, pageable));
+    }
+
+    // Full record of an archived visit: the visit row and every exam/record archived with it, keyed by table
+    @GetMapping(value = "/{id}/archived-visits/{visitSessionId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getArchivedVisit(@PathVariable Long id, @PathVariable Long visitSessionId) {
+        return coldArchiveService.findArchivedVisitSnapshot(id, visitSessionId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -72,6 +133,13 @@ public class PatientController {
         return ResponseEntity.ok(createdPatient);
     }
 
+    // Validate a batch of phone numbers (e.g. before a bulk import) against registered patients and each other
+    @PostMapping("/phones/validate")
+    @PreAuthorize("hasAuthority('PATIENT_CREATE')")
+    public ResponseEntity<java.util.List<PhoneValidationResultDto>> validatePhones(@RequestBody java.util.List<String> phones) {
+        return ResponseEntity.ok(patientService.validatePhoneBatch(phones));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAuthority('PATIENT_UPDATE')")
     public ResponseEntity<PatientDto> updatePatient(@PathVariable Long id, @Valid @RequestBody PatientDto patientDto) {
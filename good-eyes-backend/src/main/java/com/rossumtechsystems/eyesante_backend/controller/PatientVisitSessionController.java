@@ -2,15 +2,22 @@ package com.rossumtechsystems.eyesante_backend.controller;
 
 import com.rossumtechsystems.eyesante_backend.dto.CreatePatientVisitSessionRequest;
 import com.rossumtechsystems.eyesante_backend.dto.PatientVisitSessionDto;
+import com.rossumtechsystems.eyesante_backend.dto.PipelineBottleneckDto;
+import com.rossumtechsystems.eyesante_backend.dto.StageDwellStatsDto;
+import com.rossumtechsystems.eyesante_backend.dto.VisitStageTransitionDto;
 import com.rossumtechsystems.eyesante_backend.entity.PatientVisitSession;
 import com.rossumtechsystems.eyesante_backend.service.PatientVisitSessionService;
+import com.rossumtechsystems.eyesante_backend.service.VisitPipelineAnalyticsService;
+import com.rossumtechsystems.eyesante_backend.util.ListView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.data.domain.Page;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +28,7 @@ import java.util.Map;
 public class PatientVisitSessionController {
 
     private final PatientVisitSessionService patientVisitSessionService;
+    private final VisitPipelineAnalyticsService visitPipelineAnalyticsService;
 
     /**
      * Create a new patient visit session
@@ -58,17 +66,24 @@ public class PatientVisitSessionController {
     }
 
     /**
-     * Get all visit sessions
+     * Get all visit sessions; ?view=summary or ?fields=a,b,c for lighter rows
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN', 'USER')")
-    public ResponseEntity<Page<PatientVisitSessionDto>> getAllVisitSessions(
+    public ResponseEntity<Page<?>> getAllVisitSessions(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "5") int size,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields) {
         log.info("Fetching all visit sessions with page: {}, size: {}, search: {}", page, size, search);
-        Page<PatientVisitSessionDto> sessions = patientVisitSessionService.getAllVisitSessions(page, size, search);
-        return ResponseEntity.ok(sessions);
+        if (fields != null) {
+            return ResponseEntity.ok(patientVisitSessionService.getVisitSessionFields(fields, page, size, search));
+        }
+        if (ListView.of(view) == ListView.SUMMARY) {
+            return ResponseEntity.ok(patientVisitSessionService.getVisitSessionSummaries(page, size, search));
+        }
+        return ResponseEntity.ok(patientVisitSessionService.getAllVisitSessions(page, size, search));
     }
 
     /**
@@ -231,4 +246,33 @@ public class PatientVisitSessionController {
         List<PatientVisitSessionDto> sessions = patientVisitSessionService.searchVisitSessions(patientName, status, purpose, startDate, endDate);
         return ResponseEntity.ok(sessions);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Live pipeline view: patients waiting per stage, today's dwell times and the current bottleneck
+     */
+    @GetMapping("/pipeline/bottlenecks")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<PipelineBottleneckDto> getPipelineBottlenecks() {
+        return ResponseEntity.ok(visitPipelineAnalyticsService.getBottlenecks());
+    }
+
+    /**
+     * Dwell-time count, average and percentiles per stage for a date range
+     */
+    @GetMapping("/pipeline/dwell-times")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<List<StageDwellStatsDto>> getStageDwellTimes(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(visitPipelineAnalyticsService.getDwellStats(startDate, endDate));
+    }
+
+    /**
+     * Stage and status history of a visit session
+     */
+    @GetMapping("/{id}/stage-history")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN', 'USER')")
+    public ResponseEntity<List<VisitStageTransitionDto>> getStageHistory(@PathVariable Long id) {
+        return ResponseEntity.ok(visitPipelineAnalyticsService.getStageHistory(id));
+    }
+}
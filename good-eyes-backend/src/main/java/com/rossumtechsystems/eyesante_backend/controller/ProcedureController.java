@@ -1,14 +1,15 @@
 package com.rossumtechsystems.eyesante_backend.controller;
 
 import com.rossumtechsystems.eyesante_backend.dto.ProcedureDto;
+import com.rossumtechsystems.eyesante_backend.service.HttpCacheService;
 import com.rossumtechsystems.eyesante_backend.service.ProcedureService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/procedures")
@@ -18,33 +19,31 @@ public class ProcedureController {
     @Autowired
     private ProcedureService procedureService;
 
+    @Autowired
+    private HttpCacheService httpCacheService;
+
     @GetMapping
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<List<ProcedureDto>> getAllActiveProcedures() {
-        List<ProcedureDto> procedures = procedureService.getAllActiveProcedures();
-        return ResponseEntity.ok(procedures);
+    public ResponseEntity<List<ProcedureDto>> getAllActiveProcedures(WebRequest webRequest) {
+        return httpCacheService.tables("procedures").respond(webRequest, procedureService::getAllActiveProcedures);
     }
 
     @GetMapping("/categories")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<List<String>> getAllCategories() {
-        List<String> categories = procedureService.getAllCategories();
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<List<String>> getAllCategories(WebRequest webRequest) {
+        return httpCacheService.tables("procedures").respond(webRequest, procedureService::getAllCategories);
     }
 
     @GetMapping("/category/{category}")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<List<ProcedureDto>> getProceduresByCategory(@PathVariable String category) {
-        List<ProcedureDto> procedures = procedureService.getProceduresByCategory(category);
-        return ResponseEntity.ok(procedures);
+    public ResponseEntity<List<ProcedureDto>> getProceduresByCategory(@PathVariable String category, WebRequest webRequest) {
+        return httpCacheService.tables("procedures").respond(webRequest, () -> procedureService.getProceduresByCategory(category));
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'OPHTHALMOLOGIST', 'OPTOMETRIST', 'ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<ProcedureDto> getProcedureById(@PathVariable Long id) {
-        Optional<ProcedureDto> procedure = procedureService.getProcedureById(id);
-        return procedure.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<ProcedureDto> getProcedureById(@PathVariable Long id, WebRequest webRequest) {
+        return httpCacheService.tables("procedures").respondIfPresent(webRequest, () -> procedureService.getProcedureById(id));
     }
 
     @PostMapping
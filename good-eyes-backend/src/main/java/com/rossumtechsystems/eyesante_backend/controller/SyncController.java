@@ -0,0 +1,66 @@
+package com.rossumtechsystems.eyesante_backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rossumtechsystems.eyesante_backend.dto.SyncBatch;
+import com.rossumtechsystems.eyesante_backend.dto.SyncChangeDto;
+import com.rossumtechsystems.eyesante_backend.service.DeltaSyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final DeltaSyncService deltaSyncService;
+    private final ObjectMapper objectMapper;
+
+    // Pull changes since the last token as NDJSON (one change per line), gzipped when the client accepts it.
+    // The next token and whether to pull again come back in the X-Sync-Token and X-Sync-Has-More headers.
+    @GetMapping("/changes")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'ACCOUNTANT', 'ACCOUNT_STORE_MANAGER', 'SUPER_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) List<String> tables,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        SyncBatch batch = deltaSyncService.getChanges(since, tables, limit);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        ObjectWriter writer = objectMapper.writerFor(SyncChangeDto.class);
+
+        StreamingResponseBody body = out -> {
+            OutputStream stream = gzip ? new GZIPOutputStream(out, 8192) : out;
+            for (SyncChangeDto change : batch.getChanges()) {
+                stream.write(writer.writeValueAsBytes(change));
+                stream.write('\n');
+            }
+            if (stream instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+            stream.flush();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header("X-Sync-Token", batch.getNextToken())
+                .header("X-Sync-Has-More", String.valueOf(batch.isHasMore()))
+                .header("X-Sync-Count", String.valueOf(batch.getChanges().size()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
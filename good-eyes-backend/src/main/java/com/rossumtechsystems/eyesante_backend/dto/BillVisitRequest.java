@@ -0,0 +1,15 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BillVisitRequest {
+
+    // One invoice per category (procedures, investigations, treatments, optics) instead of a single visit invoice
+    private boolean separateInvoices;
+
+    // Optical items picked at the dispensing desk; they are not recorded on the visit beforehand
+    private List<CreateInvoiceFromItemsRequest> opticsItems;
+}
@@ -0,0 +1,20 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BranchFinancialSummaryDto {
+    private Long clinicId;
+    private String clinicCode;
+    private String clinicName;
+    private long totalInvoices;
+    private BigDecimal totalRevenue;                 // PAID invoices' totals, as in the financial summary
+    private BigDecimal totalPaid;
+    private BigDecimal totalOutstanding;             // balance due on invoices not yet PAID
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 public class ClinicDto {
     private Long id;
     private String name;
+    private String code;
     private String department;
     private String description;
     
@@ -0,0 +1,19 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyTakingsDto {
+    private LocalDate date;                          // day the money was received
+    private Invoice.PaymentMethod paymentMethod;
+    private long paymentCount;
+    private BigDecimal amount;
+}
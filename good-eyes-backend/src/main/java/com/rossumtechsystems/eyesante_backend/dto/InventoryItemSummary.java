@@ -0,0 +1,31 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Inventory list row for {@code ?view=summary}: the item, its price and its stock position
+ */
+public interface InventoryItemSummary {
+
+    Long getId();
+
+    String getName();
+
+    String getSku();
+
+    String getCategoryName();
+
+    BigDecimal getUnitPrice();
+
+    Integer getQuantityInStock();
+
+    Integer getMinimumStockLevel();
+
+    String getUnitOfMeasure();
+
+    LocalDate getExpiryDate();
+
+    // IN_STOCK, LOW_STOCK or OUT_OF_STOCK, as InventoryItemDto.stockStatus
+    String getStockStatus();
+}
@@ -0,0 +1,37 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Invoice list row for {@code ?view=summary}: the columns an invoice list shows, selected by
+ * InvoiceRepository's summary queries without loading the invoice or its items
+ */
+public interface InvoiceSummary {
+
+    Long getId();
+
+    String getInvoiceNumber();
+
+    LocalDate getInvoiceDate();
+
+    LocalDate getDueDate();
+
+    Long getPatientId();
+
+    String getPatientNumber();
+
+    String getPatientName();
+
+    BigDecimal getTotalAmount();
+
+    BigDecimal getAmountPaid();
+
+    BigDecimal getBalanceDue();
+
+    Invoice.InvoiceStatus getStatus();
+
+    Invoice.PaymentStatus getPaymentStatus();
+}
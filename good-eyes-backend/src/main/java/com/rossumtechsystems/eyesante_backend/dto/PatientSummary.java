@@ -0,0 +1,34 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Patient list row for {@code ?view=summary}; unlike PatientDto it carries no latest eye
+ * examination, so a page costs one query instead of one more per patient
+ */
+public interface PatientSummary {
+
+    Long getId();
+
+    String getPatientNumber();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getGender();
+
+    LocalDate getDateOfBirth();
+
+    Integer getAgeInYears();
+
+    String getPhone();
+
+    String getPatientCategory();
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    LocalDateTime getReceptionTimestamp();
+}
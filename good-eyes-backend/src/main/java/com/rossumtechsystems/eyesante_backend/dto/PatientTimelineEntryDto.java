@@ -0,0 +1,22 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientTimelineEntryDto {
+    private String type;            // VISIT, TRIAGE, BASIC_REFRACTION, MAIN_EXAMINATION, DIAGNOSIS, PROCEDURE, TREATMENT, INVESTIGATION, INVOICE
+    private Long id;                // id of the record in its own table
+    private Long visitSessionId;
+    private LocalDateTime occurredAt;
+    private String title;
+    private String summary;
+    private String status;
+    private BigDecimal amount;
+}
@@ -0,0 +1,22 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentDto {
+    private Long id;
+    private Long invoiceId;
+    private BigDecimal amount;
+    private Invoice.PaymentMethod paymentMethod;
+    private String paymentReference;
+    private LocalDateTime receivedAt;
+    private String createdBy;
+}
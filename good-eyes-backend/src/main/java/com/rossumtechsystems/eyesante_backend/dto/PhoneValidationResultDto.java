@@ -0,0 +1,17 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhoneValidationResultDto {
+    private int index;                       // position in the submitted list
+    private String phone;                    // as submitted
+    private String phoneE164;                // null when the number cannot be normalised
+    private String status;                   // AVAILABLE, INVALID, REGISTERED or DUPLICATE_IN_BATCH
+    private Long patientId;                  // current holder when REGISTERED
+    private String patientNumber;
+}
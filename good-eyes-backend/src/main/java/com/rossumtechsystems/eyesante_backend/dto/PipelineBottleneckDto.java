@@ -0,0 +1,23 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineBottleneckDto {
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime asOf;
+
+    // Stage with the longest expected wait for a patient joining now (queue length x median dwell)
+    private String bottleneckStage;
+    private Double bottleneckExpectedWaitMinutes;
+
+    private List<StageDwellStatsDto> stages;
+}
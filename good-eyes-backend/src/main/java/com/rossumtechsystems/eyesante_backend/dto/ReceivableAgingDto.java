@@ -0,0 +1,21 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceivableAgingDto {
+    private String key;                              // patient ID, insurer name or doctor user ID; null for the clinic total
+    private String label;                            // display name for the key
+    private BigDecimal days0To30;
+    private BigDecimal days31To60;
+    private BigDecimal days61To90;
+    private BigDecimal days90Plus;
+    private BigDecimal total;
+    private long invoiceCount;
+}
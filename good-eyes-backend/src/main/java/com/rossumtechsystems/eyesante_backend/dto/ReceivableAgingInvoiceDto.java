@@ -0,0 +1,28 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceivableAgingInvoiceDto {
+    private Long invoiceId;
+    private String invoiceNumber;
+    private LocalDate invoiceDate;
+    private LocalDate dueDate;
+    private Long patientId;
+    private String patientName;
+    private String patientPhone;
+    private String insuranceProvider;
+    private Long userId;                             // doctor
+    private String doctorName;
+    private BigDecimal totalAmount;
+    private BigDecimal balanceDue;
+    private String ageBucket;                        // DAYS_0_30, DAYS_31_60, DAYS_61_90 or DAYS_90_PLUS
+    private int daysOutstanding;                     // days since the invoice date
+}
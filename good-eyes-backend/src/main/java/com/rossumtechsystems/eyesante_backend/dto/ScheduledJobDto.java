@@ -0,0 +1,28 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledJobDto {
+    private String jobName;
+    private String cron;
+    private boolean enabled;
+    private boolean paused;
+    private long checkpoint;                         // where a chunked job resumes; 0 after a complete pass
+    private LocalDateTime lastFireAt;                // last scheduled fire claimed by any node
+    private LocalDateTime nextFireAt;                // next scheduled fire, as this node computes it
+    private String lastStatus;
+    private LocalDateTime lastStartedAt;
+    private Long lastDurationMs;
+    private long runs;                               // runs in the metrics window
+    private long failures;
+    private Long averageDurationMs;
+    private Long p95DurationMs;
+    private Long maxDurationMs;
+}
@@ -0,0 +1,23 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledJobRunDto {
+    private Long id;
+    private String jobName;
+    private String triggerType;                      // SCHEDULE, STARTUP or MANUAL
+    private String node;                             // pid@host of the replica that ran it
+    private String status;                           // RUNNING, SUCCEEDED, FAILED or ABANDONED
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long durationMs;
+    private Long processed;
+    private String detail;                           // job summary, or the error for a failed run
+}
@@ -0,0 +1,20 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StageDwellStatsDto {
+    private String stage;
+    private long waitingNow;                // visits currently in the stage
+    private Double longestWaitMinutes;      // how long the earliest of them has been waiting
+    private long completedCount;            // visits that left the stage in the period
+    private Double averageMinutes;
+    private Double p50Minutes;
+    private Double p90Minutes;
+    private Double p95Minutes;
+    private Double maxMinutes;
+}
@@ -0,0 +1,16 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncBatch {
+    private List<SyncChangeDto> changes;
+    private String nextToken;       // pass back as ?since= on the next pull
+    private boolean hasMore;        // pull again straight away when true
+}
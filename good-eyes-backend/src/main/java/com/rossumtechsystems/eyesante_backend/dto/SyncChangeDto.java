@@ -0,0 +1,22 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SyncChangeDto {
+    private String table;           // patients, appointments, patient_visit_sessions, invoices or a catalogue table
+    private String op;              // UPSERT or DELETE
+    private Long id;
+    private LocalDateTime changedAt;
+    @JsonRawValue
+    private String data;            // row as JSON (snake_case columns); absent for DELETE
+}
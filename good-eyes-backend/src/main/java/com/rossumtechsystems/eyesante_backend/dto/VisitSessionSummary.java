@@ -0,0 +1,33 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import com.rossumtechsystems.eyesante_backend.entity.PatientVisitSession;
+
+import java.time.LocalDateTime;
+
+/**
+ * Visit list row for {@code ?view=summary}: who, when, and where the visit stands
+ */
+public interface VisitSessionSummary {
+
+    Long getId();
+
+    Long getPatientId();
+
+    String getPatientNumber();
+
+    String getPatientName();
+
+    LocalDateTime getVisitDate();
+
+    PatientVisitSession.VisitPurpose getVisitPurpose();
+
+    PatientVisitSession.VisitStatus getStatus();
+
+    PatientVisitSession.VisitStage getCurrentStage();
+
+    Boolean getConsultationFeePaid();
+
+    Boolean getIsEmergency();
+
+    Long getInvoiceId();
+}
@@ -0,0 +1,26 @@
+package com.rossumtechsystems.eyesante_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitStageTransitionDto {
+    private Long id;
+    private Long visitSessionId;
+    private String fromStage;
+    private String toStage;
+    private String fromStatus;
+    private String toStatus;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime changedAt;
+
+    private Integer dwellSeconds;   // time spent in fromStage; null for status-only changes
+    private String changedBy;
+}
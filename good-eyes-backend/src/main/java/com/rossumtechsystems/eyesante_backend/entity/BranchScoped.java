@@ -0,0 +1,15 @@
+package com.rossumtechsystems.eyesante_backend.entity;
+
+/**
+ * An entity with a {@code clinic_id} branch key, filled on insert by
+ * {@link com.rossumtechsystems.eyesante_backend.config.BranchAssignmentListener}. Those also
+ * annotated with {@code @Filter(name = Clinic.BRANCH_FILTER)} are hidden from other branches in
+ * HQL, derived queries and loads by id; native SQL and JdbcTemplate are not filtered and take
+ * {@link com.rossumtechsystems.eyesante_backend.config.BranchContext#sqlPredicate} instead.
+ */
+public interface BranchScoped {
+
+    Long getClinicId();
+
+    void setClinicId(Long clinicId);
+}
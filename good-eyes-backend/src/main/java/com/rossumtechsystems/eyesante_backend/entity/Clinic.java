@@ -3,13 +3,27 @@ package com.rossumtechsystems.eyesante_backend.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
 
+/**
+ * A branch. Visits, invoices and theater stores belong to one and are only visible to its users;
+ * see {@link BranchScoped}.
+ */
 @Entity
 @Table(name = "clinics")
+@FilterDef(name = Clinic.BRANCH_FILTER, parameters = @ParamDef(name = "clinicId", type = Long.class),
+        defaultCondition = "clinic_id = :clinicId", applyToLoadByKey = true)
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Clinic extends BaseAuditEntity {
 
+    /** Hibernate filter restricting branch-scoped entities to the current branch */
+    public static final String BRANCH_FILTER = "branchFilter";
+
+    /** The clinic seeded by V91; rows written without a branch belong to it */
+    public static final long MAIN_CLINIC_ID = 1L;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -17,9 +31,43 @@ public class Clinic extends BaseAuditEntity {
     @Column(name = "name", nullable = false)
     private String name;
 
+    @Column(name = "code", nullable = false, unique = true, length = 20)
+    private String code;
+
     @Column(name = "department")
     private String department;
 
     @Column(name = "description", columnDefinition = "TEXT")
     private String description;
-} 
\ No newline at end of file
+
+    // Contact information for receipts
+    @Column(name = "clinic_name")
+    private String clinicName;
+
+    @Column(name = "clinic_address", columnDefinition = "TEXT")
+    private String clinicAddress;
+
+    @Column(name = "clinic_phone", length = 50)
+    private String clinicPhone;
+
+    @Column(name = "clinic_email")
+    private String clinicEmail;
+
+    @Column(name = "clinic_website")
+    private String clinicWebsite;
+
+    @Column(name = "clinic_logo_text", length = 100)
+    private String clinicLogoText;
+
+    @Column(name = "receipt_footer_message", columnDefinition = "TEXT")
+    private String receiptFooterMessage;
+
+    @Column(name = "receipt_contact_message")
+    private String receiptContactMessage;
+
+    @Column(name = "is_active", nullable = false)
+    private Boolean isActive = true;
+
+    @Column(name = "is_default", nullable = false)
+    private Boolean isDefault = false;
+}
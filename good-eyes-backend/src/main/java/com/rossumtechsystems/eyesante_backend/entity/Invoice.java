@@ -1,6 +1,10 @@
 package com.rossumtechsystems.eyesante_backend.entity;
 
 import jakarta.persistence.*;
+import com.rossumtechsystems.eyesante_backend.config.BranchAssignmentListener;
+import com.rossumtechsystems.eyesante_backend.service.PatientTimelineCacheListener;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Filter;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -8,7 +12,10 @@ import java.util.List;
 
 @Entity
 @Table(name = "invoices")
-public class Invoice extends BaseAuditEntity {
+@DynamicUpdate
+@EntityListeners({PatientTimelineCacheListener.class, BranchAssignmentListener.class})
+@Filter(name = Clinic.BRANCH_FILTER)
+public class Invoice extends BaseAuditEntity implements BranchScoped {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,6 +36,10 @@ public class Invoice extends BaseAuditEntity {
     @JoinColumn(name = "patient_id", nullable = false)
     private Patient patient;
 
+    // Branch the row belongs to; set on insert by BranchAssignmentListener
+    @Column(name = "clinic_id", nullable = false, updatable = false)
+    private Long clinicId;
+
     @Column(name = "patient_name", nullable = false)
     private String patientName;
 
@@ -153,6 +164,11 @@ public class Invoice extends BaseAuditEntity {
     public Patient getPatient() { return patient; }
     public void setPatient(Patient patient) { this.patient = patient; }
 
+    @Override
+    public Long getClinicId() { return clinicId; }
+    @Override
+    public void setClinicId(Long clinicId) { this.clinicId = clinicId; }
+
     public String getPatientName() { return patientName; }
     public void setPatientName(String patientName) { this.patientName = patientName; }
 
@@ -232,15 +248,27 @@ public class Invoice extends BaseAuditEntity {
     public void setInvoiceItems(List<InvoiceItem> invoiceItems) { this.invoiceItems = invoiceItems; }
 
     // Helper methods
+
+    /**
+     * Full recompute of the subtotal from the items. Only for invoices whose items are in memory
+     * (creation); stored invoices change through InvoiceRepository.applySubtotalDelta and
+     * PaymentLedgerService, and drift is repaired by InvoiceTotalsReconciliationService.
+     */
     public void calculateTotals() {
         if (invoiceItems != null && !invoiceItems.isEmpty()) {
             this.subtotal = invoiceItems.stream()
-                    .map(item -> item.getUnitPrice().multiply(new BigDecimal(item.getQuantity())))
+                    .map(InvoiceItem::lineSubtotal)
                     .reduce(BigDecimal.ZERO, BigDecimal::add);
         } else {
             this.subtotal = BigDecimal.ZERO;
         }
+        applyDerivedTotals();
+    }
 
+    /**
+     * Total, balance and payment status from the stored subtotal; never touches the items
+     */
+    private void applyDerivedTotals() {
         BigDecimal total = this.subtotal;
         
         if (this.taxAmount != null) {
@@ -273,19 +301,6 @@ public class Invoice extends BaseAuditEntity {
         }
     }
 
-    public void addPayment(BigDecimal paymentAmount, PaymentMethod method, String reference) {
-        if (this.amountPaid == null) {
-            this.amountPaid = BigDecimal.ZERO;
-        }
-        
-        this.amountPaid = this.amountPaid.add(paymentAmount);
-        this.paymentMethod = method;
-        this.paymentReference = reference;
-        this.paymentDate = LocalDateTime.now();
-        
-        calculateTotals();
-    }
-
     @PrePersist
     @Override
     protected void onCreate() {
@@ -300,11 +315,4 @@ public class Invoice extends BaseAuditEntity {
         }
         calculateTotals();
     }
-
-    @PreUpdate
-    @Override
-    protected void onUpdate() {
-        super.onUpdate();
-        calculateTotals();
-    }
 } 
\ No newline at end of file
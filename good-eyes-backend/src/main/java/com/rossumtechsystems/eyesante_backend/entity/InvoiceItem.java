@@ -3,6 +3,7 @@ package com.rossumtechsystems.eyesante_backend.entity;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 
 @Entity
 @Table(name = "invoice_items")
@@ -17,6 +18,11 @@ public class InvoiceItem extends BaseAuditEntity {
     @JoinColumn(name = "invoice_id", nullable = false)
     private Invoice invoice;
 
+    // Copy of the invoice's date. invoice_items is partitioned by it and rows are routed to their
+    // partition before any trigger runs, so it must be written with the row
+    @Column(name = "invoice_date", nullable = false, updatable = false)
+    private LocalDate invoiceDate;
+
     // Item Information
     @Column(name = "item_name", nullable = false)
     private String itemName;
@@ -86,6 +92,8 @@ public class InvoiceItem extends BaseAuditEntity {
     public Invoice getInvoice() { return invoice; }
     public void setInvoice(Invoice invoice) { this.invoice = invoice; }
 
+    public LocalDate getInvoiceDate() { return invoiceDate; }
+
     public String getItemName() { return itemName; }
     public void setItemName(String itemName) { this.itemName = itemName; }
 
@@ -138,6 +146,14 @@ public class InvoiceItem extends BaseAuditEntity {
     public void setSku(String sku) { this.sku = sku; }
 
     // Helper methods
+
+    /**
+     * What this line contributes to the invoice subtotal
+     */
+    public BigDecimal lineSubtotal() {
+        return this.unitPrice.multiply(new BigDecimal(this.quantity));
+    }
+
     public void calculateTotals() {
         // Calculate total price
         this.totalPrice = this.unitPrice.multiply(new BigDecimal(this.quantity));
@@ -177,6 +193,9 @@ public class InvoiceItem extends BaseAuditEntity {
     @Override
     protected void onCreate() {
         super.onCreate();
+        if (invoiceDate == null && invoice != null) {
+            invoiceDate = invoice.getInvoiceDate();
+        }
         calculateTotals();
     }
 
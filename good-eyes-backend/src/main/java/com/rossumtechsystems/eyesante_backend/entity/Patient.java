@@ -1,5 +1,6 @@
 package com.rossumtechsystems.eyesante_backend.entity;
 
+import com.rossumtechsystems.eyesante_backend.config.BranchAssignmentListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -11,8 +12,9 @@ import java.util.List;
 @Data
 @Entity
 @Table(name = "patients")
+@EntityListeners(BranchAssignmentListener.class)
 @EqualsAndHashCode(callSuper = true)
-public class Patient extends BaseAuditEntity {
+public class Patient extends BaseAuditEntity implements BranchScoped {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -20,6 +22,10 @@ public class Patient extends BaseAuditEntity {
     @Column(name = "patient_number", unique = true, length = 20)
     private String patientNumber;
 
+    // Registering branch; unlike visits and invoices, patients are visible to every branch
+    @Column(name = "clinic_id", nullable = false, updatable = false)
+    private Long clinicId;
+
     @Column(name = "first_name", nullable = false)
     private String firstName;
 
@@ -1,12 +1,14 @@
 package com.rossumtechsystems.eyesante_backend.entity;
 
 import jakarta.persistence.*;
+import com.rossumtechsystems.eyesante_backend.service.PatientTimelineCacheListener;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "patient_diagnoses")
+@EntityListeners(PatientTimelineCacheListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class PatientDiagnosis extends BaseAuditEntity {
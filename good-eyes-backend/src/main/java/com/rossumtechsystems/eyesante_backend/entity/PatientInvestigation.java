@@ -1,6 +1,7 @@
 package com.rossumtechsystems.eyesante_backend.entity;
 
 import jakarta.persistence.*;
+import com.rossumtechsystems.eyesante_backend.service.PatientTimelineCacheListener;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import java.math.BigDecimal;
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "patient_investigations")
+@EntityListeners(PatientTimelineCacheListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class PatientInvestigation extends BaseAuditEntity {
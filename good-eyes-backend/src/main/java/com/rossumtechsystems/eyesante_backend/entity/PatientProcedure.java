@@ -1,6 +1,7 @@
 package com.rossumtechsystems.eyesante_backend.entity;
 
 import jakarta.persistence.*;
+import com.rossumtechsystems.eyesante_backend.service.PatientTimelineCacheListener;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import java.math.BigDecimal;
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "patient_procedures")
+@EntityListeners(PatientTimelineCacheListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class PatientProcedure extends BaseAuditEntity {
@@ -46,6 +48,12 @@ public class PatientProcedure extends BaseAuditEntity {
     @Column(name = "notes", columnDefinition = "TEXT")
     private String notes;
 
+    @Column(name = "billed", nullable = false)
+    private Boolean billed = false;
+
+    @Column(name = "billed_at")
+    private LocalDateTime billedAt;
+
     public enum EyeSide {
         LEFT, RIGHT, BOTH
     }
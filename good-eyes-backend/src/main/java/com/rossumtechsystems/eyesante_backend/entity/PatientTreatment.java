@@ -1,14 +1,17 @@
 package com.rossumtechsystems.eyesante_backend.entity;
 
 import jakarta.persistence.*;
+import com.rossumtechsystems.eyesante_backend.service.PatientTimelineCacheListener;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @Entity
 @Table(name = "patient_treatments")
+@EntityListeners(PatientTimelineCacheListener.class)
 @EqualsAndHashCode(callSuper = true)
 public class PatientTreatment extends BaseAuditEntity {
 
@@ -44,6 +47,12 @@ public class PatientTreatment extends BaseAuditEntity {
 
     @Column(name = "administration_route")
     private String administrationRoute;
+
+    @Column(name = "billed", nullable = false)
+    private Boolean billed = false;
+
+    @Column(name = "billed_at")
+    private LocalDateTime billedAt;
 }
 
 
@@ -1,8 +1,11 @@
 package com.rossumtechsystems.eyesante_backend.entity;
 
 import jakarta.persistence.*;
+import com.rossumtechsystems.eyesante_backend.config.BranchAssignmentListener;
+import com.rossumtechsystems.eyesante_backend.service.PatientTimelineCacheListener;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Filter;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -14,8 +17,10 @@ import com.rossumtechsystems.eyesante_backend.entity.eye_exmination.MainExaminat
 @Data
 @Entity
 @Table(name = "patient_visit_sessions")
+@EntityListeners({PatientTimelineCacheListener.class, BranchAssignmentListener.class})
+@Filter(name = Clinic.BRANCH_FILTER)
 @EqualsAndHashCode(callSuper = true)
-public class PatientVisitSession extends BaseAuditEntity {
+public class PatientVisitSession extends BaseAuditEntity implements BranchScoped {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,6 +29,10 @@ public class PatientVisitSession extends BaseAuditEntity {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     private Patient patient;
+
+    // Branch the row belongs to; set on insert by BranchAssignmentListener
+    @Column(name = "clinic_id", nullable = false, updatable = false)
+    private Long clinicId;
     
     @Column(name = "visit_date", nullable = false)
     private LocalDateTime visitDate;
@@ -1,9 +1,11 @@
 package com.rossumtechsystems.eyesante_backend.entity;
 
+import com.rossumtechsystems.eyesante_backend.config.BranchAssignmentListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Filter;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -12,7 +14,9 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class TheaterStore {
+@EntityListeners(BranchAssignmentListener.class)
+@Filter(name = Clinic.BRANCH_FILTER)
+public class TheaterStore implements BranchScoped {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,6 +39,10 @@ public class TheaterStore {
     
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
+
+    // Branch the store belongs to; set on insert by BranchAssignmentListener
+    @Column(name = "clinic_id", nullable = false, updatable = false)
+    private Long clinicId;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "managed_by_user_id")
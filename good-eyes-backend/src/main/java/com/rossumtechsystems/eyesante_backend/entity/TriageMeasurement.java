@@ -1,6 +1,7 @@
 package com.rossumtechsystems.eyesante_backend.entity;
 
 import jakarta.persistence.*;
+import com.rossumtechsystems.eyesante_backend.service.PatientTimelineCacheListener;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -8,6 +9,7 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "triage_measurements")
+@EntityListeners(PatientTimelineCacheListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class TriageMeasurement extends BaseAuditEntity {
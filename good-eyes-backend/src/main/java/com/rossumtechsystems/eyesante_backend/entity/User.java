@@ -52,6 +52,11 @@ public class User extends BaseAuditEntity implements UserDetails {
     @JoinColumn(name = "department_id")
     private Department department;
 
+    // Branch the user works in, carried in their access token; null works across all branches
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "clinic_id")
+    private Clinic clinic;
+
     private boolean enabled = true;
 
     @Column(name = "password_change_required")
@@ -2,6 +2,7 @@ package com.rossumtechsystems.eyesante_backend.entity.eye_exmination;
 
 import com.rossumtechsystems.eyesante_backend.entity.BaseAuditEntity;
 import jakarta.persistence.*;
+import com.rossumtechsystems.eyesante_backend.service.PatientTimelineCacheListener;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -9,6 +10,7 @@ import lombok.EqualsAndHashCode;
 @EqualsAndHashCode(callSuper = false)
 @Entity
 @Table(name = "basic_refraction_exams")
+@EntityListeners(PatientTimelineCacheListener.class)
 public class BasicRefractionExam extends BaseAuditEntity {
 
     @Id
@@ -3,6 +3,7 @@ package com.rossumtechsystems.eyesante_backend.entity.eye_exmination;
 import com.rossumtechsystems.eyesante_backend.entity.BaseAuditEntity;
 import com.rossumtechsystems.eyesante_backend.entity.PatientVisitSession;
 import jakarta.persistence.*;
+import com.rossumtechsystems.eyesante_backend.service.PatientTimelineCacheListener;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -12,6 +13,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "main_examinations")
+@EntityListeners(PatientTimelineCacheListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class MainExamination extends BaseAuditEntity {
@@ -0,0 +1,24 @@
+package com.rossumtechsystems.eyesante_backend.exception;
+
+import lombok.Getter;
+
+/**
+ * A patient phone number whose E.164 form is already held by another active patient
+ * (uk_patient_phones_e164_active). Answered with 409 like any {@link ResourceConflictException}.
+ */
+@Getter
+public class PhoneConflictException extends ResourceConflictException {
+
+    private final String phone;
+    private final String phoneE164;
+    private final Long conflictingPatientId;
+    private final String conflictingPatientNumber;
+
+    public PhoneConflictException(String phone, String phoneE164, Long conflictingPatientId, String conflictingPatientNumber) {
+        super("Phone number '" + phone + "' is already registered with patient " + conflictingPatientNumber);
+        this.phone = phone;
+        this.phoneE164 = phoneE164;
+        this.conflictingPatientId = conflictingPatientId;
+        this.conflictingPatientNumber = conflictingPatientNumber;
+    }
+}
@@ -1,6 +1,7 @@
 package com.rossumtechsystems.eyesante_backend.repository;
 
 import com.rossumtechsystems.eyesante_backend.entity.Appointment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -84,4 +85,11 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     // Find appointments by patient and date range
     Page<Appointment> findByPatientIdAndAppointmentDateBetweenOrderByAppointmentDateAscAppointmentTimeAsc(
             Long patientId, LocalDate startDate, LocalDate endDate, Pageable pageable);
-} 
\ No newline at end of file
+    
+    // Keyset pagination: first page and pages after (appointmentDate, id) of the last row seen
+    List<Appointment> findAllByOrderByAppointmentDateDescIdDesc(Limit limit);
+    
+    @Query("SELECT a FROM Appointment a WHERE (a.appointmentDate, a.id) < (:appointmentDate, :id) " +
+           "ORDER BY a.appointmentDate DESC, a.id DESC")
+    List<Appointment> findAllAfter(@Param("appointmentDate") LocalDate appointmentDate, @Param("id") Long id, Limit limit);
+}
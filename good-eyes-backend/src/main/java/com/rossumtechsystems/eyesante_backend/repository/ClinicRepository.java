@@ -0,0 +1,32 @@
+package com.rossumtechsystems.eyesante_backend.repository;
+
+import com.rossumtechsystems.eyesante_backend.entity.Clinic;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ClinicRepository extends JpaRepository<Clinic, Long> {
+    
+    Optional<Clinic> findByIsDefaultTrue();
+    
+    Optional<Clinic> findByIsActiveTrueAndIsDefaultTrue();
+    
+    Optional<Clinic> findFirstByIsActiveTrue();
+    
+    List<Clinic> findAllByOrderByNameAsc();
+    
+    boolean existsByCodeIgnoreCase(String code);
+    
+    boolean existsByCodeIgnoreCaseAndIdNot(String code, Long id);
+    
+    // Unset the default flag on every other clinic in one statement; at most one row may hold it
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Clinic c SET c.isDefault = false WHERE c.isDefault = true AND c.id <> :id")
+    int clearDefaultExcept(@Param("id") Long id);
+}
@@ -1,6 +1,7 @@
 package com.rossumtechsystems.eyesante_backend.repository;
 
 import com.rossumtechsystems.eyesante_backend.entity.ConsumableUsage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -26,4 +27,10 @@ public interface ConsumableUsageRepository extends JpaRepository<ConsumableUsage
     
     @Query("SELECT cu FROM ConsumableUsage cu WHERE cu.consumableItem.id = :itemId AND cu.usageDate BETWEEN :startDate AND :endDate ORDER BY cu.usageDate DESC")
     List<ConsumableUsage> findByItemIdAndUsageDateBetween(@Param("itemId") Long itemId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    // Keyset pagination: first page and pages after (usageDate, id) of the last row seen
+    List<ConsumableUsage> findAllByOrderByUsageDateDescIdDesc(Limit limit);
+    
+    @Query("SELECT cu FROM ConsumableUsage cu WHERE (cu.usageDate, cu.id) < (:usageDate, :id) ORDER BY cu.usageDate DESC, cu.id DESC")
+    List<ConsumableUsage> findAllAfter(@Param("usageDate") LocalDateTime usageDate, @Param("id") Long id, Limit limit);
 }
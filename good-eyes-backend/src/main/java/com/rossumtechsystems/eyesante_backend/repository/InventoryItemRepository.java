@@ -1,10 +1,12 @@
 package com.rossumtechsystems.eyesante_backend.repository;
 
+import com.rossumtechsystems.eyesante_backend.dto.InventoryItemSummary;
 import com.rossumtechsystems.eyesante_backend.entity.InventoryItem;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -174,4 +176,24 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     @Query("SELECT DISTINCT i.frameShape FROM InventoryItem i LEFT JOIN i.category c " +
            "WHERE i.frameShape IS NOT NULL AND i.isActive = true AND (i.opticsType = 'LENS' OR c.name = 'LENSES')")
     List<String> findDistinctLensTypes();
-} 
\ No newline at end of file
+
+    // Summary rows (?view=summary): only the InventoryItemSummary columns; stock status as InventoryItemService.convertToDto
+    String ITEM_SUMMARY = "SELECT i.id AS id, i.name AS name, i.sku AS sku, c.name AS categoryName, i.unitPrice AS unitPrice, " +
+           "i.quantityInStock AS quantityInStock, i.minimumStockLevel AS minimumStockLevel, " +
+           "i.unitOfMeasure AS unitOfMeasure, i.expiryDate AS expiryDate, " +
+           "CASE WHEN i.quantityInStock = 0 THEN 'OUT_OF_STOCK' " +
+           "WHEN i.quantityInStock <= i.minimumStockLevel THEN 'LOW_STOCK' ELSE 'IN_STOCK' END AS stockStatus " +
+           "FROM InventoryItem i LEFT JOIN i.category c ";
+
+    @Query(value = ITEM_SUMMARY + "WHERE i.isActive = true",
+           countQuery = "SELECT COUNT(i) FROM InventoryItem i WHERE i.isActive = true")
+    Page<InventoryItemSummary> findActiveSummaries(Pageable pageable);
+
+    // Same rows as findByIsActiveTrueAndNameContainingIgnoreCaseOrSkuContainingIgnoreCaseOrCategoryNameContainingIgnoreCase
+    @Query(value = ITEM_SUMMARY + "WHERE (i.isActive = true AND LOWER(i.name) LIKE LOWER(CONCAT('%', :search, '%'))) " +
+           "OR LOWER(i.sku) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(c.name) LIKE LOWER(CONCAT('%', :search, '%'))",
+           countQuery = "SELECT COUNT(i) FROM InventoryItem i LEFT JOIN i.category c " +
+           "WHERE (i.isActive = true AND LOWER(i.name) LIKE LOWER(CONCAT('%', :search, '%'))) " +
+           "OR LOWER(i.sku) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(c.name) LIKE LOWER(CONCAT('%', :search, '%'))")
+    Page<InventoryItemSummary> searchSummaries(@Param("search") String search, Pageable pageable);
+}
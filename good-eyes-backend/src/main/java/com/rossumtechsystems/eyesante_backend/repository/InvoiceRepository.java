@@ -1,15 +1,20 @@
 package com.rossumtechsystems.eyesante_backend.repository;
 
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceSummary;
 import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,33 +22,36 @@ import java.util.Optional;
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     
     // Find all invoices ordered by date descending (latest first)
+    @EntityGraph(attributePaths = "patient")
     Page<Invoice> findAllByOrderByInvoiceDateDesc(Pageable pageable);
     
     // Find by invoice number
+    @EntityGraph(attributePaths = "patient")
     Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
     
     // Find by patient
+    @EntityGraph(attributePaths = "patient")
     Page<Invoice> findByPatientIdOrderByInvoiceDateDesc(Long patientId, Pageable pageable);
     
     // Find by user
+    @EntityGraph(attributePaths = "patient")
     Page<Invoice> findByUserIdOrderByInvoiceDateDesc(Long userId, Pageable pageable);
     
     // Find by appointment
     Optional<Invoice> findByAppointmentId(Long appointmentId);
     
     // Find by status
+    @EntityGraph(attributePaths = "patient")
     Page<Invoice> findByStatusOrderByInvoiceDateDesc(Invoice.InvoiceStatus status, Pageable pageable);
     
     // Find by payment status
+    @EntityGraph(attributePaths = "patient")
     Page<Invoice> findByPaymentStatusOrderByInvoiceDateDesc(Invoice.PaymentStatus paymentStatus, Pageable pageable);
     
     // Find by date range
+    @EntityGraph(attributePaths = "patient")
     Page<Invoice> findByInvoiceDateBetweenOrderByInvoiceDateDesc(LocalDate startDate, LocalDate endDate, Pageable pageable);
     
-    // Find overdue invoices
-    @Query("SELECT i FROM Invoice i WHERE i.dueDate < :today AND i.paymentStatus != 'PAID' ORDER BY i.dueDate ASC")
-    List<Invoice> findOverdueInvoices(@Param("today") LocalDate today);
-
     // Find recent invoices for a patient with a given purpose within a time interval
     @Query("SELECT i FROM Invoice i WHERE i.patient.id = :patientId AND i.invoicePurpose = :purpose AND i.createdAt >= :since ORDER BY i.createdAt DESC")
     List<Invoice> findRecentInvoicesByPatientAndPurpose(@Param("patientId") Long patientId,
@@ -62,6 +70,7 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     Page<Invoice> findByInsuranceProviderOrderByInvoiceDateDesc(String insuranceProvider, Pageable pageable);
     
     // Find invoices with balance due
+    @EntityGraph(attributePaths = "patient")
     @Query("SELECT i FROM Invoice i WHERE i.balanceDue > 0 ORDER BY i.balanceDue DESC")
     Page<Invoice> findInvoicesWithBalanceDue(Pageable pageable);
     
@@ -86,18 +95,21 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     @Query("SELECT SUM(i.amountPaid) FROM Invoice i WHERE i.invoiceDate BETWEEN :startDate AND :endDate AND i.amountPaid IS NOT NULL")
     BigDecimal calculateTotalPaid(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
-    // Calculate total overdue amount for a date range
-    @Query("SELECT SUM(i.balanceDue) FROM Invoice i WHERE i.invoiceDate BETWEEN :startDate AND :endDate AND i.dueDate < :today AND i.paymentStatus != 'PAID'")
-    BigDecimal calculateTotalOverdue(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate, @Param("today") LocalDate today);
+    // Totals per branch for a date range, every clinic listed even without invoices. Native SQL is
+    // never branch-filtered, so this is the one chain-wide view of the figures above
+    @Query(value = "SELECT c.id, c.code, c.name, COUNT(i.id), " +
+           "COALESCE(SUM(i.total_amount) FILTER (WHERE i.payment_status = 'PAID'), 0), " +
+           "COALESCE(SUM(i.amount_paid), 0), " +
+           "COALESCE(SUM(i.balance_due) FILTER (WHERE i.payment_status <> 'PAID'), 0) " +
+           "FROM clinics c LEFT JOIN invoices i ON i.clinic_id = c.id " +
+           "AND i.invoice_date BETWEEN :startDate AND :endDate " +
+           "GROUP BY c.id, c.code, c.name ORDER BY c.name", nativeQuery = true)
+    List<Object[]> getTotalsByClinic(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
     // Calculate average invoice amount for a date range
     @Query("SELECT AVG(i.totalAmount) FROM Invoice i WHERE i.invoiceDate BETWEEN :startDate AND :endDate")
     BigDecimal calculateAverageInvoiceAmount(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
-    // Payment method breakdown for a date range
-    @Query("SELECT i.paymentMethod, SUM(i.totalAmount) FROM Invoice i WHERE i.invoiceDate BETWEEN :startDate AND :endDate AND i.paymentMethod IS NOT NULL GROUP BY i.paymentMethod")
-    List<Object[]> getPaymentMethodBreakdown(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
-    
     // Status breakdown for a date range
     @Query("SELECT i.status, COUNT(i) FROM Invoice i WHERE i.invoiceDate BETWEEN :startDate AND :endDate GROUP BY i.status")
     List<Object[]> getStatusBreakdown(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
@@ -106,10 +118,75 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     @Query("SELECT i.user.id, i.doctorName, COUNT(i), SUM(i.totalAmount) FROM Invoice i WHERE i.invoiceDate BETWEEN :startDate AND :endDate AND i.user IS NOT NULL GROUP BY i.user.id, i.doctorName ORDER BY SUM(i.totalAmount) DESC")
     List<Object[]> getTopDoctors(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
-    // Top services by revenue for a date range
-    @Query("SELECT ii.itemName, COUNT(DISTINCT i.id), SUM(ii.unitPrice * ii.quantity) FROM Invoice i JOIN i.invoiceItems ii WHERE i.invoiceDate BETWEEN :startDate AND :endDate GROUP BY ii.itemName ORDER BY SUM(ii.unitPrice * ii.quantity) DESC")
+    // Top services by revenue for a date range; the item-side date lets both partitioned tables prune
+    @Query("SELECT ii.itemName, COUNT(DISTINCT i.id), SUM(ii.unitPrice * ii.quantity) FROM Invoice i JOIN i.invoiceItems ii WHERE i.invoiceDate BETWEEN :startDate AND :endDate AND ii.invoiceDate BETWEEN :startDate AND :endDate GROUP BY ii.itemName ORDER BY SUM(ii.unitPrice * ii.quantity) DESC")
     List<Object[]> getTopServices(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
+    // Load items with their inventory item and category for a set of invoices in one keyed query.
+    // Kept separate from the page query so the collection join cannot multiply page rows.
+    @Query("SELECT DISTINCT i FROM Invoice i LEFT JOIN FETCH i.invoiceItems ii LEFT JOIN FETCH ii.inventoryItem inv LEFT JOIN FETCH inv.category WHERE i.id IN :ids")
+    List<Invoice> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Move the money columns by an item's line subtotal (negative when an item is removed) in one
+    // statement, with the payment status rules of Invoice.updatePaymentStatus; the items are never read
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE invoices SET subtotal = subtotal + :delta, total_amount = total_amount + :delta, " +
+           "balance_due = balance_due + :delta, " +
+           "payment_status = CASE WHEN balance_due + :delta <= 0 THEN 'PAID' " +
+           "WHEN COALESCE(amount_paid, 0) > 0 THEN 'PARTIAL' ELSE 'PENDING' END, " +
+           "status = CASE WHEN balance_due + :delta <= 0 THEN 'PAID' ELSE status END, " +
+           "updated_at = :now, updated_by = :username WHERE id = :id", nativeQuery = true)
+    int applySubtotalDelta(@Param("id") Long id, @Param("delta") BigDecimal delta,
+                           @Param("now") java.time.LocalDateTime now, @Param("username") String username);
+    
     // Check if invoice number exists
     boolean existsByInvoiceNumber(String invoiceNumber);
-} 
\ No newline at end of file
+    
+    // Keyset pagination: first page and pages after (invoiceDate, id) of the last row seen
+    @EntityGraph(attributePaths = "patient")
+    List<Invoice> findAllByOrderByInvoiceDateDescIdDesc(Limit limit);
+    
+    @EntityGraph(attributePaths = "patient")
+    @Query("SELECT i FROM Invoice i WHERE (i.invoiceDate, i.id) < (:invoiceDate, :id) ORDER BY i.invoiceDate DESC, i.id DESC")
+    List<Invoice> findAllAfter(@Param("invoiceDate") LocalDate invoiceDate, @Param("id") Long id, Limit limit);
+    
+    @EntityGraph(attributePaths = "patient")
+    List<Invoice> findByStatusOrderByInvoiceDateDescIdDesc(Invoice.InvoiceStatus status, Limit limit);
+    
+    @EntityGraph(attributePaths = "patient")
+    @Query("SELECT i FROM Invoice i WHERE i.status = :status AND (i.invoiceDate, i.id) < (:invoiceDate, :id) " +
+           "ORDER BY i.invoiceDate DESC, i.id DESC")
+    List<Invoice> findByStatusAfter(@Param("status") Invoice.InvoiceStatus status,
+                                    @Param("invoiceDate") LocalDate invoiceDate, @Param("id") Long id, Limit limit);
+    
+    @EntityGraph(attributePaths = "patient")
+    List<Invoice> findByInvoiceDateBetweenOrderByInvoiceDateDescIdDesc(LocalDate startDate, LocalDate endDate, Limit limit);
+    
+    @EntityGraph(attributePaths = "patient")
+    @Query("SELECT i FROM Invoice i WHERE i.invoiceDate BETWEEN :startDate AND :endDate " +
+           "AND (i.invoiceDate, i.id) < (:invoiceDate, :id) ORDER BY i.invoiceDate DESC, i.id DESC")
+    List<Invoice> findByInvoiceDateBetweenAfter(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                                                @Param("invoiceDate") LocalDate invoiceDate, @Param("id") Long id, Limit limit);
+    
+    // Summary rows (?view=summary): only the InvoiceSummary columns, no items
+    String INVOICE_SUMMARY = "SELECT i.id AS id, i.invoiceNumber AS invoiceNumber, i.invoiceDate AS invoiceDate, " +
+           "i.dueDate AS dueDate, p.id AS patientId, p.patientNumber AS patientNumber, i.patientName AS patientName, " +
+           "i.totalAmount AS totalAmount, i.amountPaid AS amountPaid, i.balanceDue AS balanceDue, " +
+           "i.status AS status, i.paymentStatus AS paymentStatus FROM Invoice i JOIN i.patient p ";
+    
+    @Query(value = INVOICE_SUMMARY,
+           countQuery = "SELECT COUNT(i) FROM Invoice i")
+    Page<InvoiceSummary> findAllSummaries(Pageable pageable);
+    
+    @Query(value = INVOICE_SUMMARY + "WHERE p.id = :patientId",
+           countQuery = "SELECT COUNT(i) FROM Invoice i WHERE i.patient.id = :patientId")
+    Page<InvoiceSummary> findSummariesByPatientId(@Param("patientId") Long patientId, Pageable pageable);
+    
+    @Query(value = INVOICE_SUMMARY + "WHERE i.user.id = :userId",
+           countQuery = "SELECT COUNT(i) FROM Invoice i WHERE i.user.id = :userId")
+    Page<InvoiceSummary> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query(value = INVOICE_SUMMARY + "WHERE i.status = :status",
+           countQuery = "SELECT COUNT(i) FROM Invoice i WHERE i.status = :status")
+    Page<InvoiceSummary> findSummariesByStatus(@Param("status") Invoice.InvoiceStatus status, Pageable pageable);
+}
@@ -1,12 +1,16 @@
 package com.rossumtechsystems.eyesante_backend.repository;
 
+import com.rossumtechsystems.eyesante_backend.dto.PatientSummary;
 import com.rossumtechsystems.eyesante_backend.entity.Patient;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -59,14 +63,6 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     // Find deleted patients with pagination
     Page<Patient> findByDeletedTrue(Pageable pageable);
     
-    // Phone uniqueness checks for non-deleted patients
-    boolean existsByPhoneAndDeletedFalse(String phone);
-    boolean existsByAlternativePhoneAndDeletedFalse(String alternativePhone);
-    
-    // Find patients by phone (for updates - excluding current patient)
-    Optional<Patient> findByPhoneAndDeletedFalseAndIdNot(String phone, Long id);
-    Optional<Patient> findByAlternativePhoneAndDeletedFalseAndIdNot(String alternativePhone, Long id);
-    
     // Search patients by multiple fields
     @Query("SELECT p FROM Patient p WHERE p.deleted = false AND " +
            "(LOWER(p.firstName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
@@ -77,4 +73,36 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
            "p.nationalId LIKE CONCAT('%', :query, '%')) " +
            "ORDER BY p.firstName ASC, p.lastName ASC")
     Page<Patient> searchPatients(String query, Pageable pageable);
-} 
\ No newline at end of file
+    
+    // Keyset pagination: first page and pages after (createdAt, id) of the last row seen
+    List<Patient> findByDeletedFalseOrderByCreatedAtDescIdDesc(Limit limit);
+    
+    @Query("SELECT p FROM Patient p WHERE p.deleted = false AND (p.createdAt, p.id) < (:createdAt, :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Patient> findByDeletedFalseAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+    
+    // Summary rows (?view=summary): only the PatientSummary columns; patient number as PatientService.toDto shows it
+    String PATIENT_SUMMARY = "SELECT p.id AS id, COALESCE(p.patientNumber, CONCAT('EP-', CAST(p.id AS String))) AS patientNumber, " +
+           "p.firstName AS firstName, p.lastName AS lastName, p.gender AS gender, p.dateOfBirth AS dateOfBirth, " +
+           "p.ageInYears AS ageInYears, p.phone AS phone, p.patientCategory AS patientCategory, " +
+           "p.receptionTimestamp AS receptionTimestamp FROM Patient p WHERE p.deleted = false ";
+    
+    @Query(value = PATIENT_SUMMARY, countQuery = "SELECT COUNT(p) FROM Patient p WHERE p.deleted = false")
+    Page<PatientSummary> findSummaries(Pageable pageable);
+    
+    @Query(value = PATIENT_SUMMARY + "AND " +
+           "(LOWER(p.firstName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+           "LOWER(p.lastName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+           "LOWER(p.patientNumber) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+           "p.phone LIKE CONCAT('%', :query, '%') OR " +
+           "p.alternativePhone LIKE CONCAT('%', :query, '%') OR " +
+           "p.nationalId LIKE CONCAT('%', :query, '%'))",
+           countQuery = "SELECT COUNT(p) FROM Patient p WHERE p.deleted = false AND " +
+           "(LOWER(p.firstName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+           "LOWER(p.lastName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+           "LOWER(p.patientNumber) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+           "p.phone LIKE CONCAT('%', :query, '%') OR " +
+           "p.alternativePhone LIKE CONCAT('%', :query, '%') OR " +
+           "p.nationalId LIKE CONCAT('%', :query, '%'))")
+    Page<PatientSummary> searchSummaries(@Param("query") String query, Pageable pageable);
+}
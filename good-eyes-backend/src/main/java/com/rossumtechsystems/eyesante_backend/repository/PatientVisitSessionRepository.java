@@ -1,5 +1,6 @@
 package com.rossumtechsystems.eyesante_backend.repository;
 
+import com.rossumtechsystems.eyesante_backend.dto.VisitSessionSummary;
 import com.rossumtechsystems.eyesante_backend.entity.PatientVisitSession;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -98,4 +99,31 @@ public interface PatientVisitSessionRepository extends JpaRepository<PatientVisi
            "LOWER(v.notes) LIKE LOWER(CONCAT('%', :search, '%'))) " +
            "ORDER BY v.visitDate DESC")
     Page<PatientVisitSession> searchVisitSessions(@Param("search") String search, Pageable pageable);
-} 
\ No newline at end of file
+    
+    /**
+     * Summary rows (?view=summary): only the VisitSessionSummary columns, patient joined for its name
+     */
+    String VISIT_SUMMARY = "SELECT v.id AS id, p.id AS patientId, p.patientNumber AS patientNumber, " +
+           "CONCAT(COALESCE(p.firstName, ''), ' ', COALESCE(p.lastName, '')) AS patientName, v.visitDate AS visitDate, " +
+           "v.visitPurpose AS visitPurpose, v.status AS status, v.currentStage AS currentStage, " +
+           "v.consultationFeePaid AS consultationFeePaid, v.isEmergency AS isEmergency, v.invoice.id AS invoiceId " +
+           "FROM PatientVisitSession v LEFT JOIN v.patient p ";
+    
+    @Query(value = VISIT_SUMMARY,
+           countQuery = "SELECT COUNT(v) FROM PatientVisitSession v")
+    Page<VisitSessionSummary> findAllSummaries(Pageable pageable);
+    
+    @Query(value = VISIT_SUMMARY + "WHERE " +
+           "(LOWER(p.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(p.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(p.patientNumber) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(v.chiefComplaint) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(v.notes) LIKE LOWER(CONCAT('%', :search, '%')))",
+           countQuery = "SELECT COUNT(v) FROM PatientVisitSession v LEFT JOIN v.patient p WHERE " +
+           "(LOWER(p.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(p.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(p.patientNumber) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(v.chiefComplaint) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(v.notes) LIKE LOWER(CONCAT('%', :search, '%')))")
+    Page<VisitSessionSummary> searchSummaries(@Param("search") String search, Pageable pageable);
+}
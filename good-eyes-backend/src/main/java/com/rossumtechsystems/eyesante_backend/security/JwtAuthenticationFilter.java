@@ -1,7 +1,9 @@
 package com.rossumtechsystems.eyesante_backend.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
 import com.rossumtechsystems.eyesante_backend.dto.ErrorResponse;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
@@ -38,6 +40,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
             throws ServletException, IOException {
+        Long clinicId = null;
         try {
             String jwt = getJwtFromRequest(request);
 
@@ -45,7 +48,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 try {
                     // First validate the token
                     if (tokenProvider.validateToken(jwt)) {
-                        String username = tokenProvider.getUsernameFromJWT(jwt);
+                        Claims claims = tokenProvider.getClaimsFromJWT(jwt);
+                        String username = claims.getSubject();
 
                         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
                         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -53,6 +57,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                         SecurityContextHolder.getContext().setAuthentication(authentication);
+                        clinicId = tokenProvider.getClinicId(claims);
                     } else {
                         // Token is invalid but not an exception - let it continue to be handled by Spring Security
                         logger.debug("Invalid JWT token");
@@ -85,7 +90,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return; // Stop the filter chain
         }
 
-        filterChain.doFilter(request, response);
+        BranchContext.set(clinicId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            BranchContext.clear();
+        }
     }
 
     private void handleJwtError(HttpServletResponse response, String error, String message) throws IOException {
@@ -1,5 +1,6 @@
 package com.rossumtechsystems.eyesante_backend.security;
 
+import com.rossumtechsystems.eyesante_backend.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.security.core.Authentication;
@@ -15,6 +16,8 @@ import java.util.Date;
 @Component
 public class JwtTokenProvider {
 
+    private static final String CLINIC_CLAIM = "clinicId";
+
     // @Value("${app.jwt-secret:your-very-long-secret-key-at-least-64-bytes-long-1234567890123456789012345678901234567890123456789012345678901234}")
     private String jwtSecret= "your-very-long-secret-key-at-least-64-bytes-long-1234567890123456789012345678901234567890123456789012345678901234";
 
@@ -38,11 +41,16 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
-        String token = Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .subject(userDetails.getUsername())
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .claim("type", "ACCESS")
+                .claim("type", "ACCESS");
+        // The user's branch, which scopes every request made with this token
+        if (userDetails instanceof User user && user.getClinic() != null) {
+            builder.claim(CLINIC_CLAIM, user.getClinic().getId());
+        }
+        String token = builder
                 .signWith(getSigningKey(), Jwts.SIG.HS512)
                 .compact();
 
@@ -66,13 +74,25 @@ public class JwtTokenProvider {
     }
 
     public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parser()
+        return getClaimsFromJWT(token).getSubject();
+    }
+
+    /**
+     * The verified claims of a token, for callers that need more than one of them
+     */
+    public Claims getClaimsFromJWT(String token) {
+        return Jwts.parser()
                 .verifyWith(getSigningKey())
                 .build()
                 .parseSignedClaims(token)
                 .getPayload();
+    }
 
-        return claims.getSubject();
+    /**
+     * The branch an access token is scoped to, or null for one that works across all branches
+     */
+    public Long getClinicId(Claims claims) {
+        return claims.get(CLINIC_CLAIM, Long.class);
     }
 
     public String getTokenType(String token) {
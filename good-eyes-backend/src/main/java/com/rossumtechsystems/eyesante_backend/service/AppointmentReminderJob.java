@@ -0,0 +1,48 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sends reminders for tomorrow's appointments every evening, the same work as
+ * POST /api/appointments/reminders/send. Appointments are marked as reminded, so a second run
+ * the same day sends nothing new.
+ */
+@Service
+@Slf4j
+public class AppointmentReminderJob implements ScheduledJob {
+
+    private final AppointmentService appointmentService;
+    private final boolean enabled;
+    private final String cron;
+
+    public AppointmentReminderJob(AppointmentService appointmentService,
+                                  @Value("${app.jobs.appointment-reminders.enabled:true}") boolean enabled,
+                                  @Value("${app.jobs.appointment-reminders.cron:0 0 17 * * *}") String cron) {
+        this.appointmentService = appointmentService;
+        this.enabled = enabled;
+        this.cron = cron;
+    }
+
+    @Override
+    public String getJobName() {
+        return "appointment-reminders";
+    }
+
+    @Override
+    public String getCron() {
+        return cron;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public JobResult run(Context context) {
+        int sent = appointmentService.sendReminders();
+        return new JobResult(sent, sent + " appointment reminders sent");
+    }
+}
@@ -2,6 +2,7 @@ package com.rossumtechsystems.eyesante_backend.service;
 
 import com.rossumtechsystems.eyesante_backend.dto.AppointmentDto;
 import com.rossumtechsystems.eyesante_backend.dto.CreateAppointmentRequest;
+import com.rossumtechsystems.eyesante_backend.dto.CursorPage;
 import com.rossumtechsystems.eyesante_backend.dto.UpdateAppointmentRequest;
 import com.rossumtechsystems.eyesante_backend.entity.Appointment;
 import com.rossumtechsystems.eyesante_backend.entity.AppointmentType;
@@ -13,7 +14,9 @@ import com.rossumtechsystems.eyesante_backend.repository.AppointmentTypeReposito
 import com.rossumtechsystems.eyesante_backend.repository.DoctorScheduleRepository;
 import com.rossumtechsystems.eyesante_backend.repository.PatientRepository;
 import com.rossumtechsystems.eyesante_backend.repository.UserRepository;
+import com.rossumtechsystems.eyesante_backend.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -30,6 +33,8 @@ import java.util.stream.Collectors;
 @Transactional
 public class AppointmentService {
 
+    private static final String APPOINTMENTS_CURSOR_SCOPE = "appointments";
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
@@ -139,6 +144,24 @@ public class AppointmentService {
         return appointmentRepository.findAll(pageable).map(this::convertToDto);
     }
 
+    /**
+     * Keyset page of appointments, latest date first
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentDto> getAppointmentsAfter(String cursor, int size) {
+        Limit limit = Limit.of(size + 1);
+        List<Appointment> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = appointmentRepository.findAllByOrderByAppointmentDateDescIdDesc(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(APPOINTMENTS_CURSOR_SCOPE, cursor);
+            rows = appointmentRepository.findAllAfter(after.sortKeyAsDate(), after.getId(), limit);
+        }
+        return CursorPage.of(rows, size,
+                appointment -> KeysetCursor.encode(APPOINTMENTS_CURSOR_SCOPE, appointment.getAppointmentDate(), appointment.getId()),
+                this::convertToDto);
+    }
+
     public Page<AppointmentDto> getAppointmentsByDoctor(Long doctorId, Pageable pageable) {
         return appointmentRepository.findByDoctorIdAndAppointmentDateOrderByAppointmentTime(doctorId, timeService.getCurrentDate(), pageable)
                 .map(this::convertToDto);
@@ -394,8 +417,12 @@ public class AppointmentService {
                 .collect(Collectors.toList());
     }
 
-    public void sendReminders() {
+    /**
+     * Send reminders for tomorrow's appointments; returns how many were marked sent
+     */
+    public int sendReminders() {
         List<Appointment> appointmentsNeedingReminders = appointmentRepository.findAppointmentsNeedingReminders(timeService.getCurrentDate().plusDays(1));
+        int sent = 0;
         
         for (Appointment appointment : appointmentsNeedingReminders) {
             try {
@@ -412,10 +439,12 @@ public class AppointmentService {
                 appointment.setReminderSent(true);
                 appointment.setReminderSentAt(timeService.getCurrentDateTime());
                 appointmentRepository.save(appointment);
+                sent++;
             } catch (Exception e) {
                 System.err.println("Failed to send reminder for appointment " + appointment.getId() + ": " + e.getMessage());
             }
         }
+        return sent;
     }
 
     private AppointmentDto convertToDto(Appointment appointment) {
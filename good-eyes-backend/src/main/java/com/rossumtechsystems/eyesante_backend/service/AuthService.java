@@ -217,9 +217,9 @@ public class AuthService {
             User user = userRepository.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            // Create authentication object
+            // Create authentication object; the token provider reads the user's details from the principal
             Authentication authentication = new UsernamePasswordAuthenticationToken(
-                    user.getUsername(), null, user.getAuthorities());
+                    user, null, user.getAuthorities());
 
             JwtTokenProvider.TokenInfo accessTokenInfo = tokenProvider.generateAccessToken(authentication);
             JwtTokenProvider.TokenInfo refreshTokenInfo = tokenProvider.generateRefreshToken(authentication);
@@ -25,6 +25,7 @@ public class BasicRefractionExamService {
 
     private final BasicRefractionExamRepository basicRefractionExamRepository;
     private final PatientVisitSessionRepository patientVisitSessionRepository;
+    private final DomainEventPublisher domainEventPublisher;
     // Removed unused dependency
     // No additional dependencies required
 
@@ -46,9 +47,11 @@ public class BasicRefractionExamService {
         BasicRefractionExam saved = basicRefractionExamRepository.save(basicRefractionExam);
         Optional<PatientVisitSession> patientVisitSession = patientVisitSessionRepository.findById(basicRefractionExam.getVisitSession().getId());
         if (patientVisitSession.isPresent()) {
+            VisitStage previousStage = patientVisitSession.get().getCurrentStage();
             patientVisitSession.get().setStatus(VisitStatus.BASIC_REFRACTION_COMPLETED);
             patientVisitSession.get().setCurrentStage(VisitStage.DOCTOR_VISIT);
             patientVisitSessionRepository.save(patientVisitSession.get());
+            domainEventPublisher.publishStageChange(patientVisitSession.get(), previousStage);
         }
         return new BasicRefractionExamDto(saved);
     }
@@ -2,11 +2,16 @@ package com.rossumtechsystems.eyesante_backend.service;
 
 import com.rossumtechsystems.eyesante_backend.dto.ClinicDto;
 import com.rossumtechsystems.eyesante_backend.entity.Clinic;
+import com.rossumtechsystems.eyesante_backend.entity.User;
+import com.rossumtechsystems.eyesante_backend.exception.ResourceConflictException;
 import com.rossumtechsystems.eyesante_backend.repository.ClinicRepository;
+import com.rossumtechsystems.eyesante_backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 @Service
@@ -16,9 +21,21 @@ public class ClinicService {
     @Autowired
     private ClinicRepository clinicRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * All clinics (branches) by name
+     */
+    @Transactional(readOnly = true)
+    public List<ClinicDto> getAllClinics() {
+        return clinicRepository.findAllByOrderByNameAsc().stream().map(this::toDto).toList();
+    }
+
     /**
      * Get the default clinic configuration for receipts
      */
+    @Transactional(readOnly = true)
     public ClinicDto getDefaultClinic() {
         Optional<Clinic> defaultClinic = clinicRepository.findByIsActiveTrueAndIsDefaultTrue();
         
@@ -40,27 +57,39 @@ public class ClinicService {
     /**
      * Get clinic by ID
      */
+    @Transactional(readOnly = true)
     public ClinicDto getClinicById(Long id) {
-        Clinic clinic = clinicRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Clinic not found with ID: " + id));
-        return toDto(clinic);
+        return toDto(findClinic(id));
     }
 
     /**
      * Create or update clinic configuration
      */
     public ClinicDto saveClinic(ClinicDto clinicDto) {
+        if (clinicDto.getName() == null || clinicDto.getName().isBlank()) {
+            throw new IllegalArgumentException("Clinic name is required");
+        }
+        if (clinicDto.getCode() == null || clinicDto.getCode().isBlank()) {
+            throw new IllegalArgumentException("Clinic code is required");
+        }
+        String code = clinicDto.getCode().trim().toUpperCase();
         Clinic clinic;
         
         if (clinicDto.getId() != null) {
-            clinic = clinicRepository.findById(clinicDto.getId())
-                    .orElseThrow(() -> new RuntimeException("Clinic not found with ID: " + clinicDto.getId()));
+            clinic = findClinic(clinicDto.getId());
+            if (clinicRepository.existsByCodeIgnoreCaseAndIdNot(code, clinic.getId())) {
+                throw new ResourceConflictException("Clinic code '" + code + "' is already in use");
+            }
         } else {
+            if (clinicRepository.existsByCodeIgnoreCase(code)) {
+                throw new ResourceConflictException("Clinic code '" + code + "' is already in use");
+            }
             clinic = new Clinic();
         }
         
         // Update clinic fields
         clinic.setName(clinicDto.getName());
+        clinic.setCode(code);
         clinic.setDepartment(clinicDto.getDepartment());
         clinic.setDescription(clinicDto.getDescription());
         clinic.setClinicName(clinicDto.getClinicName());
@@ -71,20 +100,17 @@ public class ClinicService {
         clinic.setClinicLogoText(clinicDto.getClinicLogoText());
         clinic.setReceiptFooterMessage(clinicDto.getReceiptFooterMessage());
         clinic.setReceiptContactMessage(clinicDto.getReceiptContactMessage());
-        clinic.setIsActive(clinicDto.getIsActive());
-        clinic.setIsDefault(clinicDto.getIsDefault());
+        clinic.setIsActive(clinicDto.getIsActive() == null || clinicDto.getIsActive());
         
-        // If this clinic is being set as default, unset other defaults
-        if (clinicDto.getIsDefault() != null && clinicDto.getIsDefault()) {
-            clinicRepository.findAll().forEach(c -> {
-                if (!c.getId().equals(clinic.getId())) {
-                    c.setIsDefault(false);
-                    clinicRepository.save(c);
-                }
-            });
+        boolean makeDefault = Boolean.TRUE.equals(clinicDto.getIsDefault());
+        if (!makeDefault || clinic.getId() == null) {
+            // The default flag is unique, so a new clinic takes it only once saved and the others cleared
+            clinic.setIsDefault(false);
         }
-        
         Clinic savedClinic = clinicRepository.save(clinic);
+        if (makeDefault) {
+            makeDefault(savedClinic);
+        }
         return toDto(savedClinic);
     }
 
@@ -92,19 +118,31 @@ public class ClinicService {
      * Set a clinic as default
      */
     public ClinicDto setDefaultClinic(Long clinicId) {
-        // Unset all other defaults
-        clinicRepository.findAll().forEach(clinic -> {
-            clinic.setIsDefault(false);
-            clinicRepository.save(clinic);
-        });
-        
-        // Set the specified clinic as default
-        Clinic clinic = clinicRepository.findById(clinicId)
-                .orElseThrow(() -> new RuntimeException("Clinic not found with ID: " + clinicId));
+        Clinic clinic = findClinic(clinicId);
+        makeDefault(clinic);
+        return toDto(clinic);
+    }
+
+    /**
+     * Put a user in a branch, or take them out of every branch with a null clinic. Takes effect in
+     * the user's next access token, at their next login or token refresh.
+     */
+    public void assignUserToClinic(Long userId, Long clinicId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NoSuchElementException("User not found with ID: " + userId));
+        user.setClinic(clinicId != null ? findClinic(clinicId) : null);
+        userRepository.save(user);
+    }
+
+    private void makeDefault(Clinic clinic) {
+        // Other defaults are cleared (flushing pending changes) before this row takes the flag
+        clinicRepository.clearDefaultExcept(clinic.getId());
         clinic.setIsDefault(true);
-        
-        Clinic savedClinic = clinicRepository.save(clinic);
-        return toDto(savedClinic);
+    }
+
+    private Clinic findClinic(Long id) {
+        return clinicRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Clinic not found with ID: " + id));
     }
 
     /**
@@ -114,6 +152,7 @@ public class ClinicService {
         ClinicDto dto = new ClinicDto();
         dto.setId(clinic.getId());
         dto.setName(clinic.getName());
+        dto.setCode(clinic.getCode());
         dto.setDepartment(clinic.getDepartment());
         dto.setDescription(clinic.getDescription());
         dto.setClinicName(clinic.getClinicName());
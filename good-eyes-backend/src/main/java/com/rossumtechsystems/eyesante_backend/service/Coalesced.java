@@ -0,0 +1,28 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opts a read-only service method into {@link RequestCoalescer}: concurrent calls with equal
+ * arguments share one execution, and its result answers further equal calls for a short window.
+ *
+ * <p>Only for methods whose result is the same for every caller (dashboards, reports) and whose
+ * arguments compare by value. Callers share the returned object, so it must not be modified. A
+ * caller may see a result computed up to the window before its call, including from before its own
+ * latest write.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Coalesced {
+
+    /**
+     * Milliseconds a finished result keeps answering equal calls; -1 for
+     * {@code app.coalescing.ttl-ms}, 0 to merge only calls that overlap the execution
+     */
+    long ttlMillis() default -1;
+}
@@ -0,0 +1,307 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceDto;
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceItemDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Moves closed records out of the hot tables: COMPLETED visit sessions (with every exam and record
+ * hanging off them) whose invoice is settled, and PAID invoices (with their items) that no live
+ * visit points at, once older than the configured age.
+ *
+ * Each record becomes one row in archived_visit_sessions / archived_invoices whose JSONB snapshot
+ * holds the original rows keyed by table name, so they read back with
+ * {@code jsonb_populate_recordset(NULL::<table>, snapshot -> '<table>')} in the live row shape.
+ * Work runs in chunks of one transaction each, with the position saved in archive_checkpoints, so
+ * a run that is stopped resumes where it left off. Records still referenced from outside the
+ * archive (theatre usage, consumable usage) are skipped and stay live. Scheduled through
+ * JobSchedulerService, which runs it on one replica at a time.
+ */
+@Service
+@Slf4j
+public class ColdArchiveService implements ScheduledJob {
+
+    private static final String VISIT_JOB = "visit_sessions";
+    private static final String INVOICE_JOB = "invoices";
+
+    /**
+     * Tables archived with a visit, deepest first so they can be deleted in order.
+     * Each entry is the FROM clause (alias c) and the column that leads back to the visit id.
+     */
+    private static final List<VisitRecordTable> VISIT_RECORD_TABLES = List.of(
+            new VisitRecordTable("slit_lamp_observations",
+                    "slit_lamp_observations c JOIN main_examinations m ON m.id = c.main_exam_id", "m.visit_session_id"),
+            new VisitRecordTable("triage_measurements", "triage_measurements c", "c.visit_session_id"),
+            new VisitRecordTable("basic_refraction_exams", "basic_refraction_exams c", "c.visit_session_id"),
+            new VisitRecordTable("main_examinations", "main_examinations c", "c.visit_session_id"),
+            new VisitRecordTable("patient_diagnoses", "patient_diagnoses c", "c.visit_session_id"),
+            new VisitRecordTable("patient_procedures", "patient_procedures c", "c.visit_session_id"),
+            new VisitRecordTable("patient_treatments", "patient_treatments c", "c.visit_session_id"),
+            new VisitRecordTable("patient_investigations", "patient_investigations c", "c.visit_session_id"),
+            new VisitRecordTable("doctor_recommendations", "doctor_recommendations c", "c.visit_session_id"),
+            new VisitRecordTable("reviews", "reviews c", "c.visit_session_id"),
+            new VisitRecordTable("medication_refills", "medication_refills c", "c.visit_session_id"),
+            new VisitRecordTable("emergencies", "emergencies c", "c.visit_session_id"));
+
+    private static final String VISIT_CANDIDATES_SQL = """
+            SELECT vs.id FROM patient_visit_sessions vs
+            WHERE vs.status = 'COMPLETED' AND vs.visit_date < ? AND vs.id > ?
+              AND (vs.invoice_id IS NULL
+                   OR EXISTS (SELECT 1 FROM invoices i WHERE i.id = vs.invoice_id AND i.payment_status = 'PAID'))
+            ORDER BY vs.id
+            LIMIT ?
+            """;
+
+    private static final String INVOICE_CANDIDATES_SQL = """
+            SELECT i.id FROM invoices i
+            WHERE i.payment_status = 'PAID' AND i.invoice_date < ? AND i.id > ?
+              AND NOT EXISTS (SELECT 1 FROM patient_visit_sessions vs WHERE vs.invoice_id = i.id)
+            ORDER BY i.id
+            LIMIT ?
+            """;
+
+    private static final String ARCHIVE_VISITS_SQL = """
+            INSERT INTO archived_visit_sessions (visit_session_id, patient_id, visit_date, invoice_id, snapshot, archived_at)
+            SELECT r.id, r.patient_id, r.visit_date, r.invoice_id,
+                   jsonb_build_object('patient_visit_sessions', jsonb_build_array(to_jsonb(r)), %s),
+                   ?
+            FROM patient_visit_sessions r
+            WHERE r.id = ANY(?)
+            """.formatted(VISIT_RECORD_TABLES.stream()
+            .map(t -> "'%s', COALESCE((SELECT jsonb_agg(to_jsonb(c) ORDER BY c.id) FROM %s WHERE %s = r.id), '[]'::jsonb)"
+                    .formatted(t.table(), t.from(), t.visitColumn()))
+            .collect(Collectors.joining(",\n                   ")));
+
+    private static final String ARCHIVE_INVOICES_SQL = """
+            INSERT INTO archived_invoices (invoice_id, invoice_number, invoice_date, patient_id, total_amount, snapshot, archived_at)
+            SELECT r.id, r.invoice_number, r.invoice_date, r.patient_id, r.total_amount,
+                   jsonb_build_object(
+                       'invoices', jsonb_build_array(to_jsonb(r)),
+                       'invoice_items', COALESCE((SELECT jsonb_agg(to_jsonb(c) ORDER BY c.id)
+                                                  FROM invoice_items c WHERE c.invoice_id = r.id), '[]'::jsonb)),
+                   ?
+            FROM invoices r
+            WHERE r.id = ANY(?)
+            """;
+
+    private static final String ARCHIVED_INVOICE_SQL = """
+            SELECT r.*, p.patient_number
+            FROM archived_invoices a
+            CROSS JOIN LATERAL jsonb_populate_recordset(NULL::invoices, a.snapshot -> 'invoices') r
+            LEFT JOIN patients p ON p.id = r.patient_id
+            WHERE %s
+            """;
+
+    private static final String ARCHIVED_INVOICE_ITEMS_SQL = """
+            SELECT r.*, inv.name AS inventory_item_name, cat.name AS inventory_category_name
+            FROM archived_invoices a
+            CROSS JOIN LATERAL jsonb_populate_recordset(NULL::invoice_items, a.snapshot -> 'invoice_items') r
+            LEFT JOIN inventory_items inv ON inv.id = r.inventory_item_id
+            LEFT JOIN inventory_categories cat ON cat.id = inv.category_id
+            WHERE a.invoice_id = ?
+            ORDER BY r.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TimeService timeService;
+    private final boolean enabled;
+    private final String cron;
+    private final int visitsAfterMonths;
+    private final int invoicesAfterMonths;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    public ColdArchiveService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              TimeService timeService,
+                              @Value("${app.archive.enabled:false}") boolean enabled,
+                              @Value("${app.archive.cron:0 0 2 * * *}") String cron,
+                              @Value("${app.archive.visits-after-months:24}") int visitsAfterMonths,
+                              @Value("${app.archive.invoices-after-months:24}") int invoicesAfterMonths,
+                              @Value("${app.archive.chunk-size:500}") int chunkSize,
+                              @Value("${app.archive.max-chunks-per-run:200}") int maxChunksPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timeService = timeService;
+        this.enabled = enabled;
+        this.cron = cron;
+        this.visitsAfterMonths = visitsAfterMonths;
+        this.invoicesAfterMonths = invoicesAfterMonths;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+    }
+
+    @Override
+    public String getJobName() {
+        return "cold-archive";
+    }
+
+    @Override
+    public String getCron() {
+        return cron;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public JobResult run(Context context) {
+        // Keeps its own per-table positions in archive_checkpoints
+        Map<String, ArchiveJobResult> results = runArchive();
+        return new JobResult(results.values().stream().mapToLong(ArchiveJobResult::archived).sum(), results.toString());
+    }
+
+    /**
+     * Archive one bounded batch of each job; visits go first so their invoices become eligible
+     */
+    public Map<String, ArchiveJobResult> runArchive() {
+        Map<String, ArchiveJobResult> results = new LinkedHashMap<>();
+        results.put(VISIT_JOB, runJob(VISIT_JOB, VISIT_CANDIDATES_SQL,
+                timeService.getCurrentDateTime().minusMonths(visitsAfterMonths), this::archiveVisits));
+        results.put(INVOICE_JOB, runJob(INVOICE_JOB, INVOICE_CANDIDATES_SQL,
+                timeService.getCurrentDate().minusMonths(invoicesAfterMonths), this::archiveInvoices));
+        return results;
+    }
+
+    /**
+     * Snapshot of an archived visit and every record archived with it, keyed by table name
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> findArchivedVisitSnapshot(Long patientId, Long visitSessionId) {
+        List<Object> args = new ArrayList<>(List.of(visitSessionId, patientId));
+        // Visits archived before V91 carry no branch and belong to the main clinic
+        String branch = BranchContext.sqlPredicateOrMainClinic(
+                "(snapshot -> 'patient_visit_sessions' -> 0 ->> 'clinic_id')::BIGINT", args);
+        return jdbcTemplate.queryForList(
+                "SELECT snapshot::text FROM archived_visit_sessions WHERE visit_session_id = ? AND patient_id = ? AND "
+                        + branch,
+                String.class, args.toArray()).stream().findFirst();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<InvoiceDto> findArchivedInvoice(Long invoiceId) {
+        return findArchivedInvoice("a.invoice_id = ?", invoiceId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<InvoiceDto> findArchivedInvoiceByNumber(String invoiceNumber) {
+        return findArchivedInvoice("a.invoice_number = ?", invoiceNumber);
+    }
+
+    private Optional<InvoiceDto> findArchivedInvoice(String predicate, Object key) {
+        List<Object> args = new ArrayList<>(List.of(key));
+        String branch = BranchContext.sqlPredicateOrMainClinic("r.clinic_id", args);
+        List<InvoiceDto> invoices = jdbcTemplate.query(ARCHIVED_INVOICE_SQL.formatted(predicate + " AND " + branch),
+                new BeanPropertyRowMapper<>(InvoiceDto.class), args.toArray());
+        if (invoices.isEmpty()) {
+            return Optional.empty();
+        }
+        InvoiceDto invoice = invoices.get(0);
+        invoice.setInvoiceItems(jdbcTemplate.query(ARCHIVED_INVOICE_ITEMS_SQL,
+                new BeanPropertyRowMapper<>(InvoiceItemDto.class), invoice.getId()));
+        return Optional.of(invoice);
+    }
+
+    private ArchiveJobResult runJob(String job, String candidatesSql, Object cutoff, Consumer<Long[]> archive) {
+        long lastId = checkpoint(job);
+        int archived = 0;
+        int skipped = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            List<Long> ids = jdbcTemplate.queryForList(candidatesSql, Long.class, cutoff, lastId, chunkSize);
+            if (ids.isEmpty()) {
+                // Pass complete; start from the beginning next run so records that have since aged are found
+                transactionTemplate.executeWithoutResult(status -> saveCheckpoint(job, 0L, 0, 0));
+                lastId = 0L;
+                break;
+            }
+            long chunkEnd = ids.get(ids.size() - 1);
+            int done;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    archive.accept(ids.toArray(Long[]::new));
+                    saveCheckpoint(job, chunkEnd, ids.size(), 0);
+                });
+                done = ids.size();
+            } catch (DataAccessException e) {
+                // Something outside the archive still references a record in this chunk; isolate it
+                done = 0;
+                for (Long id : ids) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> archive.accept(new Long[]{id}));
+                        done++;
+                    } catch (DataAccessException rowFailure) {
+                        log.debug("Skipping {} {} for archive: {}", job, id, rowFailure.getMostSpecificCause().getMessage());
+                    }
+                }
+                int chunkArchived = done;
+                transactionTemplate.executeWithoutResult(status ->
+                        saveCheckpoint(job, chunkEnd, chunkArchived, ids.size() - chunkArchived));
+                skipped += ids.size() - done;
+            }
+            archived += done;
+            lastId = chunkEnd;
+        }
+        if (archived > 0 || skipped > 0) {
+            log.info("Archived {} {} older than {} ({} skipped, checkpoint {})", archived, job, cutoff, skipped, lastId);
+        }
+        return new ArchiveJobResult(archived, skipped, lastId);
+    }
+
+    private void archiveVisits(Long[] ids) {
+        jdbcTemplate.update(ARCHIVE_VISITS_SQL, timeService.getCurrentDateTime(), ids);
+        for (VisitRecordTable table : VISIT_RECORD_TABLES) {
+            jdbcTemplate.update("DELETE FROM " + table.table() + " WHERE id IN (SELECT c.id FROM " + table.from()
+                    + " WHERE " + table.visitColumn() + " = ANY(?))", (Object) ids);
+        }
+        jdbcTemplate.update("DELETE FROM patient_visit_sessions WHERE id = ANY(?)", (Object) ids);
+    }
+
+    private void archiveInvoices(Long[] ids) {
+        jdbcTemplate.update(ARCHIVE_INVOICES_SQL, timeService.getCurrentDateTime(), ids);
+        // invoice_items go with the invoice (ON DELETE CASCADE)
+        jdbcTemplate.update("DELETE FROM invoices WHERE id = ANY(?)", (Object) ids);
+    }
+
+    private long checkpoint(String job) {
+        return jdbcTemplate.queryForList("SELECT last_id FROM archive_checkpoints WHERE job_name = ?", Long.class, job)
+                .stream().findFirst().orElse(0L);
+    }
+
+    private void saveCheckpoint(String job, long lastId, int archived, int skipped) {
+        jdbcTemplate.update("""
+                INSERT INTO archive_checkpoints (job_name, last_id, archived_count, skipped_count, updated_at)
+                VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (job_name) DO UPDATE SET
+                    last_id = EXCLUDED.last_id,
+                    archived_count = archive_checkpoints.archived_count + EXCLUDED.archived_count,
+                    skipped_count = archive_checkpoints.skipped_count + EXCLUDED.skipped_count,
+                    updated_at = EXCLUDED.updated_at
+                """, job, lastId, archived, skipped, timeService.getCurrentDateTime());
+    }
+
+    public record ArchiveJobResult(int archived, int skipped, long checkpoint) {
+    }
+
+    private record VisitRecordTable(String table, String from, String visitColumn) {
+    }
+}
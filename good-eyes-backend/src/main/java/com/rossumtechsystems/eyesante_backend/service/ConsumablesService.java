@@ -3,7 +3,9 @@ package com.rossumtechsystems.eyesante_backend.service;
 import com.rossumtechsystems.eyesante_backend.dto.*;
 import com.rossumtechsystems.eyesante_backend.entity.*;
 import com.rossumtechsystems.eyesante_backend.repository.*;
+import com.rossumtechsystems.eyesante_backend.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -18,6 +20,8 @@ import java.util.stream.Collectors;
 @Transactional
 public class ConsumablesService {
     
+    private static final String USAGE_CURSOR_SCOPE = "consumable-usage";
+    
     @Autowired
     private ConsumableCategoryRepository categoryRepository;
     
@@ -33,6 +37,9 @@ public class ConsumablesService {
     @Autowired
     private DepartmentRepository departmentRepository;
     
+    @Autowired
+    private DomainEventPublisher domainEventPublisher;
+    
     
     // Category Management
     public Page<ConsumableCategoryDto> getAllCategories(Pageable pageable) {
@@ -137,8 +144,12 @@ public class ConsumablesService {
         Optional<ConsumableItem> optional = itemRepository.findById(id);
         if (optional.isPresent()) {
             ConsumableItem item = optional.get();
+            BigDecimal delta = quantity.subtract(item.getCurrentStock() != null ? item.getCurrentStock() : BigDecimal.ZERO);
             item.setCurrentStock(quantity);
             ConsumableItem saved = itemRepository.save(item);
+            if (delta.signum() != 0) {
+                domainEventPublisher.publishStockMove(saved, delta, "ADJUSTMENT");
+            }
             return convertToItemDto(saved);
         }
         throw new RuntimeException("Item not found");
@@ -226,6 +237,7 @@ public class ConsumablesService {
         BigDecimal newStock = item.getCurrentStock().subtract(request.getQuantityUsed());
         item.setCurrentStock(newStock);
         itemRepository.save(item);
+        domainEventPublisher.publishStockMove(item, request.getQuantityUsed().negate(), "USAGE");
         
         // Record usage
         ConsumableUsage usage = new ConsumableUsage();
@@ -250,6 +262,22 @@ public class ConsumablesService {
             .map(this::convertToUsageDto);
     }
     
+    // Keyset page of usage records, newest first; seeks on (usage_date, id) instead of OFFSET
+    @Transactional(readOnly = true)
+    public CursorPage<ConsumableUsageDto> getUsageHistoryAfter(String cursor, int size) {
+        Limit limit = Limit.of(size + 1);
+        List<ConsumableUsage> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = usageRepository.findAllByOrderByUsageDateDescIdDesc(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(USAGE_CURSOR_SCOPE, cursor);
+            rows = usageRepository.findAllAfter(after.sortKeyAsDateTime(), after.getId(), limit);
+        }
+        return CursorPage.of(rows, size,
+            usage -> KeysetCursor.encode(USAGE_CURSOR_SCOPE, usage.getUsageDate(), usage.getId()),
+            this::convertToUsageDto);
+    }
+    
     // Restock Management
     public ConsumableRestockDto recordRestock(CreateConsumableRestockRequest request) {
         Optional<ConsumableItem> itemOptional = itemRepository.findById(request.getConsumableItemId());
@@ -269,6 +297,7 @@ public class ConsumablesService {
         }
         
         itemRepository.save(item);
+        domainEventPublisher.publishStockMove(item, request.getQuantityAdded(), "RESTOCK");
         
         // Record restock
         ConsumableRestock restock = new ConsumableRestock();
@@ -287,13 +316,17 @@ public class ConsumablesService {
     }
     
     // Reports
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<ConsumableItemDto> getLowStockItems() {
         return itemRepository.findLowStockItems()
             .stream()
             .map(this::convertToItemDto)
-            .collect(Collectors.toList());
+            .toList();
     }
     
+    @Coalesced
+    @Transactional(readOnly = true)
     public BigDecimal getTotalStockValue() {
         return itemRepository.findByIsActiveTrue()
             .stream()
@@ -301,6 +334,8 @@ public class ConsumablesService {
             .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
     
+    @Coalesced
+    @Transactional(readOnly = true)
     public long getTotalItemsCount() {
         return itemRepository.countByIsActiveTrue();
     }
@@ -416,6 +451,7 @@ public class ConsumablesService {
     }
 
     // Search functionality for theater requisitions
+    @Transactional(readOnly = true)
     public List<ConsumableItemDto> searchConsumableItems(String searchTerm) {
         List<ConsumableItem> items = itemRepository.searchByNameOrDescriptionOrSku(searchTerm);
         return items.stream()
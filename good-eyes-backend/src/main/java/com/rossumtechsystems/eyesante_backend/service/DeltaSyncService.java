@@ -0,0 +1,150 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import com.rossumtechsystems.eyesante_backend.dto.SyncBatch;
+import com.rossumtechsystems.eyesante_backend.dto.SyncChangeDto;
+import com.rossumtechsystems.eyesante_backend.util.SyncToken;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Change feed for clients that keep a local copy of patients, visits, invoices and catalogues.
+ *
+ * Every synced table is read in {@code (updated_at, id)} order from the client's watermark, using
+ * the {@link com.rossumtechsystems.eyesante_backend.entity.BaseAuditEntity} audit column. Soft-deleted
+ * rows come out as DELETE tombstones, and hard deletes are captured by a trigger into
+ * {@code sync_tombstones}. Rows changed within the settle window are held back until the next pull,
+ * so a transaction that stamped updated_at earlier but committed later is never skipped.
+ * Branch-scoped tables only feed the caller's branch; tombstones carry no branch and are sent
+ * to every client, which ignores ids it never held.
+ */
+@Service
+@RequiredArgsConstructor
+public class DeltaSyncService {
+
+    public static final List<String> TABLES = List.of(
+            "patients", "appointments", "patient_visit_sessions", "invoices",
+            "inventory_items", "diagnoses", "procedures", "investigation_types", "appointment_types");
+
+    private static final String TOMBSTONE_FEED = "_deleted";
+
+    private static final Set<String> BRANCH_SCOPED = Set.of("patient_visit_sessions", "invoices");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TimeService timeService;
+
+    @Value("${app.sync.settle-ms:15000}")
+    private long settleMillis;
+
+    @Value("${app.sync.max-batch:2000}")
+    private int maxBatch;
+
+    /**
+     * Changes after the given token, oldest first, across the requested tables
+     */
+    @Transactional(readOnly = true)
+    public SyncBatch getChanges(String since, Collection<String> tables, int limit) {
+        Set<String> requested = tables == null || tables.isEmpty() ? new LinkedHashSet<>(TABLES) : new LinkedHashSet<>(tables);
+        if (!TABLES.containsAll(requested)) {
+            throw new IllegalArgumentException("Unknown sync table(s); supported: " + String.join(", ", TABLES));
+        }
+
+        SyncToken token = SyncToken.decode(since);
+        LocalDateTime upTo = timeService.getCurrentDateTime().minusNanos(settleMillis * 1_000_000);
+        int remaining = Math.max(1, Math.min(limit, maxBatch));
+        boolean hasMore = false;
+        List<SyncChangeDto> changes = new ArrayList<>();
+
+        for (String table : TABLES) {
+            if (!requested.contains(table)) {
+                continue;
+            }
+            if (remaining == 0) {
+                hasMore = true;
+                break;
+            }
+            List<FeedRow> rows = readTable(table, token.get(table), upTo, remaining + 1);
+            if (rows.size() > remaining) {
+                hasMore = true;
+                rows = rows.subList(0, remaining);
+            }
+            if (!rows.isEmpty()) {
+                rows.forEach(row -> changes.add(row.change()));
+                token = token.with(table, rows.get(rows.size() - 1).watermark());
+                remaining -= rows.size();
+            }
+        }
+
+        if (remaining > 0) {
+            List<FeedRow> rows = readTombstones(requested, token.get(TOMBSTONE_FEED), upTo, remaining + 1);
+            if (rows.size() > remaining) {
+                hasMore = true;
+                rows = rows.subList(0, remaining);
+            }
+            if (!rows.isEmpty()) {
+                rows.forEach(row -> changes.add(row.change()));
+                token = token.with(TOMBSTONE_FEED, rows.get(rows.size() - 1).watermark());
+            }
+        } else {
+            hasMore = true;
+        }
+
+        return new SyncBatch(changes, token.encode(), hasMore);
+    }
+
+    private List<FeedRow> readTable(String table, SyncToken.Watermark after, LocalDateTime upTo, int limit) {
+        // Table names come from TABLES only; everything else is bound
+        String deleted = "patients".equals(table) || "appointments".equals(table) ? "t.deleted" : "false";
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(after.changedAt()), after.id(), Timestamp.valueOf(upTo)));
+        String branch = BRANCH_SCOPED.contains(table) ? BranchContext.sqlPredicate("t.clinic_id", args) : "TRUE";
+        args.add(limit);
+        String sql = "SELECT t.id, t.updated_at AS changed_at, " + deleted + " AS deleted, " +
+                "CASE WHEN " + deleted + " THEN NULL ELSE row_to_json(t)::text END AS data " +
+                "FROM " + table + " t " +
+                "WHERE (t.updated_at, t.id) > (?, ?) AND t.updated_at <= ? AND " + branch + " " +
+                "ORDER BY t.updated_at, t.id LIMIT ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            long id = rs.getLong("id");
+            LocalDateTime changedAt = rs.getTimestamp("changed_at").toLocalDateTime();
+            boolean isDeleted = rs.getBoolean("deleted");
+            SyncChangeDto change = new SyncChangeDto(table, isDeleted ? "DELETE" : "UPSERT", id, changedAt,
+                    isDeleted ? null : rs.getString("data"));
+            return new FeedRow(change, new SyncToken.Watermark(changedAt, id));
+        }, args.toArray());
+    }
+
+    private List<FeedRow> readTombstones(Set<String> tables, SyncToken.Watermark after, LocalDateTime upTo, int limit) {
+        String placeholders = tables.stream().map(table -> "?").collect(Collectors.joining(", "));
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(after.changedAt()));
+        args.add(after.id());
+        args.add(Timestamp.valueOf(upTo));
+        args.addAll(tables);
+        args.add(limit);
+        return jdbcTemplate.query(
+                "SELECT id, table_name, row_id, deleted_at FROM sync_tombstones " +
+                "WHERE (deleted_at, id) > (?, ?) AND deleted_at <= ? AND table_name IN (" + placeholders + ") " +
+                "ORDER BY deleted_at, id LIMIT ?",
+                (rs, rowNum) -> {
+                    LocalDateTime deletedAt = rs.getTimestamp("deleted_at").toLocalDateTime();
+                    SyncChangeDto change = new SyncChangeDto(rs.getString("table_name"), "DELETE",
+                            rs.getLong("row_id"), deletedAt, null);
+                    return new FeedRow(change, new SyncToken.Watermark(deletedAt, rs.getLong("id")));
+                }, args.toArray());
+    }
+
+    private record FeedRow(SyncChangeDto change, SyncToken.Watermark watermark) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A committed state change, as stored in outbox_events and handed to {@link DomainEventListener}s.
+ * The payload carries the ids a listener needs to react without reloading the aggregate
+ * (patientId on every patient-facing event, for example).
+ */
+public record DomainEvent(Long id, Type type, Long aggregateId, Map<String, Object> payload,
+                          String originNode, LocalDateTime createdAt) {
+
+    public enum Type {
+        // Payment settled the invoice: invoiceId, patientId, amount, paymentMethod
+        INVOICE_PAID("INVOICE"),
+        // Visit moved between stages: patientId, fromStage, toStage, status
+        VISIT_STAGE_CHANGED("VISIT_SESSION"),
+        // A visit, invoice or clinical record of the patient was written through JPA: patientId
+        PATIENT_RECORDS_CHANGED("PATIENT"),
+        // Consumable stock went up or down: delta, newStock, reason (USAGE, RESTOCK, ADJUSTMENT, TRANSFER)
+        STOCK_MOVED("CONSUMABLE_ITEM"),
+        // Theater requisition decided: approvedBy / rejectedBy (username)
+        REQUISITION_APPROVED("THEATER_REQUISITION"),
+        REQUISITION_REJECTED("THEATER_REQUISITION");
+
+        private final String aggregateType;
+
+        Type(String aggregateType) {
+            this.aggregateType = aggregateType;
+        }
+
+        public String getAggregateType() {
+            return aggregateType;
+        }
+    }
+
+    public Long patientId() {
+        Object patientId = payload.get("patientId");
+        return patientId instanceof Number number ? number.longValue() : null;
+    }
+}
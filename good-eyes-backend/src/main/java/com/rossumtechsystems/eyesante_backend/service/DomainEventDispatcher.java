@@ -0,0 +1,107 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands committed domain events to the {@link DomainEventListener} beans on a fixed pool of
+ * threads with a bounded queue. A full queue drops the call rather than slowing the commit that
+ * produced the event, and a failing listener is logged without affecting the others.
+ */
+@Service
+@Slf4j
+public class DomainEventDispatcher {
+
+    /**
+     * Counts since start: listener calls completed, failed and dropped on a full queue, and events
+     * received from other nodes
+     */
+    public record Stats(long delivered, long failed, long dropped, long received, int queued) {}
+
+    private final Map<DomainEvent.Type, List<DomainEventListener>> listeners = new EnumMap<>(DomainEvent.Type.class);
+    private final ThreadPoolExecutor executor;
+    private final String node;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+
+    public DomainEventDispatcher(List<DomainEventListener> listeners,
+                                 @Value("${app.events.threads:4}") int threads,
+                                 @Value("${app.events.queue-capacity:10000}") int queueCapacity) {
+        for (DomainEventListener listener : listeners) {
+            for (DomainEvent.Type type : listener.getEventTypes()) {
+                this.listeners.computeIfAbsent(type, t -> new ArrayList<>()).add(listener);
+            }
+        }
+        AtomicLong threadNumber = new AtomicLong();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> Thread.ofPlatform().name("domain-events-" + threadNumber.incrementAndGet())
+                        .daemon().unstarted(runnable),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.node = ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    /**
+     * This node's name in outbox_events.origin_node
+     */
+    public String getNode() {
+        return node;
+    }
+
+    public void dispatch(DomainEvent event) {
+        for (DomainEventListener listener : listeners.getOrDefault(event.type(), List.of())) {
+            try {
+                executor.execute(() -> deliver(listener, event));
+            } catch (RejectedExecutionException e) {
+                dropped.incrementAndGet();
+                log.warn("Event queue full, dropped {} {} for {}", event.type(), event.id(),
+                        listener.getClass().getSimpleName());
+            }
+        }
+    }
+
+    /**
+     * An event published by another node, relayed from its NOTIFY
+     */
+    public void dispatchRemote(DomainEvent event) {
+        received.incrementAndGet();
+        dispatch(event);
+    }
+
+    public Stats getStats() {
+        return new Stats(delivered.get(), failed.get(), dropped.get(), received.get(), executor.getQueue().size());
+    }
+
+    private void deliver(DomainEventListener listener, DomainEvent event) {
+        try {
+            listener.onEvent(event);
+            delivered.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.error("{} failed on {} {}", listener.getClass().getSimpleName(), event.type(), event.id(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("{} domain event deliveries abandoned at shutdown", executor.shutdownNow().size());
+        }
+    }
+}
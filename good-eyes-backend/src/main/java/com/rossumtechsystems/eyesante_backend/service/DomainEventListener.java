@@ -0,0 +1,18 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import java.util.Set;
+
+/**
+ * Reacts to committed {@link DomainEvent}s, on every node of the cluster: the node that made the
+ * change calls it right after commit, the others when the NOTIFY reaches them. Calls run on the
+ * bounded event executor, never on the request thread, and may be dropped when that executor is
+ * saturated or a node misses a notification; listeners suit work that can be redone or that only
+ * speeds things up (cache eviction, live counters). Work that must happen exactly once belongs in a
+ * {@link ScheduledJob} reading outbox_events from a checkpoint.
+ */
+public interface DomainEventListener {
+
+    Set<DomainEvent.Type> getEventTypes();
+
+    void onEvent(DomainEvent event);
+}
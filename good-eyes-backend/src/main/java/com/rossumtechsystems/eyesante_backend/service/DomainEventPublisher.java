@@ -0,0 +1,126 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rossumtechsystems.eyesante_backend.entity.ConsumableItem;
+import com.rossumtechsystems.eyesante_backend.entity.PatientVisitSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records domain events in outbox_events inside the caller's transaction, so an event exists
+ * exactly when the change it describes committed. After commit the event goes to this node's
+ * listeners through {@link DomainEventDispatcher}; the insert trigger's NOTIFY carries it to the
+ * other nodes ({@link DomainEventRelay}).
+ */
+@Service
+@RequiredArgsConstructor
+public class DomainEventPublisher {
+
+    private static final String INSERT_EVENT = """
+            INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, payload, origin_node)
+            VALUES (?, ?, ?, ?::JSONB, ?)
+            RETURNING id, created_at
+            """;
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD = new TypeReference<>() {};
+
+    // Transaction resource: patients already announced by PATIENT_RECORDS_CHANGED in this transaction
+    private static final Object ANNOUNCED_PATIENTS = new Object();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final DomainEventDispatcher dispatcher;
+
+    public DomainEvent publish(DomainEvent.Type type, Long aggregateId, Map<String, Object> payload) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Domain event " + type + " must be published inside the transaction that makes the change");
+        }
+        String json;
+        Map<String, Object> stored;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+            // Local listeners see the payload exactly as remote ones will read it back
+            stored = objectMapper.readValue(json, PAYLOAD);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Payload of domain event " + type + " is not serializable", e);
+        }
+        DomainEvent event = jdbcTemplate.queryForObject(INSERT_EVENT,
+                (rs, rowNum) -> new DomainEvent(rs.getLong("id"), type, aggregateId, stored, dispatcher.getNode(),
+                        rs.getTimestamp("created_at").toLocalDateTime()),
+                type.name(), type.getAggregateType(), aggregateId, json, dispatcher.getNode());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatcher.dispatch(event);
+            }
+        });
+        return event;
+    }
+
+    /**
+     * VISIT_STAGE_CHANGED for a session whose stage was {@code fromStage} before this transaction;
+     * nothing when the stage did not move
+     */
+    public void publishStageChange(PatientVisitSession visitSession, PatientVisitSession.VisitStage fromStage) {
+        if (visitSession.getCurrentStage() == fromStage) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("patientId", visitSession.getPatient() != null ? visitSession.getPatient().getId() : null);
+        payload.put("fromStage", fromStage);
+        payload.put("toStage", visitSession.getCurrentStage());
+        payload.put("status", visitSession.getStatus());
+        publish(DomainEvent.Type.VISIT_STAGE_CHANGED, visitSession.getId(), payload);
+    }
+
+    /**
+     * STOCK_MOVED for a consumable whose stock changed by {@code delta} (negative when stock left)
+     */
+    public void publishStockMove(ConsumableItem item, BigDecimal delta, String reason) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("delta", delta);
+        payload.put("newStock", item.getCurrentStock());
+        payload.put("reason", reason);
+        publish(DomainEvent.Type.STOCK_MOVED, item.getId(), payload);
+    }
+
+    /**
+     * PATIENT_RECORDS_CHANGED for the patient, once per transaction however many of their records
+     * it writes; nothing outside a transaction. May be called while Hibernate flushes.
+     */
+    public void publishPatientRecordsChanged(Long patientId) {
+        if (patientId == null || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        if (announcedPatients().add(patientId)) {
+            publish(DomainEvent.Type.PATIENT_RECORDS_CHANGED, patientId, Map.of("patientId", patientId));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Long> announcedPatients() {
+        Set<Long> announced = (Set<Long>) TransactionSynchronizationManager.getResource(ANNOUNCED_PATIENTS);
+        if (announced == null) {
+            announced = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(ANNOUNCED_PATIENTS, announced);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ANNOUNCED_PATIENTS);
+                }
+            });
+        }
+        return announced;
+    }
+}
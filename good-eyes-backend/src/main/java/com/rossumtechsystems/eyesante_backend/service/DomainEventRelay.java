@@ -0,0 +1,192 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings other nodes' domain events to this node's listeners. A dedicated connection, opened
+ * outside the pool so it never holds a pooled connection, LISTENs on domain_events; each
+ * notification carries the id of an event that has just committed, which is loaded from
+ * outbox_events and dispatched unless this node published it (it was dispatched here on commit).
+ *
+ * Between notifications the connection runs a heartbeat query, so a dead connection is found
+ * within one poll. After reconnecting, events created since the last heartbeat (less a margin for
+ * transactions that were still open) are replayed; ids already relayed are skipped.
+ */
+@Service
+@Slf4j
+public class DomainEventRelay {
+
+    private static final String CHANNEL = "domain_events";
+
+    private static final String EVENT_COLUMNS =
+            "SELECT id, event_type, aggregate_id, payload::TEXT AS payload, origin_node, created_at FROM outbox_events ";
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD = new TypeReference<>() {};
+
+    // Ids relayed recently, for skipping replays after a reconnect
+    private static final int REMEMBERED_IDS = 10_000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final DomainEventDispatcher dispatcher;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int pollMillis;
+    private final long catchUpMarginMillis;
+    private final Set<Long> relayedIds = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > REMEMBERED_IDS;
+        }
+    });
+    private volatile boolean stopping;
+    private Thread thread;
+
+    public DomainEventRelay(DataSourceProperties dataSourceProperties,
+                            DomainEventDispatcher dispatcher,
+                            ObjectMapper objectMapper,
+                            @Value("${app.events.listen.enabled:true}") boolean enabled,
+                            @Value("${app.events.listen.poll-ms:10000}") int pollMillis,
+                            @Value("${app.events.listen.catch-up-margin-ms:60000}") long catchUpMarginMillis) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.dispatcher = dispatcher;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.pollMillis = pollMillis;
+        this.catchUpMarginMillis = catchUpMarginMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Domain event relay disabled; this node only sees its own events");
+            return;
+        }
+        thread = Thread.ofPlatform().name("domain-event-relay").daemon().start(this::listen);
+    }
+
+    private void listen() {
+        LocalDateTime lastHeartbeat = null;
+        while (!stopping) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (lastHeartbeat != null) {
+                    int replayed = relay(connection, EVENT_COLUMNS + "WHERE created_at >= ? AND origin_node <> ? ORDER BY id",
+                            Timestamp.valueOf(lastHeartbeat.minusNanos(catchUpMarginMillis * 1_000_000L)));
+                    log.info("Domain event relay reconnected; replayed {} events since {}", replayed, lastHeartbeat);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (!stopping) {
+                    lastHeartbeat = heartbeat(connection);
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+                    if (notifications != null && notifications.length > 0) {
+                        List<Long> ids = new ArrayList<>(notifications.length);
+                        for (PGNotification notification : notifications) {
+                            ids.add(Long.valueOf(notification.getParameter()));
+                        }
+                        relay(connection, EVENT_COLUMNS + "WHERE id = ANY(?) AND origin_node <> ? ORDER BY id",
+                                connection.createArrayOf("BIGINT", ids.toArray()));
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (stopping) {
+                    return;
+                }
+                log.warn("Domain event relay lost its connection, reconnecting in {} ms: {}", pollMillis, e.getMessage());
+                try {
+                    Thread.sleep(pollMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private LocalDateTime heartbeat(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala'")) {
+            rs.next();
+            return rs.getTimestamp(1).toLocalDateTime();
+        }
+    }
+
+    private int relay(Connection connection, String sql, Object filter) throws SQLException {
+        int relayed = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setObject(1, filter);
+            statement.setString(2, dispatcher.getNode());
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    long id = rs.getLong("id");
+                    DomainEvent.Type type = parseType(rs.getString("event_type"));
+                    if (type == null || !relayedIds.add(id)) {
+                        continue;
+                    }
+                    dispatcher.dispatchRemote(new DomainEvent(id, type, rs.getLong("aggregate_id"),
+                            readPayload(rs.getString("payload")), rs.getString("origin_node"),
+                            rs.getTimestamp("created_at").toLocalDateTime()));
+                    relayed++;
+                }
+            }
+        }
+        return relayed;
+    }
+
+    /**
+     * Null for a type this build does not know, as published by a newer node mid-deploy
+     */
+    private DomainEvent.Type parseType(String eventType) {
+        try {
+            return DomainEvent.Type.valueOf(eventType);
+        } catch (IllegalArgumentException e) {
+            log.debug("Skipping unknown domain event type {}", eventType);
+            return null;
+        }
+    }
+
+    private Map<String, Object> readPayload(String payload) {
+        try {
+            return objectMapper.readValue(payload, PAYLOAD);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable domain event payload: " + payload, e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopping = true;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(pollMillis + 1_000L);
+        }
+    }
+}
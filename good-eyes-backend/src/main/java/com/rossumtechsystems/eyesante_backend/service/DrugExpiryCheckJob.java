@@ -0,0 +1,71 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.entity.InventoryItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Daily check for drugs in stock that have expired or expire within 30 days
+ * (InventoryDrugService.getExpiringDrugs). The findings go to the log and the job's run history,
+ * where the store can see them without calling the expiring-drugs endpoint.
+ */
+@Service
+@Slf4j
+public class DrugExpiryCheckJob implements ScheduledJob {
+
+    // Names listed in the run detail; the rest are only counted
+    private static final int LISTED = 20;
+
+    private final InventoryDrugService inventoryDrugService;
+    private final TimeService timeService;
+    private final boolean enabled;
+    private final String cron;
+
+    public DrugExpiryCheckJob(InventoryDrugService inventoryDrugService,
+                              TimeService timeService,
+                              @Value("${app.jobs.drug-expiry-check.enabled:true}") boolean enabled,
+                              @Value("${app.jobs.drug-expiry-check.cron:0 0 6 * * *}") String cron) {
+        this.inventoryDrugService = inventoryDrugService;
+        this.timeService = timeService;
+        this.enabled = enabled;
+        this.cron = cron;
+    }
+
+    @Override
+    public String getJobName() {
+        return "drug-expiry-check";
+    }
+
+    @Override
+    public String getCron() {
+        return cron;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public JobResult run(Context context) {
+        LocalDate today = timeService.getCurrentDate();
+        List<InventoryItem> expiring = inventoryDrugService.getExpiringDrugs().stream()
+                .sorted(Comparator.comparing(InventoryItem::getExpiryDate))
+                .toList();
+        long expired = expiring.stream().filter(item -> item.getExpiryDate().isBefore(today)).count();
+        String detail = expired + " expired, " + (expiring.size() - expired) + " expiring within 30 days"
+                + (expiring.isEmpty() ? "" : ": " + expiring.stream().limit(LISTED)
+                        .map(item -> item.getName() + " (" + item.getExpiryDate() + ")")
+                        .collect(Collectors.joining(", ")));
+        if (!expiring.isEmpty()) {
+            log.warn("Drug expiry check: {}", detail);
+        }
+        return new JobResult(expiring.size(), detail);
+    }
+}
@@ -1,14 +1,25 @@
 package com.rossumtechsystems.eyesante_backend.service;
 
+import com.rossumtechsystems.eyesante_backend.dto.BranchFinancialSummaryDto;
+import com.rossumtechsystems.eyesante_backend.dto.CursorPage;
+import com.rossumtechsystems.eyesante_backend.dto.DailyTakingsDto;
 import com.rossumtechsystems.eyesante_backend.dto.InvoiceDto;
 import com.rossumtechsystems.eyesante_backend.dto.CreateInvoiceFromItemsRequest;
 import com.rossumtechsystems.eyesante_backend.dto.CreateInvoiceRequest;
 import com.rossumtechsystems.eyesante_backend.dto.InvoiceItemDto;
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceSummary;
+import com.rossumtechsystems.eyesante_backend.dto.PaymentDto;
 import com.rossumtechsystems.eyesante_backend.entity.*;
 import com.rossumtechsystems.eyesante_backend.repository.*;
+import com.rossumtechsystems.eyesante_backend.util.KeysetCursor;
+import com.rossumtechsystems.eyesante_backend.util.SparseFields;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.core.Authentication;
@@ -70,8 +81,36 @@ public class FinanceService {
     @Autowired
     private TimeService timeService;
 
+    @Autowired
+    private ColdArchiveService coldArchiveService;
+
+    @Autowired
+    private PatientTimelineCache patientTimelineCache;
+
+    @Autowired
+    private PaymentLedgerService paymentLedgerService;
+
+    @Autowired
+    private ReceivableAgingService receivableAgingService;
+
+    @Autowired
+    private SparseFieldsService sparseFieldsService;
+
     private static final DateTimeFormatter INVOICE_NUMBER_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
 
+    // ?fields= on the invoice lists: the scalar InvoiceDto properties (items are only in the full view)
+    private static final SparseFields INVOICE_FIELDS = SparseFields.from("invoices i JOIN patients p ON p.id = i.patient_id", "i")
+            .columns("invoiceNumber", "invoiceDate", "dueDate", "patientId", "patientName", "patientPhone", "patientEmail",
+                    "userId", "doctorName", "doctorSpecialty", "appointmentId", "subtotal", "taxAmount", "discountAmount",
+                    "totalAmount", "amountPaid", "balanceDue", "status", "paymentStatus", "paymentMethod",
+                    "paymentReference", "paymentDate", "insuranceProvider", "insuranceNumber", "insuranceCoverage",
+                    "insuranceAmount", "notes", "internalNotes", "invoicePurpose", "createdAt", "updatedAt",
+                    "createdBy", "updatedBy")
+            .field("patientNumber", "p.patient_number")
+            .defaultOrder("i.invoice_date DESC, i.id DESC")
+            .branchScoped()
+            .build();
+
     /**
      * Automatically generate invoice for a completed appointment
      */
@@ -152,7 +191,7 @@ public class FinanceService {
     /**
      * Generate unique invoice number
      */
-    private String generateInvoiceNumber() {
+    String generateInvoiceNumber() {
         String datePrefix = timeService.getCurrentDate().format(INVOICE_NUMBER_FORMAT);
         String baseNumber = "INV-" + datePrefix + "-";
         
@@ -298,113 +337,239 @@ public class FinanceService {
     }
 
     /**
-     * Get invoice by ID
+     * Get invoice by ID, falling back to the cold archive
      */
+    @Transactional(readOnly = true)
     public InvoiceDto getInvoiceById(Long id) {
-        Invoice invoice = invoiceRepository.findById(id)
+        return invoiceRepository.findById(id)
+                .map(invoice -> convertToDto(withItems(List.of(invoice)).get(0)))
+                .or(() -> coldArchiveService.findArchivedInvoice(id))
                 .orElseThrow(() -> new RuntimeException("Invoice not found with ID: " + id));
-        return convertToDto(invoice);
     }
 
     /**
-     * Get invoice by invoice number
+     * Get invoice by invoice number, falling back to the cold archive
      */
+    @Transactional(readOnly = true)
     public InvoiceDto getInvoiceByNumber(String invoiceNumber) {
-        Invoice invoice = invoiceRepository.findByInvoiceNumber(invoiceNumber)
+        return invoiceRepository.findByInvoiceNumber(invoiceNumber)
+                .map(invoice -> convertToDto(withItems(List.of(invoice)).get(0)))
+                .or(() -> coldArchiveService.findArchivedInvoiceByNumber(invoiceNumber))
                 .orElseThrow(() -> new RuntimeException("Invoice not found with number: " + invoiceNumber));
-        return convertToDto(invoice);
     }
 
     /**
      * Get all invoices with pagination, ordered by date descending (latest first)
      */
+    @Transactional(readOnly = true)
     public Page<InvoiceDto> getAllInvoices(Pageable pageable) {
-        return invoiceRepository.findAllByOrderByInvoiceDateDesc(pageable).map(this::convertToDto);
+        return withItems(invoiceRepository.findAllByOrderByInvoiceDateDesc(pageable)).map(this::convertToDto);
     }
 
     /**
      * Get invoices by patient
      */
+    @Transactional(readOnly = true)
     public Page<InvoiceDto> getInvoicesByPatient(Long patientId, Pageable pageable) {
-        return invoiceRepository.findByPatientIdOrderByInvoiceDateDesc(patientId, pageable).map(this::convertToDto);
+        return withItems(invoiceRepository.findByPatientIdOrderByInvoiceDateDesc(patientId, pageable)).map(this::convertToDto);
     }
 
     /**
      * Get invoices by user
      */
+    @Transactional(readOnly = true)
     public Page<InvoiceDto> getInvoicesByUser(Long userId, Pageable pageable) {
         Page<Invoice> invoices = invoiceRepository.findByUserIdOrderByInvoiceDateDesc(userId, pageable);
-        return invoices.map(this::convertToDto);
+        return withItems(invoices).map(this::convertToDto);
     }
 
     /**
      * Get invoices by status
      */
+    @Transactional(readOnly = true)
     public Page<InvoiceDto> getInvoicesByStatus(Invoice.InvoiceStatus status, Pageable pageable) {
-        return invoiceRepository.findByStatusOrderByInvoiceDateDesc(status, pageable).map(this::convertToDto);
+        return withItems(invoiceRepository.findByStatusOrderByInvoiceDateDesc(status, pageable)).map(this::convertToDto);
+    }
+
+    /**
+     * Invoice list rows with only the requested fields (?fields=), newest first unless the page is
+     * sorted; at most one of patient, user and status narrows the list, as on the list endpoints
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getInvoiceFields(String fields, Long patientId, Long userId,
+                                                      Invoice.InvoiceStatus status, Pageable pageable) {
+        if (patientId != null) {
+            return sparseFieldsService.page(INVOICE_FIELDS, fields, "i.patient_id = ?", pageable, patientId);
+        }
+        if (userId != null) {
+            return sparseFieldsService.page(INVOICE_FIELDS, fields, "i.user_id = ?", pageable, userId);
+        }
+        if (status != null) {
+            return sparseFieldsService.page(INVOICE_FIELDS, fields, "i.status = ?", pageable, status.name());
+        }
+        return sparseFieldsService.page(INVOICE_FIELDS, fields, "TRUE", pageable);
+    }
+
+    /**
+     * Summary rows (?view=summary) of all invoices, latest first unless sorted
+     */
+    @Transactional(readOnly = true)
+    public Page<InvoiceSummary> getAllInvoiceSummaries(Pageable pageable) {
+        return invoiceRepository.findAllSummaries(latestFirst(pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<InvoiceSummary> getInvoiceSummariesByPatient(Long patientId, Pageable pageable) {
+        return invoiceRepository.findSummariesByPatientId(patientId, latestFirst(pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<InvoiceSummary> getInvoiceSummariesByUser(Long userId, Pageable pageable) {
+        return invoiceRepository.findSummariesByUserId(userId, latestFirst(pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<InvoiceSummary> getInvoiceSummariesByStatus(Invoice.InvoiceStatus status, Pageable pageable) {
+        return invoiceRepository.findSummariesByStatus(status, latestFirst(pageable));
+    }
+
+    private static Pageable latestFirst(Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Direction.DESC, "invoiceDate", "id"));
     }
 
     /**
      * Get invoices by payment status
      */
+    @Transactional(readOnly = true)
     public Page<InvoiceDto> getInvoicesByPaymentStatus(Invoice.PaymentStatus paymentStatus, Pageable pageable) {
-        return invoiceRepository.findByPaymentStatusOrderByInvoiceDateDesc(paymentStatus, pageable).map(this::convertToDto);
+        return withItems(invoiceRepository.findByPaymentStatusOrderByInvoiceDateDesc(paymentStatus, pageable)).map(this::convertToDto);
     }
 
     /**
      * Get invoices by date range
      */
+    @Transactional(readOnly = true)
     public Page<InvoiceDto> getInvoicesByDateRange(LocalDate startDate, LocalDate endDate, Pageable pageable) {
-        return invoiceRepository.findByInvoiceDateBetweenOrderByInvoiceDateDesc(startDate, endDate, pageable).map(this::convertToDto);
+        return withItems(invoiceRepository.findByInvoiceDateBetweenOrderByInvoiceDateDesc(startDate, endDate, pageable)).map(this::convertToDto);
     }
 
     /**
-     * Get overdue invoices
+     * Keyset page of all invoices, latest first. Seeks on (invoice_date, id) instead of skipping
+     * OFFSET rows, so deep pages cost the same as the first one.
      */
-    public List<InvoiceDto> getOverdueInvoices() {
-        return invoiceRepository.findOverdueInvoices(timeService.getCurrentDate())
-                .stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<InvoiceDto> getInvoicesAfter(String cursor, int size) {
+        String scope = "invoices";
+        Limit limit = Limit.of(size + 1);
+        List<Invoice> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = invoiceRepository.findAllByOrderByInvoiceDateDescIdDesc(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(scope, cursor);
+            rows = invoiceRepository.findAllAfter(after.sortKeyAsDate(), after.getId(), limit);
+        }
+        return toCursorPage(scope, rows, size);
+    }
+
+    /**
+     * Keyset page of invoices with the given status, latest first
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<InvoiceDto> getInvoicesByStatusAfter(Invoice.InvoiceStatus status, String cursor, int size) {
+        String scope = "invoices:" + status;
+        Limit limit = Limit.of(size + 1);
+        List<Invoice> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = invoiceRepository.findByStatusOrderByInvoiceDateDescIdDesc(status, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(scope, cursor);
+            rows = invoiceRepository.findByStatusAfter(status, after.sortKeyAsDate(), after.getId(), limit);
+        }
+        return toCursorPage(scope, rows, size);
+    }
+
+    /**
+     * Keyset page of invoices within a date range, latest first
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<InvoiceDto> getInvoicesByDateRangeAfter(LocalDate startDate, LocalDate endDate, String cursor, int size) {
+        String scope = "invoices:" + startDate + ".." + endDate;
+        Limit limit = Limit.of(size + 1);
+        List<Invoice> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = invoiceRepository.findByInvoiceDateBetweenOrderByInvoiceDateDescIdDesc(startDate, endDate, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(scope, cursor);
+            rows = invoiceRepository.findByInvoiceDateBetweenAfter(startDate, endDate, after.sortKeyAsDate(), after.getId(), limit);
+        }
+        return toCursorPage(scope, rows, size);
+    }
+
+    /**
+     * Get overdue invoices, earliest due first; the page is picked from the receivables aging table
+     */
+    @Transactional(readOnly = true)
+    public Page<InvoiceDto> getOverdueInvoices(Pageable pageable) {
+        Page<Long> ids = receivableAgingService.getOverdueInvoiceIds(pageable);
+        return new PageImpl<>(getInvoicesByIds(ids.getContent()), pageable, ids.getTotalElements());
     }
 
     /**
      * Get invoices with balance due
      */
+    @Transactional(readOnly = true)
     public Page<InvoiceDto> getInvoicesWithBalanceDue(Pageable pageable) {
-        return invoiceRepository.findInvoicesWithBalanceDue(pageable).map(this::convertToDto);
+        return withItems(invoiceRepository.findInvoicesWithBalanceDue(pageable)).map(this::convertToDto);
     }
 
     /**
-     * Record payment for an invoice
+     * Record payment for an invoice through the payments ledger. A retry carrying the same
+     * idempotency key returns the invoice without posting the amount again.
      */
-    public InvoiceDto recordPayment(Long invoiceId, BigDecimal amount, Invoice.PaymentMethod method, String reference) {
+    public InvoiceDto recordPayment(Long invoiceId, BigDecimal amount, Invoice.PaymentMethod method, String reference,
+                                    String idempotencyKey) {
+        PaymentLedgerService.PostedPayment posted = paymentLedgerService.post(
+                invoiceId, amount, method, reference, idempotencyKey, currentUsername());
         Invoice invoice = invoiceRepository.findById(invoiceId)
                 .orElseThrow(() -> new RuntimeException("Invoice not found with ID: " + invoiceId));
-
-        // Track previous payment status to avoid double-adjusting inventory
-        Invoice.PaymentStatus previousPaymentStatus = invoice.getPaymentStatus();
-
-        invoice.addPayment(amount, method, reference);
-        Invoice savedInvoice = invoiceRepository.save(invoice);
         
-        // If this is a full payment, update visit session and (if treatment invoice) adjust inventory
-        if (previousPaymentStatus != Invoice.PaymentStatus.PAID && savedInvoice.getPaymentStatus() == Invoice.PaymentStatus.PAID) {
+        // If this payment settled the invoice, update visit session and (if treatment invoice) adjust inventory
+        if (posted.settledInvoice()) {
             try {
                 // Convert Invoice.PaymentMethod to PatientVisitSession.PaymentMethod
                 PatientVisitSession.PaymentMethod visitPaymentMethod = 
                     PatientVisitSession.PaymentMethod.valueOf(method.name());
                 
-                invoiceService.markInvoiceAsPaid(savedInvoice, visitPaymentMethod, reference);
+                invoiceService.markInvoiceAsPaid(invoice, visitPaymentMethod, reference);
             } catch (Exception e) {
                 // Log error but don't fail the payment recording
                 System.err.println("Failed to update visit session for paid invoice: " + e.getMessage());
             }
 
-            adjustInventoryForPaidTreatmentInvoice(savedInvoice);
+            adjustInventoryForPaidTreatmentInvoice(invoice);
         }
 
-        return convertToDto(savedInvoice);
+        return convertToDto(withItems(List.of(invoice)).get(0));
+    }
+
+    /**
+     * Payments posted against an invoice, oldest first
+     */
+    @Transactional(readOnly = true)
+    public List<PaymentDto> getInvoicePayments(Long invoiceId) {
+        return paymentLedgerService.getPayments(invoiceId);
+    }
+
+    /**
+     * Money received per day and payment method between the two dates (inclusive)
+     */
+    @Transactional(readOnly = true)
+    public List<DailyTakingsDto> getDailyTakings(LocalDate startDate, LocalDate endDate) {
+        return paymentLedgerService.getDailyTakings(startDate, endDate);
     }
 
     /**
@@ -423,6 +588,62 @@ public class FinanceService {
         return convertToDto(savedInvoice);
     }
 
+    /**
+     * Add an item to an existing invoice. The invoice's money columns move by the item's line
+     * subtotal in one UPDATE; the invoice's other items are not loaded.
+     */
+    public InvoiceItemDto addInvoiceItem(Long invoiceId, CreateInvoiceRequest.CreateInvoiceItemRequest itemRequest) {
+        Invoice invoice = findEditableInvoice(invoiceId);
+        InvoiceItem savedItem = invoiceItemRepository.save(createInvoiceItem(invoice, itemRequest));
+        applySubtotalDelta(invoice, savedItem.lineSubtotal());
+        return convertItemToDto(savedItem);
+    }
+
+    /**
+     * Remove an item from an invoice, returning its stock and taking its line subtotal off the
+     * invoice in one UPDATE
+     */
+    public void removeInvoiceItem(Long invoiceId, Long itemId) {
+        Invoice invoice = findEditableInvoice(invoiceId);
+        InvoiceItem item = invoiceItemRepository.findById(itemId)
+                .filter(ii -> ii.getInvoice().getId().equals(invoiceId))
+                .orElseThrow(() -> new RuntimeException("Invoice item not found with ID: " + itemId));
+
+        InventoryItem inventoryItem = item.getInventoryItem();
+        if (inventoryItem != null && item.getQuantity() != null) {
+            int currentStock = inventoryItem.getQuantityInStock() == null ? 0 : inventoryItem.getQuantityInStock();
+            inventoryItem.setQuantityInStock(currentStock + item.getQuantity());
+            inventoryItemRepository.save(inventoryItem);
+        }
+
+        invoiceItemRepository.delete(item);
+        applySubtotalDelta(invoice, item.lineSubtotal().negate());
+    }
+
+    /**
+     * The delta UPDATE is native SQL, so the timeline cache listener does not see it
+     */
+    private void applySubtotalDelta(Invoice invoice, BigDecimal delta) {
+        invoiceRepository.applySubtotalDelta(invoice.getId(), delta, timeService.getCurrentDateTime(), currentUsername());
+        patientTimelineCache.evictPatient(invoice.getPatient().getId());
+    }
+
+    private Invoice findEditableInvoice(Long invoiceId) {
+        Invoice invoice = invoiceRepository.findById(invoiceId)
+                .orElseThrow(() -> new RuntimeException("Invoice not found with ID: " + invoiceId));
+        if (invoice.getPaymentStatus() == Invoice.PaymentStatus.PAID
+                || invoice.getStatus() == Invoice.InvoiceStatus.CANCELLED
+                || invoice.getStatus() == Invoice.InvoiceStatus.REFUNDED) {
+            throw new RuntimeException("Items cannot be changed on a " + invoice.getStatus() + " invoice");
+        }
+        return invoice;
+    }
+
+    private String currentUsername() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : "system";
+    }
+
     public void deleteInvoice(Long invoiceId) {
         Invoice invoice = invoiceRepository.findById(invoiceId)
                 .orElseThrow(() -> new RuntimeException("Invoice not found with ID: " + invoiceId));
@@ -472,7 +693,8 @@ public class FinanceService {
     private void adjustInventoryForPaidInvoice(Invoice paidInvoice) {
         String purpose = paidInvoice.getInvoicePurpose();
         if (!"TREATMENT_INVOICE_BILL".equalsIgnoreCase(purpose) &&
-            !"OPTICS_INVOICE_BILL".equalsIgnoreCase(purpose)) {
+            !"OPTICS_INVOICE_BILL".equalsIgnoreCase(purpose) &&
+            !VisitBillingService.VISIT_INVOICE_PURPOSE.equalsIgnoreCase(purpose)) {
             return;
         }
 
@@ -529,8 +751,10 @@ public class FinanceService {
         PatientVisitSession visitSession = patientVisitSessionRepository.findById(visitSessionId)
                 .orElseThrow(() -> new RuntimeException("Visit session not found with ID: " + visitSessionId));
         
-        // Get all procedures for this visit session
-        List<PatientProcedure> procedures = patientProcedureRepository.findByVisitSessionId(visitSessionId);
+        // Get the procedures of this visit session not yet billed
+        List<PatientProcedure> procedures = patientProcedureRepository.findByVisitSessionId(visitSessionId).stream()
+                .filter(procedure -> !Boolean.TRUE.equals(procedure.getBilled()))
+                .toList();
         
         if (procedures.isEmpty()) {
             throw new RuntimeException("No procedures found for visit session ID: " + visitSessionId);
@@ -575,6 +799,13 @@ public class FinanceService {
         Invoice savedInvoice = invoiceRepository.save(invoice);
         invoiceItemRepository.saveAll(invoiceItems);
         
+        // Mark procedures as billed
+        for (PatientProcedure procedure : procedures) {
+            procedure.setBilled(true);
+            procedure.setBilledAt(timeService.getCurrentDateTime());
+        }
+        patientProcedureRepository.saveAll(procedures);
+        
         // Do not block multiple invoices on visit session; keep existing linking behavior optional
         
         return convertToDto(savedInvoice);
@@ -667,7 +898,9 @@ public class FinanceService {
         PatientVisitSession visitSession = patientVisitSessionRepository.findById(visitSessionId)
                 .orElseThrow(() -> new RuntimeException("Visit session not found with ID: " + visitSessionId));
 
-        List<PatientTreatment> treatments = patientTreatmentRepository.findByVisitSessionId(visitSessionId);
+        List<PatientTreatment> treatments = patientTreatmentRepository.findByVisitSessionId(visitSessionId).stream()
+                .filter(t -> !Boolean.TRUE.equals(t.getBilled()))
+                .toList();
         if (treatments.isEmpty()) {
             throw new RuntimeException("No treatments found for visit session ID: " + visitSessionId);
         }
@@ -715,6 +948,13 @@ public class FinanceService {
         Invoice saved = invoiceRepository.save(invoice);
         invoiceItemRepository.saveAll(invoiceItems);
 
+        // Mark treatments as billed
+        for (PatientTreatment t : treatments) {
+            t.setBilled(true);
+            t.setBilledAt(timeService.getCurrentDateTime());
+        }
+        patientTreatmentRepository.saveAll(treatments);
+
         return convertToDto(saved);
     }
 
@@ -802,16 +1042,31 @@ public class FinanceService {
         return item;
     }
 
+    /**
+     * Invoice totals per branch for a date range, across all branches whatever the caller's own
+     */
+    @Coalesced
+    @Transactional(readOnly = true)
+    public List<BranchFinancialSummaryDto> getFinancialSummaryByClinic(LocalDate startDate, LocalDate endDate) {
+        return invoiceRepository.getTotalsByClinic(startDate, endDate).stream()
+                .map(row -> new BranchFinancialSummaryDto(
+                        ((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                        ((Number) row[3]).longValue(), (BigDecimal) row[4], (BigDecimal) row[5], (BigDecimal) row[6]))
+                .toList();
+    }
+
     /**
      * Get financial summary for a date range
      */
+    @Coalesced
+    @Transactional(readOnly = true)
     public FinancialSummaryDto getFinancialSummary(LocalDate startDate, LocalDate endDate) {
         // Basic calculations
         Long totalInvoices = invoiceRepository.countByInvoiceDateBetween(startDate, endDate);
         BigDecimal totalRevenue = invoiceRepository.calculateTotalRevenue(startDate, endDate);
         BigDecimal totalPaid = invoiceRepository.calculateTotalPaid(startDate, endDate);
         BigDecimal totalOutstanding = invoiceRepository.calculateOutstandingBalance(startDate, endDate);
-        BigDecimal totalOverdue = invoiceRepository.calculateTotalOverdue(startDate, endDate, LocalDate.now());
+        BigDecimal totalOverdue = receivableAgingService.getTotalOverdue(startDate, endDate);
         BigDecimal averageInvoiceAmount = invoiceRepository.calculateAverageInvoiceAmount(startDate, endDate);
         
         // Handle null values
@@ -821,16 +1076,8 @@ public class FinanceService {
         if (totalOverdue == null) totalOverdue = BigDecimal.ZERO;
         if (averageInvoiceAmount == null) averageInvoiceAmount = BigDecimal.ZERO;
         
-        // Payment method breakdown
-        Map<Invoice.PaymentMethod, BigDecimal> paymentMethodBreakdown = new HashMap<>();
-        List<Object[]> paymentMethodData = invoiceRepository.getPaymentMethodBreakdown(startDate, endDate);
-        for (Object[] row : paymentMethodData) {
-            Invoice.PaymentMethod method = (Invoice.PaymentMethod) row[0];
-            BigDecimal amount = (BigDecimal) row[1];
-            if (amount != null) {
-                paymentMethodBreakdown.put(method, amount);
-            }
-        }
+        // Payment method breakdown: money received in the range, from the payments ledger
+        Map<Invoice.PaymentMethod, BigDecimal> paymentMethodBreakdown = paymentLedgerService.getTakingsByMethod(startDate, endDate);
         
         // Status breakdown
         Map<Invoice.InvoiceStatus, Long> statusBreakdown = new HashMap<>();
@@ -880,6 +1127,34 @@ public class FinanceService {
 
 
 
+    private CursorPage<InvoiceDto> toCursorPage(String scope, List<Invoice> rows, int size) {
+        return CursorPage.of(withItems(rows), size,
+                invoice -> KeysetCursor.encode(scope, invoice.getInvoiceDate(), invoice.getId()),
+                this::convertToDto);
+    }
+
+    /**
+     * Initialise items, inventory items and categories for the given invoices with one keyed query,
+     * so convertToDto walks no lazy proxies. The page query itself only joins the patient.
+     */
+    private <T extends Iterable<Invoice>> T withItems(T invoices) {
+        List<Long> ids = new ArrayList<>();
+        invoices.forEach(invoice -> ids.add(invoice.getId()));
+        if (!ids.isEmpty()) {
+            invoiceRepository.findWithItemsByIdIn(ids);
+        }
+        return invoices;
+    }
+
+    /**
+     * Load several invoices with their items in two queries, in the order of the given IDs
+     */
+    List<InvoiceDto> getInvoicesByIds(List<Long> ids) {
+        Map<Long, Invoice> byId = withItems(invoiceRepository.findAllById(ids)).stream()
+                .collect(Collectors.toMap(Invoice::getId, invoice -> invoice));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).map(this::convertToDto).toList();
+    }
+
     /**
      * Convert Invoice entity to DTO
      */
@@ -1180,7 +1455,7 @@ public class FinanceService {
     /**
      * Validate that no invoice of the same purpose has been created for this patient within the last 2 minutes
      */
-    private void validateInvoiceCreationInterval(Long patientId, String invoicePurpose) {
+    void validateInvoiceCreationInterval(Long patientId, String invoicePurpose) {
         // Calculate 2 minutes ago
         java.time.LocalDateTime twoMinutesAgo = timeService.getCurrentDateTime().minusMinutes(2);
         
@@ -0,0 +1,93 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import com.rossumtechsystems.eyesante_backend.util.CacheValidator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Validators for conditional GETs, read with one small query instead of the response itself.
+ * Every writer of these tables moves updated_at (JPA auditing, and the JDBC updates set it too,
+ * as delta sync relies on it), which is what makes a validator change whenever the response does.
+ */
+@Service
+@RequiredArgsConstructor
+public class HttpCacheService {
+
+    // updated_at is written on the application's clock
+    private static final ZoneId ZONE = ZoneId.of("Africa/Kampala");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Weak validator over whole catalogue tables: row count and latest updated_at of each, so an
+     * insert, update or delete anywhere in them changes it. {@code tables} are constants, never
+     * request input.
+     */
+    @Transactional(readOnly = true)
+    public CacheValidator tables(String... tables) {
+        List<Object> parts = new ArrayList<>();
+        for (String table : tables) {
+            jdbcTemplate.query("SELECT COUNT(*), MAX(updated_at) FROM " + table, rs -> {
+                parts.add(table);
+                parts.add(rs.getLong(1));
+                parts.add(rs.getTimestamp(2));
+            });
+        }
+        return CacheValidator.weak(parts.toArray());
+    }
+
+    /**
+     * Strong validator of a patient's detail: the patient row and the eye examinations its latest
+     * examination is chosen from. Empty when there is no such (non-deleted) patient.
+     */
+    @Transactional(readOnly = true)
+    public Optional<CacheValidator> patient(Long id) {
+        return jdbcTemplate.query("""
+                SELECT p.updated_at,
+                       (SELECT COUNT(*) FROM eye_examinations e WHERE e.patient_id = p.id),
+                       (SELECT MAX(e.updated_at) FROM eye_examinations e WHERE e.patient_id = p.id)
+                FROM patients p WHERE p.id = ? AND p.deleted = FALSE
+                """, (rs, rowNum) -> {
+            Timestamp updatedAt = rs.getTimestamp(1);
+            Timestamp examinedAt = rs.getTimestamp(3);
+            return CacheValidator.strong(latest(updatedAt, examinedAt),
+                    "patient", id, updatedAt, rs.getLong(2), examinedAt);
+        }, id).stream().findFirst();
+    }
+
+    /**
+     * Strong validator of an invoice's detail: the invoice row and its items. Empty when the
+     * invoice is not in the live table (archived or missing) or belongs to another branch, which
+     * then takes the normal path.
+     */
+    @Transactional(readOnly = true)
+    public Optional<CacheValidator> invoice(Long id) {
+        List<Object> args = new ArrayList<>(List.of(id));
+        return jdbcTemplate.query("""
+                SELECT i.updated_at,
+                       (SELECT COUNT(*) FROM invoice_items it WHERE it.invoice_id = i.id),
+                       (SELECT MAX(it.updated_at) FROM invoice_items it WHERE it.invoice_id = i.id)
+                FROM invoices i WHERE i.id = ? AND %s
+                """.formatted(BranchContext.sqlPredicate("i.clinic_id", args)), (rs, rowNum) -> {
+            Timestamp updatedAt = rs.getTimestamp(1);
+            Timestamp itemsAt = rs.getTimestamp(3);
+            return CacheValidator.strong(latest(updatedAt, itemsAt),
+                    "invoice", id, updatedAt, rs.getLong(2), itemsAt);
+        }, args.toArray()).stream().findFirst();
+    }
+
+    private static Instant latest(Timestamp a, Timestamp b) {
+        Timestamp latest = a == null || (b != null && b.after(a)) ? b : a;
+        return latest != null ? latest.toLocalDateTime().atZone(ZONE).toInstant() : null;
+    }
+}
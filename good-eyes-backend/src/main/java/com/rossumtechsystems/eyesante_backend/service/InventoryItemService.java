@@ -2,10 +2,12 @@ package com.rossumtechsystems.eyesante_backend.service;
 
 import com.rossumtechsystems.eyesante_backend.dto.CreateInventoryItemRequest;
 import com.rossumtechsystems.eyesante_backend.dto.InventoryItemDto;
+import com.rossumtechsystems.eyesante_backend.dto.InventoryItemSummary;
 import com.rossumtechsystems.eyesante_backend.entity.InventoryCategory;
 import com.rossumtechsystems.eyesante_backend.entity.InventoryItem;
 import com.rossumtechsystems.eyesante_backend.repository.InventoryCategoryRepository;
 import com.rossumtechsystems.eyesante_backend.repository.InventoryItemRepository;
+import com.rossumtechsystems.eyesante_backend.util.SparseFields;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -14,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.rossumtechsystems.eyesante_backend.dto.UpdateInventoryItemRequest;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,10 +24,32 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class InventoryItemService {
 
+    // ?fields= on the item list: InventoryItemDto's properties
+    private static final SparseFields ITEM_FIELDS = SparseFields.from(
+                    "inventory_items i LEFT JOIN inventory_categories c ON c.id = i.category_id", "i")
+            .columns("name", "description", "sku", "unitPrice", "costPrice", "quantityInStock", "minimumStockLevel",
+                    "maximumStockLevel", "unitOfMeasure", "isActive", "categoryId")
+            .field("categoryName", "c.name")
+            .columns("supplierName", "supplierContact", "reorderPoint", "reorderQuantity")
+            .field("stockStatus", "CASE WHEN i.quantity_in_stock = 0 THEN 'OUT_OF_STOCK' "
+                    + "WHEN i.quantity_in_stock <= i.minimum_stock_level THEN 'LOW_STOCK' ELSE 'IN_STOCK' END")
+            .columns("genericName", "dosageForm", "strength", "activeIngredient", "expiryDate", "batchNumber",
+                    "requiresPrescription", "controlledSubstance", "storageConditions", "opticsType", "frameShape",
+                    "frameSize", "frameMaterial", "brand", "model", "color", "createdAt", "updatedAt", "createdBy",
+                    "updatedBy")
+            .defaultOrder("i.id")
+            .build();
+
+    // Same rows as the derived search in getAllItems
+    private static final String ITEM_SEARCH = "(i.is_active = TRUE AND LOWER(i.name) LIKE LOWER('%' || ? || '%')) "
+            + "OR LOWER(i.sku) LIKE LOWER('%' || ? || '%') OR LOWER(c.name) LIKE LOWER('%' || ? || '%')";
+
     private final InventoryItemRepository inventoryItemRepository;
 
     private final InventoryCategoryRepository inventoryCategoryRepository;
 
+    private final SparseFieldsService sparseFieldsService;
+
     public InventoryItemDto createItem(CreateInventoryItemRequest request) {
         InventoryCategory category = inventoryCategoryRepository.findById(request.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Category not found with ID: " + request.getCategoryId()));
@@ -90,6 +115,29 @@ public class InventoryItemService {
         }
     }
 
+    /**
+     * Summary rows (?view=summary) of the item list
+     */
+    @Transactional(readOnly = true)
+    public Page<InventoryItemSummary> getItemSummaries(Pageable pageable, String search) {
+        if (search != null && !search.trim().isEmpty()) {
+            return inventoryItemRepository.searchSummaries(search.trim(), pageable);
+        }
+        return inventoryItemRepository.findActiveSummaries(pageable);
+    }
+
+    /**
+     * Item list rows with only the requested fields (?fields=)
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getItemFields(String fields, Pageable pageable, String search) {
+        if (search != null && !search.trim().isEmpty()) {
+            String s = search.trim();
+            return sparseFieldsService.page(ITEM_FIELDS, fields, "(" + ITEM_SEARCH + ")", pageable, s, s, s);
+        }
+        return sparseFieldsService.page(ITEM_FIELDS, fields, "i.is_active = TRUE", pageable);
+    }
+
     public List<InventoryItemDto> getItemsByCategory(Long categoryId) {
         return inventoryItemRepository.findByCategoryIdAndIsActiveTrue(categoryId)
                 .stream()
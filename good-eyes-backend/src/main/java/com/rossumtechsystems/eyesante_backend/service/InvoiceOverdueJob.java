@@ -0,0 +1,110 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Marks PENDING and SENT invoices OVERDUE once their due date has passed. Candidates come from the
+ * receivables aging table (open invoices only), walked in invoice id order in chunks of one
+ * transaction each, with the last id as the job's checkpoint.
+ */
+@Service
+@Slf4j
+public class InvoiceOverdueJob implements ScheduledJob {
+
+    private static final String CANDIDATES_SQL = """
+            SELECT invoice_id, invoice_date FROM receivable_aging
+            WHERE due_date < ? AND invoice_id > ?
+            ORDER BY invoice_id LIMIT ?
+            """;
+
+    // The status change also re-syncs the aging row through its trigger
+    private static final String MARK_OVERDUE_SQL = """
+            UPDATE invoices SET status = 'OVERDUE', updated_at = ?, updated_by = 'system'
+            WHERE (id, invoice_date) IN (SELECT * FROM unnest(?::BIGINT[], ?::DATE[]))
+              AND status IN ('PENDING', 'SENT')
+            RETURNING patient_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TimeService timeService;
+    private final PatientTimelineCache patientTimelineCache;
+    private final boolean enabled;
+    private final String cron;
+    private final int chunkSize;
+
+    // Default cron: after the receivables aging refresh
+    public InvoiceOverdueJob(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             TimeService timeService,
+                             PatientTimelineCache patientTimelineCache,
+                             @Value("${app.jobs.invoice-overdue.enabled:true}") boolean enabled,
+                             @Value("${app.jobs.invoice-overdue.cron:0 45 0 * * *}") String cron,
+                             @Value("${app.jobs.invoice-overdue.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timeService = timeService;
+        this.patientTimelineCache = patientTimelineCache;
+        this.enabled = enabled;
+        this.cron = cron;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public String getJobName() {
+        return "invoice-overdue";
+    }
+
+    @Override
+    public String getCron() {
+        return cron;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public JobResult run(Context context) {
+        LocalDate today = timeService.getCurrentDate();
+        long lastId = context.checkpoint();
+        int marked = 0;
+        boolean complete = false;
+        while (!complete && !context.shouldStop()) {
+            long from = lastId;
+            List<Map<String, Object>> chunk = jdbcTemplate.queryForList(CANDIDATES_SQL, today, from, chunkSize);
+            if (chunk.isEmpty()) {
+                // Pass complete; the next run starts from the beginning
+                context.saveCheckpoint(0L);
+                complete = true;
+                continue;
+            }
+            Long[] ids = chunk.stream().map(row -> ((Number) row.get("invoice_id")).longValue()).toArray(Long[]::new);
+            String[] dates = chunk.stream().map(row -> row.get("invoice_date").toString()).toArray(String[]::new);
+            List<Long> patientIds = transactionTemplate.execute(status -> {
+                List<Long> changed = jdbcTemplate.queryForList(MARK_OVERDUE_SQL, Long.class,
+                        timeService.getCurrentDateTime(), ids, dates);
+                context.saveCheckpoint(ids[ids.length - 1]);
+                return changed;
+            });
+            // Native update: the timeline cache listener does not see it
+            patientIds.stream().distinct().forEach(patientTimelineCache::evictPatient);
+            marked += patientIds.size();
+            lastId = ids[ids.length - 1];
+        }
+        if (marked > 0) {
+            log.info("Marked {} invoices overdue", marked);
+        }
+        return new JobResult(marked, marked + " invoices marked overdue" + (complete ? "" : ", stopped at id " + lastId));
+    }
+}
@@ -27,6 +27,7 @@ public class InvoiceService {
 
     private final InvoiceRepository invoiceRepository;
     private final PatientVisitSessionRepository patientVisitSessionRepository;
+    private final DomainEventPublisher domainEventPublisher;
 
     /**
      * Create an automatic invoice for a new consultation visit
@@ -124,6 +125,7 @@ public class InvoiceService {
             
             if (visitSession != null && visitSession.getVisitPurpose() == PatientVisitSession.VisitPurpose.NEW_CONSULTATION) {
                 log.info("Updating visit session {} for paid consultation invoice", visitSession.getId());
+                PatientVisitSession.VisitStage previousStage = visitSession.getCurrentStage();
                 
                 // Mark consultation fee as paid
                 visitSession.setConsultationFeePaid(true);
@@ -133,6 +135,7 @@ public class InvoiceService {
                 visitSession.setCurrentStage(PatientVisitSession.VisitStage.TRIAGE);
                 
                 patientVisitSessionRepository.save(visitSession);
+                domainEventPublisher.publishStageChange(visitSession, previousStage);
                 
                 log.info("Visit session {} updated: consultation fee paid, progressed to triage stage", visitSession.getId());
             }
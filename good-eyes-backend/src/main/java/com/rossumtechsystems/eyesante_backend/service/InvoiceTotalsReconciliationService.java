@@ -0,0 +1,148 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Full recompute of invoice money columns from their items and the payments ledger, the safety net
+ * behind the incremental totals (InvoiceRepository.applySubtotalDelta, PaymentLedgerService).
+ * Walks invoices in id order, one short transaction per batch: the batch's invoice rows are locked
+ * first, so an item or payment committing meanwhile waits and then applies its delta on top of the
+ * corrected values, and the item and payment sums are computed in the next statement, which sees
+ * everything committed before the lock. Only invoices whose subtotal, total, amount paid or
+ * balance differ are rewritten. Invoices without items (totals entered directly) are left alone.
+ * Run by JobSchedulerService, the last finished batch is the checkpoint, so a pass cut short
+ * resumes there on the next run.
+ */
+@Service
+@Slf4j
+public class InvoiceTotalsReconciliationService implements ScheduledJob {
+
+    private static final String RECONCILE_BATCH_SQL = """
+            WITH batch AS (
+                SELECT unnest(?::BIGINT[]) AS id
+            ), sums AS (
+                SELECT ii.invoice_id, SUM(ii.unit_price * ii.quantity) AS subtotal
+                FROM invoice_items ii JOIN batch b ON b.id = ii.invoice_id
+                GROUP BY ii.invoice_id
+            ), paid AS (
+                SELECT p.invoice_id, SUM(p.amount) AS amount_paid
+                FROM payments p JOIN batch b ON b.id = p.invoice_id
+                GROUP BY p.invoice_id
+            ), expected AS (
+                SELECT i.id, s.subtotal,
+                       s.subtotal + COALESCE(i.tax_amount, 0) - COALESCE(i.discount_amount, 0) AS total_amount,
+                       COALESCE(pd.amount_paid, 0) AS amount_paid,
+                       s.subtotal + COALESCE(i.tax_amount, 0) - COALESCE(i.discount_amount, 0)
+                           - COALESCE(pd.amount_paid, 0) AS balance_due
+                FROM invoices i
+                JOIN sums s ON s.invoice_id = i.id
+                LEFT JOIN paid pd ON pd.invoice_id = i.id
+            ), fixed AS (
+                UPDATE invoices i
+                SET subtotal = e.subtotal, total_amount = e.total_amount, amount_paid = e.amount_paid,
+                    balance_due = e.balance_due,
+                    payment_status = CASE WHEN e.balance_due <= 0 THEN 'PAID'
+                                          WHEN e.amount_paid > 0 THEN 'PARTIAL' ELSE 'PENDING' END,
+                    status = CASE WHEN e.balance_due <= 0 THEN 'PAID' ELSE i.status END,
+                    updated_at = CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala', updated_by = 'system'
+                FROM expected e
+                WHERE i.id = e.id
+                  AND (i.subtotal, i.total_amount, COALESCE(i.amount_paid, 0), i.balance_due)
+                      IS DISTINCT FROM (e.subtotal, e.total_amount, e.amount_paid, e.balance_due)
+                RETURNING i.id
+            )
+            SELECT COUNT(*) FROM fixed
+            """;
+
+    private static final String LOCK_BATCH_SQL = "SELECT id FROM invoices WHERE id > ? ORDER BY id LIMIT ? FOR UPDATE";
+
+    private record BatchResult(long lastId, int corrected) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final String cron;
+    private final int batchSize;
+
+    public InvoiceTotalsReconciliationService(JdbcTemplate jdbcTemplate,
+                                              PlatformTransactionManager transactionManager,
+                                              @Value("${app.invoice-totals.reconcile.enabled:true}") boolean enabled,
+                                              @Value("${app.invoice-totals.reconcile.cron:0 30 3 * * SUN}") String cron,
+                                              @Value("${app.invoice-totals.reconcile.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.cron = cron;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public String getJobName() {
+        return "invoice-totals-reconcile";
+    }
+
+    @Override
+    public String getCron() {
+        return cron;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public JobResult run(Context context) {
+        int corrected = reconcile(context);
+        return new JobResult(corrected, corrected + " invoices corrected");
+    }
+
+    /**
+     * One full pass over every invoice; returns how many were corrected
+     */
+    public int reconcile() {
+        return reconcile(Context.detached());
+    }
+
+    private int reconcile(Context context) {
+        long lastId = context.checkpoint();
+        int scannedBatches = 0;
+        int corrected = 0;
+        while (!context.shouldStop()) {
+            long from = lastId;
+            BatchResult batch = transactionTemplate.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList(LOCK_BATCH_SQL, Long.class, from, batchSize);
+                if (ids.isEmpty()) {
+                    // Pass complete; the next run starts from the beginning
+                    context.saveCheckpoint(0L);
+                    return null;
+                }
+                Integer fixed = jdbcTemplate.queryForObject(RECONCILE_BATCH_SQL, Integer.class,
+                        (Object) ids.toArray(Long[]::new));
+                context.saveCheckpoint(ids.get(ids.size() - 1));
+                return new BatchResult(ids.get(ids.size() - 1), fixed);
+            });
+            if (batch == null) {
+                break;
+            }
+            lastId = batch.lastId();
+            corrected += batch.corrected();
+            scannedBatches++;
+        }
+        if (corrected > 0) {
+            log.warn("Invoice totals reconciliation corrected {} invoices ({} batches of {}, up to id {})",
+                    corrected, scannedBatches, batchSize, lastId);
+        } else {
+            log.info("Invoice totals reconciliation found no drift ({} batches of {}, up to id {})",
+                    scannedBatches, batchSize, lastId);
+        }
+        return corrected;
+    }
+}
@@ -0,0 +1,377 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.dto.ScheduledJobDto;
+import com.rossumtechsystems.eyesante_backend.dto.ScheduledJobRunDto;
+import com.rossumtechsystems.eyesante_backend.exception.ResourceConflictException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the {@link ScheduledJob} beans on their crons, safely on any number of replicas.
+ *
+ * Every node schedules every enabled job. When a fire comes due, the node takes the job's Postgres
+ * advisory lock on a connection of its own (auto-commit, so no transaction stays open while the
+ * job runs) and then claims the fire time in scheduled_jobs; a node that misses the lock, or finds
+ * the fire already claimed, skips it. While the lock is held the run is recorded in
+ * scheduled_job_runs with its node, outcome, duration and item count, and chunked jobs keep their
+ * checkpoint in scheduled_jobs so a run cut short by the time budget or a shutdown resumes there.
+ * A run left RUNNING by a node that died is marked ABANDONED by the next run of that job.
+ *
+ * The lock connection is held for the whole run, so each running job takes one pool connection
+ * besides the ones it uses for its work.
+ *
+ * Fires only book the next fire and hand the run to a small pool of job threads, so a long run
+ * never holds up Spring's scheduler thread (and the {@code @Scheduled} monitors on it) or the other
+ * jobs. A fire that finds every job thread busy and the queue full is skipped and logged.
+ */
+@Service
+@Slf4j
+public class JobSchedulerService {
+
+    public enum TriggerType { SCHEDULE, STARTUP, MANUAL }
+
+    private static final ZoneId ZONE = ZoneId.of("Africa/Kampala");
+
+    // First half of the two-key advisory lock ("JOBS" in ASCII); the second is hashtext(job name)
+    private static final int LOCK_NAMESPACE = 0x4A4F4253;
+
+    private static final String JOB_COLUMNS = """
+            SELECT j.job_name, j.cron, j.enabled, j.paused, j.checkpoint, j.last_fire_at,
+                   last_run.status AS last_status, last_run.started_at AS last_started_at,
+                   last_run.duration_ms AS last_duration_ms,
+                   COALESCE(m.runs, 0) AS runs, COALESCE(m.failures, 0) AS failures,
+                   m.average_duration_ms, m.p95_duration_ms, m.max_duration_ms
+            FROM scheduled_jobs j
+            LEFT JOIN LATERAL (
+                SELECT r.status, r.started_at, r.duration_ms FROM scheduled_job_runs r
+                WHERE r.job_name = j.job_name ORDER BY r.started_at DESC LIMIT 1
+            ) last_run ON TRUE
+            LEFT JOIN LATERAL (
+                SELECT COUNT(*) AS runs, COUNT(*) FILTER (WHERE r.status = 'FAILED') AS failures,
+                       AVG(r.duration_ms)::BIGINT AS average_duration_ms,
+                       (percentile_cont(0.95) WITHIN GROUP (ORDER BY r.duration_ms))::BIGINT AS p95_duration_ms,
+                       MAX(r.duration_ms) AS max_duration_ms
+                FROM scheduled_job_runs r
+                WHERE r.job_name = j.job_name AND r.started_at >= ?
+            ) m ON TRUE
+            """;
+
+    private static final String RUN_COLUMNS =
+            "id, job_name, trigger_type, node, status, started_at, finished_at, duration_ms, processed, detail";
+
+    private final Map<String, ScheduledJob> jobs = new TreeMap<>();
+    private final Map<String, ScheduledFuture<?>> scheduledFires = new ConcurrentHashMap<>();
+    private final Map<String, ZonedDateTime> nextFires = new ConcurrentHashMap<>();
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final ThreadPoolExecutor jobExecutor;
+    private final TimeService timeService;
+    private final String node;
+    private final long maxRunMillis;
+    private final int historyDays;
+    private final int metricsDays;
+    private volatile boolean stopping;
+
+    public JobSchedulerService(List<ScheduledJob> jobs,
+                               DataSource dataSource,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               TaskScheduler taskScheduler,
+                               TimeService timeService,
+                               @Value("${app.jobs.threads:2}") int threads,
+                               @Value("${app.jobs.max-run-minutes:60}") long maxRunMinutes,
+                               @Value("${app.jobs.history-days:90}") int historyDays,
+                               @Value("${app.jobs.metrics-days:30}") int metricsDays) {
+        for (ScheduledJob job : jobs) {
+            if (this.jobs.put(job.getJobName(), job) != null) {
+                throw new IllegalStateException("Two scheduled jobs are named " + job.getJobName());
+            }
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskScheduler = taskScheduler;
+        AtomicLong threadNumber = new AtomicLong();
+        // Room for one waiting fire per job
+        this.jobExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, jobs.size())),
+                runnable -> Thread.ofPlatform().name("scheduled-jobs-" + threadNumber.incrementAndGet())
+                        .daemon().unstarted(runnable),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeService = timeService;
+        this.node = ManagementFactory.getRuntimeMXBean().getName();
+        this.maxRunMillis = maxRunMinutes * 60_000L;
+        this.historyDays = historyDays;
+        this.metricsDays = metricsDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (ScheduledJob job : jobs.values()) {
+            // Parsed up front so a bad cron fails the start rather than the first fire
+            CronExpression.parse(job.getCron());
+            register(job);
+            if (job.isEnabled()) {
+                scheduleNext(job, ZonedDateTime.now(ZONE));
+            }
+        }
+        for (ScheduledJob job : jobs.values()) {
+            if (job.isEnabled() && job.isRunOnStartup()) {
+                submit(job, TriggerType.STARTUP, null);
+            }
+        }
+        log.info("Scheduled {} jobs on node {}", scheduledFires.size(), node);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Running jobs see shouldStop() and end after their current chunk
+        stopping = true;
+        scheduledFires.values().forEach(fire -> fire.cancel(false));
+        jobExecutor.shutdown();
+        if (!jobExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Jobs still running at shutdown: {}", jobExecutor.getActiveCount());
+            jobExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a job now on this node, regardless of its schedule, enabled flag or pause
+     */
+    public ScheduledJobRunDto runNow(String jobName) {
+        ScheduledJobRunDto run = execute(findJob(jobName), TriggerType.MANUAL, null);
+        if (run == null) {
+            throw new ResourceConflictException("Job " + jobName + " is already running");
+        }
+        return run;
+    }
+
+    public void setPaused(String jobName, boolean paused) {
+        findJob(jobName);
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE scheduled_jobs SET paused = ? WHERE job_name = ?", paused, jobName));
+        log.info("Job {} {}", jobName, paused ? "paused" : "resumed");
+    }
+
+    public List<ScheduledJobDto> getJobs() {
+        List<ScheduledJobDto> result = jdbcTemplate.query(JOB_COLUMNS + " ORDER BY j.job_name",
+                new BeanPropertyRowMapper<>(ScheduledJobDto.class),
+                timeService.getCurrentDateTime().minusDays(metricsDays));
+        result.forEach(job -> {
+            ZonedDateTime next = nextFires.get(job.getJobName());
+            job.setNextFireAt(next == null ? null : next.toLocalDateTime());
+        });
+        return result;
+    }
+
+    public Page<ScheduledJobRunDto> getRuns(String jobName, Pageable pageable) {
+        findJob(jobName);
+        List<ScheduledJobRunDto> runs = jdbcTemplate.query("SELECT " + RUN_COLUMNS
+                        + " FROM scheduled_job_runs WHERE job_name = ? ORDER BY started_at DESC, id DESC LIMIT ? OFFSET ?",
+                new BeanPropertyRowMapper<>(ScheduledJobRunDto.class), jobName, pageable.getPageSize(), pageable.getOffset());
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM scheduled_job_runs WHERE job_name = ?",
+                Long.class, jobName);
+        return new PageImpl<>(runs, pageable, total);
+    }
+
+    private ScheduledJob findJob(String jobName) {
+        ScheduledJob job = jobs.get(jobName);
+        if (job == null) {
+            throw new RuntimeException("Scheduled job not found with name: " + jobName);
+        }
+        return job;
+    }
+
+    private void register(ScheduledJob job) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("""
+                INSERT INTO scheduled_jobs (job_name, cron, enabled, registered_at) VALUES (?, ?, ?, ?)
+                ON CONFLICT (job_name) DO UPDATE SET
+                    cron = EXCLUDED.cron, enabled = EXCLUDED.enabled, registered_at = EXCLUDED.registered_at
+                """, job.getJobName(), job.getCron(), job.isEnabled(), timeService.getCurrentDateTime()));
+    }
+
+    private void scheduleNext(ScheduledJob job, ZonedDateTime after) {
+        ZonedDateTime fire = CronExpression.parse(job.getCron()).next(after);
+        if (fire == null || stopping) {
+            return;
+        }
+        nextFires.put(job.getJobName(), fire);
+        scheduledFires.put(job.getJobName(), taskScheduler.schedule(() -> {
+            // The next fire is booked first, so a long run does not push the schedule back
+            ZonedDateTime now = ZonedDateTime.now(ZONE);
+            scheduleNext(job, now.isAfter(fire) ? now : fire);
+            submit(job, TriggerType.SCHEDULE, fire.toLocalDateTime());
+        }, fire.toInstant()));
+    }
+
+    private void submit(ScheduledJob job, TriggerType trigger, LocalDateTime fireAt) {
+        try {
+            jobExecutor.execute(() -> execute(job, trigger, fireAt));
+        } catch (RejectedExecutionException e) {
+            log.warn("All job threads busy; skipping {} run of job {} due at {}", trigger, job.getJobName(), fireAt);
+        }
+    }
+
+    /**
+     * Runs the job under its advisory lock; null when another run holds the lock, or when this
+     * scheduled fire was already claimed or the job is paused
+     */
+    private ScheduledJobRunDto execute(ScheduledJob job, TriggerType trigger, LocalDateTime fireAt) {
+        String jobName = job.getJobName();
+        try (Connection lockConnection = dataSource.getConnection()) {
+            lockConnection.setAutoCommit(true);
+            if (!advisoryLock(lockConnection, "pg_try_advisory_lock", jobName)) {
+                log.debug("Job {} is running on another node; skipping {} run", jobName, trigger);
+                return null;
+            }
+            try {
+                if (trigger == TriggerType.SCHEDULE && !claimFire(jobName, fireAt)) {
+                    log.debug("Job {} fire at {} already claimed or paused; skipping", jobName, fireAt);
+                    return null;
+                }
+                return runLocked(job, trigger);
+            } finally {
+                advisoryLock(lockConnection, "pg_advisory_unlock", jobName);
+            }
+        } catch (SQLException e) {
+            if (trigger == TriggerType.MANUAL) {
+                throw new IllegalStateException("Could not take the lock for job " + jobName, e);
+            }
+            log.warn("Could not take the lock for job {}: {}", jobName, e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String function, String jobName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?, hashtext(?))")) {
+            statement.setInt(1, LOCK_NAMESPACE);
+            statement.setString(2, jobName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean claimFire(String jobName, LocalDateTime fireAt) {
+        Integer claimed = transactionTemplate.execute(status -> jdbcTemplate.update("""
+                UPDATE scheduled_jobs SET last_fire_at = ?
+                WHERE job_name = ? AND NOT paused AND (last_fire_at IS NULL OR last_fire_at < ?)
+                """, fireAt, jobName, fireAt));
+        return claimed != null && claimed > 0;
+    }
+
+    private ScheduledJobRunDto runLocked(ScheduledJob job, TriggerType trigger) {
+        String jobName = job.getJobName();
+        LocalDateTime startedAt = timeService.getCurrentDateTime();
+        long startNanos = System.nanoTime();
+        RunContext context = new RunContext(jobName, startNanos + maxRunMillis * 1_000_000L);
+        Long runId = transactionTemplate.execute(status -> {
+            // Nothing else can be running this job while we hold its lock
+            jdbcTemplate.update("""
+                    UPDATE scheduled_job_runs SET status = 'ABANDONED', finished_at = ?
+                    WHERE job_name = ? AND status = 'RUNNING'
+                    """, startedAt, jobName);
+            context.position = jdbcTemplate.queryForObject(
+                    "SELECT checkpoint FROM scheduled_jobs WHERE job_name = ?", Long.class, jobName);
+            return jdbcTemplate.queryForObject("""
+                    INSERT INTO scheduled_job_runs (job_name, trigger_type, node, status, started_at)
+                    VALUES (?, ?, ?, 'RUNNING', ?) RETURNING id
+                    """, Long.class, jobName, trigger.name(), node, startedAt);
+        });
+
+        String outcome;
+        Long processed = null;
+        String detail;
+        try {
+            ScheduledJob.JobResult result = job.run(context);
+            outcome = "SUCCEEDED";
+            processed = result.processed();
+            detail = result.detail();
+        } catch (RuntimeException e) {
+            log.error("Job {} failed", jobName, e);
+            outcome = "FAILED";
+            detail = e.toString();
+        }
+        long durationMs = (System.nanoTime() - startNanos) / 1_000_000L;
+        String status = outcome;
+        Long count = processed;
+        String runDetail = detail;
+        transactionTemplate.executeWithoutResult(tx -> {
+            jdbcTemplate.update("""
+                    UPDATE scheduled_job_runs SET status = ?, finished_at = ?, duration_ms = ?, processed = ?, detail = ?
+                    WHERE id = ?
+                    """, status, timeService.getCurrentDateTime(), durationMs, count, runDetail, runId);
+            jdbcTemplate.update("DELETE FROM scheduled_job_runs WHERE job_name = ? AND started_at < ?",
+                    jobName, startedAt.minusDays(historyDays));
+        });
+        log.info("Job {} {} in {} ms ({} run on {}, {} processed)", jobName, status, durationMs, trigger, node, count);
+        return jdbcTemplate.queryForObject("SELECT " + RUN_COLUMNS + " FROM scheduled_job_runs WHERE id = ?",
+                new BeanPropertyRowMapper<>(ScheduledJobRunDto.class), runId);
+    }
+
+    private class RunContext implements ScheduledJob.Context {
+
+        private final String jobName;
+        private final long deadlineNanos;
+        private long position;
+
+        private RunContext(String jobName, long deadlineNanos) {
+            this.jobName = jobName;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public long checkpoint() {
+            return position;
+        }
+
+        @Override
+        public void saveCheckpoint(long position) {
+            // Joins the caller's transaction when there is one
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                    "UPDATE scheduled_jobs SET checkpoint = ?, checkpoint_updated_at = ? WHERE job_name = ?",
+                    position, timeService.getCurrentDateTime(), jobName));
+            this.position = position;
+        }
+
+        @Override
+        public boolean shouldStop() {
+            return stopping || System.nanoTime() > deadlineNanos;
+        }
+    }
+}
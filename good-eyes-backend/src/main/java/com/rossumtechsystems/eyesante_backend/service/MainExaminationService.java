@@ -24,6 +24,7 @@ public class MainExaminationService {
 
     private final MainExaminationRepository mainExaminationRepository;
     private final PatientVisitSessionRepository patientVisitSessionRepository;
+    private final DomainEventPublisher domainEventPublisher;
 
     @Transactional
     public MainExaminationDto create(MainExaminationDto dto) {
@@ -31,9 +32,11 @@ public class MainExaminationService {
         MainExamination entity = fromDto(dto);
         Optional<PatientVisitSession> patientVisitSession = patientVisitSessionRepository.findById(entity.getVisitSession().getId());
         if (patientVisitSession.isPresent()) {
+            VisitStage previousStage = patientVisitSession.get().getCurrentStage();
             patientVisitSession.get().setStatus(VisitStatus.DOCTOR_VISIT_COMPLETED);
             patientVisitSession.get().setCurrentStage(VisitStage.PHARMACY);
             patientVisitSessionRepository.save(patientVisitSession.get());
+            domainEventPublisher.publishStageChange(patientVisitSession.get(), previousStage);
         }
         return new MainExaminationDto(mainExaminationRepository.save(entity));
     }
@@ -0,0 +1,74 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Deletes domain events older than the retention period from outbox_events, in chunks of one
+ * transaction each. Listeners are done with an event within seconds of its commit; the retention
+ * only has to cover relay reconnects and any job reading the outbox from a checkpoint.
+ */
+@Service
+public class OutboxPruneJob implements ScheduledJob {
+
+    private static final String DELETE_CHUNK = """
+            DELETE FROM outbox_events
+            WHERE id IN (SELECT id FROM outbox_events WHERE created_at < ? ORDER BY id LIMIT ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TimeService timeService;
+    private final boolean enabled;
+    private final String cron;
+    private final int retentionDays;
+    private final int chunkSize;
+
+    public OutboxPruneJob(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          TimeService timeService,
+                          @Value("${app.events.prune.enabled:true}") boolean enabled,
+                          @Value("${app.events.prune.cron:0 30 3 * * *}") String cron,
+                          @Value("${app.events.retention-days:7}") int retentionDays,
+                          @Value("${app.events.prune.chunk-size:5000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timeService = timeService;
+        this.enabled = enabled;
+        this.cron = cron;
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public String getJobName() {
+        return "outbox-prune";
+    }
+
+    @Override
+    public String getCron() {
+        return cron;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public JobResult run(Context context) {
+        LocalDateTime cutoff = timeService.getCurrentDateTime().minusDays(retentionDays);
+        long deleted = 0;
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> jdbcTemplate.update(DELETE_CHUNK, cutoff, chunkSize));
+            deleted += chunk;
+        } while (chunk == chunkSize && !context.shouldStop());
+        return new JobResult(deleted, deleted + " events older than " + cutoff.toLocalDate() + " deleted");
+    }
+}
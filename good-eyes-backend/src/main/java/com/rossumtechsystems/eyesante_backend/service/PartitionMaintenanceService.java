@@ -0,0 +1,143 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the monthly partitions of invoices, invoice_items and patient_visit_sessions ahead of the
+ * calendar; there is no default partition, so a row dated past the last partition would be rejected.
+ * Optionally detaches partitions older than a cutoff into an archive schema, where they can be
+ * dumped or dropped without touching the live tables. Runs through JobSchedulerService, at startup
+ * and on its cron, so replicas starting together do not race each other's DDL.
+ *
+ * History from before partitioning sits in one "_p_legacy" partition per table, which neither prunes
+ * nor detaches. Each run splits up to {@code legacy-split-months-per-run} of its newest months off
+ * into monthly partitions (V94), one transaction per month, until it is empty. A split step locks
+ * the table and re-validates the foreign keys into it, so it belongs in the nightly window.
+ */
+@Service
+@Slf4j
+public class PartitionMaintenanceService implements ScheduledJob {
+
+    // Children first, so their partitions are detached before the invoice partitions they reference
+    private static final List<String> TABLES = List.of("invoice_items", "patient_visit_sessions", "invoices");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final String cron;
+    private final int monthsAhead;
+    private final int detachAfterMonths;
+    private final String archiveSchema;
+    private final int legacySplitMonthsPerRun;
+
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.partitioning.enabled:true}") boolean enabled,
+                                       @Value("${app.partitioning.cron:0 30 1 * * *}") String cron,
+                                       @Value("${app.partitioning.months-ahead:12}") int monthsAhead,
+                                       @Value("${app.partitioning.detach-after-months:0}") int detachAfterMonths,
+                                       @Value("${app.partitioning.archive-schema:archive}") String archiveSchema,
+                                       @Value("${app.partitioning.legacy-split-months-per-run:3}") int legacySplitMonthsPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.cron = cron;
+        this.monthsAhead = monthsAhead;
+        this.detachAfterMonths = detachAfterMonths;
+        this.archiveSchema = archiveSchema;
+        this.legacySplitMonthsPerRun = legacySplitMonthsPerRun;
+    }
+
+    @Override
+    public String getJobName() {
+        return "partition-maintenance";
+    }
+
+    @Override
+    public String getCron() {
+        return cron;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isRunOnStartup() {
+        return true;
+    }
+
+    @Override
+    public JobResult run(Context context) {
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        int changed = 0;
+        List<String> failed = new ArrayList<>();
+        for (String table : TABLES) {
+            try {
+                // One transaction per table; the pool does not auto-commit
+                changed += transactionTemplate.execute(status -> maintain(table, currentMonth));
+                changed += splitLegacy(table, context);
+            } catch (Exception e) {
+                // Usually child rows still referencing a partition due for detaching; retried next run
+                log.warn("Partition maintenance failed for {}: {}", table, e.getMessage());
+                failed.add(table);
+            }
+        }
+        return new JobResult(changed, failed.isEmpty() ? "partitions created, split or detached: " + changed
+                : "failed for " + failed);
+    }
+
+    private int maintain(String table, LocalDate currentMonth) {
+        if (!isPartitioned(table)) {
+            return 0;
+        }
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT ensure_monthly_partitions(?, ?, ?)", Integer.class, table, currentMonth, monthsAhead);
+        if (created != null && created > 0) {
+            log.info("Created {} monthly partitions for {}", created, table);
+        }
+        Integer detached = 0;
+        if (detachAfterMonths > 0) {
+            detached = jdbcTemplate.queryForObject(
+                    "SELECT detach_monthly_partitions(?, ?, ?)", Integer.class,
+                    table, currentMonth.minusMonths(detachAfterMonths), archiveSchema);
+            if (detached != null && detached > 0) {
+                log.info("Detached {} partitions of {} into schema {}", detached, table, archiveSchema);
+            }
+        }
+        return (created == null ? 0 : created) + (detached == null ? 0 : detached);
+    }
+
+    /**
+     * Split months off the legacy partition, newest first, each in its own transaction
+     */
+    private int splitLegacy(String table, Context context) {
+        int split = 0;
+        while (split < legacySplitMonthsPerRun && !context.shouldStop()) {
+            LocalDate legacyEnd = transactionTemplate.execute(status -> jdbcTemplate.queryForObject(
+                    "SELECT split_legacy_partition(?)", LocalDate.class, table));
+            if (legacyEnd == null) {
+                break;
+            }
+            log.info("Split {} legacy partition; it now ends at {}", table, legacyEnd);
+            split++;
+        }
+        return split;
+    }
+
+    private boolean isPartitioned(String table) {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))", Boolean.class, table);
+        return Boolean.TRUE.equals(partitioned);
+    }
+}
@@ -1,21 +1,51 @@
 package com.rossumtechsystems.eyesante_backend.service;
 
+import com.rossumtechsystems.eyesante_backend.dto.CursorPage;
 import com.rossumtechsystems.eyesante_backend.dto.EyeExaminationDto;
 import com.rossumtechsystems.eyesante_backend.dto.PatientDto;
+import com.rossumtechsystems.eyesante_backend.dto.PatientSummary;
+import com.rossumtechsystems.eyesante_backend.dto.PhoneValidationResultDto;
 import com.rossumtechsystems.eyesante_backend.entity.Patient;
+import com.rossumtechsystems.eyesante_backend.exception.PhoneConflictException;
 import com.rossumtechsystems.eyesante_backend.repository.PatientRepository;
+import com.rossumtechsystems.eyesante_backend.util.KeysetCursor;
+import com.rossumtechsystems.eyesante_backend.util.SparseFields;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class PatientService {
+    private static final String PATIENTS_CURSOR_SCOPE = "patients";
+    private static final String PHONE_UNIQUE_INDEX = "uk_patient_phones_e164_active";
+    private static final int MAX_PHONE_BATCH = 10_000;
+
+    // ?fields= on the patient list and search: PatientDto's scalar properties
+    private static final SparseFields PATIENT_FIELDS = SparseFields.from("patients p", "p")
+            .field("patientNumber", "COALESCE(p.patient_number, 'EP-' || p.id)")
+            .columns("firstName", "lastName", "gender", "nationalId", "dateOfBirth", "ageInYears", "ageInMonths",
+                    "maritalStatus", "occupation", "nextOfKin", "nextOfKinRelationship", "nextOfKinPhone", "phone",
+                    "alternativePhone", "phoneOwner", "ownerName", "patientCategory", "company", "preferredLanguage",
+                    "citizenship", "countryId", "foreignerOrRefugee", "nonUgandanNationalIdNo", "residence",
+                    "researchNumber", "receptionTimestamp", "receivedBy", "createdAt")
+            .defaultOrder("p.created_at DESC, p.id DESC")
+            .build();
+
+    private static final String PATIENT_SEARCH = "p.deleted = FALSE AND ("
+            + "LOWER(p.first_name) LIKE LOWER('%' || ? || '%') OR LOWER(p.last_name) LIKE LOWER('%' || ? || '%') OR "
+            + "LOWER(p.patient_number) LIKE LOWER('%' || ? || '%') OR p.phone LIKE '%' || ? || '%' OR "
+            + "p.alternative_phone LIKE '%' || ? || '%' OR p.national_id LIKE '%' || ? || '%')";
+
     @Autowired
     private PatientRepository patientRepository;
     
@@ -28,6 +58,10 @@ public class PatientService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private SparseFieldsService sparseFieldsService;
+
+    @Transactional(readOnly = true)
     public Page<PatientDto> getAllPatients(Pageable pageable) {
         // If no sorting is specified, default to sorting by creation date descending (latest first)
         if (pageable.getSort().isUnsorted()) {
@@ -40,12 +74,32 @@ public class PatientService {
         return patientRepository.findByDeletedFalse(pageable).map(this::toDto);
     }
 
+    /**
+     * Keyset page of non-deleted patients, latest first. Cost is independent of how deep the
+     * client has scrolled, unlike the OFFSET-based {@link #getAllPatients}.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PatientDto> getPatientsAfter(String cursor, int size) {
+        Limit limit = Limit.of(size + 1);
+        List<Patient> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = patientRepository.findByDeletedFalseOrderByCreatedAtDescIdDesc(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(PATIENTS_CURSOR_SCOPE, cursor);
+            rows = patientRepository.findByDeletedFalseAfter(after.sortKeyAsDateTime(), after.getId(), limit);
+        }
+        return CursorPage.of(rows, size,
+                patient -> KeysetCursor.encode(PATIENTS_CURSOR_SCOPE, patient.getCreatedAt(), patient.getId()),
+                this::toDto);
+    }
+
     public List<PatientDto> getAllPatientsSortedByLatest() {
         return patientRepository.findByDeletedFalseOrderByCreatedAtDesc().stream()
                 .map(this::toDto)
                 .collect(java.util.stream.Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public Page<PatientDto> searchPatients(String query, Pageable pageable) {
         if (query == null || query.trim().isEmpty()) {
             return getAllPatients(pageable);
@@ -54,13 +108,62 @@ public class PatientService {
         return patientRepository.searchPatients(query.trim(), pageable).map(this::toDto);
     }
 
+    /**
+     * Summary rows (?view=summary) of non-deleted patients, latest first unless sorted
+     */
+    @Transactional(readOnly = true)
+    public Page<PatientSummary> getPatientSummaries(Pageable pageable) {
+        if (pageable.getSort().isUnsorted()) {
+            pageable = org.springframework.data.domain.PageRequest.of(
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                org.springframework.data.domain.Sort.by("createdAt").descending()
+            );
+        }
+        return patientRepository.findSummaries(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<PatientSummary> searchPatientSummaries(String query, Pageable pageable) {
+        if (query == null || query.trim().isEmpty()) {
+            return getPatientSummaries(pageable);
+        }
+        if (pageable.getSort().isUnsorted()) {
+            pageable = org.springframework.data.domain.PageRequest.of(
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                org.springframework.data.domain.Sort.by("firstName", "lastName")
+            );
+        }
+        return patientRepository.searchSummaries(query.trim(), pageable);
+    }
+
+    /**
+     * Patient list or search rows with only the requested fields (?fields=); a search is ordered
+     * by name like {@link #searchPatients}, the plain list latest first, unless the page is sorted
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getPatientFields(String fields, String query, Pageable pageable) {
+        if (query == null || query.trim().isEmpty()) {
+            return sparseFieldsService.page(PATIENT_FIELDS, fields, "p.deleted = FALSE", pageable);
+        }
+        if (pageable.getSort().isUnsorted()) {
+            pageable = org.springframework.data.domain.PageRequest.of(
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                org.springframework.data.domain.Sort.by("firstName", "lastName")
+            );
+        }
+        String q = query.trim();
+        return sparseFieldsService.page(PATIENT_FIELDS, fields, PATIENT_SEARCH, pageable, q, q, q, q, q, q);
+    }
+
     public Optional<PatientDto> getPatientById(Long id) {
         return patientRepository.findByIdAndDeletedFalse(id).map(this::toDto);
     }
 
     public PatientDto createPatient(PatientDto dto) {
-        // Validate phone uniqueness before creating
-        validatePhoneUniqueness(dto.getPhone(), dto.getAlternativePhone(), null);
+        validatePhones(dto.getPhone(), dto.getAlternativePhone());
         
         Patient patient = toEntity(dto);
         // Don't set ID for new patients - let JPA generate it
@@ -71,7 +174,7 @@ public class PatientService {
         // Note: receivedBy will be set by the calling service/controller with current user
         
         // Save patient first to get the ID
-        Patient savedPatient = patientRepository.save(patient);
+        Patient savedPatient = saveWithPhoneCheck(patient);
         
         // Generate ESP- format patient number based on the generated ID
         String patientNumber = "ESP-" + String.format("%06d", savedPatient.getId());
@@ -94,13 +197,12 @@ public class PatientService {
     }
 
     public Optional<PatientDto> updatePatient(Long id, PatientDto dto) {
-        // Validate phone uniqueness before updating
-        validatePhoneUniqueness(dto.getPhone(), dto.getAlternativePhone(), id);
+        validatePhones(dto.getPhone(), dto.getAlternativePhone());
         
         return patientRepository.findById(id).map(existing -> {
             Patient updated = toEntity(dto);
             updated.setId(id);
-            return toDto(patientRepository.save(updated));
+            return toDto(saveWithPhoneCheck(updated));
         });
     }
 
@@ -426,52 +528,89 @@ public class PatientService {
     
     
     /**
-     * Validate phone uniqueness for both phone and alternative phone fields
-     * @param phone Primary phone number
-     * @param alternativePhone Alternative phone number
-     * @param patientId Patient ID (null for new patients, non-null for updates)
+     * Uniqueness itself is enforced by uk_patient_phones_e164_active when the patient row is
+     * written; only the check that needs no database is done up front
      */
-    private void validatePhoneUniqueness(String phone, String alternativePhone, Long patientId) {
-        // Check primary phone uniqueness
-        if (phone != null && !phone.trim().isEmpty()) {
-            if (patientId == null) {
-                // Creating new patient
-                if (patientRepository.existsByPhoneAndDeletedFalse(phone.trim())) {
-                    throw new RuntimeException("Phone number '" + phone.trim() + "' is already registered with another patient");
-                }
-            } else {
-                // Updating existing patient
-                Optional<Patient> existingPatient = patientRepository.findByPhoneAndDeletedFalseAndIdNot(phone.trim(), patientId);
-                if (existingPatient.isPresent()) {
-                    throw new RuntimeException("Phone number '" + phone.trim() + "' is already registered with another patient");
-                }
-            }
-        }
-        
-        // Check alternative phone uniqueness
-        if (alternativePhone != null && !alternativePhone.trim().isEmpty()) {
-            if (patientId == null) {
-                // Creating new patient
-                if (patientRepository.existsByAlternativePhoneAndDeletedFalse(alternativePhone.trim())) {
-                    throw new RuntimeException("Alternative phone number '" + alternativePhone.trim() + "' is already registered with another patient");
-                }
-            } else {
-                // Updating existing patient
-                Optional<Patient> existingPatient = patientRepository.findByAlternativePhoneAndDeletedFalseAndIdNot(alternativePhone.trim(), patientId);
-                if (existingPatient.isPresent()) {
-                    throw new RuntimeException("Alternative phone number '" + alternativePhone.trim() + "' is already registered with another patient");
-                }
-            }
-        }
-        
-        // Check that phone and alternative phone are not the same
-        if (phone != null && alternativePhone != null && 
+    private void validatePhones(String phone, String alternativePhone) {
+        if (phone != null && alternativePhone != null &&
             !phone.trim().isEmpty() && !alternativePhone.trim().isEmpty() &&
             phone.trim().equals(alternativePhone.trim())) {
             throw new RuntimeException("Primary phone and alternative phone cannot be the same");
         }
     }
 
+    /**
+     * Saves the patient, reporting a taken phone number as a {@link PhoneConflictException}.
+     * The lookup for the current holder only runs once the write has already failed.
+     */
+    private Patient saveWithPhoneCheck(Patient patient) {
+        try {
+            return patientRepository.save(patient);
+        } catch (DataIntegrityViolationException e) {
+            String cause = e.getMostSpecificCause().getMessage();
+            if (cause == null || !cause.contains(PHONE_UNIQUE_INDEX)) {
+                throw e;
+            }
+            List<PhoneConflictException> conflicts = jdbcTemplate.query("""
+                    SELECT i.raw, pp.phone_e164, p.id, p.patient_number
+                    FROM unnest(?::TEXT[]) WITH ORDINALITY AS i(raw, ord)
+                    JOIN patient_phones pp ON pp.phone_e164 = normalize_phone_e164(i.raw) AND pp.active
+                    JOIN patients p ON p.id = pp.patient_id
+                    WHERE p.id <> COALESCE(?::BIGINT, -1)
+                    ORDER BY i.ord
+                    LIMIT 1
+                    """,
+                    (rs, rowNum) -> new PhoneConflictException(rs.getString(1), rs.getString(2),
+                            rs.getLong(3), rs.getString(4)),
+                    (Object) new String[]{patient.getPhone(), patient.getAlternativePhone()}, patient.getId());
+            if (conflicts.isEmpty()) {
+                // Nobody else holds either number, so the two are the same number written differently
+                throw new RuntimeException("Primary phone and alternative phone cannot be the same");
+            }
+            throw conflicts.get(0);
+        }
+    }
+
+    /**
+     * Checks a batch of phone numbers (e.g. an import file) against each other and against
+     * registered patients in one query, reporting the outcome per input position
+     */
+    @Transactional(readOnly = true)
+    public List<PhoneValidationResultDto> validatePhoneBatch(List<String> phones) {
+        if (phones == null || phones.isEmpty()) {
+            return List.of();
+        }
+        if (phones.size() > MAX_PHONE_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_PHONE_BATCH + " phone numbers can be validated at once");
+        }
+        return jdbcTemplate.query("""
+                SELECT n.ord, n.raw, n.phone_e164, p.id, p.patient_number,
+                       ROW_NUMBER() OVER (PARTITION BY n.phone_e164 ORDER BY n.ord) AS batch_rank
+                FROM (
+                    SELECT i.ord, i.raw, normalize_phone_e164(i.raw) AS phone_e164
+                    FROM unnest(?::TEXT[]) WITH ORDINALITY AS i(raw, ord)
+                ) n
+                LEFT JOIN patient_phones pp ON pp.phone_e164 = n.phone_e164 AND pp.active
+                LEFT JOIN patients p ON p.id = pp.patient_id
+                ORDER BY n.ord
+                """, (rs, rowNum) -> {
+            String phoneE164 = rs.getString("phone_e164");
+            Long patientId = rs.getObject("id", Long.class);
+            String status;
+            if (phoneE164 == null) {
+                status = "INVALID";
+            } else if (patientId != null) {
+                status = "REGISTERED";
+            } else if (rs.getLong("batch_rank") > 1) {
+                status = "DUPLICATE_IN_BATCH";
+            } else {
+                status = "AVAILABLE";
+            }
+            return new PhoneValidationResultDto(rs.getInt("ord") - 1, rs.getString("raw"), phoneE164, status,
+                    patientId, rs.getString("patient_number"));
+        }, (Object) phones.toArray(new String[0]));
+    }
+
     private PatientDto toDto(Patient patient) {
         PatientDto dto = new PatientDto();
         dto.setId(patient.getId());
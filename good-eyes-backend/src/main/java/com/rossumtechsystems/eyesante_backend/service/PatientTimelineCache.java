@@ -0,0 +1,153 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import com.rossumtechsystems.eyesante_backend.dto.PatientTimelineEntryDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, LRU cache of assembled patient timelines, one per patient and branch since each branch
+ * sees only its own visits and invoices.
+ *
+ * Entries are evicted by {@link PatientTimelineCacheListener} whenever a visit or any record hanging
+ * off a visit changes. Child records only know their visit, so the cache keeps a visit -> patient
+ * index built from the timelines it holds; a change evicts the patient's timelines in every branch.
+ * A load that overlaps an eviction is not stored, so a timeline read before a commit can never be
+ * cached after it.
+ */
+@Component
+public class PatientTimelineCache {
+
+    private final Map<Key, CachedTimeline> timelines;
+    private final Map<Long, Long> patientByVisit = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    private final long ttlMillis;
+
+    public PatientTimelineCache(@Value("${app.timeline.cache.max-patients:1000}") int maxPatients,
+                                @Value("${app.timeline.cache.ttl-ms:600000}") long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.timelines = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedTimeline> eldest) {
+                if (size() > maxPatients) {
+                    forgetVisits(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Marker to take before loading; pass it back to {@link #put} so overlapping evictions win.
+     */
+    public long generation() {
+        return evictions.get();
+    }
+
+    public synchronized List<PatientTimelineEntryDto> get(Long patientId) {
+        Key key = Key.current(patientId);
+        CachedTimeline cached = timelines.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - cached.loadedAt > ttlMillis) {
+            timelines.remove(key);
+            forgetVisits(key, cached);
+            return null;
+        }
+        return cached.entries;
+    }
+
+    public synchronized void put(Long patientId, List<PatientTimelineEntryDto> entries,
+                                 Collection<Long> visitIds, long generation) {
+        if (evictions.get() != generation) {
+            return;
+        }
+        timelines.put(Key.current(patientId), new CachedTimeline(List.copyOf(entries), List.copyOf(visitIds), System.currentTimeMillis()));
+        visitIds.forEach(visitId -> patientByVisit.put(visitId, patientId));
+    }
+
+    public void evictPatient(Long patientId) {
+        if (patientId == null) {
+            return;
+        }
+        evictNow(patientId);
+        // Evict again once the change is visible, in case a reader cached the old state meanwhile
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(patientId);
+                }
+            });
+        }
+    }
+
+    public void evictVisit(Long visitSessionId) {
+        if (visitSessionId == null) {
+            return;
+        }
+        Long patientId = patientByVisit.get(visitSessionId);
+        if (patientId != null) {
+            evictPatient(patientId);
+        } else {
+            // Not cached for anyone; still invalidate in-flight loads
+            evictions.incrementAndGet();
+        }
+    }
+
+    private synchronized void evictNow(Long patientId) {
+        evictions.incrementAndGet();
+        remove(patientId);
+    }
+
+    private void remove(Long patientId) {
+        timelines.entrySet().removeIf(entry -> {
+            if (!entry.getKey().patientId().equals(patientId)) {
+                return false;
+            }
+            entry.getValue().visitIds.forEach(patientByVisit::remove);
+            return true;
+        });
+    }
+
+    /**
+     * Drop the visit index entries of a timeline leaving the cache, unless another branch's
+     * timeline of the same patient still lists the visit
+     */
+    private void forgetVisits(Key key, CachedTimeline removed) {
+        Set<Long> stillCached = new HashSet<>();
+        timelines.forEach((other, timeline) -> {
+            if (!other.equals(key) && other.patientId().equals(key.patientId())) {
+                stillCached.addAll(timeline.visitIds);
+            }
+        });
+        removed.visitIds.stream().filter(visitId -> !stillCached.contains(visitId)).forEach(patientByVisit::remove);
+    }
+
+    /**
+     * A patient's timeline as seen from one branch; a null branch sees every branch
+     */
+    private record Key(Long patientId, Long clinicId) {
+
+        static Key current(Long patientId) {
+            return new Key(Objects.requireNonNull(patientId), BranchContext.currentClinicId());
+        }
+    }
+
+    private record CachedTimeline(List<PatientTimelineEntryDto> entries, List<Long> visitIds, long loadedAt) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Evicts timelines on every node when the patient's records change: any JPA write to a timeline
+ * entity ({@link PatientTimelineCacheListener} publishes PATIENT_RECORDS_CHANGED), a visit moving or
+ * an invoice paid through the ledger. The node that made the change has already evicted; the others
+ * would otherwise serve the old timeline until the TTL.
+ */
+@Component
+public class PatientTimelineCacheEventListener implements DomainEventListener {
+
+    private final PatientTimelineCache cache;
+
+    public PatientTimelineCacheEventListener(PatientTimelineCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public Set<DomainEvent.Type> getEventTypes() {
+        return Set.of(DomainEvent.Type.PATIENT_RECORDS_CHANGED, DomainEvent.Type.INVOICE_PAID,
+                DomainEvent.Type.VISIT_STAGE_CHANGED);
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        cache.evictPatient(event.patientId());
+    }
+}
@@ -0,0 +1,92 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.entity.PatientDiagnosis;
+import com.rossumtechsystems.eyesante_backend.entity.PatientInvestigation;
+import com.rossumtechsystems.eyesante_backend.entity.PatientProcedure;
+import com.rossumtechsystems.eyesante_backend.entity.PatientTreatment;
+import com.rossumtechsystems.eyesante_backend.entity.PatientVisitSession;
+import com.rossumtechsystems.eyesante_backend.entity.TriageMeasurement;
+import com.rossumtechsystems.eyesante_backend.entity.eye_exmination.BasicRefractionExam;
+import com.rossumtechsystems.eyesante_backend.entity.eye_exmination.MainExamination;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * JPA listener on every entity that appears in the patient timeline. Evicts the patient's timeline
+ * here and publishes PATIENT_RECORDS_CHANGED (once per patient and transaction) so the other nodes
+ * evict theirs. Identifiers are read from proxies without loading them; only a record whose visit
+ * is an uninitialized proxy costs a lookup of the visit's patient. Bulk JPQL/SQL updates bypass
+ * the listener; the cache TTL covers those.
+ */
+@Component
+public class PatientTimelineCacheListener {
+
+    private final PatientTimelineCache cache;
+    // Looked up when first needed: entity listeners are built with the EntityManagerFactory, which
+    // the publisher's listeners depend on
+    private final ObjectProvider<DomainEventPublisher> domainEventPublisher;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+
+    public PatientTimelineCacheListener(PatientTimelineCache cache,
+                                        ObjectProvider<DomainEventPublisher> domainEventPublisher,
+                                        ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this.cache = cache;
+        this.domainEventPublisher = domainEventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof PatientVisitSession visit) {
+            evictPatient(visit.getPatient() != null ? visit.getPatient().getId() : null);
+        } else if (entity instanceof Invoice invoice) {
+            evictPatient(invoice.getPatient() != null ? invoice.getPatient().getId() : null);
+        } else if (entity instanceof TriageMeasurement triage) {
+            evictVisit(triage.getVisitSession());
+        } else if (entity instanceof BasicRefractionExam exam) {
+            evictVisit(exam.getVisitSession());
+        } else if (entity instanceof MainExamination exam) {
+            evictVisit(exam.getVisitSession());
+        } else if (entity instanceof PatientDiagnosis diagnosis) {
+            evictVisit(diagnosis.getVisitSession());
+        } else if (entity instanceof PatientProcedure procedure) {
+            evictVisit(procedure.getVisitSession());
+        } else if (entity instanceof PatientTreatment treatment) {
+            evictVisit(treatment.getVisitSession());
+        } else if (entity instanceof PatientInvestigation investigation) {
+            evictVisit(investigation.getVisitSession());
+        }
+    }
+
+    private void evictPatient(Long patientId) {
+        cache.evictPatient(patientId);
+        domainEventPublisher.getObject().publishPatientRecordsChanged(patientId);
+    }
+
+    private void evictVisit(PatientVisitSession visitSession) {
+        if (visitSession == null) {
+            return;
+        }
+        cache.evictVisit(visitSession.getId());
+        domainEventPublisher.getObject().publishPatientRecordsChanged(patientOf(visitSession));
+    }
+
+    private Long patientOf(PatientVisitSession visitSession) {
+        if (Hibernate.isInitialized(visitSession)) {
+            return visitSession.getPatient() != null ? visitSession.getPatient().getId() : null;
+        }
+        List<Long> patientIds = jdbcTemplate.getObject().queryForList(
+                "SELECT patient_id FROM patient_visit_sessions WHERE id = ?", Long.class, visitSession.getId());
+        return patientIds.isEmpty() ? null : patientIds.get(0);
+    }
+}
@@ -0,0 +1,238 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import com.rossumtechsystems.eyesante_backend.dto.PatientTimelineEntryDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Assembles a patient's whole clinical and billing history into one chronological stream.
+ *
+ * Each record type is read with a single set-based query keyed by patient_id (children join
+ * through patient_visit_sessions), so the statement count is fixed at nine no matter how many
+ * visits the patient has. Visits and invoices moved to the cold archive are read back from their
+ * snapshots inside the same statements. Patients are shared by every branch, but within a branch
+ * only that branch's visits and invoices are listed. Results are merged in memory, cached per
+ * patient and branch, and paged from the cached list.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PatientTimelineService {
+
+    private static final Comparator<PatientTimelineEntryDto> NEWEST_FIRST = Comparator
+            .comparing(PatientTimelineEntryDto::getOccurredAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(PatientTimelineEntryDto::getVisitSessionId, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(PatientTimelineEntryDto::getId, Comparator.reverseOrder());
+
+    // Branch of an archived visit; null for those archived before V91, which belong to the main clinic
+    private static final String ARCHIVED_VISIT_BRANCH =
+            "(a.snapshot -> 'patient_visit_sessions' -> 0 ->> 'clinic_id')::BIGINT";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PatientTimelineCache cache;
+
+    /**
+     * Get a page of the patient's timeline, newest first
+     */
+    @Transactional(readOnly = true)
+    public Page<PatientTimelineEntryDto> getTimeline(Long patientId, Pageable pageable) {
+        List<PatientTimelineEntryDto> entries = cache.get(patientId);
+        if (entries == null) {
+            entries = loadTimeline(patientId);
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), entries.size());
+        int to = Math.min(from + pageable.getPageSize(), entries.size());
+        return new PageImpl<>(entries.subList(from, to), pageable, entries.size());
+    }
+
+    private List<PatientTimelineEntryDto> loadTimeline(Long patientId) {
+        long generation = cache.generation();
+
+        List<Object> visitArgs = new ArrayList<>();
+        List<PatientTimelineEntryDto> visits = jdbcTemplate.query("""
+                SELECT vs.id, vs.id AS visit_session_id, vs.visit_date AS occurred_at,
+                       vs.visit_purpose AS title, vs.chief_complaint AS summary, vs.status, vs.consultation_fee_amount AS amount
+                FROM %s vs
+                """.formatted(visits(patientId, visitArgs)), mapper("VISIT"), visitArgs.toArray());
+
+        if (visits.isEmpty()) {
+            Boolean exists = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM patients WHERE id = ? AND deleted = false)", Boolean.class, patientId);
+            if (!Boolean.TRUE.equals(exists)) {
+                throw new RuntimeException("Patient not found with ID: " + patientId);
+            }
+        }
+
+        List<PatientTimelineEntryDto> entries = new ArrayList<>(visits);
+        entries.addAll(queryVisitRecords("""
+                SELECT t.id, t.visit_session_id, COALESCE(t.measurement_date, t.created_at) AS occurred_at,
+                       'Triage' AS title,
+                       CONCAT_WS(', ',
+                           CASE WHEN t.systolic_bp IS NOT NULL THEN 'BP ' || t.systolic_bp || '/' || t.diastolic_bp END,
+                           CASE WHEN t.iop_right IS NOT NULL OR t.iop_left IS NOT NULL
+                                THEN 'IOP R ' || COALESCE(t.iop_right::text, '-') || ' / L ' || COALESCE(t.iop_left::text, '-') END,
+                           t.notes) AS summary,
+                       NULL AS status, NULL AS amount
+                FROM %s t
+                """, "triage_measurements", "TRIAGE", patientId));
+        entries.addAll(queryVisitRecords("""
+                SELECT b.id, b.visit_session_id, b.created_at AS occurred_at,
+                       'Basic refraction exam' AS title, NULL AS summary, NULL AS status, NULL AS amount
+                FROM %s b
+                """, "basic_refraction_exams", "BASIC_REFRACTION", patientId));
+        entries.addAll(queryVisitRecords("""
+                SELECT m.id, m.visit_session_id, COALESCE(m.time_completed, m.created_at) AS occurred_at,
+                       'Main examination' AS title, COALESCE(m.doctors_notes, m.advice) AS summary,
+                       NULL AS status, NULL AS amount
+                FROM %s m
+                """, "main_examinations", "MAIN_EXAMINATION", patientId));
+        entries.addAll(queryVisitRecords("""
+                SELECT pd.id, pd.visit_session_id, pd.diagnosis_date AS occurred_at,
+                       d.name AS title,
+                       CONCAT_WS(', ', pd.eye_side, pd.severity,
+                           CASE WHEN pd.is_primary_diagnosis THEN 'primary' END, pd.notes) AS summary,
+                       CASE WHEN pd.is_confirmed THEN 'CONFIRMED' ELSE 'PROVISIONAL' END AS status, NULL AS amount
+                FROM %s pd
+                JOIN diagnoses d ON d.id = pd.diagnosis_id
+                """, "patient_diagnoses", "DIAGNOSIS", patientId));
+        entries.addAll(queryVisitRecords("""
+                SELECT pp.id, pp.visit_session_id, COALESCE(pp.performed_date, pp.created_at) AS occurred_at,
+                       p.name AS title, CONCAT_WS(', ', pp.eye_side, pp.notes) AS summary,
+                       CASE WHEN pp.performed THEN 'PERFORMED' ELSE 'PLANNED' END AS status, pp.cost AS amount
+                FROM %s pp
+                JOIN procedures p ON p.id = pp.procedure_id
+                """, "patient_procedures", "PROCEDURE", patientId));
+        entries.addAll(queryVisitRecords("""
+                SELECT pt.id, pt.visit_session_id, pt.created_at AS occurred_at,
+                       pt.item_name AS title,
+                       CONCAT_WS(', ', 'Qty ' || pt.quantity, pt.dosage, pt.administration_route) AS summary,
+                       NULL AS status, pt.unit_price * pt.quantity AS amount
+                FROM %s pt
+                """, "patient_treatments", "TREATMENT", patientId));
+        entries.addAll(queryVisitRecords("""
+                SELECT pi.id, pi.visit_session_id, pi.created_at AS occurred_at,
+                       it.name AS title, CONCAT_WS(', ', pi.eye_side, pi.notes) AS summary,
+                       CASE WHEN pi.billed THEN 'BILLED' ELSE 'PENDING' END AS status, pi.cost AS amount
+                FROM %s pi
+                JOIN investigation_types it ON it.id = pi.investigation_type_id
+                """, "patient_investigations", "INVESTIGATION", patientId));
+        // The visit as a scalar subquery, so an invoice several visits point at is still listed once
+        List<Object> invoiceArgs = new ArrayList<>();
+        entries.addAll(jdbcTemplate.query("""
+                SELECT i.id,
+                       (SELECT MIN(vs.id) FROM %s vs WHERE vs.invoice_id = i.id) AS visit_session_id,
+                       COALESCE(i.created_at, i.invoice_date::timestamp) AS occurred_at,
+                       i.invoice_number AS title, i.invoice_purpose AS summary,
+                       i.payment_status AS status, i.total_amount AS amount
+                FROM %s i
+                """.formatted(visits(patientId, invoiceArgs), invoices(patientId, invoiceArgs)),
+                mapper("INVOICE"), invoiceArgs.toArray()));
+
+        entries.sort(NEWEST_FIRST);
+
+        Set<Long> visitIds = new LinkedHashSet<>();
+        visits.forEach(visit -> visitIds.add(visit.getId()));
+        cache.put(patientId, entries, visitIds, generation);
+        log.debug("Loaded timeline for patient {}: {} entries across {} visits", patientId, entries.size(), visitIds.size());
+        return entries;
+    }
+
+    /**
+     * Run a query over one per-visit table, given as the {@code %s} of {@code sql}
+     */
+    private List<PatientTimelineEntryDto> queryVisitRecords(String sql, String table, String type, Long patientId) {
+        List<Object> args = new ArrayList<>();
+        return jdbcTemplate.query(sql.formatted(visitRecords(table, patientId, args)), mapper(type), args.toArray());
+    }
+
+    /**
+     * The patient's visits in the current branch: live rows plus rows restored from cold archive snapshots
+     */
+    private static String visits(Long patientId, List<Object> args) {
+        args.add(patientId);
+        String live = BranchContext.sqlPredicate("clinic_id", args);
+        args.add(patientId);
+        String archived = BranchContext.sqlPredicateOrMainClinic("r.clinic_id", args);
+        return """
+                (SELECT * FROM patient_visit_sessions WHERE patient_id = ? AND %s
+                 UNION ALL
+                 SELECT r.* FROM archived_visit_sessions a
+                 CROSS JOIN LATERAL jsonb_populate_recordset(NULL::patient_visit_sessions, a.snapshot -> 'patient_visit_sessions') r
+                 WHERE a.patient_id = ? AND %s)""".formatted(live, archived);
+    }
+
+    /**
+     * The patient's invoices in the current branch, live and archived
+     */
+    private static String invoices(Long patientId, List<Object> args) {
+        args.add(patientId);
+        String live = BranchContext.sqlPredicate("clinic_id", args);
+        args.add(patientId);
+        String archived = BranchContext.sqlPredicateOrMainClinic("r.clinic_id", args);
+        return """
+                (SELECT * FROM invoices WHERE patient_id = ? AND %s
+                 UNION ALL
+                 SELECT r.* FROM archived_invoices a
+                 CROSS JOIN LATERAL jsonb_populate_recordset(NULL::invoices, a.snapshot -> 'invoices') r
+                 WHERE a.patient_id = ? AND %s)""".formatted(live, archived);
+    }
+
+    /**
+     * Rows of a per-visit table for the patient's live and archived visits in the current branch,
+     * in the table's own shape
+     */
+    private static String visitRecords(String table, Long patientId, List<Object> args) {
+        args.add(patientId);
+        String live = BranchContext.sqlPredicate("vs.clinic_id", args);
+        args.add(patientId);
+        String archived = BranchContext.sqlPredicateOrMainClinic(ARCHIVED_VISIT_BRANCH, args);
+        return """
+                (SELECT c.* FROM %1$s c
+                 JOIN patient_visit_sessions vs ON vs.id = c.visit_session_id
+                 WHERE vs.patient_id = ? AND %2$s
+                 UNION ALL
+                 SELECT c.* FROM archived_visit_sessions a
+                 CROSS JOIN LATERAL jsonb_populate_recordset(NULL::%1$s, a.snapshot -> '%1$s') c
+                 WHERE a.patient_id = ? AND %3$s)""".formatted(table, live, archived);
+    }
+
+    private static RowMapper<PatientTimelineEntryDto> mapper(String type) {
+        return (ResultSet rs, int rowNum) -> new PatientTimelineEntryDto(
+                type,
+                rs.getLong("id"),
+                nullableLong(rs, "visit_session_id"),
+                toLocalDateTime(rs.getTimestamp("occurred_at")),
+                rs.getString("title"),
+                rs.getString("summary"),
+                rs.getString("status"),
+                rs.getBigDecimal("amount"));
+    }
+
+    private static Long nullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
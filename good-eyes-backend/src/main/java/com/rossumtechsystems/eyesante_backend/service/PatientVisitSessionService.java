@@ -2,11 +2,13 @@ package com.rossumtechsystems.eyesante_backend.service;
 
 import com.rossumtechsystems.eyesante_backend.dto.CreatePatientVisitSessionRequest;
 import com.rossumtechsystems.eyesante_backend.dto.PatientVisitSessionDto;
+import com.rossumtechsystems.eyesante_backend.dto.VisitSessionSummary;
 import com.rossumtechsystems.eyesante_backend.entity.Invoice;
 import com.rossumtechsystems.eyesante_backend.entity.Patient;
 import com.rossumtechsystems.eyesante_backend.entity.PatientVisitSession;
 import com.rossumtechsystems.eyesante_backend.repository.PatientRepository;
 import com.rossumtechsystems.eyesante_backend.repository.PatientVisitSessionRepository;
+import com.rossumtechsystems.eyesante_backend.util.SparseFields;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -28,10 +30,32 @@ import org.springframework.data.domain.Sort;
 @Transactional
 public class PatientVisitSessionService {
 
+    // ?fields= on the visit list: PatientVisitSessionDto's properties
+    private static final SparseFields VISIT_FIELDS = SparseFields.from(
+                    "patient_visit_sessions v LEFT JOIN patients p ON p.id = v.patient_id", "v")
+            .columns("patientId")
+            .field("patientNumber", "p.patient_number")
+            .field("patientName", "CASE WHEN p.id IS NULL THEN 'Unknown Patient' "
+                    + "ELSE COALESCE(p.first_name, '') || ' ' || COALESCE(p.last_name, '') END")
+            .columns("visitDate", "visitPurpose", "status", "currentStage", "consultationFeePaid")
+            .field("consultationFeeAmount", "v.consultation_fee_amount::FLOAT8")
+            .columns("paymentMethod", "paymentReference", "chiefComplaint", "previousVisitId", "emergencyLevel",
+                    "requiresTriage", "requiresDoctorVisit", "isEmergency", "notes", "invoiceId",
+                    "createdAt", "updatedAt", "createdBy", "updatedBy")
+            .defaultOrder("v.visit_date DESC, v.id DESC")
+            .branchScoped()
+            .build();
+
+    private static final String VISIT_SEARCH = "LOWER(p.first_name) LIKE LOWER('%' || ? || '%') OR "
+            + "LOWER(p.last_name) LIKE LOWER('%' || ? || '%') OR LOWER(p.patient_number) LIKE LOWER('%' || ? || '%') OR "
+            + "LOWER(v.chief_complaint) LIKE LOWER('%' || ? || '%') OR LOWER(v.notes) LIKE LOWER('%' || ? || '%')";
+
     private final PatientVisitSessionRepository patientVisitSessionRepository;
     private final PatientRepository patientRepository;
     private final InvoiceService invoiceService;
     private final TimeService timeService;
+    private final DomainEventPublisher domainEventPublisher;
+    private final SparseFieldsService sparseFieldsService;
 
     /**
      * Create a new patient visit session from request DTO
@@ -174,7 +198,7 @@ public class PatientVisitSessionService {
     public Page<PatientVisitSessionDto> getAllVisitSessions(int page, int size, String search) {
         log.info("Fetching all visit sessions with page: {}, size: {}, search: {}", page, size, search);
         try {
-            Pageable pageable = PageRequest.of(page, size, Sort.by("visitDate").descending());
+            Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "visitDate", "id"));
             Page<PatientVisitSession> visitSessionsPage;
             
             if (search != null && !search.trim().isEmpty()) {
@@ -190,6 +214,31 @@ public class PatientVisitSessionService {
         }
     }
 
+    /**
+     * Summary rows (?view=summary) of the visit list, latest visit first
+     */
+    @Transactional(readOnly = true)
+    public Page<VisitSessionSummary> getVisitSessionSummaries(int page, int size, String search) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "visitDate", "id"));
+        if (search != null && !search.trim().isEmpty()) {
+            return patientVisitSessionRepository.searchSummaries(search.trim(), pageable);
+        }
+        return patientVisitSessionRepository.findAllSummaries(pageable);
+    }
+
+    /**
+     * Visit list rows with only the requested fields (?fields=), latest visit first
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getVisitSessionFields(String fields, int page, int size, String search) {
+        Pageable pageable = PageRequest.of(page, size);
+        if (search != null && !search.trim().isEmpty()) {
+            String s = search.trim();
+            return sparseFieldsService.page(VISIT_FIELDS, fields, "(" + VISIT_SEARCH + ")", pageable, s, s, s, s, s);
+        }
+        return sparseFieldsService.page(VISIT_FIELDS, fields, "TRUE", pageable);
+    }
+
     /**
      * Get visit sessions by patient ID
      */
@@ -349,6 +398,7 @@ public class PatientVisitSessionService {
     /**
      * Get visit session statistics
      */
+    @Coalesced
     @Transactional(readOnly = true)
     public Object getVisitSessionStatistics(String startDate, String endDate) {
         log.info("Fetching visit session statistics from {} to {}", startDate, endDate);
@@ -392,6 +442,8 @@ public class PatientVisitSessionService {
         PatientVisitSession visitSession = patientVisitSessionRepository.findById(visitSessionId)
                 .orElseThrow(() -> new RuntimeException("Visit session not found with ID: " + visitSessionId));
         
+        PatientVisitSession.VisitStage previousStage = visitSession.getCurrentStage();
+        
         // Mark fee as paid
         visitSession.setConsultationFeePaid(true);
         visitSession.setPaymentMethod(PatientVisitSession.PaymentMethod.valueOf(paymentMethod.toUpperCase()));
@@ -407,6 +459,7 @@ public class PatientVisitSessionService {
         }
         
         PatientVisitSession saved = patientVisitSessionRepository.save(visitSession);
+        domainEventPublisher.publishStageChange(saved, previousStage);
         log.info("Consultation fee marked as paid for visit session ID: {}, progressing to triage stage", visitSessionId);
         
         return new PatientVisitSessionDto(saved);
@@ -473,6 +526,7 @@ public class PatientVisitSessionService {
         }
         
         PatientVisitSession saved = patientVisitSessionRepository.save(visitSession);
+        domainEventPublisher.publishStageChange(saved, currentStage);
         log.info("Visit session ID: {} progressed from {} to {}", visitSessionId, currentStage, nextStage);
         
         return new PatientVisitSessionDto(saved);
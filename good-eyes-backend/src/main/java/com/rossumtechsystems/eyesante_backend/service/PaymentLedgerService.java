@@ -0,0 +1,180 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import com.rossumtechsystems.eyesante_backend.dto.DailyTakingsDto;
+import com.rossumtechsystems.eyesante_backend.dto.PaymentDto;
+import com.rossumtechsystems.eyesante_backend.entity.Clinic;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.exception.ResourceConflictException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Posts payments to the append-only payments ledger and keeps the invoice's payment columns in
+ * step in the same transaction. The ledger row is written first, keyed by the client's
+ * idempotency key, so a retried request finds its own row and changes nothing; the invoice is then
+ * moved by a conditional UPDATE that only succeeds while the payment still fits in the balance.
+ * Concurrent payments on one invoice queue on its row lock and each sees the balance the previous
+ * one left, so none of them is lost and together they can never pay more than is due.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentLedgerService {
+
+    // The payment keeps its invoice's branch, so takings stay with the branch after the invoice is archived
+    private static final String INSERT_PAYMENT = """
+            INSERT INTO payments (invoice_id, amount, payment_method, payment_reference, idempotency_key,
+                                  received_at, created_by, clinic_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?, COALESCE((SELECT clinic_id FROM invoices WHERE id = ?), ?))
+            ON CONFLICT (idempotency_key) DO NOTHING
+            RETURNING id
+            """;
+
+    // Payment status follows Invoice.updatePaymentStatus; %s is the caller's branch
+    private static final String APPLY_PAYMENT = """
+            UPDATE invoices
+            SET amount_paid = COALESCE(amount_paid, 0) + ?,
+                balance_due = balance_due - ?,
+                payment_status = CASE WHEN balance_due - ? <= 0 THEN 'PAID' ELSE 'PARTIAL' END,
+                status = CASE WHEN balance_due - ? <= 0 THEN 'PAID' ELSE status END,
+                payment_method = ?, payment_reference = ?, payment_date = ?,
+                updated_at = ?, updated_by = ?
+            WHERE id = ? AND balance_due >= ? AND status NOT IN ('CANCELLED', 'REFUNDED') AND %s
+            RETURNING patient_id, payment_status
+            """;
+
+    private static final String PAYMENT_COLUMNS =
+            "id, invoice_id, amount, payment_method, payment_reference, received_at, created_by";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PatientTimelineCache patientTimelineCache;
+    private final TimeService timeService;
+    private final DomainEventPublisher domainEventPublisher;
+
+    /**
+     * Outcome of a post: the ledger row, whether it was already there (a retry), and whether this
+     * payment settled the invoice
+     */
+    public record PostedPayment(Long paymentId, Long invoiceId, boolean replayed, boolean settledInvoice) {}
+
+    private record AppliedPayment(Long patientId, String paymentStatus) {}
+
+    @Transactional
+    public PostedPayment post(Long invoiceId, BigDecimal amount, Invoice.PaymentMethod method, String reference,
+                              String idempotencyKey, String username) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Payment amount must be greater than zero");
+        }
+        if (method == null) {
+            throw new IllegalArgumentException("Payment method is required");
+        }
+        LocalDateTime now = timeService.getCurrentDateTime();
+
+        List<Long> inserted = jdbcTemplate.queryForList(INSERT_PAYMENT, Long.class,
+                invoiceId, amount, method.name(), reference, idempotencyKey, now, username, invoiceId,
+                Clinic.MAIN_CLINIC_ID);
+        if (inserted.isEmpty()) {
+            return replay(invoiceId, amount, idempotencyKey);
+        }
+
+        List<Object> args = new ArrayList<>(List.of(amount, amount, amount, amount, method.name()));
+        args.addAll(Arrays.asList(reference, now, now, username, invoiceId, amount));
+        List<AppliedPayment> applied = jdbcTemplate.query(APPLY_PAYMENT.formatted(BranchContext.sqlPredicate("clinic_id", args)),
+                (rs, rowNum) -> new AppliedPayment(rs.getLong("patient_id"), rs.getString("payment_status")),
+                args.toArray());
+        if (applied.isEmpty()) {
+            // Rolls back the ledger row with the transaction
+            throw rejection(invoiceId, amount);
+        }
+        patientTimelineCache.evictPatient(applied.get(0).patientId());
+        boolean settled = "PAID".equals(applied.get(0).paymentStatus());
+        if (settled) {
+            domainEventPublisher.publish(DomainEvent.Type.INVOICE_PAID, invoiceId, Map.of(
+                    "patientId", applied.get(0).patientId(), "paymentId", inserted.get(0),
+                    "amount", amount, "paymentMethod", method));
+        }
+        return new PostedPayment(inserted.get(0), invoiceId, false, settled);
+    }
+
+    /**
+     * A key seen before must describe the same payment; anything else is a client bug, not a retry
+     */
+    private PostedPayment replay(Long invoiceId, BigDecimal amount, String idempotencyKey) {
+        PaymentDto existing = jdbcTemplate.query("SELECT " + PAYMENT_COLUMNS + " FROM payments WHERE idempotency_key = ?",
+                new BeanPropertyRowMapper<>(PaymentDto.class), idempotencyKey).get(0);
+        if (!existing.getInvoiceId().equals(invoiceId) || existing.getAmount().compareTo(amount) != 0) {
+            throw new ResourceConflictException("Idempotency key '" + idempotencyKey
+                    + "' was already used for a payment of " + existing.getAmount() + " on invoice " + existing.getInvoiceId());
+        }
+        return new PostedPayment(existing.getId(), invoiceId, true, false);
+    }
+
+    private RuntimeException rejection(Long invoiceId, BigDecimal amount) {
+        List<Object> args = new ArrayList<>(List.of(invoiceId));
+        List<Map<String, Object>> invoice = jdbcTemplate.queryForList(
+                "SELECT status, balance_due FROM invoices WHERE id = ? AND " + BranchContext.sqlPredicate("clinic_id", args),
+                args.toArray());
+        if (invoice.isEmpty()) {
+            return new RuntimeException("Invoice not found with ID: " + invoiceId);
+        }
+        Object status = invoice.get(0).get("status");
+        if ("CANCELLED".equals(status) || "REFUNDED".equals(status)) {
+            return new RuntimeException("Payments cannot be posted to a " + status + " invoice");
+        }
+        return new ResourceConflictException("Payment of " + amount + " exceeds the balance due of "
+                + invoice.get(0).get("balance_due") + " on invoice " + invoiceId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PaymentDto> getPayments(Long invoiceId) {
+        List<Object> args = new ArrayList<>(List.of(invoiceId));
+        return jdbcTemplate.query("SELECT " + PAYMENT_COLUMNS + " FROM payments WHERE invoice_id = ? AND "
+                        + BranchContext.sqlPredicate("clinic_id", args) + " ORDER BY id",
+                new BeanPropertyRowMapper<>(PaymentDto.class), args.toArray());
+    }
+
+    /**
+     * Money received per payment method between the two dates (inclusive)
+     */
+    @Transactional(readOnly = true)
+    public Map<Invoice.PaymentMethod, BigDecimal> getTakingsByMethod(LocalDate startDate, LocalDate endDate) {
+        Map<Invoice.PaymentMethod, BigDecimal> takings = new EnumMap<>(Invoice.PaymentMethod.class);
+        List<Object> args = new ArrayList<>(List.of(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay()));
+        jdbcTemplate.query("""
+                SELECT payment_method, SUM(amount) AS amount FROM payments
+                WHERE received_at >= ? AND received_at < ? AND %s
+                GROUP BY payment_method
+                """.formatted(BranchContext.sqlPredicate("clinic_id", args)), rs -> {
+            takings.put(Invoice.PaymentMethod.valueOf(rs.getString("payment_method")), rs.getBigDecimal("amount"));
+        }, args.toArray());
+        return takings;
+    }
+
+    /**
+     * Money received per day and payment method between the two dates (inclusive)
+     */
+    @Transactional(readOnly = true)
+    public List<DailyTakingsDto> getDailyTakings(LocalDate startDate, LocalDate endDate) {
+        List<Object> args = new ArrayList<>(List.of(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay()));
+        return jdbcTemplate.query("""
+                SELECT received_at::DATE AS date, payment_method, COUNT(*) AS payment_count, SUM(amount) AS amount
+                FROM payments
+                WHERE received_at >= ? AND received_at < ? AND %s
+                GROUP BY received_at::DATE, payment_method
+                ORDER BY date, payment_method
+                """.formatted(BranchContext.sqlPredicate("clinic_id", args)),
+                new BeanPropertyRowMapper<>(DailyTakingsDto.class), args.toArray());
+    }
+}
@@ -0,0 +1,256 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import com.rossumtechsystems.eyesante_backend.dto.ReceivableAgingDto;
+import com.rossumtechsystems.eyesante_backend.dto.ReceivableAgingInvoiceDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Receivables aging over the receivable_aging table (V88): one row per open invoice with its
+ * balance, the patient, insurer and doctor it is owed through, and its age bucket. A trigger on
+ * invoices keeps the rows in step with payments and status changes as they commit; the nightly
+ * refresh moves rows into older buckets as they age and repairs any drift. Summaries are GROUP BYs
+ * over this table, which only ever holds the open invoices, so the invoices table is never scanned.
+ * Each row carries its invoice's branch (V92), and callers in a branch see only its receivables.
+ */
+@Service
+@Slf4j
+public class ReceivableAgingService implements ScheduledJob {
+
+    public enum AgeBucket { DAYS_0_30, DAYS_31_60, DAYS_61_90, DAYS_90_PLUS }
+
+    public enum Dimension {
+        PATIENT("patient_id::TEXT", "MAX(patient_name)"),
+        INSURER("COALESCE(insurance_provider, '')",
+                "CASE WHEN COALESCE(insurance_provider, '') = '' THEN 'Self-pay' ELSE MAX(insurance_provider) END"),
+        DOCTOR("user_id::TEXT", "COALESCE(MAX(doctor_name), 'Unassigned')");
+
+        private final String keyColumn;
+        private final String labelColumn;
+
+        Dimension(String keyColumn, String labelColumn) {
+            this.keyColumn = keyColumn;
+            this.labelColumn = labelColumn;
+        }
+    }
+
+    public record RefreshResult(int rebucketed, int removed, int resynced) {}
+
+    private static final String BUCKET_SUMS = """
+            COALESCE(SUM(balance_due) FILTER (WHERE age_bucket = 'DAYS_0_30'), 0) AS days0to30,
+            COALESCE(SUM(balance_due) FILTER (WHERE age_bucket = 'DAYS_31_60'), 0) AS days31to60,
+            COALESCE(SUM(balance_due) FILTER (WHERE age_bucket = 'DAYS_61_90'), 0) AS days61to90,
+            COALESCE(SUM(balance_due) FILTER (WHERE age_bucket = 'DAYS_90_PLUS'), 0) AS days90plus,
+            COALESCE(SUM(balance_due), 0) AS total,
+            COUNT(*) AS invoice_count
+            """;
+
+    private static final String INVOICE_COLUMNS = """
+            invoice_id, invoice_number, invoice_date, due_date, patient_id, patient_name, patient_phone,
+            insurance_provider, user_id, doctor_name, total_amount, balance_due, age_bucket,
+            ?::DATE - invoice_date AS days_outstanding
+            """;
+
+    // Open invoices as sync_receivable_aging defines them
+    private static final String OPEN_INVOICE = "i.balance_due > 0 AND i.status NOT IN ('PAID', 'CANCELLED', 'REFUNDED', 'DRAFT')";
+
+    private static final String REBUCKET_SQL = """
+            UPDATE receivable_aging
+            SET age_bucket = receivable_age_bucket(invoice_date), refreshed_at = CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala'
+            WHERE age_bucket <> receivable_age_bucket(invoice_date)
+            """;
+
+    private static final String REMOVE_CLOSED_SQL = """
+            DELETE FROM receivable_aging ra
+            WHERE NOT EXISTS (SELECT 1 FROM invoices i
+                              WHERE i.id = ra.invoice_id AND i.invoice_date = ra.invoice_date AND %s)
+            """.formatted(OPEN_INVOICE);
+
+    private static final String RESYNC_OPEN_SQL = """
+            SELECT sync_receivable_aging(i.id, i.invoice_date)
+            FROM invoices i
+            LEFT JOIN receivable_aging ra ON ra.invoice_id = i.id
+            WHERE %s
+              AND (ra.invoice_id IS NULL
+                   OR (ra.balance_due, ra.total_amount, ra.due_date, ra.patient_id, ra.insurance_provider, ra.user_id, ra.clinic_id)
+                      IS DISTINCT FROM (i.balance_due, i.total_amount, i.due_date, i.patient_id, i.insurance_provider, i.user_id, i.clinic_id))
+            """.formatted(OPEN_INVOICE);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TimeService timeService;
+    private final boolean enabled;
+    private final String cron;
+
+    // Default cron: just after midnight, when every open invoice is a day older
+    public ReceivableAgingService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  TimeService timeService,
+                                  @Value("${app.receivables.aging.enabled:true}") boolean enabled,
+                                  @Value("${app.receivables.aging.cron:0 15 0 * * *}") String cron) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timeService = timeService;
+        this.enabled = enabled;
+        this.cron = cron;
+    }
+
+    @Override
+    public String getJobName() {
+        return "receivables-aging-refresh";
+    }
+
+    @Override
+    public String getCron() {
+        return cron;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public JobResult run(Context context) {
+        RefreshResult result = refresh();
+        return new JobResult(result.rebucketed() + result.removed() + result.resynced(), result.toString());
+    }
+
+    /**
+     * Re-buckets rows that have aged past a boundary, drops rows whose invoice is no longer open
+     * and re-syncs open invoices that are missing or differ
+     */
+    public RefreshResult refresh() {
+        RefreshResult result = transactionTemplate.execute(status -> new RefreshResult(
+                jdbcTemplate.update(REBUCKET_SQL),
+                jdbcTemplate.update(REMOVE_CLOSED_SQL),
+                jdbcTemplate.query(RESYNC_OPEN_SQL, (rs, rowNum) -> rowNum).size()));
+        if (result.removed() > 0 || result.resynced() > 0) {
+            log.warn("Receivables aging refresh moved {} rows to older buckets and repaired drift: {} removed, {} re-synced",
+                    result.rebucketed(), result.removed(), result.resynced());
+        } else {
+            log.info("Receivables aging refresh moved {} rows to older buckets", result.rebucketed());
+        }
+        return result;
+    }
+
+    /**
+     * Bucket totals for the caller's branch, or every branch outside one
+     */
+    @Transactional(readOnly = true)
+    public ReceivableAgingDto getSummary() {
+        List<Object> args = new ArrayList<>();
+        ReceivableAgingDto summary = jdbcTemplate.queryForObject("SELECT " + BUCKET_SUMS + " FROM receivable_aging WHERE "
+                        + BranchContext.sqlPredicate("clinic_id", args),
+                new BeanPropertyRowMapper<>(ReceivableAgingDto.class), args.toArray());
+        summary.setLabel("All receivables");
+        return summary;
+    }
+
+    /**
+     * Bucket totals per patient, insurer or doctor, largest debt first
+     */
+    @Transactional(readOnly = true)
+    public Page<ReceivableAgingDto> getByDimension(Dimension dimension, Pageable pageable) {
+        List<Object> args = new ArrayList<>();
+        String from = " FROM receivable_aging WHERE " + BranchContext.sqlPredicate("clinic_id", args)
+                + " GROUP BY " + dimension.keyColumn;
+        List<Object> pageArgs = new ArrayList<>(args);
+        pageArgs.add(pageable.getPageSize());
+        pageArgs.add(pageable.getOffset());
+        List<ReceivableAgingDto> rows = jdbcTemplate.query("SELECT " + dimension.keyColumn + " AS key, "
+                        + dimension.labelColumn + " AS label, " + BUCKET_SUMS + from
+                        + " ORDER BY total DESC, key LIMIT ? OFFSET ?",
+                new BeanPropertyRowMapper<>(ReceivableAgingDto.class), pageArgs.toArray());
+        Long groups = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT 1" + from + ") g", Long.class,
+                args.toArray());
+        return new PageImpl<>(rows, pageable, groups);
+    }
+
+    /**
+     * Open invoices behind the aging figures, oldest first. Every filter is optional; an empty
+     * insurance provider selects self-pay invoices.
+     */
+    @Transactional(readOnly = true)
+    public Page<ReceivableAgingInvoiceDto> getInvoices(AgeBucket bucket, Long patientId, String insuranceProvider,
+                                                       Long userId, boolean overdueOnly, Pageable pageable) {
+        LocalDate today = timeService.getCurrentDate();
+        List<Object> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder(" FROM receivable_aging WHERE ")
+                .append(BranchContext.sqlPredicate("clinic_id", args));
+        if (bucket != null) {
+            where.append(" AND age_bucket = ?");
+            args.add(bucket.name());
+        }
+        if (patientId != null) {
+            where.append(" AND patient_id = ?");
+            args.add(patientId);
+        }
+        if (insuranceProvider != null) {
+            where.append(" AND COALESCE(insurance_provider, '') = ?");
+            args.add(insuranceProvider.trim());
+        }
+        if (userId != null) {
+            where.append(" AND user_id = ?");
+            args.add(userId);
+        }
+        if (overdueOnly) {
+            where.append(" AND due_date < ?");
+            args.add(today);
+        }
+
+        List<Object> pageArgs = new ArrayList<>();
+        pageArgs.add(today);
+        pageArgs.addAll(args);
+        pageArgs.add(pageable.getPageSize());
+        pageArgs.add(pageable.getOffset());
+        List<ReceivableAgingInvoiceDto> rows = jdbcTemplate.query("SELECT " + INVOICE_COLUMNS + where
+                        + " ORDER BY invoice_date, invoice_id LIMIT ? OFFSET ?",
+                new BeanPropertyRowMapper<>(ReceivableAgingInvoiceDto.class), pageArgs.toArray());
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*)" + where, Long.class, args.toArray());
+        return new PageImpl<>(rows, pageable, total);
+    }
+
+    /**
+     * IDs of open invoices past their due date, earliest due first
+     */
+    @Transactional(readOnly = true)
+    public Page<Long> getOverdueInvoiceIds(Pageable pageable) {
+        List<Object> args = new ArrayList<>(List.of(timeService.getCurrentDate()));
+        String where = " FROM receivable_aging WHERE due_date < ? AND " + BranchContext.sqlPredicate("clinic_id", args);
+        List<Object> pageArgs = new ArrayList<>(args);
+        pageArgs.add(pageable.getPageSize());
+        pageArgs.add(pageable.getOffset());
+        List<Long> ids = jdbcTemplate.queryForList("SELECT invoice_id" + where
+                + " ORDER BY due_date, invoice_id LIMIT ? OFFSET ?", Long.class, pageArgs.toArray());
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*)" + where, Long.class, args.toArray());
+        return new PageImpl<>(ids, pageable, total);
+    }
+
+    /**
+     * Balance still owed on invoices dated in the range that are past their due date
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalOverdue(LocalDate startDate, LocalDate endDate) {
+        List<Object> args = new ArrayList<>(List.of(startDate, endDate, timeService.getCurrentDate()));
+        return jdbcTemplate.queryForObject("""
+                SELECT COALESCE(SUM(balance_due), 0) FROM receivable_aging
+                WHERE invoice_date BETWEEN ? AND ? AND due_date < ? AND %s
+                """.formatted(BranchContext.sqlPredicate("clinic_id", args)), BigDecimal.class, args.toArray());
+    }
+}
@@ -0,0 +1,172 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-flight execution of {@link Coalesced} methods. The first call for a method and argument
+ * list runs it; equal calls arriving while it runs wait for that run instead of starting their own,
+ * and equal calls within the method's window after it finishes get its result straight away.
+ * Failures are handed to the calls that waited on them but never kept.
+ *
+ * <p>Runs outside the method's transaction, so waiting callers hold no connection. Entries are
+ * per node; with several replicas each runs a query at most once per window.
+ */
+@Slf4j
+@Service
+public class RequestCoalescer {
+
+    public record MethodStats(String method, long calls, long executions, long joined, long cacheHits,
+                              long failures, double coalescingRatio) {}
+
+    // Queries see only the caller's branch, so results are shared within a branch only
+    private record Key(Method method, List<Object> args, Long clinicId) {
+
+        static Key of(Method method, Object[] args) {
+            // Array arguments (varargs) as lists, so they compare by content like the others
+            List<Object> values = new ArrayList<>(args.length);
+            for (Object arg : args) {
+                values.add(arg instanceof Object[] array ? Arrays.asList(array) : arg);
+            }
+            return new Key(method, values, BranchContext.currentClinicId());
+        }
+    }
+
+    private static final class Entry {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        volatile long completedAt;
+
+        boolean expired(long now, long ttlNanos) {
+            return result.isDone() && now - completedAt >= ttlNanos;
+        }
+    }
+
+    private static final class Counters {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong executions = new AtomicLong();
+        final AtomicLong joined = new AtomicLong();
+        final AtomicLong cacheHits = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+    }
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long defaultTtlMillis;
+    private final int maxEntries;
+
+    public RequestCoalescer(
+            @Value("${app.coalescing.enabled:true}") boolean enabled,
+            @Value("${app.coalescing.ttl-ms:2000}") long defaultTtlMillis,
+            @Value("${app.coalescing.max-entries:1000}") int maxEntries) {
+        this.enabled = enabled;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Run {@code invocation} or share an equal call's result
+     */
+    public Object invoke(MethodInvocation invocation, Coalesced coalesced) throws Throwable {
+        if (!enabled) {
+            return invocation.proceed();
+        }
+        Method method = invocation.getMethod();
+        Counters stats = counters.computeIfAbsent(name(method), k -> new Counters());
+        stats.calls.incrementAndGet();
+        long ttlNanos = (coalesced.ttlMillis() >= 0 ? coalesced.ttlMillis() : defaultTtlMillis) * 1_000_000L;
+        Key key = Key.of(method, invocation.getArguments());
+
+        while (true) {
+            Entry mine = new Entry();
+            Entry existing = entries.putIfAbsent(key, mine);
+            if (existing == null) {
+                return execute(invocation, key, mine, ttlNanos, stats);
+            }
+            if (existing.expired(System.nanoTime(), ttlNanos)) {
+                entries.remove(key, existing);
+                continue;
+            }
+            (existing.result.isDone() ? stats.cacheHits : stats.joined).incrementAndGet();
+            return await(existing);
+        }
+    }
+
+    private Object execute(MethodInvocation invocation, Key key, Entry mine, long ttlNanos, Counters stats)
+            throws Throwable {
+        stats.executions.incrementAndGet();
+        try {
+            Object result = invocation.proceed();
+            mine.completedAt = System.nanoTime();
+            mine.result.complete(result);
+            if (ttlNanos == 0) {
+                entries.remove(key, mine);
+            } else if (entries.size() > maxEntries) {
+                evictExpired(ttlNanos);
+            }
+            return result;
+        } catch (Throwable e) {
+            stats.failures.incrementAndGet();
+            entries.remove(key, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Object await(Entry entry) throws Throwable {
+        try {
+            return entry.result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * Drop finished entries past the window, judged by the current call's window; an entry of a
+     * method with a longer window is only recomputed early
+     */
+    private void evictExpired(long ttlNanos) {
+        long now = System.nanoTime();
+        int before = entries.size();
+        entries.entrySet().removeIf(e -> e.getValue().expired(now, ttlNanos));
+        log.debug("Evicted {} expired coalescing entries", before - entries.size());
+    }
+
+    /**
+     * Per method: calls, executions, calls that joined a running execution, calls answered from a
+     * finished one, and the share of calls that did not execute
+     */
+    public List<MethodStats> getStats() {
+        return counters.entrySet().stream()
+                .map(e -> {
+                    Counters c = e.getValue();
+                    long calls = c.calls.get();
+                    long executions = c.executions.get();
+                    return new MethodStats(e.getKey(), calls, executions, c.joined.get(), c.cacheHits.get(),
+                            c.failures.get(), calls == 0 ? 0 : (double) (calls - executions) / calls);
+                })
+                .sorted(Comparator.comparing(MethodStats::method))
+                .toList();
+    }
+
+    private static String name(Method method) {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+}
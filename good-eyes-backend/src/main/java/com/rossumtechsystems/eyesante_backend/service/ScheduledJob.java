@@ -0,0 +1,64 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+/**
+ * Background work run by {@link JobSchedulerService}: on its cron, on one node of the cluster at a
+ * time, with every run recorded in scheduled_job_runs. Each job keeps its own enabled flag and
+ * cron under its own {@code app.*} section.
+ */
+public interface ScheduledJob {
+
+    String getJobName();
+
+    String getCron();
+
+    boolean isEnabled();
+
+    /**
+     * Also run once when the application is ready, for jobs the application depends on (partitions)
+     */
+    default boolean isRunOnStartup() {
+        return false;
+    }
+
+    JobResult run(Context context);
+
+    record JobResult(long processed, String detail) {
+    }
+
+    /**
+     * What a run can see of the runner. Chunked jobs resume from {@link #checkpoint()}, save their
+     * position after each chunk (inside the chunk's transaction when there is one, so work and
+     * position commit together), and end early once {@link #shouldStop()}; the next run carries on
+     * from the checkpoint.
+     */
+    interface Context {
+
+        long checkpoint();
+
+        void saveCheckpoint(long position);
+
+        boolean shouldStop();
+
+        /**
+         * For calls outside the runner (load tests, direct service calls): start at the beginning,
+         * keep no position, never stop early
+         */
+        static Context detached() {
+            return new Context() {
+                @Override
+                public long checkpoint() {
+                    return 0L;
+                }
+
+                @Override
+                public void saveCheckpoint(long position) {
+                }
+
+                @Override
+                public boolean shouldStop() {
+                    return false;
+                }
+            };
+        }
+    }
+}
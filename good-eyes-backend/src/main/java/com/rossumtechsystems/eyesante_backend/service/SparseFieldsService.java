@@ -0,0 +1,72 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import com.rossumtechsystems.eyesante_backend.util.SparseFields;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pages of {@code ?fields=} rows: one query selecting only the requested columns, read straight
+ * into maps keyed by field name, with no entity or DTO built on the way. Dates come back as
+ * LocalDate/LocalDateTime rather than JDBC types, so they serialise as java.time values.
+ *
+ * <p>Plain SQL is not covered by the Hibernate branch filter, so lists over branch-scoped tables
+ * add the caller's branch to the WHERE clause here.
+ */
+@Service
+@RequiredArgsConstructor
+public class SparseFieldsService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param where filter on the definition's FROM clause, with {@code ?} for each of {@code args}
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> page(SparseFields definition, String fields, String where,
+                                          Pageable pageable, Object... args) {
+        List<String> names = definition.parse(fields);
+        List<Object> whereArgs = new ArrayList<>(List.of(args));
+        Long clinicId = BranchContext.currentClinicId();
+        if (definition.getBranchColumn() != null && clinicId != null) {
+            where = definition.getBranchColumn() + " = ? AND (" + where + ")";
+            whereArgs.add(0, clinicId);
+        }
+        String sql = "SELECT " + definition.selectList(names) + " FROM " + definition.getFrom()
+                + " WHERE " + where + " ORDER BY " + definition.orderBy(pageable.getSort());
+        List<Object> params = new ArrayList<>(whereArgs);
+        if (pageable.isPaged()) {
+            sql += " LIMIT ? OFFSET ?";
+            params.add(pageable.getPageSize());
+            params.add(pageable.getOffset());
+        }
+        List<Map<String, Object>> rows = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                Object value = rs.getObject(i + 1);
+                if (value instanceof Timestamp timestamp) {
+                    value = timestamp.toLocalDateTime();
+                } else if (value instanceof Date date) {
+                    value = date.toLocalDate();
+                }
+                row.put(names.get(i), value);
+            }
+            return row;
+        }, params.toArray());
+        Long total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + definition.getFrom() + " WHERE " + where, Long.class, whereArgs.toArray());
+        return new PageImpl<>(rows, pageable, total);
+    }
+}
@@ -17,6 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.Optional;
@@ -58,6 +59,9 @@ public class TheaterRequisitionService {
     @Autowired
     private TheaterStoreItemRepository theaterStoreItemRepository;
     
+    @Autowired
+    private DomainEventPublisher domainEventPublisher;
+    
     // Create a new requisition
     public TheaterRequisitionDto createRequisition(CreateTheaterRequisitionRequest request) {
         // Validate required fields
@@ -196,6 +200,13 @@ public class TheaterRequisitionService {
             }
             
             TheaterRequisition saved = requisitionRepository.save(requisition);
+            if (saved.getStatus() == TheaterRequisition.RequisitionStatus.APPROVED) {
+                domainEventPublisher.publish(DomainEvent.Type.REQUISITION_APPROVED, saved.getId(),
+                        Map.of("approvedBy", currentUser.getUsername()));
+            } else if (saved.getStatus() == TheaterRequisition.RequisitionStatus.REJECTED) {
+                domainEventPublisher.publish(DomainEvent.Type.REQUISITION_REJECTED, saved.getId(),
+                        Map.of("rejectedBy", currentUser.getUsername()));
+            }
             return TheaterRequisitionDto.fromEntity(saved);
         }
         throw new RuntimeException("Requisition not found");
@@ -253,6 +264,7 @@ public class TheaterRequisitionService {
             BigDecimal newStock = availableStock.subtract(quantityToTransfer);
             consumableItem.setCurrentStock(newStock);
             consumableItemRepository.save(consumableItem);
+            domainEventPublisher.publishStockMove(consumableItem, quantityToTransfer.negate(), "TRANSFER");
             log.info("Reduced stock for item: {} (ID: {}) from {} to {}", 
                 consumableItem.getName(), consumableItem.getId(), availableStock, newStock);
             
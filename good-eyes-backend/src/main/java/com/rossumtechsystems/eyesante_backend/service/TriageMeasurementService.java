@@ -26,6 +26,7 @@ public class TriageMeasurementService {
 
     private final TriageMeasurementRepository triageMeasurementRepository;
     private final PatientVisitSessionRepository patientVisitSessionRepository;
+    private final DomainEventPublisher domainEventPublisher;
 
     /**
      * Create triage measurement
@@ -50,9 +51,11 @@ public class TriageMeasurementService {
         TriageMeasurement saved = triageMeasurementRepository.save(triageMeasurement);
         Optional<PatientVisitSession> patientVisitSession = patientVisitSessionRepository.findById(triageMeasurement.getVisitSession().getId());
         if (patientVisitSession.isPresent()) {
+            VisitStage previousStage = patientVisitSession.get().getCurrentStage();
             patientVisitSession.get().setStatus(VisitStatus.TRIAGE_COMPLETED);
             patientVisitSession.get().setCurrentStage(VisitStage.BASIC_REFRACTION_EXAM);
             patientVisitSessionRepository.save(patientVisitSession.get());
+            domainEventPublisher.publishStageChange(patientVisitSession.get(), previousStage);
         }
         
         // Fetch the saved entity with eager loading to avoid lazy loading issues
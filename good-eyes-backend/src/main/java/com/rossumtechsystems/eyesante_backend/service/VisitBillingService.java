@@ -0,0 +1,327 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import com.rossumtechsystems.eyesante_backend.dto.BillVisitRequest;
+import com.rossumtechsystems.eyesante_backend.dto.CreateInvoiceFromItemsRequest;
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceDto;
+import com.rossumtechsystems.eyesante_backend.entity.InventoryItem;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.entity.InvoiceItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bills everything outstanding on a visit in one transaction: unbilled procedures, investigations
+ * and treatments plus the optical items picked at the desk are gathered with one query per
+ * category, priced in one pass, written as a single invoice (or one per category) with a JDBC
+ * batch for the items, and flagged as billed with one UPDATE per table.
+ */
+@Service
+@RequiredArgsConstructor
+public class VisitBillingService {
+
+    static final String VISIT_INVOICE_PURPOSE = "VISIT_INVOICE_BILL";
+
+    private static final BigDecimal VAT_PERCENTAGE = new BigDecimal("18.00");
+
+    private static final String INSERT_ITEM = """
+            INSERT INTO invoice_items (invoice_id, invoice_date, item_name, item_description, item_type, quantity,
+                                       unit_price, total_price, discount_percentage, discount_amount, final_price,
+                                       tax_percentage, tax_amount, insurance_covered, insurance_coverage_percentage,
+                                       insurance_amount, notes, inventory_item_id, sku, created_at, updated_at,
+                                       created_by, updated_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FinanceService financeService;
+    private final PatientTimelineCache patientTimelineCache;
+    private final TimeService timeService;
+
+    /**
+     * What a visit can be billed for; the purpose and notes match the per-category invoices
+     */
+    enum Category {
+        PROCEDURE("PROCEDURES_INVOICE_BILL", "submitted procedures", "patient_procedures"),
+        INVESTIGATION("INVESTIGATION_INVOICE_BILL", "submitted investigations", "patient_investigations"),
+        TREATMENT("TREATMENT_INVOICE_BILL", "submitted treatments", "patient_treatments"),
+        OPTICS("OPTICS_INVOICE_BILL", "selected items", null);
+
+        private final String purpose;
+        private final String source;
+        private final String billedTable;
+
+        Category(String purpose, String source, String billedTable) {
+            this.purpose = purpose;
+            this.source = source;
+            this.billedTable = billedTable;
+        }
+    }
+
+    private record Biller(Long id, String name) {}
+
+    private record Visit(Long patientId, String patientName, String patientPhone, Long clinicId) {}
+
+    private record Line(Category category, Long sourceId, InvoiceItem item) {}
+
+    @Transactional
+    public List<InvoiceDto> billVisit(Long visitSessionId, BillVisitRequest request, String authenticatedUsername) {
+        Biller biller = jdbcTemplate.query(
+                "SELECT id, first_name, last_name FROM users WHERE username = ?",
+                rs -> rs.next() ? new Biller(rs.getLong("id"), rs.getString("first_name") + " " + rs.getString("last_name")) : null,
+                authenticatedUsername);
+        if (biller == null) {
+            throw new RuntimeException("User not found with username: " + authenticatedUsername);
+        }
+
+        // Locking the visit serialises concurrent billing of it; the FK checks of new procedures,
+        // investigations and treatments wait on the lock too. Another branch's visit is not found.
+        List<Object> visitArgs = new ArrayList<>(List.of(visitSessionId));
+        Visit visit = jdbcTemplate.query("""
+                SELECT p.id, p.first_name, p.last_name, p.phone, v.clinic_id
+                FROM patient_visit_sessions v
+                JOIN patients p ON p.id = v.patient_id
+                WHERE v.id = ? AND %s
+                FOR UPDATE OF v
+                """.formatted(BranchContext.sqlPredicate("v.clinic_id", visitArgs)), rs -> rs.next()
+                ? new Visit(rs.getLong("id"), rs.getString("first_name") + " " + rs.getString("last_name"), rs.getString("phone"),
+                        rs.getLong("clinic_id"))
+                : null, visitArgs.toArray());
+        if (visit == null) {
+            throw new RuntimeException("Visit session not found with ID: " + visitSessionId);
+        }
+
+        List<Line> lines = new ArrayList<>();
+        loadProcedures(visitSessionId, lines);
+        loadInvestigations(visitSessionId, lines);
+        loadTreatments(visitSessionId, lines);
+        loadOptics(request != null ? request.getOpticsItems() : null, lines);
+        if (lines.isEmpty()) {
+            throw new RuntimeException("Nothing left to bill for visit session ID: " + visitSessionId);
+        }
+
+        Map<Category, List<Line>> byCategory = new EnumMap<>(Category.class);
+        lines.forEach(line -> byCategory.computeIfAbsent(line.category(), c -> new ArrayList<>()).add(line));
+
+        Map<String, List<Line>> invoices = new LinkedHashMap<>();
+        if (request != null && request.isSeparateInvoices()) {
+            byCategory.forEach((category, categoryLines) -> invoices.put(category.purpose, categoryLines));
+        } else if (byCategory.size() == 1) {
+            invoices.put(byCategory.keySet().iterator().next().purpose, lines);
+        } else {
+            invoices.put(VISIT_INVOICE_PURPOSE, lines);
+        }
+
+        LocalDateTime now = timeService.getCurrentDateTime();
+        LocalDate today = now.toLocalDate();
+        List<Long> invoiceIds = new ArrayList<>();
+        List<Object[]> itemRows = new ArrayList<>();
+        for (Map.Entry<String, List<Line>> entry : invoices.entrySet()) {
+            String purpose = entry.getKey();
+            financeService.validateInvoiceCreationInterval(visit.patientId(), purpose);
+
+            Invoice invoice = new Invoice();
+            invoice.setInvoiceItems(entry.getValue().stream().map(Line::item).toList());
+            invoice.calculateTotals();
+
+            Long invoiceId = jdbcTemplate.queryForObject("""
+                    INSERT INTO invoices (invoice_number, invoice_date, due_date, patient_id, patient_name, patient_phone,
+                                          user_id, doctor_name, doctor_specialty, invoice_purpose, subtotal, tax_amount,
+                                          discount_amount, total_amount, amount_paid, balance_due, status, payment_status,
+                                          notes, clinic_id, created_at, updated_at, created_by, updated_by)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                    RETURNING id
+                    """, Long.class,
+                    // Each number is inserted before the next is generated, so they never collide
+                    financeService.generateInvoiceNumber(), today, today.plusDays(30),
+                    visit.patientId(), visit.patientName(), visit.patientPhone(),
+                    biller.id(), biller.name(), "Ophthalmology", purpose,
+                    invoice.getSubtotal(), invoice.getTaxAmount(), invoice.getDiscountAmount(), invoice.getTotalAmount(),
+                    invoice.getAmountPaid(), invoice.getBalanceDue(),
+                    invoice.getStatus().name(), invoice.getPaymentStatus().name(),
+                    // Invoices belong to the branch of the visit they bill
+                    notes(purpose, visitSessionId), visit.clinicId(), now, now, authenticatedUsername, authenticatedUsername);
+            invoiceIds.add(invoiceId);
+
+            for (Line line : entry.getValue()) {
+                InvoiceItem item = line.item();
+                itemRows.add(new Object[]{invoiceId, today, item.getItemName(), item.getItemDescription(), item.getItemType(),
+                        item.getQuantity(), item.getUnitPrice(), item.getTotalPrice(), item.getDiscountPercentage(),
+                        item.getDiscountAmount(), item.getFinalPrice(), item.getTaxPercentage(), item.getTaxAmount(),
+                        item.getInsuranceCovered(), item.getInsuranceCoveragePercentage(), item.getInsuranceAmount(),
+                        item.getNotes(), item.getInventoryItem() != null ? item.getInventoryItem().getId() : null,
+                        item.getSku(), now, now, authenticatedUsername, authenticatedUsername});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ITEM, itemRows);
+
+        byCategory.forEach((category, categoryLines) -> {
+            if (category.billedTable == null) {
+                return;
+            }
+            Long[] ids = categoryLines.stream().map(Line::sourceId).toArray(Long[]::new);
+            List<Object> args = new ArrayList<>(List.of(now, now, authenticatedUsername, ids));
+            int updated = jdbcTemplate.update("UPDATE " + category.billedTable
+                    + " SET billed = TRUE, billed_at = ?, updated_at = ?, updated_by = ? WHERE id = ANY(?) AND billed = FALSE AND "
+                    + visitInBranch("visit_session_id", args), args.toArray());
+            if (updated != ids.length) {
+                // Billed through a per-category invoice meanwhile; roll back rather than bill twice
+                throw new RuntimeException("Some " + category.name().toLowerCase() + " lines of visit session "
+                        + visitSessionId + " were billed concurrently, please retry");
+            }
+        });
+
+        // The bulk statements bypass the entity listeners that normally evict the timeline
+        patientTimelineCache.evictPatient(visit.patientId());
+        return financeService.getInvoicesByIds(invoiceIds);
+    }
+
+    private void loadProcedures(Long visitSessionId, List<Line> lines) {
+        List<Object> args = new ArrayList<>(List.of(visitSessionId));
+        jdbcTemplate.query("""
+                SELECT pp.id, pr.name, pr.description, pp.cost, pp.notes
+                FROM patient_procedures pp
+                JOIN procedures pr ON pr.id = pp.procedure_id
+                WHERE pp.visit_session_id = ? AND pp.billed = FALSE AND %s
+                ORDER BY pp.id
+                """.formatted(visitInBranch("pp.visit_session_id", args)), rs -> {
+            InvoiceItem item = newItem(rs.getString("name"), rs.getString("description"), "PROCEDURE",
+                    1, rs.getBigDecimal("cost"), rs.getString("notes"));
+            lines.add(new Line(Category.PROCEDURE, rs.getLong("id"), item));
+        }, args.toArray());
+    }
+
+    private void loadInvestigations(Long visitSessionId, List<Line> lines) {
+        List<Object> args = new ArrayList<>(List.of(visitSessionId));
+        jdbcTemplate.query("""
+                SELECT pi.id, it.name, it.description, pi.quantity, pi.cost, pi.notes
+                FROM patient_investigations pi
+                JOIN investigation_types it ON it.id = pi.investigation_type_id
+                WHERE pi.visit_session_id = ? AND pi.billed = FALSE AND %s
+                ORDER BY pi.id
+                """.formatted(visitInBranch("pi.visit_session_id", args)), rs -> {
+            Integer quantity = (Integer) rs.getObject("quantity");
+            BigDecimal cost = rs.getBigDecimal("cost");
+            InvoiceItem item = newItem(rs.getString("name"), rs.getString("description"), "INVESTIGATION",
+                    quantity == null ? 1 : quantity, cost == null ? BigDecimal.ZERO : cost, rs.getString("notes"));
+            lines.add(new Line(Category.INVESTIGATION, rs.getLong("id"), item));
+        }, args.toArray());
+    }
+
+    private void loadTreatments(Long visitSessionId, List<Line> lines) {
+        List<Object> args = new ArrayList<>(List.of(visitSessionId));
+        jdbcTemplate.query("""
+                SELECT id, inventory_item_id, item_name, sku, quantity, unit_price, notes
+                FROM patient_treatments
+                WHERE visit_session_id = ? AND billed = FALSE AND %s
+                ORDER BY id
+                """.formatted(visitInBranch("visit_session_id", args)), rs -> {
+            String sku = rs.getString("sku");
+            InvoiceItem item = newItem(rs.getString("item_name"), "Treatment item " + (sku != null ? "(" + sku + ")" : ""),
+                    "TREATMENT", rs.getInt("quantity"), rs.getBigDecimal("unit_price"), rs.getString("notes"));
+            item.setSku(sku);
+            item.setInventoryItem(inventoryReference(rs.getLong("inventory_item_id")));
+            lines.add(new Line(Category.TREATMENT, rs.getLong("id"), item));
+        }, args.toArray());
+    }
+
+    private void loadOptics(List<CreateInvoiceFromItemsRequest> selections, List<Line> lines) {
+        if (selections == null || selections.isEmpty()) {
+            return;
+        }
+        // The same frame picked twice is one line
+        Map<Long, CreateInvoiceFromItemsRequest> byItem = new LinkedHashMap<>();
+        for (CreateInvoiceFromItemsRequest selection : selections) {
+            if (selection.getItemId() == null || selection.getQuantity() == null || selection.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Each optics item needs an itemId and a positive quantity");
+            }
+            byItem.merge(selection.getItemId(), selection, (a, b) -> {
+                CreateInvoiceFromItemsRequest merged = new CreateInvoiceFromItemsRequest();
+                merged.setItemId(a.getItemId());
+                merged.setQuantity(a.getQuantity() + b.getQuantity());
+                merged.setNotes(a.getNotes() != null ? a.getNotes() : b.getNotes());
+                return merged;
+            });
+        }
+
+        Map<Long, Line> found = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                SELECT id, name, description, unit_price, quantity_in_stock, sku
+                FROM inventory_items
+                WHERE id = ANY(?)
+                """, rs -> {
+            CreateInvoiceFromItemsRequest selection = byItem.get(rs.getLong("id"));
+            Integer inStock = (Integer) rs.getObject("quantity_in_stock");
+            if (inStock == null || inStock < selection.getQuantity()) {
+                throw new RuntimeException("Insufficient stock for item: " + rs.getString("name"));
+            }
+            InvoiceItem item = newItem(rs.getString("name"), rs.getString("description"), "INVENTORY_ITEM",
+                    selection.getQuantity(), rs.getBigDecimal("unit_price"), selection.getNotes());
+            item.setSku(rs.getString("sku"));
+            item.setInventoryItem(inventoryReference(rs.getLong("id")));
+            found.put(rs.getLong("id"), new Line(Category.OPTICS, rs.getLong("id"), item));
+        }, (Object) byItem.keySet().toArray(Long[]::new));
+
+        for (Long itemId : byItem.keySet()) {
+            Line line = found.get(itemId);
+            if (line == null) {
+                throw new RuntimeException("Inventory item not found with ID: " + itemId);
+            }
+            lines.add(line);
+        }
+    }
+
+    private InvoiceItem newItem(String name, String description, String type, int quantity, BigDecimal unitPrice, String notes) {
+        InvoiceItem item = new InvoiceItem();
+        item.setItemName(name);
+        item.setItemDescription(description);
+        item.setItemType(type);
+        item.setQuantity(quantity);
+        item.setUnitPrice(unitPrice);
+        item.setDiscountPercentage(BigDecimal.ZERO);
+        item.setTaxPercentage(VAT_PERCENTAGE);
+        item.setInsuranceCovered(false);
+        item.setInsuranceCoveragePercentage(BigDecimal.ZERO);
+        item.setNotes(notes);
+        item.calculateTotals();
+        return item;
+    }
+
+    /**
+     * Per-visit rows are only read and flagged through a visit of the caller's branch
+     */
+    private static String visitInBranch(String visitColumn, List<Object> args) {
+        if (BranchContext.currentClinicId() == null) {
+            return "TRUE";
+        }
+        return "EXISTS (SELECT 1 FROM patient_visit_sessions v WHERE v.id = " + visitColumn
+                + " AND " + BranchContext.sqlPredicate("v.clinic_id", args) + ")";
+    }
+
+    // Only the ID is read, to link the item for the stock adjustment on payment
+    private static InventoryItem inventoryReference(long id) {
+        InventoryItem reference = new InventoryItem();
+        reference.setId(id);
+        return reference;
+    }
+
+    private static String notes(String purpose, Long visitSessionId) {
+        for (Category category : Category.values()) {
+            if (category.purpose.equals(purpose)) {
+                return "Invoice generated from " + category.source + " for visit session " + visitSessionId;
+            }
+        }
+        return "Invoice generated for all outstanding items of visit session " + visitSessionId;
+    }
+}
@@ -0,0 +1,212 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import com.rossumtechsystems.eyesante_backend.dto.PipelineBottleneckDto;
+import com.rossumtechsystems.eyesante_backend.dto.StageDwellStatsDto;
+import com.rossumtechsystems.eyesante_backend.dto.VisitStageTransitionDto;
+import com.rossumtechsystems.eyesante_backend.entity.PatientVisitSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wait-time analytics for the visit pipeline, read from the tables the stage transition trigger
+ * maintains (V83): the live queue in visit_stage_occupancy and per-day dwell histograms in
+ * visit_stage_dwell_daily. Percentiles are interpolated from the histogram buckets, so no query
+ * here touches patient_visit_sessions or grows with the number of visits. Both tables carry the
+ * visit's branch (V93), and callers in a branch see only its pipeline.
+ */
+@Service
+@RequiredArgsConstructor
+public class VisitPipelineAnalyticsService {
+
+    // Bucket lower bounds in minutes, as returned by visit_dwell_bucket_bounds() in V83
+    private static final double[] BUCKET_BOUNDS = {1, 2, 5, 10, 15, 20, 30, 45, 60, 90, 120, 180, 240, 360, 480};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TimeService timeService;
+
+    // Visits sitting in a stage longer than this are treated as abandoned, not waiting
+    @Value("${app.pipeline.active-window-hours:12}")
+    private long activeWindowHours;
+
+    /**
+     * Live view of the pipeline: who is waiting where now, and today's dwell times per stage
+     */
+    @Transactional(readOnly = true)
+    public PipelineBottleneckDto getBottlenecks() {
+        LocalDateTime now = timeService.getCurrentDateTime();
+        Map<String, StageDwellStatsDto> stages = loadDwellStats(now.toLocalDate(), now.toLocalDate());
+
+        List<Object> args = new ArrayList<>(List.of(now.minusHours(activeWindowHours)));
+        jdbcTemplate.query("""
+                SELECT stage, COUNT(*) AS waiting, MIN(entered_at) AS earliest
+                FROM visit_stage_occupancy
+                WHERE entered_at >= ? AND %s
+                GROUP BY stage
+                """.formatted(BranchContext.sqlPredicate("clinic_id", args)), rs -> {
+            StageDwellStatsDto stats = stages.computeIfAbsent(rs.getString("stage"), this::emptyStats);
+            stats.setWaitingNow(rs.getLong("waiting"));
+            Timestamp earliest = rs.getTimestamp("earliest");
+            stats.setLongestWaitMinutes(minutes(Duration.between(earliest.toLocalDateTime(), now).getSeconds()));
+        }, args.toArray());
+
+        StageDwellStatsDto bottleneck = null;
+        double bottleneckWait = 0;
+        for (StageDwellStatsDto stats : stages.values()) {
+            // Median dwell is the best estimate of service time; without history, fall back to the longest wait
+            Double perVisit = stats.getP50Minutes() != null ? stats.getP50Minutes() : stats.getLongestWaitMinutes();
+            double expectedWait = perVisit != null ? stats.getWaitingNow() * perVisit : 0;
+            if (expectedWait > bottleneckWait) {
+                bottleneck = stats;
+                bottleneckWait = expectedWait;
+            }
+        }
+
+        return new PipelineBottleneckDto(now,
+                bottleneck != null ? bottleneck.getStage() : null,
+                bottleneck != null ? round(bottleneckWait) : null,
+                new ArrayList<>(stages.values()));
+    }
+
+    /**
+     * Dwell-time statistics per stage for visits that left the stage between the two dates
+     */
+    @Transactional(readOnly = true)
+    public List<StageDwellStatsDto> getDwellStats(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+        return new ArrayList<>(loadDwellStats(startDate, endDate).values());
+    }
+
+    /**
+     * Every stage and status change of one visit, oldest first; empty for another branch's visit
+     */
+    @Transactional(readOnly = true)
+    public List<VisitStageTransitionDto> getStageHistory(Long visitSessionId) {
+        List<Object> args = new ArrayList<>(List.of(visitSessionId, visitSessionId));
+        // An archived visit has no branch left to check and stays readable
+        return jdbcTemplate.query("""
+                SELECT id, visit_session_id, from_stage, to_stage, from_status, to_status, changed_at, dwell_seconds, changed_by
+                FROM visit_stage_transitions
+                WHERE visit_session_id = ?
+                  AND NOT EXISTS (SELECT 1 FROM patient_visit_sessions v WHERE v.id = ? AND NOT (%s))
+                ORDER BY id
+                """.formatted(BranchContext.sqlPredicate("v.clinic_id", args)), (rs, rowNum) -> new VisitStageTransitionDto(
+                rs.getLong("id"),
+                rs.getLong("visit_session_id"),
+                rs.getString("from_stage"),
+                rs.getString("to_stage"),
+                rs.getString("from_status"),
+                rs.getString("to_status"),
+                rs.getTimestamp("changed_at").toLocalDateTime(),
+                (Integer) rs.getObject("dwell_seconds"),
+                rs.getString("changed_by")), args.toArray());
+    }
+
+    private Map<String, StageDwellStatsDto> loadDwellStats(LocalDate startDate, LocalDate endDate) {
+        Map<String, StageDwellStatsDto> stages = new LinkedHashMap<>();
+        for (PatientVisitSession.VisitStage stage : PatientVisitSession.VisitStage.values()) {
+            if (stage != PatientVisitSession.VisitStage.COMPLETED) {
+                stages.put(stage.name(), emptyStats(stage.name()));
+            }
+        }
+
+        Map<String, long[]> histograms = new LinkedHashMap<>();
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        List<Object> args = new ArrayList<>(List.of(startDate, endDate));
+        // Outside a branch, one row per branch and day; they add up like days do
+        jdbcTemplate.query("""
+                SELECT stage, visit_count, total_seconds, max_seconds, bucket_counts
+                FROM visit_stage_dwell_daily
+                WHERE day BETWEEN ? AND ? AND %s
+                """.formatted(BranchContext.sqlPredicate("clinic_id", args)), rs -> {
+            String stage = rs.getString("stage");
+            long[] histogram = histograms.computeIfAbsent(stage, s -> new long[BUCKET_BOUNDS.length + 1]);
+            Integer[] buckets = (Integer[]) rs.getArray("bucket_counts").getArray();
+            for (int i = 0; i < Math.min(buckets.length, histogram.length); i++) {
+                histogram[i] += buckets[i];
+            }
+            long[] sums = totals.computeIfAbsent(stage, s -> new long[3]);
+            sums[0] += rs.getLong("visit_count");
+            sums[1] += rs.getLong("total_seconds");
+            sums[2] = Math.max(sums[2], rs.getLong("max_seconds"));
+        }, args.toArray());
+
+        totals.forEach((stage, sums) -> {
+            StageDwellStatsDto stats = stages.computeIfAbsent(stage, this::emptyStats);
+            long[] histogram = histograms.get(stage);
+            double maxMinutes = sums[2] / 60.0;
+            stats.setCompletedCount(sums[0]);
+            stats.setAverageMinutes(sums[0] > 0 ? minutes(sums[1] / sums[0]) : null);
+            stats.setP50Minutes(percentile(histogram, sums[0], 0.50, maxMinutes));
+            stats.setP90Minutes(percentile(histogram, sums[0], 0.90, maxMinutes));
+            stats.setP95Minutes(percentile(histogram, sums[0], 0.95, maxMinutes));
+            stats.setMaxMinutes(round(maxMinutes));
+        });
+
+        Map<String, StageDwellStatsDto> ordered = new LinkedHashMap<>();
+        stages.values().stream()
+                .sorted(Comparator.comparingInt(stats -> stageOrder(stats.getStage())))
+                .forEach(stats -> ordered.put(stats.getStage(), stats));
+        return ordered;
+    }
+
+    /**
+     * Percentile by linear interpolation inside the bucket that contains it
+     */
+    private static Double percentile(long[] histogram, long count, double quantile, double maxMinutes) {
+        if (count == 0) {
+            return null;
+        }
+        double target = quantile * count;
+        long cumulative = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] == 0) {
+                continue;
+            }
+            if (cumulative + histogram[i] >= target) {
+                double lower = i == 0 ? 0 : BUCKET_BOUNDS[i - 1];
+                double upper = i < BUCKET_BOUNDS.length ? Math.min(BUCKET_BOUNDS[i], Math.max(maxMinutes, lower)) : Math.max(maxMinutes, lower);
+                return round(lower + (upper - lower) * (target - cumulative) / histogram[i]);
+            }
+            cumulative += histogram[i];
+        }
+        return round(maxMinutes);
+    }
+
+    private StageDwellStatsDto emptyStats(String stage) {
+        StageDwellStatsDto stats = new StageDwellStatsDto();
+        stats.setStage(stage);
+        return stats;
+    }
+
+    private static int stageOrder(String stage) {
+        try {
+            return PatientVisitSession.VisitStage.valueOf(stage).ordinal();
+        } catch (IllegalArgumentException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static Double minutes(long seconds) {
+        return round(seconds / 60.0);
+    }
+
+    private static Double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
@@ -0,0 +1,103 @@
+package com.rossumtechsystems.eyesante_backend.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * ETag (and optionally Last-Modified) of a GET response, computed from what the response is built
+ * from rather than from its bytes, so a conditional GET can be answered with 304 before the body
+ * is loaded or mapped.
+ *
+ * <p>A strong ETag promises the same bytes for the same value and is used when the value pins one
+ * row's version; a weak one only promises an equivalent response. The compression filter weakens a
+ * strong ETag on responses it encodes.
+ */
+public record CacheValidator(String etag, Instant lastModified) {
+
+    public static CacheValidator strong(Instant lastModified, Object... parts) {
+        return new CacheValidator("\"" + digest(parts) + "\"", lastModified);
+    }
+
+    /**
+     * Without Last-Modified: a summary of many rows cannot tell when a row was deleted
+     */
+    public static CacheValidator weak(Object... parts) {
+        return new CacheValidator("W/\"" + digest(parts) + "\"", null);
+    }
+
+    /**
+     * 304 when the request's If-None-Match (or, without one, If-Modified-Since) still matches;
+     * otherwise 200 with the body from {@code body}, which is only called in that case
+     */
+    public <T> ResponseEntity<T> respond(WebRequest request, Supplier<T> body) {
+        if (notModified(request)) {
+            return validated(ResponseEntity.status(HttpStatus.NOT_MODIFIED)).build();
+        }
+        return validated(ResponseEntity.ok()).body(body.get());
+    }
+
+    /**
+     * {@link #respond} for a lookup that may find nothing, which is then a plain 404
+     */
+    public <T> ResponseEntity<T> respondIfPresent(WebRequest request, Supplier<Optional<T>> body) {
+        if (notModified(request)) {
+            return validated(ResponseEntity.status(HttpStatus.NOT_MODIFIED)).build();
+        }
+        return body.get()
+                .map(found -> validated(ResponseEntity.ok()).body(found))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity.BodyBuilder validated(ResponseEntity.BodyBuilder builder) {
+        builder.eTag(etag).cacheControl(CacheControl.noCache().cachePrivate());
+        if (lastModified != null) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
+
+    private boolean notModified(WebRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        String[] ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            headers.put(HttpHeaders.IF_NONE_MATCH, Arrays.asList(ifNoneMatch));
+            // Weak comparison, as for any GET
+            String opaque = opaque(etag);
+            List<String> tags = headers.getIfNoneMatch();
+            return tags.stream().anyMatch(tag -> tag.equals("*") || opaque(tag).equals(opaque));
+        }
+        String ifModifiedSince = request.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null && lastModified != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, ifModifiedSince);
+            try {
+                long since = headers.getIfModifiedSince();
+                // HTTP dates have whole seconds
+                return since >= 0 && lastModified.getEpochSecond() * 1000 <= since;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static String digest(Object... parts) {
+        String joined = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("|"));
+        return DigestUtils.md5DigestAsHex(joined.getBytes(StandardCharsets.UTF_8));
+    }
+}
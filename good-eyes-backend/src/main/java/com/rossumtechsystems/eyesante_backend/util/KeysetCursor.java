@@ -0,0 +1,83 @@
+package com.rossumtechsystems.eyesante_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset (seek) pagination over {@code (sort_key, id)}.
+ *
+ * The token is base64url of {@code scope|sortKey|id}. The scope stops a cursor issued by one list
+ * being replayed against another. Clients must treat the token as opaque; only its round trip is
+ * supported.
+ */
+public final class KeysetCursor {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final String sortKey;
+    private final Long id;
+
+    private KeysetCursor(String sortKey, Long id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    public static String encode(String scope, Object sortKey, Long id) {
+        String raw = scope + "|" + sortKey + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token issued for the given scope
+     *
+     * @throws IllegalArgumentException if the token is malformed or belongs to another list
+     */
+    public static KeysetCursor decode(String scope, String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || !parts[0].equals(scope)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(parts[1], Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Keep client-supplied page sizes within 1..{@value #MAX_PAGE_SIZE}
+     */
+    public static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the sort key is not a date (a tampered token)
+     */
+    public LocalDate sortKeyAsDate() {
+        try {
+            return LocalDate.parse(sortKey);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the sort key is not a date-time (a tampered token)
+     */
+    public LocalDateTime sortKeyAsDateTime() {
+        try {
+            return LocalDateTime.parse(sortKey);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,25 @@
+package com.rossumtechsystems.eyesante_backend.util;
+
+import java.util.Locale;
+
+/**
+ * Named shapes of a list endpoint's rows, chosen with {@code ?view=}. FULL is the endpoint's DTO;
+ * SUMMARY is the few columns a list screen shows, read through a JPA interface projection.
+ */
+public enum ListView {
+    FULL, SUMMARY;
+
+    /**
+     * @throws IllegalArgumentException for a view that does not exist
+     */
+    public static ListView of(String view) {
+        if (view == null || view.isBlank()) {
+            return FULL;
+        }
+        try {
+            return valueOf(view.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown view '" + view + "'; use full or summary");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.rossumtechsystems.eyesante_backend.util;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The fields a list endpoint can return through {@code ?fields=a,b,c}, each mapped to the SQL
+ * expression that produces it. Field names are the properties of the endpoint's full DTO, so a
+ * sparse row is a subset of the full one. Only names in the map reach the SQL, for the select list
+ * and for the page's sort alike, and {@code id} is always returned.
+ */
+public final class SparseFields {
+
+    private final String from;
+    private final Map<String, String> columns;
+    private final String defaultOrder;
+    private final String branchColumn;
+
+    private SparseFields(String from, Map<String, String> columns, String defaultOrder, String branchColumn) {
+        this.from = from;
+        this.columns = columns;
+        this.defaultOrder = defaultOrder;
+        this.branchColumn = branchColumn;
+    }
+
+    /**
+     * Start a definition over the FROM clause; {@code alias} is the main table's alias, used for
+     * plain columns and the id
+     */
+    public static Builder from(String from, String alias) {
+        return new Builder(from, alias);
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    /**
+     * The main table's clinic column when its rows belong to a branch, else null
+     */
+    public String getBranchColumn() {
+        return branchColumn;
+    }
+
+    /**
+     * The requested fields, id first, in the order given
+     *
+     * @throws IllegalArgumentException for a field this list does not offer
+     */
+    public List<String> parse(String fields) {
+        Set<String> names = new LinkedHashSet<>();
+        names.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!columns.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'; available: " + String.join(", ", columns.keySet()));
+            }
+            names.add(name);
+        }
+        return new ArrayList<>(names);
+    }
+
+    public String selectList(List<String> names) {
+        return names.stream()
+                .map(name -> columns.get(name) + " AS \"" + name + "\"")
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * ORDER BY for the page's sort, or the list's default order when unsorted; ties break on id
+     */
+    public String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return defaultOrder;
+        }
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = columns.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Cannot sort by '" + order.getProperty() + "'");
+            }
+            orders.add(column + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        orders.add(columns.get("id"));
+        return String.join(", ", orders);
+    }
+
+    public static final class Builder {
+
+        private final String from;
+        private final String alias;
+        private final Map<String, String> columns = new LinkedHashMap<>();
+        private String defaultOrder;
+        private String branchColumn;
+
+        private Builder(String from, String alias) {
+            this.from = from;
+            this.alias = alias;
+            columns.put("id", alias + ".id");
+        }
+
+        /**
+         * Properties stored in a column of the main table named after them in snake_case
+         */
+        public Builder columns(String... properties) {
+            for (String property : properties) {
+                columns.put(property, alias + "." + property.replaceAll("([A-Z])", "_$1").toLowerCase());
+            }
+            return this;
+        }
+
+        public Builder field(String property, String sql) {
+            columns.put(property, sql);
+            return this;
+        }
+
+        public Builder defaultOrder(String defaultOrder) {
+            this.defaultOrder = defaultOrder;
+            return this;
+        }
+
+        /**
+         * The main table's rows belong to a branch; callers in a branch see only its rows
+         */
+        public Builder branchScoped() {
+            this.branchColumn = alias + ".clinic_id";
+            return this;
+        }
+
+        public SparseFields build() {
+            return new SparseFields(from, Collections.unmodifiableMap(new LinkedHashMap<>(columns)),
+                    defaultOrder != null ? defaultOrder : alias + ".id DESC", branchColumn);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.rossumtechsystems.eyesante_backend.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-feed watermarks of a delta sync client, carried as an opaque base64url token.
+ *
+ * Each watermark is the {@code (changed_at, id)} of the last row the client received from that
+ * feed; a missing feed starts from the beginning, which is how a fresh client does its first load.
+ */
+public final class SyncToken {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Watermark START = new Watermark(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+
+    private final Map<String, Watermark> watermarks;
+
+    private SyncToken(Map<String, Watermark> watermarks) {
+        this.watermarks = watermarks;
+    }
+
+    public static SyncToken initial() {
+        return new SyncToken(new TreeMap<>());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not issued by this server
+     */
+    public static SyncToken decode(String token) {
+        if (token == null || token.isBlank()) {
+            return initial();
+        }
+        try {
+            Map<String, String> raw = MAPPER.readValue(Base64.getUrlDecoder().decode(token),
+                    new TypeReference<Map<String, String>>() {});
+            Map<String, Watermark> watermarks = new TreeMap<>();
+            raw.forEach((feed, value) -> {
+                int separator = value.lastIndexOf('|');
+                watermarks.put(feed, new Watermark(LocalDateTime.parse(value.substring(0, separator)),
+                        Long.parseLong(value.substring(separator + 1))));
+            });
+            return new SyncToken(watermarks);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid sync token", e);
+        }
+    }
+
+    public String encode() {
+        Map<String, String> raw = new TreeMap<>();
+        watermarks.forEach((feed, watermark) -> raw.put(feed, watermark.changedAt() + "|" + watermark.id()));
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(raw));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not encode sync token", e);
+        }
+    }
+
+    public Watermark get(String feed) {
+        return watermarks.getOrDefault(feed, START);
+    }
+
+    public SyncToken with(String feed, Watermark watermark) {
+        Map<String, Watermark> next = new TreeMap<>(watermarks);
+        next.put(feed, watermark);
+        return new SyncToken(next);
+    }
+
+    public record Watermark(LocalDateTime changedAt, long id) {
+    }
+}
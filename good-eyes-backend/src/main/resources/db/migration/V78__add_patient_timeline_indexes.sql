@@ -0,0 +1,6 @@
+-- Indexes backing the patient timeline: every child query joins on visit_session_id
+-- and filters by patient_visit_sessions.patient_id.
+
+CREATE INDEX IF NOT EXISTS idx_patient_procedures_visit_session_id ON patient_procedures(visit_session_id);
+CREATE INDEX IF NOT EXISTS idx_patient_investigations_visit_session_id ON patient_investigations(visit_session_id);
+CREATE INDEX IF NOT EXISTS idx_patient_visit_sessions_patient_id_visit_date ON patient_visit_sessions(patient_id, visit_date DESC);
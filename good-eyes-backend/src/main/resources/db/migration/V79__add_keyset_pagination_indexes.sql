@@ -0,0 +1,8 @@
+-- Composite indexes matching the ORDER BY of the keyset (cursor) list endpoints, so a page
+-- after (sort_key, id) is an index range scan rather than a sort of the whole table.
+
+CREATE INDEX IF NOT EXISTS idx_patients_created_at_id ON patients(created_at DESC, id DESC) WHERE deleted = false;
+CREATE INDEX IF NOT EXISTS idx_invoices_invoice_date_id ON invoices(invoice_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_invoices_status_invoice_date_id ON invoices(status, invoice_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_consumable_usage_usage_date_id ON consumable_usage(usage_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_appointments_appointment_date_id ON appointments(appointment_date DESC, id DESC) WHERE deleted = false;
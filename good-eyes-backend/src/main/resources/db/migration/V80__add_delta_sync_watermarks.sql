@@ -0,0 +1,60 @@
+-- Delta sync change feed: every synced table is read in (updated_at, id) order from a client watermark.
+
+-- Legacy rows may predate auditing; give them a watermark so the first sync picks them up
+UPDATE patients SET updated_at = COALESCE(created_at, NOW() AT TIME ZONE 'Africa/Kampala') WHERE updated_at IS NULL;
+UPDATE appointments SET updated_at = COALESCE(created_at, NOW() AT TIME ZONE 'Africa/Kampala') WHERE updated_at IS NULL;
+UPDATE patient_visit_sessions SET updated_at = COALESCE(created_at, NOW() AT TIME ZONE 'Africa/Kampala') WHERE updated_at IS NULL;
+UPDATE invoices SET updated_at = COALESCE(created_at, NOW() AT TIME ZONE 'Africa/Kampala') WHERE updated_at IS NULL;
+UPDATE inventory_items SET updated_at = COALESCE(created_at, NOW() AT TIME ZONE 'Africa/Kampala') WHERE updated_at IS NULL;
+UPDATE diagnoses SET updated_at = COALESCE(created_at, NOW() AT TIME ZONE 'Africa/Kampala') WHERE updated_at IS NULL;
+UPDATE procedures SET updated_at = COALESCE(created_at, NOW() AT TIME ZONE 'Africa/Kampala') WHERE updated_at IS NULL;
+UPDATE investigation_types SET updated_at = COALESCE(created_at, NOW() AT TIME ZONE 'Africa/Kampala') WHERE updated_at IS NULL;
+UPDATE appointment_types SET updated_at = COALESCE(created_at, NOW() AT TIME ZONE 'Africa/Kampala') WHERE updated_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_patients_updated_at_id ON patients(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_updated_at_id ON appointments(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_patient_visit_sessions_updated_at_id ON patient_visit_sessions(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_invoices_updated_at_id ON invoices(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_inventory_items_updated_at_id ON inventory_items(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_diagnoses_updated_at_id ON diagnoses(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_procedures_updated_at_id ON procedures(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_investigation_types_updated_at_id ON investigation_types(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_appointment_types_updated_at_id ON appointment_types(updated_at, id);
+
+-- Hard deletes leave no row behind, so a trigger records a tombstone for the feed.
+-- Timestamps use the application's clock zone (Africa/Kampala) to compare with updated_at.
+CREATE TABLE IF NOT EXISTS sync_tombstones (
+    id BIGSERIAL PRIMARY KEY,
+    table_name VARCHAR(64) NOT NULL,
+    row_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_sync_tombstones_deleted_at_id ON sync_tombstones(deleted_at, id);
+
+CREATE OR REPLACE FUNCTION record_sync_tombstone() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO sync_tombstones (table_name, row_id, deleted_at)
+    VALUES (TG_TABLE_NAME, OLD.id, CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala');
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_patients_sync_tombstone ON patients;
+CREATE TRIGGER trg_patients_sync_tombstone AFTER DELETE ON patients FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone();
+DROP TRIGGER IF EXISTS trg_appointments_sync_tombstone ON appointments;
+CREATE TRIGGER trg_appointments_sync_tombstone AFTER DELETE ON appointments FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone();
+DROP TRIGGER IF EXISTS trg_patient_visit_sessions_sync_tombstone ON patient_visit_sessions;
+CREATE TRIGGER trg_patient_visit_sessions_sync_tombstone AFTER DELETE ON patient_visit_sessions FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone();
+DROP TRIGGER IF EXISTS trg_invoices_sync_tombstone ON invoices;
+CREATE TRIGGER trg_invoices_sync_tombstone AFTER DELETE ON invoices FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone();
+DROP TRIGGER IF EXISTS trg_inventory_items_sync_tombstone ON inventory_items;
+CREATE TRIGGER trg_inventory_items_sync_tombstone AFTER DELETE ON inventory_items FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone();
+DROP TRIGGER IF EXISTS trg_diagnoses_sync_tombstone ON diagnoses;
+CREATE TRIGGER trg_diagnoses_sync_tombstone AFTER DELETE ON diagnoses FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone();
+DROP TRIGGER IF EXISTS trg_procedures_sync_tombstone ON procedures;
+CREATE TRIGGER trg_procedures_sync_tombstone AFTER DELETE ON procedures FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone();
+DROP TRIGGER IF EXISTS trg_investigation_types_sync_tombstone ON investigation_types;
+CREATE TRIGGER trg_investigation_types_sync_tombstone AFTER DELETE ON investigation_types FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone();
+DROP TRIGGER IF EXISTS trg_appointment_types_sync_tombstone ON appointment_types;
+CREATE TRIGGER trg_appointment_types_sync_tombstone AFTER DELETE ON appointment_types FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone();
@@ -0,0 +1,285 @@
+-- Monthly range partitioning for invoices, invoice_items and patient_visit_sessions (PostgreSQL 15+).
+--
+-- Each table is converted in place: the existing heap is attached as a "<table>_p_legacy" partition
+-- holding everything before next month, so no rows are copied, and monthly partitions follow it.
+-- On an empty database the legacy partition is empty and history is monthly as well.
+-- The primary key becomes (id, partition key); JPA still maps and looks rows up by id alone.
+-- Children keep their foreign keys as (fk, partition key) pairs, the extra column being filled by trigger.
+-- PartitionMaintenanceService keeps partitions ahead of time and can detach old ones into an archive schema.
+
+-- Tombstones must name the table, not the partition, and ignore rows moved by a partition-key update
+CREATE OR REPLACE FUNCTION record_sync_tombstone() RETURNS TRIGGER AS $$
+DECLARE
+    root REGCLASS := COALESCE(pg_partition_root(TG_RELID), TG_RELID);
+    still_exists BOOLEAN := FALSE;
+BEGIN
+    IF root <> TG_RELID THEN
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %s WHERE id = $1)', root) INTO still_exists USING OLD.id;
+    END IF;
+    IF NOT still_exists THEN
+        INSERT INTO sync_tombstones (table_name, row_id, deleted_at)
+        VALUES ((SELECT relname FROM pg_class WHERE oid = root), OLD.id, CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala');
+    END IF;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Copies the parent's partition key onto a child row.
+-- TG_ARGV: foreign key column, key column on the child, parent table, parent's partition key
+CREATE OR REPLACE FUNCTION fill_partition_key() RETURNS TRIGGER AS $$
+DECLARE
+    parent_id BIGINT;
+    parent_key TEXT;
+BEGIN
+    parent_id := (to_jsonb(NEW) ->> TG_ARGV[0])::BIGINT;
+    IF parent_id IS NOT NULL THEN
+        EXECUTE format('SELECT %I::TEXT FROM %I WHERE id = $1', TG_ARGV[3], TG_ARGV[2]) INTO parent_key USING parent_id;
+        IF parent_key IS NULL THEN
+            RAISE EXCEPTION 'insert or update on table "%" violates foreign key: %=% is not present in table "%"',
+                TG_TABLE_NAME, TG_ARGV[0], parent_id, TG_ARGV[2] USING ERRCODE = 'foreign_key_violation';
+        END IF;
+    END IF;
+    RETURN jsonb_populate_record(NEW, jsonb_build_object(TG_ARGV[1], parent_key));
+END;
+$$ LANGUAGE plpgsql;
+
+-- Creates "<table>_pYYYYMM" partitions from p_from up to p_months_ahead months after the current one.
+-- Months already covered (existing partition or the legacy range) are skipped.
+CREATE OR REPLACE FUNCTION ensure_monthly_partitions(p_table TEXT, p_from DATE, p_months_ahead INT) RETURNS INT AS $$
+DECLARE
+    month_start DATE := date_trunc('month', p_from)::DATE;
+    last_month DATE := (date_trunc('month', CURRENT_DATE) + make_interval(months => p_months_ahead))::DATE;
+    created INT := 0;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        BEGIN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           p_table || '_p' || to_char(month_start, 'YYYYMM'), p_table,
+                           month_start, (month_start + INTERVAL '1 month')::DATE);
+            created := created + 1;
+        EXCEPTION
+            WHEN duplicate_table OR invalid_object_definition THEN
+                NULL;
+        END;
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Detaches monthly partitions that end on or before p_before and moves them into p_archive_schema.
+-- Fails, changing nothing, while child rows still reference a partition being detached.
+CREATE OR REPLACE FUNCTION detach_monthly_partitions(p_table TEXT, p_before DATE, p_archive_schema TEXT) RETURNS INT AS $$
+DECLARE
+    part RECORD;
+    detached INT := 0;
+BEGIN
+    EXECUTE format('CREATE SCHEMA IF NOT EXISTS %I', p_archive_schema);
+    FOR part IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = p_table::REGCLASS
+          AND c.relname ~ ('^' || p_table || '_p[0-9]{6}$')
+          AND to_date(right(c.relname, 6), 'YYYYMM') + INTERVAL '1 month' <= p_before
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', p_table, part.relname);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA %I', part.relname, p_archive_schema);
+        detached := detached + 1;
+    END LOOP;
+    RETURN detached;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION convert_to_monthly_partitions(p_table TEXT, p_key TEXT, p_child_key TEXT,
+                                                         p_history_months INT, p_months_ahead INT) RETURNS VOID AS $$
+DECLARE
+    legacy TEXT := p_table || '_p_legacy';
+    key_type TEXT;
+    has_rows BOOLEAN;
+    boundary DATE;
+    pk_name TEXT;
+    serial_seq TEXT;
+    fk RECORD;
+    idx RECORD;
+    tg RECORD;
+    child_tables TEXT[] := '{}';
+    fk_columns TEXT[] := '{}';
+    on_deletes TEXT[] := '{}';
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = p_table::REGCLASS) THEN
+        RETURN;
+    END IF;
+
+    SELECT format_type(atttypid, atttypmod) INTO key_type
+    FROM pg_attribute WHERE attrelid = p_table::REGCLASS AND attname = p_key;
+
+    -- 1. Children carry the parent's partition key so their foreign keys can reference (id, key)
+    FOR fk IN
+        SELECT c.conname, c.conrelid::REGCLASS::TEXT AS child, a.attname::TEXT AS fk_column, c.confdeltype
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+        WHERE c.contype = 'f' AND c.confrelid = p_table::REGCLASS
+          AND c.conrelid <> c.confrelid AND cardinality(c.conkey) = 1
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.child, fk.conname);
+        EXECUTE format('ALTER TABLE %s ADD COLUMN IF NOT EXISTS %I %s', fk.child, p_child_key, key_type);
+        EXECUTE format('UPDATE %s c SET %I = p.%I FROM %I p WHERE p.id = c.%I',
+                       fk.child, p_child_key, p_key, p_table, fk.fk_column);
+        EXECUTE format('CREATE TRIGGER %I BEFORE INSERT OR UPDATE OF %I ON %s FOR EACH ROW '
+                       || 'EXECUTE FUNCTION fill_partition_key(%L, %L, %L, %L)',
+                       left('trg_' || replace(fk.child, '.', '_') || '_' || p_child_key, 63),
+                       fk.fk_column, fk.child, fk.fk_column, p_child_key, p_table, p_key);
+        child_tables := child_tables || fk.child;
+        fk_columns := fk_columns || fk.fk_column;
+        on_deletes := on_deletes || CASE fk.confdeltype
+                                        WHEN 'c' THEN 'CASCADE'
+                                        WHEN 'n' THEN 'SET NULL'
+                                        WHEN 'd' THEN 'SET DEFAULT'
+                                        WHEN 'r' THEN 'RESTRICT'
+                                        ELSE 'NO ACTION' END;
+    END LOOP;
+
+    -- 2. Swap in a partitioned parent; the old heap becomes the partition for everything before the boundary
+    EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I)', p_table) INTO has_rows;
+    IF has_rows THEN
+        boundary := (date_trunc('month', CURRENT_DATE) + INTERVAL '1 month')::DATE;
+    ELSE
+        boundary := (date_trunc('month', CURRENT_DATE) - make_interval(months => p_history_months))::DATE;
+    END IF;
+
+    SELECT conname INTO pk_name FROM pg_constraint WHERE conrelid = p_table::REGCLASS AND contype = 'p';
+    serial_seq := pg_get_serial_sequence(p_table, 'id');
+
+    EXECUTE format('ALTER TABLE %I RENAME TO %I', p_table, legacy);
+    EXECUTE format('ALTER TABLE %I RENAME CONSTRAINT %I TO %I', legacy, pk_name, legacy || '_pkey');
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING STORAGE INCLUDING COMMENTS) '
+                   || 'PARTITION BY RANGE (%I)', p_table, legacy, p_key);
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I PRIMARY KEY (id, %I)', p_table, p_table || '_pkey', p_key);
+    -- Validated up front so ATTACH does not need a second scan
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (%I IS NOT NULL AND %I < %L)',
+                   legacy, legacy || '_bound', p_key, p_key, boundary);
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (MINVALUE) TO (%L)', p_table, legacy, boundary);
+    IF serial_seq IS NOT NULL THEN
+        EXECUTE format('ALTER SEQUENCE %s OWNED BY %I.id', serial_seq, p_table);
+    END IF;
+
+    -- 3. Indexes, outgoing foreign keys and triggers move to the parent so every partition gets them.
+    --    Single-table unique constraints stay on the legacy partition only.
+    FOR idx IN
+        SELECT c.relname::TEXT AS name, pg_get_indexdef(i.indexrelid) AS def
+        FROM pg_index i
+        JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE i.indrelid = legacy::REGCLASS AND NOT i.indisunique
+    LOOP
+        EXECUTE format('ALTER INDEX %I RENAME TO %I', idx.name, left(idx.name, 55) || '_legacy');
+        -- Re-created on the parent: the renamed legacy index matches and is attached, not rebuilt
+        EXECUTE regexp_replace(idx.def, ' ON (ONLY )?\S+ USING ', ' ON ' || quote_ident(p_table) || ' USING ');
+    END LOOP;
+
+    FOR fk IN
+        SELECT conname, pg_get_constraintdef(oid) AS def
+        FROM pg_constraint
+        WHERE conrelid = legacy::REGCLASS AND contype = 'f'
+    LOOP
+        EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', legacy, fk.conname);
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I %s', p_table, fk.conname, fk.def);
+    END LOOP;
+
+    FOR tg IN
+        SELECT tgname, pg_get_triggerdef(oid) AS def
+        FROM pg_trigger
+        WHERE tgrelid = legacy::REGCLASS AND NOT tgisinternal
+    LOOP
+        EXECUTE format('DROP TRIGGER %I ON %I', tg.tgname, legacy);
+        EXECUTE regexp_replace(tg.def, ' ON \S+ ', ' ON ' || quote_ident(p_table) || ' ');
+    END LOOP;
+
+    -- 4. Monthly partitions from the boundary on, then point the children back at (id, key)
+    PERFORM ensure_monthly_partitions(p_table, boundary, p_months_ahead);
+
+    FOR i IN 1 .. cardinality(child_tables) LOOP
+        EXECUTE format('ALTER TABLE %s ADD CONSTRAINT %I FOREIGN KEY (%I, %I) REFERENCES %I (id, %I) '
+                       || 'ON UPDATE CASCADE ON DELETE %s',
+                       child_tables[i], left('fk_' || replace(child_tables[i], '.', '_') || '_' || fk_columns[i], 63),
+                       fk_columns[i], p_child_key, p_table, p_key, on_deletes[i]);
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partition keys cannot be NULL
+UPDATE patient_visit_sessions
+SET visit_date = COALESCE(created_at, NOW() AT TIME ZONE 'Africa/Kampala')
+WHERE visit_date IS NULL;
+ALTER TABLE patient_visit_sessions ALTER COLUMN visit_date SET NOT NULL;
+
+-- invoices first: invoice_items and patient_visit_sessions gain invoice_date for their composite keys
+SELECT convert_to_monthly_partitions('invoices', 'invoice_date', 'invoice_date', 36, 12);
+
+-- invoice_items is partitioned by its invoice's date so monthly reports prune both sides of the join
+ALTER TABLE invoice_items ALTER COLUMN invoice_date SET NOT NULL;
+SELECT convert_to_monthly_partitions('invoice_items', 'invoice_date', 'invoice_item_date', 36, 12);
+
+SELECT convert_to_monthly_partitions('patient_visit_sessions', 'visit_date', 'visit_session_date', 36, 12);
+
+-- invoice_number was globally unique; a unique index on a partitioned table must include the
+-- partition key, so numbers are claimed in a small registry instead
+CREATE TABLE IF NOT EXISTS invoice_numbers (
+    invoice_number VARCHAR(50) PRIMARY KEY,
+    invoice_id BIGINT NOT NULL
+);
+
+INSERT INTO invoice_numbers (invoice_number, invoice_id)
+SELECT invoice_number, id FROM invoices
+ON CONFLICT (invoice_number) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION claim_invoice_number() RETURNS TRIGGER AS $$
+DECLARE
+    claimed INT;
+BEGIN
+    IF TG_OP = 'UPDATE' AND NEW.invoice_number IS NOT DISTINCT FROM OLD.invoice_number THEN
+        RETURN NEW;
+    END IF;
+    -- The same invoice re-claiming its number is a partition-key update moving the row
+    INSERT INTO invoice_numbers (invoice_number, invoice_id)
+    VALUES (NEW.invoice_number, NEW.id)
+    ON CONFLICT (invoice_number) DO UPDATE SET invoice_id = EXCLUDED.invoice_id
+        WHERE invoice_numbers.invoice_id = EXCLUDED.invoice_id;
+    GET DIAGNOSTICS claimed = ROW_COUNT;
+    IF claimed = 0 THEN
+        RAISE EXCEPTION 'duplicate key value violates unique constraint "invoice_numbers_pkey"'
+            USING ERRCODE = 'unique_violation',
+                  DETAIL = format('Key (invoice_number)=(%s) already exists.', NEW.invoice_number);
+    END IF;
+    IF TG_OP = 'UPDATE' THEN
+        DELETE FROM invoice_numbers WHERE invoice_number = OLD.invoice_number AND invoice_id = OLD.id;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION release_invoice_number() RETURNS TRIGGER AS $$
+BEGIN
+    -- Rows moved by a partition-key update still exist and keep their number
+    IF NOT EXISTS (SELECT 1 FROM invoices WHERE id = OLD.id) THEN
+        DELETE FROM invoice_numbers WHERE invoice_number = OLD.invoice_number AND invoice_id = OLD.id;
+    END IF;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_invoices_claim_number ON invoices;
+CREATE TRIGGER trg_invoices_claim_number
+    BEFORE INSERT OR UPDATE OF invoice_number ON invoices
+    FOR EACH ROW
+    EXECUTE FUNCTION claim_invoice_number();
+
+DROP TRIGGER IF EXISTS trg_invoices_release_number ON invoices;
+CREATE TRIGGER trg_invoices_release_number
+    AFTER DELETE ON invoices
+    FOR EACH ROW
+    EXECUTE FUNCTION release_invoice_number();
+
+-- Monthly reports filter invoice_items by the invoice date as well
+CREATE INDEX IF NOT EXISTS idx_invoice_items_invoice_date_invoice_id ON invoice_items(invoice_date, invoice_id);
@@ -0,0 +1,62 @@
+-- Cold-data archive: completed visits and paid invoices past a configurable age move out of the hot
+-- tables into one JSONB snapshot per record, keyed by source table name, the same idea as
+-- deleted_invoices.items_json. Rows read back with jsonb_populate_recordset(NULL::<table>, snapshot-><table>).
+
+CREATE TABLE IF NOT EXISTS archived_visit_sessions (
+    visit_session_id BIGINT PRIMARY KEY,
+    patient_id BIGINT NOT NULL,
+    visit_date TIMESTAMP NOT NULL,
+    invoice_id BIGINT,
+    snapshot JSONB NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE IF NOT EXISTS archived_invoices (
+    invoice_id BIGINT PRIMARY KEY,
+    invoice_number VARCHAR(50) NOT NULL UNIQUE,
+    invoice_date DATE NOT NULL,
+    patient_id BIGINT NOT NULL,
+    total_amount NUMERIC(10,2),
+    snapshot JSONB NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Snapshots are TOAST-compressed; prefer lz4 where the server was built with it
+DO $$
+BEGIN
+    ALTER TABLE archived_visit_sessions ALTER COLUMN snapshot SET COMPRESSION lz4;
+    ALTER TABLE archived_invoices ALTER COLUMN snapshot SET COMPRESSION lz4;
+EXCEPTION
+    WHEN feature_not_supported THEN
+        RAISE NOTICE 'lz4 not available, archive snapshots use the default compression';
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_archived_visit_sessions_patient_id ON archived_visit_sessions(patient_id, visit_date);
+CREATE INDEX IF NOT EXISTS idx_archived_invoices_patient_id ON archived_invoices(patient_id, invoice_date);
+
+-- Where each archive job stopped, so a run cut short resumes instead of rescanning
+CREATE TABLE IF NOT EXISTS archive_checkpoints (
+    job_name VARCHAR(64) PRIMARY KEY,
+    last_id BIGINT NOT NULL DEFAULT 0,
+    archived_count BIGINT NOT NULL DEFAULT 0,
+    skipped_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Candidate scans for the archive jobs
+CREATE INDEX IF NOT EXISTS idx_patient_visit_sessions_completed_id
+    ON patient_visit_sessions(id) WHERE status = 'COMPLETED';
+CREATE INDEX IF NOT EXISTS idx_invoices_paid_id
+    ON invoices(id) WHERE payment_status = 'PAID';
+
+-- Archived invoices keep their number reserved
+CREATE OR REPLACE FUNCTION release_invoice_number() RETURNS TRIGGER AS $$
+BEGIN
+    -- Rows moved by a partition-key update still exist and keep their number
+    IF NOT EXISTS (SELECT 1 FROM invoices WHERE id = OLD.id)
+       AND NOT EXISTS (SELECT 1 FROM archived_invoices WHERE invoice_id = OLD.id) THEN
+        DELETE FROM invoice_numbers WHERE invoice_number = OLD.invoice_number AND invoice_id = OLD.id;
+    END IF;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
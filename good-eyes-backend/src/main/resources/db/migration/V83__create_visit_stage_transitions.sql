@@ -0,0 +1,132 @@
+-- Visit pipeline history: every stage/status change of a visit session is appended to
+-- visit_stage_transitions by trigger, so all writers (progressToNextStage, fee payment, triage,
+-- refraction, doctor, cashier, bulk SQL) are captured. Alongside it:
+--   visit_stage_occupancy   one row per visit still in the pipeline: the live queue per stage
+--   visit_stage_dwell_daily per stage and day, count/total/max and a histogram of time spent in
+--                           the stage, updated as each visit leaves it
+-- so dashboards never scan patient_visit_sessions.
+
+CREATE TABLE IF NOT EXISTS visit_stage_transitions (
+    id BIGSERIAL PRIMARY KEY,
+    visit_session_id BIGINT NOT NULL,
+    from_stage VARCHAR(50),
+    to_stage VARCHAR(50) NOT NULL,
+    from_status VARCHAR(50),
+    to_status VARCHAR(50) NOT NULL,
+    changed_at TIMESTAMP NOT NULL,
+    -- Time spent in from_stage; NULL when only the status changed or the entry time is unknown
+    dwell_seconds INTEGER,
+    changed_by VARCHAR(255)
+);
+
+CREATE INDEX IF NOT EXISTS idx_visit_stage_transitions_visit ON visit_stage_transitions(visit_session_id, id);
+CREATE INDEX IF NOT EXISTS idx_visit_stage_transitions_changed_at ON visit_stage_transitions(changed_at);
+
+CREATE TABLE IF NOT EXISTS visit_stage_occupancy (
+    visit_session_id BIGINT PRIMARY KEY,
+    stage VARCHAR(50) NOT NULL,
+    entered_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_visit_stage_occupancy_stage ON visit_stage_occupancy(stage, entered_at);
+
+CREATE TABLE IF NOT EXISTS visit_stage_dwell_daily (
+    stage VARCHAR(50) NOT NULL,
+    day DATE NOT NULL,
+    visit_count INTEGER NOT NULL DEFAULT 0,
+    total_seconds BIGINT NOT NULL DEFAULT 0,
+    max_seconds INTEGER NOT NULL DEFAULT 0,
+    -- bucket_counts[i] counts dwells in [bounds[i-1], bounds[i]) minutes, see visit_dwell_bucket_bounds()
+    bucket_counts INTEGER[] NOT NULL,
+    PRIMARY KEY (stage, day)
+);
+
+-- Histogram bucket lower bounds in minutes; VisitPipelineAnalyticsService mirrors them
+CREATE OR REPLACE FUNCTION visit_dwell_bucket_bounds() RETURNS NUMERIC[] AS $$
+    SELECT ARRAY[1, 2, 5, 10, 15, 20, 30, 45, 60, 90, 120, 180, 240, 360, 480]::NUMERIC[];
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION record_visit_stage_transition() RETURNS TRIGGER AS $$
+DECLARE
+    now_local TIMESTAMP := CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala';
+    open_stage VARCHAR(50);
+    open_since TIMESTAMP;
+    old_stage VARCHAR(50);
+    old_status VARCHAR(50);
+    stage_changed BOOLEAN;
+    dwell INTEGER;
+    bucket INTEGER;
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        IF NEW.current_stage IS NOT DISTINCT FROM OLD.current_stage AND NEW.status IS NOT DISTINCT FROM OLD.status THEN
+            RETURN NULL;
+        END IF;
+        old_stage := OLD.current_stage;
+        old_status := OLD.status;
+    ELSIF EXISTS (SELECT 1 FROM visit_stage_transitions WHERE visit_session_id = NEW.id) THEN
+        -- Re-inserted by a partition-key update, not a new visit
+        RETURN NULL;
+    END IF;
+
+    DELETE FROM visit_stage_occupancy WHERE visit_session_id = NEW.id
+    RETURNING stage, entered_at INTO open_stage, open_since;
+
+    stage_changed := old_stage IS NULL OR NEW.current_stage IS DISTINCT FROM old_stage;
+    IF stage_changed AND open_since IS NOT NULL THEN
+        dwell := GREATEST(0, EXTRACT(EPOCH FROM now_local - open_since))::INTEGER;
+        bucket := width_bucket(dwell / 60.0, visit_dwell_bucket_bounds()) + 1;
+        INSERT INTO visit_stage_dwell_daily (stage, day, visit_count, total_seconds, max_seconds, bucket_counts)
+        VALUES (open_stage, open_since::DATE, 1, dwell, dwell,
+                (SELECT array_agg(CASE WHEN g = bucket THEN 1 ELSE 0 END ORDER BY g)
+                 FROM generate_series(1, cardinality(visit_dwell_bucket_bounds()) + 1) g))
+        ON CONFLICT (stage, day) DO UPDATE SET
+            visit_count = visit_stage_dwell_daily.visit_count + 1,
+            total_seconds = visit_stage_dwell_daily.total_seconds + EXCLUDED.total_seconds,
+            max_seconds = GREATEST(visit_stage_dwell_daily.max_seconds, EXCLUDED.max_seconds),
+            bucket_counts[bucket] = visit_stage_dwell_daily.bucket_counts[bucket] + 1;
+    END IF;
+
+    INSERT INTO visit_stage_transitions (visit_session_id, from_stage, to_stage, from_status, to_status,
+                                         changed_at, dwell_seconds, changed_by)
+    VALUES (NEW.id, old_stage, NEW.current_stage, old_status, NEW.status, now_local, dwell, NEW.updated_by);
+
+    -- Still in the pipeline: (re)open the current stage, keeping its entry time on status-only changes
+    IF NEW.current_stage <> 'COMPLETED' AND NEW.status NOT IN ('COMPLETED', 'CANCELLED', 'NO_SHOW') THEN
+        INSERT INTO visit_stage_occupancy (visit_session_id, stage, entered_at)
+        VALUES (NEW.id, NEW.current_stage,
+                CASE WHEN stage_changed OR open_since IS NULL THEN now_local ELSE open_since END);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION clear_visit_stage_occupancy() RETURNS TRIGGER AS $$
+BEGIN
+    -- Rows moved by a partition-key update still exist
+    IF NOT EXISTS (SELECT 1 FROM patient_visit_sessions WHERE id = OLD.id) THEN
+        DELETE FROM visit_stage_occupancy WHERE visit_session_id = OLD.id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_patient_visit_sessions_stage_transition ON patient_visit_sessions;
+CREATE TRIGGER trg_patient_visit_sessions_stage_transition
+    AFTER INSERT OR UPDATE OF current_stage, status ON patient_visit_sessions
+    FOR EACH ROW
+    EXECUTE FUNCTION record_visit_stage_transition();
+
+DROP TRIGGER IF EXISTS trg_patient_visit_sessions_stage_occupancy ON patient_visit_sessions;
+CREATE TRIGGER trg_patient_visit_sessions_stage_occupancy
+    AFTER DELETE ON patient_visit_sessions
+    FOR EACH ROW
+    EXECUTE FUNCTION clear_visit_stage_occupancy();
+
+-- Visits already in the pipeline today enter the queue from their last change
+INSERT INTO visit_stage_occupancy (visit_session_id, stage, entered_at)
+SELECT id, current_stage, COALESCE(updated_at, visit_date)
+FROM patient_visit_sessions
+WHERE visit_date >= (NOW() AT TIME ZONE 'Africa/Kampala')::DATE
+  AND current_stage <> 'COMPLETED'
+  AND status NOT IN ('COMPLETED', 'CANCELLED', 'NO_SHOW')
+ON CONFLICT (visit_session_id) DO NOTHING;
@@ -0,0 +1,39 @@
+-- Procedures and treatments get the billed/billed_at pair patient_investigations already has, so a
+-- visit can be billed once in full (VisitBillingService) and the per-category invoices stop re-billing.
+
+ALTER TABLE patient_procedures ADD COLUMN IF NOT EXISTS billed BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE patient_procedures ADD COLUMN IF NOT EXISTS billed_at TIMESTAMP;
+
+ALTER TABLE patient_treatments ADD COLUMN IF NOT EXISTS billed BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE patient_treatments ADD COLUMN IF NOT EXISTS billed_at TIMESTAMP;
+
+-- Rows already invoiced through createInvoiceFromProcedures / createInvoiceFromTreatments; those
+-- invoices are only tied to their visit by the generated notes
+UPDATE patient_procedures pp
+SET billed = TRUE, billed_at = billed_invoices.first_billed_at
+FROM (
+    SELECT notes, MIN(created_at) AS first_billed_at
+    FROM invoices
+    WHERE invoice_purpose = 'PROCEDURES_INVOICE_BILL'
+    GROUP BY notes
+) billed_invoices
+WHERE billed_invoices.notes = 'Invoice generated from submitted procedures for visit session ' || pp.visit_session_id
+  AND billed_invoices.first_billed_at >= pp.created_at
+  AND pp.billed = FALSE;
+
+UPDATE patient_treatments pt
+SET billed = TRUE, billed_at = billed_invoices.first_billed_at
+FROM (
+    SELECT notes, MIN(created_at) AS first_billed_at
+    FROM invoices
+    WHERE invoice_purpose = 'TREATMENT_INVOICE_BILL'
+    GROUP BY notes
+) billed_invoices
+WHERE billed_invoices.notes = 'Invoice generated from submitted treatments for visit session ' || pt.visit_session_id
+  AND billed_invoices.first_billed_at >= pt.created_at
+  AND pt.billed = FALSE;
+
+-- Unbilled lines of a visit, read by the visit billing composer
+CREATE INDEX IF NOT EXISTS idx_patient_procedures_unbilled ON patient_procedures(visit_session_id) WHERE billed = FALSE;
+CREATE INDEX IF NOT EXISTS idx_patient_treatments_unbilled ON patient_treatments(visit_session_id) WHERE billed = FALSE;
+CREATE INDEX IF NOT EXISTS idx_patient_investigations_unbilled ON patient_investigations(visit_session_id) WHERE billed = FALSE;
@@ -0,0 +1,36 @@
+-- Partial and composite indexes for the filters repository queries actually apply, replacing
+-- single-column and boolean indexes the planner rarely picks. Proposed by the loadtest IndexAdvisor
+-- (mvn -Ploadtest verify -Dloadtest.main=...loadtest.IndexAdvisor), whose report also carries the
+-- plans of every query below with and without these indexes.
+
+-- Patients: every lookup excludes soft-deleted rows
+CREATE INDEX IF NOT EXISTS idx_patients_phone_active ON patients(phone) WHERE NOT deleted;
+CREATE INDEX IF NOT EXISTS idx_patients_alternative_phone_active ON patients(alternative_phone) WHERE NOT deleted;
+-- The trash list is the only reader of deleted = true; the full boolean index served nothing else
+CREATE INDEX IF NOT EXISTS idx_patients_deleted_id ON patients(id) WHERE deleted;
+DROP INDEX IF EXISTS idx_patients_deleted;
+
+-- Appointments: @Where(deleted = false) is appended to every query since V73
+CREATE INDEX IF NOT EXISTS idx_appointments_doctor_id_appointment_date_active
+    ON appointments(doctor_id, appointment_date) WHERE NOT deleted;
+CREATE INDEX IF NOT EXISTS idx_appointments_patient_id_appointment_date_active
+    ON appointments(patient_id, appointment_date) WHERE NOT deleted;
+CREATE INDEX IF NOT EXISTS idx_appointments_appointment_date_time_active
+    ON appointments(appointment_date, appointment_time) WHERE NOT deleted;
+CREATE INDEX IF NOT EXISTS idx_appointments_reminders_due
+    ON appointments(appointment_date)
+    WHERE NOT deleted AND reminder_sent = FALSE AND status IN ('SCHEDULED', 'CONFIRMED');
+
+-- Invoices (partitioned; each index cascades to the monthly partitions)
+-- Overdue lists and receivables only ever look at unpaid invoices
+CREATE INDEX IF NOT EXISTS idx_invoices_due_date_unpaid ON invoices(due_date) WHERE payment_status <> 'PAID';
+CREATE INDEX IF NOT EXISTS idx_invoices_balance_due_open ON invoices(balance_due DESC) WHERE balance_due > 0;
+CREATE INDEX IF NOT EXISTS idx_invoices_payment_status_invoice_date ON invoices(payment_status, invoice_date DESC);
+-- Duplicate-invoice guard run before every invoice is created
+CREATE INDEX IF NOT EXISTS idx_invoices_patient_id_purpose_created_at
+    ON invoices(patient_id, invoice_purpose, created_at DESC);
+
+-- Consumables and inventory: lists only show active items
+CREATE INDEX IF NOT EXISTS idx_consumable_items_category_id_active ON consumable_items(category_id) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_consumable_items_expiry_date_active ON consumable_items(expiry_date) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_inventory_items_category_id_active ON inventory_items(category_id) WHERE is_active;
@@ -0,0 +1,93 @@
+-- Phone identity lookup: every primary and alternative patient phone, normalised to E.164, in one
+-- table with one unique partial index. Registration no longer pre-checks phones; the patient
+-- INSERT/UPDATE fills the lookup by trigger and a taken number fails that same statement on
+-- uk_patient_phones_e164_active, which PatientService reports as a PhoneConflictException.
+-- Replaces the raw-text uk_patients_phone / uk_patients_alternative_phone from V60, which did not
+-- see '0772 123456' and '+256772123456' as the same number, did not stop a primary phone being
+-- reused as someone's alternative, and kept numbers of soft-deleted patients locked.
+
+-- Local numbers are Ugandan: 0XXXXXXXXX and bare 9-digit numbers get +256. Returns NULL when the
+-- input cannot be an E.164 number (fewer than 8 or more than 15 digits).
+CREATE OR REPLACE FUNCTION normalize_phone_e164(raw TEXT) RETURNS TEXT AS $$
+DECLARE
+    trimmed TEXT := btrim(raw);
+    digits TEXT := regexp_replace(COALESCE(raw, ''), '[^0-9]', '', 'g');
+BEGIN
+    IF digits = '' THEN
+        RETURN NULL;
+    END IF;
+    IF trimmed LIKE '+%' THEN
+        NULL;
+    ELSIF digits LIKE '00%' THEN
+        digits := substr(digits, 3);
+    ELSIF digits LIKE '0%' AND length(digits) = 10 THEN
+        digits := '256' || substr(digits, 2);
+    ELSIF length(digits) = 9 THEN
+        digits := '256' || digits;
+    END IF;
+    IF length(digits) NOT BETWEEN 8 AND 15 THEN
+        RETURN NULL;
+    END IF;
+    RETURN '+' || digits;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+CREATE TABLE IF NOT EXISTS patient_phones (
+    patient_id BIGINT NOT NULL REFERENCES patients(id) ON DELETE CASCADE,
+    kind VARCHAR(20) NOT NULL,
+    phone_e164 VARCHAR(16) NOT NULL,
+    -- FALSE while the patient is soft-deleted, so the number can be registered again
+    active BOOLEAN NOT NULL,
+    PRIMARY KEY (patient_id, kind),
+    CONSTRAINT chk_patient_phones_kind CHECK (kind IN ('PRIMARY', 'ALTERNATIVE'))
+);
+
+INSERT INTO patient_phones (patient_id, kind, phone_e164, active)
+SELECT p.id, n.kind, n.phone_e164, NOT COALESCE(p.deleted, FALSE)
+FROM patients p
+CROSS JOIN LATERAL (VALUES ('PRIMARY', normalize_phone_e164(p.phone)),
+                           ('ALTERNATIVE', normalize_phone_e164(p.alternative_phone))) AS n(kind, phone_e164)
+WHERE n.phone_e164 IS NOT NULL;
+
+-- Numbers held by several active patients stay with the oldest patient (primary before
+-- alternative); the others lose their lookup row and hit the conflict the next time their phone
+-- is edited, so the clash surfaces at the desk instead of failing this migration
+DELETE FROM patient_phones pp
+USING (
+    SELECT patient_id, kind,
+           ROW_NUMBER() OVER (PARTITION BY phone_e164 ORDER BY patient_id, kind = 'ALTERNATIVE') AS holder_rank
+    FROM patient_phones
+    WHERE active
+) ranked
+WHERE pp.patient_id = ranked.patient_id AND pp.kind = ranked.kind AND ranked.holder_rank > 1;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_patient_phones_e164_active ON patient_phones(phone_e164) WHERE active;
+CREATE INDEX IF NOT EXISTS idx_patient_phones_e164 ON patient_phones(phone_e164);
+
+CREATE OR REPLACE FUNCTION sync_patient_phones() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+       AND NEW.phone IS NOT DISTINCT FROM OLD.phone
+       AND NEW.alternative_phone IS NOT DISTINCT FROM OLD.alternative_phone
+       AND NEW.deleted IS NOT DISTINCT FROM OLD.deleted THEN
+        RETURN NULL;
+    END IF;
+    DELETE FROM patient_phones WHERE patient_id = NEW.id;
+    -- A primary and alternative phone that normalise to the same number conflict with each other
+    INSERT INTO patient_phones (patient_id, kind, phone_e164, active)
+    SELECT NEW.id, n.kind, n.phone_e164, NOT COALESCE(NEW.deleted, FALSE)
+    FROM (VALUES ('PRIMARY', normalize_phone_e164(NEW.phone)),
+                 ('ALTERNATIVE', normalize_phone_e164(NEW.alternative_phone))) AS n(kind, phone_e164)
+    WHERE n.phone_e164 IS NOT NULL;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_patients_sync_phones ON patients;
+CREATE TRIGGER trg_patients_sync_phones
+    AFTER INSERT OR UPDATE OF phone, alternative_phone, deleted ON patients
+    FOR EACH ROW
+    EXECUTE FUNCTION sync_patient_phones();
+
+DROP INDEX IF EXISTS uk_patients_phone;
+DROP INDEX IF EXISTS uk_patients_alternative_phone;
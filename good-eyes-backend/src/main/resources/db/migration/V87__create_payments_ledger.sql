@@ -0,0 +1,45 @@
+-- Append-only payment ledger. Every payment posted against an invoice is one row here; the invoice's
+-- amount_paid / balance_due move in the same transaction through a conditional UPDATE that refuses
+-- to take the balance below zero, so concurrent partial payments add up and a retried request with
+-- the same idempotency key is answered from the row it already wrote.
+-- No foreign key to invoices: that table is partitioned (primary key (id, invoice_date)) and paid
+-- invoices are moved to the cold archive, while the takings they record stay on the books.
+
+CREATE TABLE IF NOT EXISTS payments (
+    id BIGSERIAL PRIMARY KEY,
+    invoice_id BIGINT NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    payment_method VARCHAR(50) NOT NULL,
+    payment_reference VARCHAR(255),
+    -- Client-supplied Idempotency-Key header; NULL for payments posted without one and for the backfill
+    idempotency_key VARCHAR(100),
+    -- Africa/Kampala wall-clock time, like the rest of the schema
+    received_at TIMESTAMP NOT NULL,
+    created_by VARCHAR(255),
+    CONSTRAINT chk_payments_amount_positive CHECK (amount > 0),
+    CONSTRAINT uk_payments_idempotency_key UNIQUE (idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_payments_invoice_id ON payments(invoice_id);
+CREATE INDEX IF NOT EXISTS idx_payments_received_at_method ON payments(received_at, payment_method);
+
+-- Amounts already recorded on invoices become one ledger row each
+INSERT INTO payments (invoice_id, amount, payment_method, payment_reference, received_at, created_by)
+SELECT i.id, i.amount_paid, COALESCE(i.payment_method, 'CASH'), i.payment_reference,
+       COALESCE(i.payment_date, i.updated_at, i.created_at, i.invoice_date::TIMESTAMP), 'migration'
+FROM invoices i
+WHERE i.amount_paid > 0
+  AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.invoice_id = i.id);
+
+CREATE OR REPLACE FUNCTION reject_payment_changes() RETURNS TRIGGER AS $$
+BEGIN
+    RAISE EXCEPTION 'payments is append-only: % of payment % is not allowed', TG_OP, OLD.id
+        USING ERRCODE = 'restrict_violation';
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_payments_append_only ON payments;
+CREATE TRIGGER trg_payments_append_only
+    BEFORE UPDATE OR DELETE ON payments
+    FOR EACH ROW
+    EXECUTE FUNCTION reject_payment_changes();
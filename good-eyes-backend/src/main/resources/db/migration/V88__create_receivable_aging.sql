@@ -0,0 +1,96 @@
+-- Receivables aging: one row per open invoice (balance due, not paid, cancelled, refunded or draft)
+-- with the columns collections work filters on and its age bucket by invoice date. Kept current by
+-- a trigger on invoices, so payments (ledger), item deltas, status changes and new invoices move
+-- it in the same transaction whichever path wrote them; ReceivableAgingService re-buckets rows as
+-- they age and repairs drift nightly. Aging summaries and drill-downs read only this table.
+
+-- Age buckets by days since the invoice date, in clinic time
+CREATE OR REPLACE FUNCTION receivable_age_bucket(p_invoice_date DATE) RETURNS VARCHAR AS $$
+    SELECT CASE
+        WHEN age <= 30 THEN 'DAYS_0_30'
+        WHEN age <= 60 THEN 'DAYS_31_60'
+        WHEN age <= 90 THEN 'DAYS_61_90'
+        ELSE 'DAYS_90_PLUS'
+    END
+    FROM (SELECT (CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala')::DATE - p_invoice_date AS age) a;
+$$ LANGUAGE sql STABLE;
+
+CREATE TABLE IF NOT EXISTS receivable_aging (
+    invoice_id BIGINT PRIMARY KEY,
+    invoice_number VARCHAR(50) NOT NULL,
+    invoice_date DATE NOT NULL,
+    due_date DATE,
+    patient_id BIGINT NOT NULL,
+    patient_name VARCHAR(255),
+    patient_phone VARCHAR(20),
+    insurance_provider VARCHAR(100),
+    user_id BIGINT,
+    doctor_name VARCHAR(100),
+    total_amount DECIMAL(10,2),
+    balance_due DECIMAL(10,2) NOT NULL,
+    age_bucket VARCHAR(20) NOT NULL,
+    refreshed_at TIMESTAMP NOT NULL,
+    CONSTRAINT chk_receivable_aging_bucket CHECK (age_bucket IN ('DAYS_0_30', 'DAYS_31_60', 'DAYS_61_90', 'DAYS_90_PLUS'))
+);
+
+-- Drill-downs list the oldest debt first within each filter
+CREATE INDEX IF NOT EXISTS idx_receivable_aging_bucket_invoice_date ON receivable_aging(age_bucket, invoice_date, invoice_id);
+CREATE INDEX IF NOT EXISTS idx_receivable_aging_patient_id_invoice_date ON receivable_aging(patient_id, invoice_date, invoice_id);
+CREATE INDEX IF NOT EXISTS idx_receivable_aging_insurer_invoice_date
+    ON receivable_aging((COALESCE(insurance_provider, '')), invoice_date, invoice_id);
+CREATE INDEX IF NOT EXISTS idx_receivable_aging_user_id_invoice_date ON receivable_aging(user_id, invoice_date, invoice_id);
+CREATE INDEX IF NOT EXISTS idx_receivable_aging_due_date ON receivable_aging(due_date, invoice_id);
+
+-- Brings one invoice's aging row in line with the invoice: upserted while open, removed otherwise.
+-- The invoice date prunes the lookup to a single partition.
+CREATE OR REPLACE FUNCTION sync_receivable_aging(p_invoice_id BIGINT, p_invoice_date DATE) RETURNS VOID AS $$
+BEGIN
+    INSERT INTO receivable_aging (invoice_id, invoice_number, invoice_date, due_date, patient_id, patient_name,
+                                  patient_phone, insurance_provider, user_id, doctor_name, total_amount,
+                                  balance_due, age_bucket, refreshed_at)
+    SELECT i.id, i.invoice_number, i.invoice_date, i.due_date, i.patient_id, i.patient_name,
+           i.patient_phone, i.insurance_provider, i.user_id, i.doctor_name, i.total_amount,
+           i.balance_due, receivable_age_bucket(i.invoice_date), CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala'
+    FROM invoices i
+    WHERE i.id = p_invoice_id AND i.invoice_date = p_invoice_date
+      AND i.balance_due > 0 AND i.status NOT IN ('PAID', 'CANCELLED', 'REFUNDED', 'DRAFT')
+    ON CONFLICT (invoice_id) DO UPDATE SET
+        invoice_number = EXCLUDED.invoice_number,
+        invoice_date = EXCLUDED.invoice_date,
+        due_date = EXCLUDED.due_date,
+        patient_id = EXCLUDED.patient_id,
+        patient_name = EXCLUDED.patient_name,
+        patient_phone = EXCLUDED.patient_phone,
+        insurance_provider = EXCLUDED.insurance_provider,
+        user_id = EXCLUDED.user_id,
+        doctor_name = EXCLUDED.doctor_name,
+        total_amount = EXCLUDED.total_amount,
+        balance_due = EXCLUDED.balance_due,
+        age_bucket = EXCLUDED.age_bucket,
+        refreshed_at = EXCLUDED.refreshed_at;
+    IF NOT FOUND THEN
+        DELETE FROM receivable_aging WHERE invoice_id = p_invoice_id;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT sync_receivable_aging(id, invoice_date) FROM invoices WHERE balance_due > 0;
+
+CREATE OR REPLACE FUNCTION track_receivable_aging() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        -- A partition-key update deletes and re-inserts the invoice; the insert restores the row
+        DELETE FROM receivable_aging WHERE invoice_id = OLD.id;
+    ELSE
+        PERFORM sync_receivable_aging(NEW.id, NEW.invoice_date);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_invoices_track_receivable_aging ON invoices;
+CREATE TRIGGER trg_invoices_track_receivable_aging
+    AFTER INSERT OR DELETE OR UPDATE OF balance_due, total_amount, status, due_date, invoice_date, patient_id,
+        patient_name, patient_phone, insurance_provider, user_id, doctor_name ON invoices
+    FOR EACH ROW
+    EXECUTE FUNCTION track_receivable_aging();
@@ -0,0 +1,35 @@
+-- Cluster-wide state of the background jobs run by JobSchedulerService. Each replica schedules every
+-- job, but a run first takes the job's Postgres advisory lock and then claims its fire time here, so
+-- one node runs each scheduled fire and the others skip it.
+
+CREATE TABLE IF NOT EXISTS scheduled_jobs (
+    job_name VARCHAR(100) PRIMARY KEY,
+    cron VARCHAR(100) NOT NULL,
+    -- Configuration of the node that registered the job last
+    enabled BOOLEAN NOT NULL,
+    -- Set by admins; stops scheduled runs on every node until resumed
+    paused BOOLEAN NOT NULL DEFAULT FALSE,
+    -- Fire time (Africa/Kampala) of the last scheduled run a node claimed
+    last_fire_at TIMESTAMP,
+    -- Where a chunked job resumes; 0 after a complete pass
+    checkpoint BIGINT NOT NULL DEFAULT 0,
+    checkpoint_updated_at TIMESTAMP,
+    registered_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS scheduled_job_runs (
+    id BIGSERIAL PRIMARY KEY,
+    job_name VARCHAR(100) NOT NULL,
+    trigger_type VARCHAR(20) NOT NULL,
+    node VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP,
+    duration_ms BIGINT,
+    processed BIGINT,
+    detail TEXT,
+    CONSTRAINT chk_scheduled_job_runs_trigger CHECK (trigger_type IN ('SCHEDULE', 'STARTUP', 'MANUAL')),
+    CONSTRAINT chk_scheduled_job_runs_status CHECK (status IN ('RUNNING', 'SUCCEEDED', 'FAILED', 'ABANDONED'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_scheduled_job_runs_job_name_started_at ON scheduled_job_runs(job_name, started_at DESC);
@@ -0,0 +1,29 @@
+-- Domain events written by DomainEventPublisher in the transaction that made the change. The insert
+-- trigger NOTIFYs the event id on domain_events; Postgres delivers notifications only when the
+-- transaction commits, so listening nodes never hear of a change that rolled back.
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(100) NOT NULL,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload JSONB NOT NULL,
+    -- Node that published the event; it dispatches its own events without waiting for the NOTIFY
+    origin_node VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT (CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala')
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_created_at ON outbox_events(created_at);
+CREATE INDEX IF NOT EXISTS idx_outbox_events_aggregate_type_aggregate_id ON outbox_events(aggregate_type, aggregate_id);
+
+CREATE OR REPLACE FUNCTION notify_outbox_event() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM pg_notify('domain_events', NEW.id::TEXT);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_outbox_events_notify ON outbox_events;
+CREATE TRIGGER trg_outbox_events_notify
+    AFTER INSERT ON outbox_events
+    FOR EACH ROW EXECUTE FUNCTION notify_outbox_event();
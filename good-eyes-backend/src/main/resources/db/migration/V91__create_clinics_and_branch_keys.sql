@@ -0,0 +1,59 @@
+-- Branches (clinics) and the branch key on the tables each branch works from.
+--
+-- Existing rows belong to the main clinic (id 1), which is also where rows go when written without
+-- a branch (super admins without a clinic, background jobs). A constant default makes ADD COLUMN a
+-- catalog-only change, with no table rewrite. Partitions detached into the archive schema before
+-- this migration do not get the column and can no longer be re-attached as they are.
+
+CREATE TABLE IF NOT EXISTS clinics (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    code VARCHAR(20) NOT NULL,
+    department VARCHAR(255),
+    description TEXT,
+    -- Printed on the branch's receipts
+    clinic_name VARCHAR(255),
+    clinic_address TEXT,
+    clinic_phone VARCHAR(50),
+    clinic_email VARCHAR(255),
+    clinic_website VARCHAR(255),
+    clinic_logo_text VARCHAR(100),
+    receipt_footer_message TEXT,
+    receipt_contact_message VARCHAR(255),
+    is_active BOOLEAN NOT NULL DEFAULT TRUE,
+    is_default BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT (CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala'),
+    updated_at TIMESTAMP DEFAULT (CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala'),
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_clinics_code ON clinics(code);
+-- At most one default clinic for receipts
+CREATE UNIQUE INDEX IF NOT EXISTS uk_clinics_is_default ON clinics(is_default) WHERE is_default;
+
+INSERT INTO clinics (id, name, code, clinic_name, clinic_address, clinic_logo_text, receipt_footer_message,
+                     receipt_contact_message, is_active, is_default, created_by, updated_by)
+VALUES (1, 'Main Clinic', 'MAIN', 'Eye Sante Clinic', 'Kampala, Uganda', 'EYE SANTE CLINIC',
+        'Thank you for choosing Eye Sante Clinic', 'For inquiries: ', TRUE, TRUE, 'system', 'system')
+ON CONFLICT (id) DO NOTHING;
+SELECT setval(pg_get_serial_sequence('clinics', 'id'), GREATEST((SELECT MAX(id) FROM clinics), 1));
+
+-- Registering branch; patients stay visible to every branch
+ALTER TABLE patients ADD COLUMN IF NOT EXISTS clinic_id BIGINT NOT NULL DEFAULT 1 REFERENCES clinics(id);
+-- Branch-scoped: only the user's branch sees them
+ALTER TABLE patient_visit_sessions ADD COLUMN IF NOT EXISTS clinic_id BIGINT NOT NULL DEFAULT 1 REFERENCES clinics(id);
+ALTER TABLE invoices ADD COLUMN IF NOT EXISTS clinic_id BIGINT NOT NULL DEFAULT 1 REFERENCES clinics(id);
+ALTER TABLE theater_stores ADD COLUMN IF NOT EXISTS clinic_id BIGINT NOT NULL DEFAULT 1 REFERENCES clinics(id);
+-- A user's branch; NULL works across all branches
+ALTER TABLE users ADD COLUMN IF NOT EXISTS clinic_id BIGINT REFERENCES clinics(id);
+
+-- Branch lists in their default order; on the partitioned tables each partition gets its own
+CREATE INDEX IF NOT EXISTS idx_patients_clinic_id_created_at ON patients(clinic_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_patient_visit_sessions_clinic_id_visit_date
+    ON patient_visit_sessions(clinic_id, visit_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_patient_visit_sessions_clinic_id_status ON patient_visit_sessions(clinic_id, status);
+CREATE INDEX IF NOT EXISTS idx_invoices_clinic_id_invoice_date ON invoices(clinic_id, invoice_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_invoices_clinic_id_status ON invoices(clinic_id, status);
+CREATE INDEX IF NOT EXISTS idx_theater_stores_clinic_id ON theater_stores(clinic_id);
+CREATE INDEX IF NOT EXISTS idx_users_clinic_id ON users(clinic_id);
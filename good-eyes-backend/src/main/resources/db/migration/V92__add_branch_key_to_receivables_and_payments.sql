@@ -0,0 +1,81 @@
+-- Branch key on the two tables finance reads with plain SQL, so a branch's aging figures and
+-- takings stay a scan of one table. receivable_aging copies it from the invoice like its other
+-- columns; a payment takes its invoice's branch when it is posted, and keeps it once the invoice
+-- has been archived.
+
+ALTER TABLE receivable_aging ADD COLUMN IF NOT EXISTS clinic_id BIGINT NOT NULL DEFAULT 1;
+
+UPDATE receivable_aging ra
+SET clinic_id = i.clinic_id
+FROM invoices i
+WHERE i.id = ra.invoice_id AND i.invoice_date = ra.invoice_date AND ra.clinic_id <> i.clinic_id;
+
+-- A branch's drill-downs and overdue lists, oldest first
+CREATE INDEX IF NOT EXISTS idx_receivable_aging_clinic_id_invoice_date
+    ON receivable_aging(clinic_id, invoice_date, invoice_id);
+CREATE INDEX IF NOT EXISTS idx_receivable_aging_clinic_id_due_date ON receivable_aging(clinic_id, due_date, invoice_id);
+
+CREATE OR REPLACE FUNCTION sync_receivable_aging(p_invoice_id BIGINT, p_invoice_date DATE) RETURNS VOID AS $$
+BEGIN
+    INSERT INTO receivable_aging (invoice_id, invoice_number, invoice_date, due_date, patient_id, patient_name,
+                                  patient_phone, insurance_provider, user_id, doctor_name, total_amount,
+                                  balance_due, age_bucket, refreshed_at, clinic_id)
+    SELECT i.id, i.invoice_number, i.invoice_date, i.due_date, i.patient_id, i.patient_name,
+           i.patient_phone, i.insurance_provider, i.user_id, i.doctor_name, i.total_amount,
+           i.balance_due, receivable_age_bucket(i.invoice_date), CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala',
+           i.clinic_id
+    FROM invoices i
+    WHERE i.id = p_invoice_id AND i.invoice_date = p_invoice_date
+      AND i.balance_due > 0 AND i.status NOT IN ('PAID', 'CANCELLED', 'REFUNDED', 'DRAFT')
+    ON CONFLICT (invoice_id) DO UPDATE SET
+        invoice_number = EXCLUDED.invoice_number,
+        invoice_date = EXCLUDED.invoice_date,
+        due_date = EXCLUDED.due_date,
+        patient_id = EXCLUDED.patient_id,
+        patient_name = EXCLUDED.patient_name,
+        patient_phone = EXCLUDED.patient_phone,
+        insurance_provider = EXCLUDED.insurance_provider,
+        user_id = EXCLUDED.user_id,
+        doctor_name = EXCLUDED.doctor_name,
+        total_amount = EXCLUDED.total_amount,
+        balance_due = EXCLUDED.balance_due,
+        age_bucket = EXCLUDED.age_bucket,
+        refreshed_at = EXCLUDED.refreshed_at,
+        clinic_id = EXCLUDED.clinic_id;
+    IF NOT FOUND THEN
+        DELETE FROM receivable_aging WHERE invoice_id = p_invoice_id;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+-- An invoice moved to another branch moves its aging row with it
+DROP TRIGGER IF EXISTS trg_invoices_track_receivable_aging ON invoices;
+CREATE TRIGGER trg_invoices_track_receivable_aging
+    AFTER INSERT OR DELETE OR UPDATE OF balance_due, total_amount, status, due_date, invoice_date, patient_id,
+        patient_name, patient_phone, insurance_provider, user_id, doctor_name, clinic_id ON invoices
+    FOR EACH ROW
+    EXECUTE FUNCTION track_receivable_aging();
+
+-- Payments: filled from the live invoice, or from the archived snapshot of one taken after V91;
+-- older snapshots predate branches and stay with the main clinic
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS clinic_id BIGINT NOT NULL DEFAULT 1;
+
+ALTER TABLE payments DISABLE TRIGGER trg_payments_append_only;
+
+UPDATE payments p
+SET clinic_id = i.clinic_id
+FROM invoices i
+WHERE i.id = p.invoice_id AND p.clinic_id <> i.clinic_id;
+
+UPDATE payments p
+SET clinic_id = a.clinic_id
+FROM (SELECT ai.invoice_id, inv.clinic_id
+      FROM archived_invoices ai
+      CROSS JOIN LATERAL jsonb_populate_recordset(NULL::invoices, ai.snapshot->'invoices') inv
+      WHERE inv.clinic_id IS NOT NULL) a
+WHERE a.invoice_id = p.invoice_id AND p.clinic_id <> a.clinic_id;
+
+ALTER TABLE payments ENABLE TRIGGER trg_payments_append_only;
+
+-- A branch's takings by day and method
+CREATE INDEX IF NOT EXISTS idx_payments_clinic_id_received_at_method ON payments(clinic_id, received_at, payment_method);
@@ -0,0 +1,96 @@
+-- Branch key on the visit pipeline tables (V83), so each branch's queue and dwell times are read
+-- from them alone, as before. The live queue takes the visit's branch; the daily histograms are
+-- kept per branch and rebuilt from visit_stage_transitions, which holds every dwell they counted.
+-- Visits already archived have no branch left to read and stay with the main clinic.
+
+ALTER TABLE visit_stage_occupancy ADD COLUMN IF NOT EXISTS clinic_id BIGINT NOT NULL DEFAULT 1;
+
+UPDATE visit_stage_occupancy o
+SET clinic_id = v.clinic_id
+FROM patient_visit_sessions v
+WHERE v.id = o.visit_session_id AND o.clinic_id <> v.clinic_id;
+
+DROP INDEX IF EXISTS idx_visit_stage_occupancy_stage;
+CREATE INDEX IF NOT EXISTS idx_visit_stage_occupancy_clinic_id_stage ON visit_stage_occupancy(clinic_id, stage, entered_at);
+
+ALTER TABLE visit_stage_dwell_daily ADD COLUMN IF NOT EXISTS clinic_id BIGINT NOT NULL DEFAULT 1;
+ALTER TABLE visit_stage_dwell_daily DROP CONSTRAINT IF EXISTS visit_stage_dwell_daily_pkey;
+ALTER TABLE visit_stage_dwell_daily ADD PRIMARY KEY (clinic_id, stage, day);
+
+TRUNCATE visit_stage_dwell_daily;
+
+WITH dwells AS (
+    SELECT COALESCE(v.clinic_id, 1) AS clinic_id, t.from_stage AS stage,
+           (t.changed_at - t.dwell_seconds * INTERVAL '1 second')::DATE AS day, t.dwell_seconds,
+           width_bucket(t.dwell_seconds / 60.0, visit_dwell_bucket_bounds()) + 1 AS bucket
+    FROM visit_stage_transitions t
+    LEFT JOIN patient_visit_sessions v ON v.id = t.visit_session_id
+    WHERE t.dwell_seconds IS NOT NULL AND t.from_stage IS NOT NULL
+), bucket_totals AS (
+    SELECT clinic_id, stage, day, bucket, COUNT(*) AS visits
+    FROM dwells
+    GROUP BY clinic_id, stage, day, bucket
+)
+INSERT INTO visit_stage_dwell_daily (clinic_id, stage, day, visit_count, total_seconds, max_seconds, bucket_counts)
+SELECT d.clinic_id, d.stage, d.day, COUNT(*), SUM(d.dwell_seconds), MAX(d.dwell_seconds),
+       (SELECT array_agg(COALESCE(b.visits, 0)::INTEGER ORDER BY g)
+        FROM generate_series(1, cardinality(visit_dwell_bucket_bounds()) + 1) g
+        LEFT JOIN bucket_totals b
+               ON b.clinic_id = d.clinic_id AND b.stage = d.stage AND b.day = d.day AND b.bucket = g)
+FROM dwells d
+GROUP BY d.clinic_id, d.stage, d.day;
+
+-- As in V83, with the visit's branch on the queue row and the histogram it is counted in
+CREATE OR REPLACE FUNCTION record_visit_stage_transition() RETURNS TRIGGER AS $$
+DECLARE
+    now_local TIMESTAMP := CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala';
+    open_stage VARCHAR(50);
+    open_since TIMESTAMP;
+    old_stage VARCHAR(50);
+    old_status VARCHAR(50);
+    stage_changed BOOLEAN;
+    dwell INTEGER;
+    bucket INTEGER;
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        IF NEW.current_stage IS NOT DISTINCT FROM OLD.current_stage AND NEW.status IS NOT DISTINCT FROM OLD.status THEN
+            RETURN NULL;
+        END IF;
+        old_stage := OLD.current_stage;
+        old_status := OLD.status;
+    ELSIF EXISTS (SELECT 1 FROM visit_stage_transitions WHERE visit_session_id = NEW.id) THEN
+        -- Re-inserted by a partition-key update, not a new visit
+        RETURN NULL;
+    END IF;
+
+    DELETE FROM visit_stage_occupancy WHERE visit_session_id = NEW.id
+    RETURNING stage, entered_at INTO open_stage, open_since;
+
+    stage_changed := old_stage IS NULL OR NEW.current_stage IS DISTINCT FROM old_stage;
+    IF stage_changed AND open_since IS NOT NULL THEN
+        dwell := GREATEST(0, EXTRACT(EPOCH FROM now_local - open_since))::INTEGER;
+        bucket := width_bucket(dwell / 60.0, visit_dwell_bucket_bounds()) + 1;
+        INSERT INTO visit_stage_dwell_daily (clinic_id, stage, day, visit_count, total_seconds, max_seconds, bucket_counts)
+        VALUES (NEW.clinic_id, open_stage, open_since::DATE, 1, dwell, dwell,
+                (SELECT array_agg(CASE WHEN g = bucket THEN 1 ELSE 0 END ORDER BY g)
+                 FROM generate_series(1, cardinality(visit_dwell_bucket_bounds()) + 1) g))
+        ON CONFLICT (clinic_id, stage, day) DO UPDATE SET
+            visit_count = visit_stage_dwell_daily.visit_count + 1,
+            total_seconds = visit_stage_dwell_daily.total_seconds + EXCLUDED.total_seconds,
+            max_seconds = GREATEST(visit_stage_dwell_daily.max_seconds, EXCLUDED.max_seconds),
+            bucket_counts[bucket] = visit_stage_dwell_daily.bucket_counts[bucket] + 1;
+    END IF;
+
+    INSERT INTO visit_stage_transitions (visit_session_id, from_stage, to_stage, from_status, to_status,
+                                         changed_at, dwell_seconds, changed_by)
+    VALUES (NEW.id, old_stage, NEW.current_stage, old_status, NEW.status, now_local, dwell, NEW.updated_by);
+
+    -- Still in the pipeline: (re)open the current stage, keeping its entry time on status-only changes
+    IF NEW.current_stage <> 'COMPLETED' AND NEW.status NOT IN ('COMPLETED', 'CANCELLED', 'NO_SHOW') THEN
+        INSERT INTO visit_stage_occupancy (visit_session_id, stage, entered_at, clinic_id)
+        VALUES (NEW.id, NEW.current_stage,
+                CASE WHEN stage_changed OR open_since IS NULL THEN now_local ELSE open_since END, NEW.clinic_id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
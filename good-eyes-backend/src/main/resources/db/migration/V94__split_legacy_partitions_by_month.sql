@@ -0,0 +1,106 @@
+-- Splits the "<table>_p_legacy" partitions V81 attached for existing history into monthly ones.
+--
+-- V81 kept every row dated before its boundary in one legacy partition, so reports over past months
+-- never pruned and detach_monthly_partitions, which only takes "<table>_pYYYYMM", could not detach
+-- or archive any of it. PartitionMaintenanceService calls split_legacy_partition a few times a run
+-- until the legacy partitions are empty; an empty legacy partition stays as the catch-all below the
+-- oldest month.
+--
+-- Constraints on these tables since V81:
+--   * invoice_number uniqueness is kept by the invoice_numbers registry (V81).
+--   * id on its own is no longer unique: the primary key is (id, partition key). Ids come from the
+--     table's own sequence, so only explicitly inserted ids could collide; the legacy partition keeps
+--     its old single-column key for the rows still in it.
+--   * Every other index, check, outgoing and incoming foreign key applies to all partitions,
+--     including the ones split off here.
+
+-- Moves the newest month of rows (and any empty months above it) out of the legacy partition into
+-- "<table>_pYYYYMM" partitions, and returns the legacy partition's new upper bound; NULL once the
+-- legacy partition is empty or gone. One call is one step and commits with the caller's transaction.
+--
+-- The legacy partition is detached and re-attached with a lower bound, which holds an ACCESS
+-- EXCLUSIVE lock on the table until the transaction ends. Foreign keys into the table would block
+-- the detach, so they are dropped and re-created, re-validating the referencing tables.
+CREATE OR REPLACE FUNCTION split_legacy_partition(p_table TEXT) RETURNS DATE AS $$
+DECLARE
+    legacy TEXT := p_table || '_p_legacy';
+    part_key TEXT;
+    col_list TEXT;
+    upper_bound DATE;
+    last_month DATE;
+    month_start DATE;
+    month_end DATE;
+    part TEXT;
+    fk RECORD;
+    fk_tables TEXT[] := '{}';
+    fk_names TEXT[] := '{}';
+    fk_defs TEXT[] := '{}';
+BEGIN
+    IF to_regclass(legacy) IS NULL
+       OR NOT EXISTS (SELECT 1 FROM pg_inherits WHERE inhrelid = legacy::REGCLASS AND inhparent = p_table::REGCLASS) THEN
+        RETURN NULL;
+    END IF;
+
+    SELECT a.attname INTO part_key
+    FROM pg_partitioned_table pt
+    JOIN pg_attribute a ON a.attrelid = pt.partrelid AND a.attnum = pt.partattrs[0]
+    WHERE pt.partrelid = p_table::REGCLASS;
+
+    EXECUTE format('SELECT date_trunc(''month'', MAX(%I))::DATE FROM %I', part_key, legacy) INTO last_month;
+    IF last_month IS NULL THEN
+        RETURN NULL;
+    END IF;
+
+    SELECT substring(pg_get_expr(relpartbound, oid) FROM 'TO \(''([^'']+)''\)')::DATE INTO upper_bound
+    FROM pg_class WHERE oid = legacy::REGCLASS;
+
+    SELECT string_agg(quote_ident(attname), ', ' ORDER BY attnum) INTO col_list
+    FROM pg_attribute WHERE attrelid = p_table::REGCLASS AND attnum > 0 AND NOT attisdropped;
+
+    -- Give up rather than queue every request behind the table lock
+    PERFORM set_config('lock_timeout', '10s', true);
+
+    FOR fk IN
+        SELECT conname::TEXT AS name, conrelid::REGCLASS::TEXT AS child, pg_get_constraintdef(oid) AS def
+        FROM pg_constraint
+        WHERE contype = 'f' AND confrelid = p_table::REGCLASS AND conparentid = 0
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.child, fk.name);
+        fk_tables := fk_tables || fk.child;
+        fk_names := fk_names || fk.name;
+        fk_defs := fk_defs || fk.def;
+    END LOOP;
+
+    EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', p_table, legacy);
+
+    -- Filled as plain tables and attached with a matching check, so the attach skips its scan and
+    -- builds the table's indexes once over the copied rows
+    month_start := last_month;
+    WHILE month_start < upper_bound LOOP
+        month_end := (month_start + INTERVAL '1 month')::DATE;
+        part := p_table || '_p' || to_char(month_start, 'YYYYMM');
+        EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING STORAGE)',
+                       part, p_table);
+        EXECUTE format('INSERT INTO %I (%s) SELECT %s FROM %I WHERE %I >= %L AND %I < %L',
+                       part, col_list, col_list, legacy, part_key, month_start, part_key, month_end);
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (%I IS NOT NULL AND %I >= %L AND %I < %L)',
+                       part, part || '_bound', part_key, part_key, month_start, part_key, month_end);
+        EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       p_table, part, month_start, month_end);
+        EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', part, part || '_bound');
+        month_start := month_end;
+    END LOOP;
+
+    -- Detached, so no triggers fire on these rows
+    EXECUTE format('DELETE FROM %I WHERE %I >= %L', legacy, part_key, last_month);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT IF EXISTS %I', legacy, legacy || '_bound');
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (%I IS NOT NULL AND %I < %L)',
+                   legacy, legacy || '_bound', part_key, part_key, last_month);
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (MINVALUE) TO (%L)', p_table, legacy, last_month);
+
+    FOR i IN 1 .. cardinality(fk_tables) LOOP
+        EXECUTE format('ALTER TABLE %s ADD CONSTRAINT %I %s', fk_tables[i], fk_names[i], fk_defs[i]);
+    END LOOP;
+    RETURN last_month;
+END;
+$$ LANGUAGE plpgsql;
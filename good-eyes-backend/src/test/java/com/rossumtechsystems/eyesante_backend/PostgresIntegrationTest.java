@@ -0,0 +1,123 @@
+package com.rossumtechsystems.eyesante_backend;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Base for tests that need the real schema: one Postgres container for the whole run, migrated by
+ * Flyway, and one application context shared by every subclass. Skipped where Docker is not
+ * available.
+ *
+ * Tests share the database (a fresh one per run), so each seeds its own patients and invoices and
+ * only asserts on those.
+ */
+@SpringBootTest
+public abstract class PostgresIntegrationTest {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private static PostgreSQLContainer<?> postgres;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    static void requireDocker() {
+        assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is not available");
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> container().getJdbcUrl());
+        registry.add("spring.datasource.username", () -> container().getUsername());
+        registry.add("spring.datasource.password", () -> container().getPassword());
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> 10);
+        registry.add("spring.flyway.enabled", () -> true);
+        registry.add("spring.flyway.baseline-on-migrate", () -> true);
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                () -> SqlCapture.class.getName());
+        registry.add("app.jwt-secret", () -> "integration-test-secret-integration-test-secret-integration-test-secret");
+        registry.add("app.jwt-expiration-milliseconds", () -> 86400000);
+        registry.add("app.jwt-refresh-expiration-milliseconds", () -> 604800000);
+    }
+
+    private static synchronized PostgreSQLContainer<?> container() {
+        if (postgres == null) {
+            // Stopped by Testcontainers when the JVM exits
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+        }
+        return postgres;
+    }
+
+    protected TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * A patient of the main clinic with a number no other test uses
+     */
+    protected long insertPatient() {
+        long n = SEQUENCE.incrementAndGet();
+        return transactionTemplate().execute(status -> jdbcTemplate.queryForObject("""
+                INSERT INTO patients (patient_number, first_name, last_name, gender, phone, age_in_years, deleted,
+                                      reception_timestamp, received_by, created_at, updated_at, created_by, updated_by)
+                VALUES (?, 'Test', ?, 'Female', ?, 40, FALSE, NOW(), 'test', NOW(), NOW(), 'test', 'test')
+                RETURNING id
+                """, Long.class, "IT-" + n, "Patient" + n, String.format("+25670%07d", n)));
+    }
+
+    /**
+     * An open invoice of {@code items} lines of 1000 each, written directly so seeding is not measured
+     */
+    protected long insertInvoice(long patientId, int items) {
+        return insertInvoice(patientId, items, 0);
+    }
+
+    /**
+     * As {@link #insertInvoice(long, int)}, dated {@code daysAgo} days back and due 30 days after that
+     */
+    protected long insertInvoice(long patientId, int items, int daysAgo) {
+        BigDecimal total = BigDecimal.valueOf(1000L * items);
+        return transactionTemplate().execute(status -> {
+            Long invoiceId = jdbcTemplate.queryForObject("""
+                    INSERT INTO invoices (invoice_number, invoice_date, due_date, patient_id, patient_name, patient_phone,
+                                          doctor_name, invoice_purpose, subtotal, tax_amount, discount_amount, total_amount,
+                                          amount_paid, balance_due, status, payment_status,
+                                          created_at, updated_at, created_by, updated_by)
+                    SELECT ?, CURRENT_DATE - ?, CURRENT_DATE - ? + 30, p.id, p.first_name || ' ' || p.last_name, p.phone,
+                           'Test Doctor', 'TREATMENT_INVOICE_BILL', ?, 0, 0, ?, 0, ?, 'PENDING', 'PENDING',
+                           NOW(), NOW(), 'test', 'test'
+                    FROM patients p WHERE p.id = ?
+                    RETURNING id
+                    """, Long.class, "IT-INV-" + SEQUENCE.incrementAndGet(), daysAgo, daysAgo,
+                    total, total, total, patientId);
+            jdbcTemplate.update("""
+                    INSERT INTO invoice_items (invoice_id, invoice_date, item_name, item_description, item_type, quantity,
+                                               unit_price, total_price, discount_amount, final_price, tax_amount,
+                                               created_at, updated_at, created_by, updated_by)
+                    SELECT i.id, i.invoice_date, 'Test line ' || n, 'Seeded line', 'MEDICATION', 1,
+                           1000, 1000, 0, 1000, 0, NOW(), NOW(), 'test', 'test'
+                    FROM invoices i CROSS JOIN generate_series(1, ?) AS n
+                    WHERE i.id = ?
+                    """, items, invoiceId);
+            return invoiceId;
+        });
+    }
+}
@@ -0,0 +1,159 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void refusesBeyondTheLimitWhenTheQueueIsFull() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 10);
+
+        AdaptiveConcurrencyLimiter.Permit first = limiter.tryAcquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.tryAcquire();
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(limiter.tryAcquire()).isNull();
+        second.release(false);
+        assertThat(limiter.tryAcquire()).isNotNull();
+
+        AdaptiveConcurrencyLimiter.Stats stats = limiter.getStats();
+        assertThat(stats.accepted()).isEqualTo(3);
+        assertThat(stats.rejected()).isEqualTo(1);
+        assertThat(stats.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void waitingRequestTimesOut() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 1, 1, 20, 0);
+        assertThat(limiter.tryAcquire()).isNotNull();
+
+        assertThat(limiter.tryAcquire()).isNull();
+        assertThat(limiter.getStats().timedOut()).isEqualTo(1);
+    }
+
+    @Test
+    void failuresBackTheLimitOff() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 1, 50);
+
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(limiter, 5);
+        permits.forEach(permit -> permit.release(true));
+
+        assertThat(limiter.getStats().limit()).isEqualTo(18);
+    }
+
+    @Test
+    void growsWhileLatencyHolds() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 50);
+
+        for (int round = 0; round < 20; round++) {
+            runRound(limiter, 5);
+        }
+
+        assertThat(limiter.getStats().limit()).isGreaterThan(15);
+    }
+
+    @Test
+    void latencyWithinToleranceStillGrows() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 50);
+        runRound(limiter, 5);
+
+        for (int round = 0; round < 10; round++) {
+            runRound(limiter, 7);
+        }
+
+        assertThat(limiter.getStats().limit()).isGreaterThan(10);
+    }
+
+    @Test
+    void quietPoolDoesNotDriftUp() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 1, 50);
+
+        for (int round = 0; round < 10; round++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(limiter, 5);
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5));
+            permits.forEach(permit -> permit.release(false));
+        }
+
+        assertThat(limiter.getStats().limit()).isEqualTo(20);
+    }
+
+    @Test
+    void shrinksWhileLatencyIsAboveTheBaseline() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 1, 50);
+        runRound(limiter, 5);
+
+        for (int round = 0; round < 5; round++) {
+            runRound(limiter, 50);
+        }
+
+        assertThat(limiter.getStats().limit()).isLessThan(20);
+    }
+
+    @Test
+    void sustainedLatencyPushesASmallPoolBelowFour() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 1, 50);
+        runRound(limiter, 5);
+
+        // A square-root queue allowance would settle at 4 here
+        for (int round = 0; round < 40; round++) {
+            runRound(limiter, 500);
+        }
+
+        assertThat(limiter.getStats().limit()).isLessThan(4);
+    }
+
+    @Test
+    void neverShrinksBelowTheMinimum() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 6, 50);
+        runRound(limiter, 5);
+
+        for (int round = 0; round < 20; round++) {
+            runRound(limiter, 500);
+        }
+
+        assertThat(limiter.getStats().limit()).isEqualTo(6);
+    }
+
+    @Test
+    void rejectsInvalidLimits() {
+        assertThatThrownBy(() -> limiter(1, 0, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> limiter(1, 5, 4)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * No queue, and every release past the first five samples closes a window
+     */
+    private AdaptiveConcurrencyLimiter limiter(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimiter("test", initial, min, max, 0, 0, 0, clock::get);
+    }
+
+    /**
+     * Fill the pool, hold every permit for {@code millis}, release them all
+     */
+    private void runRound(AdaptiveConcurrencyLimiter limiter, long millis) throws InterruptedException {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(limiter, Integer.MAX_VALUE);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        permits.forEach(permit -> permit.release(false));
+    }
+
+    private static List<AdaptiveConcurrencyLimiter.Permit> acquire(AdaptiveConcurrencyLimiter limiter, int max)
+            throws InterruptedException {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        AdaptiveConcurrencyLimiter.Permit permit;
+        while (permits.size() < max && (permit = limiter.tryAcquire()) != null) {
+            permits.add(permit);
+        }
+        return permits;
+    }
+}
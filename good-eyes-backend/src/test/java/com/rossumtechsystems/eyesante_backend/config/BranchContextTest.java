@@ -0,0 +1,45 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import com.rossumtechsystems.eyesante_backend.entity.Clinic;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BranchContextTest {
+
+    @AfterEach
+    void clear() {
+        BranchContext.clear();
+    }
+
+    @Test
+    void outsideABranchEveryRowMatches() {
+        List<Object> args = new ArrayList<>(List.of(7L));
+
+        assertThat(BranchContext.sqlPredicate("clinic_id", args)).isEqualTo("TRUE");
+        assertThat(BranchContext.sqlPredicateOrMainClinic("r.clinic_id", args)).isEqualTo("TRUE");
+        assertThat(args).containsExactly(7L);
+    }
+
+    @Test
+    void inABranchTheBranchIsBoundAfterEarlierArguments() {
+        BranchContext.set(3L);
+        List<Object> args = new ArrayList<>(List.of(7L));
+
+        assertThat(BranchContext.sqlPredicate("clinic_id", args)).isEqualTo("clinic_id = ?");
+        assertThat(args).containsExactly(7L, 3L);
+    }
+
+    @Test
+    void rowsWithoutABranchKeyCountAsTheMainClinics() {
+        BranchContext.set(3L);
+        List<Object> args = new ArrayList<>(List.of(7L));
+
+        assertThat(BranchContext.sqlPredicateOrMainClinic("r.clinic_id", args)).isEqualTo("COALESCE(r.clinic_id, ?) = ?");
+        assertThat(args).containsExactly(7L, Clinic.MAIN_CLINIC_ID, 3L);
+    }
+}
@@ -0,0 +1,90 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitedDataSourceTest {
+
+    private static final long TIMEOUT_MILLIS = 500;
+
+    private HikariDataSource hikari;
+
+    @BeforeEach
+    void pool() {
+        hikari = new HikariDataSource();
+        hikari.setDataSource(new StubDataSource());
+        hikari.setMaximumPoolSize(1);
+        hikari.setConnectionTimeout(TIMEOUT_MILLIS);
+    }
+
+    @AfterEach
+    void close() {
+        hikari.close();
+    }
+
+    @Test
+    void permitAndPoolShareOneTimeout() throws Exception {
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(hikari, 1, TIMEOUT_MILLIS);
+        // The pool's only connection is taken past the guard, and no permit is free either
+        try (Connection ignored = hikari.getConnection()) {
+            dataSource.setLimit(0);
+            CompletableFuture.delayedExecutor(TIMEOUT_MILLIS * 4 / 5, TimeUnit.MILLISECONDS)
+                    .execute(() -> dataSource.setLimit(1));
+
+            long start = System.nanoTime();
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertThat(elapsedMillis).isLessThan(TIMEOUT_MILLIS * 3 / 2);
+        }
+        assertThat(dataSource.getInFlight()).isZero();
+    }
+
+    @Test
+    void connectionReturnsItsPermitOnClose() throws Exception {
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(hikari, 1, TIMEOUT_MILLIS);
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertThat(dataSource.getInFlight()).isEqualTo(1);
+            assertThat(connection.isClosed()).isFalse();
+        }
+        assertThat(dataSource.getInFlight()).isZero();
+        dataSource.getConnection().close();
+    }
+
+    /**
+     * Hands out connections that answer every call with a neutral value
+     */
+    private static class StubDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "isValid", "getAutoCommit" -> true;
+                        case "getTransactionIsolation" -> Connection.TRANSACTION_READ_COMMITTED;
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        default -> method.getReturnType() == boolean.class ? false
+                                : method.getReturnType() == int.class ? 0 : null;
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.rossumtechsystems.eyesante_backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCompressionFilterTest {
+
+    @Test
+    void noAcceptEncodingMeansNoGzip() {
+        assertThat(ResponseCompressionFilter.acceptsGzip(new MockHttpServletRequest())).isFalse();
+    }
+
+    @Test
+    void gzipNamedWithoutQuality() {
+        assertThat(acceptsGzip("deflate, gzip, br")).isTrue();
+        assertThat(acceptsGzip("x-gzip")).isTrue();
+        assertThat(acceptsGzip("GZIP")).isTrue();
+    }
+
+    @Test
+    void gzipNamedWithQuality() {
+        assertThat(acceptsGzip("gzip;q=0.5, br;q=1.0")).isTrue();
+        assertThat(acceptsGzip("gzip ; q=0.001")).isTrue();
+    }
+
+    @Test
+    void gzipRefusedWithZeroQuality() {
+        assertThat(acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(acceptsGzip("gzip;q=0.0, deflate")).isFalse();
+    }
+
+    @Test
+    void namedRefusalWinsOverWildcard() {
+        assertThat(acceptsGzip("*, gzip;q=0")).isFalse();
+        assertThat(acceptsGzip("gzip;q=0, *;q=1")).isFalse();
+    }
+
+    @Test
+    void wildcardCoversGzip() {
+        assertThat(acceptsGzip("br, *")).isTrue();
+        assertThat(acceptsGzip("*;q=0")).isFalse();
+    }
+
+    @Test
+    void otherCodingsOnlyMeanNoGzip() {
+        assertThat(acceptsGzip("br, deflate")).isFalse();
+        assertThat(acceptsGzip("identity")).isFalse();
+    }
+
+    @Test
+    void malformedQualityIsTreatedAsRefusal() {
+        assertThat(acceptsGzip("gzip;q=high")).isFalse();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        return ResponseCompressionFilter.acceptsGzip(request);
+    }
+}
@@ -0,0 +1,170 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.PostgresIntegrationTest;
+import com.rossumtechsystems.eyesante_backend.dto.PatientTimelineEntryDto;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.repository.InvoiceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Domain events exist exactly for committed changes and reach other nodes. A second connection
+ * LISTENs on domain_events as another replica would.
+ */
+class DomainEventOutboxTest extends PostgresIntegrationTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+
+    @Autowired
+    private FinanceService financeService;
+
+    @Autowired
+    private DomainEventPublisher publisher;
+
+    @Autowired
+    private DomainEventDispatcher dispatcher;
+
+    @Autowired
+    private PatientTimelineCache timelineCache;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Connection otherNode;
+    private PGConnection listener;
+
+    @BeforeEach
+    void listen() throws Exception {
+        otherNode = dataSource.getConnection();
+        otherNode.setAutoCommit(true);
+        try (Statement statement = otherNode.createStatement()) {
+            statement.execute("LISTEN domain_events");
+        }
+        listener = otherNode.unwrap(PGConnection.class);
+    }
+
+    @AfterEach
+    void unlisten() throws Exception {
+        // The connection goes back to the pool; LISTEN would outlive it
+        try (Statement statement = otherNode.createStatement()) {
+            statement.execute("UNLISTEN *");
+        }
+        otherNode.close();
+    }
+
+    @Test
+    void settlingAnInvoiceWritesOneEventAndNotifiesOtherNodes() throws Exception {
+        long invoiceId = insertInvoice(insertPatient(), 2);
+
+        financeService.recordPayment(invoiceId, new BigDecimal("2000"), Invoice.PaymentMethod.CASH,
+                "IT-EVENTS", "IT-EVENTS-" + invoiceId);
+
+        List<Long> eventIds = jdbcTemplate.queryForList(
+                "SELECT id FROM outbox_events WHERE event_type = 'INVOICE_PAID' AND aggregate_id = ?", Long.class, invoiceId);
+        assertThat(eventIds).hasSize(1);
+        assertThat(awaitNotification(eventIds.get(0))).as("notification for event %d", eventIds.get(0)).isTrue();
+    }
+
+    @Test
+    void partPaymentPublishesNoPaidEvent() {
+        long invoiceId = insertInvoice(insertPatient(), 2);
+
+        financeService.recordPayment(invoiceId, new BigDecimal("500"), Invoice.PaymentMethod.CASH,
+                "IT-EVENTS", "IT-EVENTS-PART-" + invoiceId);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_events WHERE event_type = 'INVOICE_PAID' AND aggregate_id = ?",
+                Integer.class, invoiceId)).isZero();
+    }
+
+    @Test
+    void rolledBackEventLeavesNoRowAndNoNotification() throws Exception {
+        Long rolledBackId = transactionTemplate().execute(status -> {
+            DomainEvent event = publisher.publish(DomainEvent.Type.STOCK_MOVED, -1L, Map.of("reason", "TEST"));
+            status.setRollbackOnly();
+            return event.id();
+        });
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE id = ?",
+                Integer.class, rolledBackId)).isZero();
+        assertThat(awaitNotification(rolledBackId)).isFalse();
+    }
+
+    @Test
+    void anotherNodesEventReachesThisNodesListeners() throws Exception {
+        long patientId = insertPatient();
+        timelineCache.put(patientId, List.of(new PatientTimelineEntryDto()), List.of(), timelineCache.generation());
+        long receivedBefore = dispatcher.getStats().received();
+
+        transactionTemplate().executeWithoutResult(status -> jdbcTemplate.update("""
+                INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, payload, origin_node)
+                VALUES ('VISIT_STAGE_CHANGED', 'VISIT_SESSION', -1, jsonb_build_object('patientId', ?::BIGINT), 'test-other-node')
+                """, patientId));
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (timelineCache.get(patientId) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertThat(timelineCache.get(patientId)).as("cached timeline after the remote event").isNull();
+        assertThat(dispatcher.getStats().received()).isEqualTo(receivedBefore + 1);
+    }
+
+    @Test
+    void jpaWritesAnnounceThePatientOncePerTransaction() throws Exception {
+        long patientId = insertPatient();
+        long invoiceId = insertInvoice(patientId, 1);
+
+        transactionTemplate().executeWithoutResult(status -> {
+            Invoice invoice = invoiceRepository.findById(invoiceId).orElseThrow();
+            invoice.setNotes("First note");
+            invoiceRepository.saveAndFlush(invoice);
+            invoice.setNotes("Second note");
+            invoiceRepository.saveAndFlush(invoice);
+        });
+
+        List<Long> eventIds = jdbcTemplate.queryForList(
+                "SELECT id FROM outbox_events WHERE event_type = 'PATIENT_RECORDS_CHANGED' AND aggregate_id = ?",
+                Long.class, patientId);
+        assertThat(eventIds).hasSize(1);
+        assertThat(awaitNotification(eventIds.get(0))).as("notification for event %d", eventIds.get(0)).isTrue();
+    }
+
+    /**
+     * Whether the id is notified within the wait; other ids that arrive meanwhile are consumed
+     */
+    private boolean awaitNotification(Long eventId) throws Exception {
+        Set<String> seen = new HashSet<>();
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        String expected = String.valueOf(eventId);
+        while (System.currentTimeMillis() < deadline) {
+            PGNotification[] notifications = listener.getNotifications(50);
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    seen.add(notification.getParameter());
+                }
+            }
+            if (seen.contains(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
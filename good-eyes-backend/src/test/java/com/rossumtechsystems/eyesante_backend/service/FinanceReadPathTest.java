@@ -0,0 +1,107 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.PostgresIntegrationTest;
+import com.rossumtechsystems.eyesante_backend.SqlCapture;
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement budgets for the finance read paths, which must not regress into N+1.
+ *
+ * Every invoice line points at its own inventory item and category, so a lazy walk would cost
+ * several statements per line; the budgets hold whatever the page size. They are those of the
+ * load test's StatementBudgets less the four the JWT filter adds per request.
+ */
+class FinanceReadPathTest extends PostgresIntegrationTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private FinanceService financeService;
+
+    private long patientId;
+    private long invoiceId;
+
+    @BeforeEach
+    void seed() {
+        patientId = insertPatient();
+        for (int n = 0; n < PAGE_SIZE; n++) {
+            invoiceId = insertInvoice(patientId, 3);
+            linkItemsToInventory(invoiceId);
+        }
+    }
+
+    @Test
+    void invoicePageStaysWithinBudget() {
+        // Page query with the patient joined, count, one keyed query for the items
+        Page<InvoiceDto> page = withinBudget(4, () -> financeService.getAllInvoices(PageRequest.of(0, PAGE_SIZE)));
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+    }
+
+    @Test
+    void patientInvoicePageStaysWithinBudget() {
+        Page<InvoiceDto> page = withinBudget(4,
+                () -> financeService.getInvoicesByPatient(patientId, PageRequest.of(0, PAGE_SIZE)));
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).allSatisfy(invoice -> assertThat(invoice.getInvoiceItems())
+                .hasSize(3)
+                .allSatisfy(item -> assertThat(item.getInventoryCategoryName()).isNotNull()));
+    }
+
+    @Test
+    void balanceDuePageStaysWithinBudget() {
+        Page<InvoiceDto> page = withinBudget(4,
+                () -> financeService.getInvoicesWithBalanceDue(PageRequest.of(0, PAGE_SIZE)));
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+    }
+
+    @Test
+    void singleInvoiceStaysWithinBudget() {
+        // Lookup, patient, one keyed query for the items
+        InvoiceDto invoice = withinBudget(4, () -> financeService.getInvoiceById(invoiceId));
+        assertThat(invoice.getInvoiceItems()).hasSize(3);
+    }
+
+    private static <T> T withinBudget(int budget, Supplier<T> read) {
+        Object[] result = new Object[1];
+        List<String> statements = SqlCapture.capture(() -> result[0] = read.get());
+        assertThat(statements).as("statements issued").hasSizeLessThanOrEqualTo(budget);
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+
+    /**
+     * Points every line of the invoice at an inventory item of its own, each in a category of its own
+     */
+    private void linkItemsToInventory(long invoiceId) {
+        transactionTemplate().executeWithoutResult(status -> jdbcTemplate.update("""
+                WITH lines AS (
+                    SELECT id FROM invoice_items WHERE invoice_id = ?
+                ), categories AS (
+                    INSERT INTO inventory_categories (name, is_active, created_at, updated_at, created_by, updated_by)
+                    SELECT 'IT category ' || l.id, TRUE, NOW(), NOW(), 'test', 'test' FROM lines l
+                    RETURNING id, name
+                ), inventory AS (
+                    INSERT INTO inventory_items (name, description, sku, unit_price, quantity_in_stock, minimum_stock_level,
+                                                 category_id, is_active, created_at, updated_at, created_by, updated_by)
+                    SELECT 'IT item ' || substring(c.name FROM 13), 'Seeded item', 'IT-' || substring(c.name FROM 13),
+                           1000, 100, 0, c.id, TRUE, NOW(), NOW(), 'test', 'test'
+                    FROM categories c
+                    RETURNING id, sku
+                )
+                UPDATE invoice_items ii SET inventory_item_id = inv.id
+                FROM inventory inv
+                WHERE ii.id = substring(inv.sku FROM 4)::BIGINT
+                """, invoiceId));
+    }
+}
@@ -0,0 +1,110 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.PostgresIntegrationTest;
+import com.rossumtechsystems.eyesante_backend.SqlCapture;
+import com.rossumtechsystems.eyesante_backend.dto.CreateInvoiceRequest;
+import com.rossumtechsystems.eyesante_backend.dto.InvoiceItemDto;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.repository.InvoiceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Changing a stored invoice keeps its subtotal without loading its items.
+ */
+class InvoiceTotalsTest extends PostgresIntegrationTest {
+
+    // Hibernate's collection load: SELECT ... FROM invoice_items ... WHERE <alias>.invoice_id=?
+    private static final Pattern ITEM_COLLECTION_SELECT =
+            Pattern.compile("(?is)^\\s*select\\b.*\\bfrom\\s+invoice_items\\b.*\\bwhere\\b.*\\binvoice_id\\s*(=|in)");
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private FinanceService financeService;
+
+    @Autowired
+    private PaymentLedgerService paymentLedgerService;
+
+    @Autowired
+    private InvoiceTotalsReconciliationService reconciliation;
+
+    @Test
+    void editingTheInvoiceNeverLoadsItsItems() {
+        long invoiceId = insertInvoice(insertPatient(), 50);
+
+        assertNoItemSelect(() -> update(invoiceId, invoice -> invoice.setStatus(Invoice.InvoiceStatus.SENT)));
+        assertNoItemSelect(() -> update(invoiceId, invoice -> invoice.setNotes("Reviewed at the front desk")));
+        assertNoItemSelect(() -> update(invoiceId, invoice -> { }));
+        assertNoItemSelect(() -> paymentLedgerService.post(invoiceId, new BigDecimal("5000"),
+                Invoice.PaymentMethod.CASH, "IT-PAYMENT", null, "test"));
+
+        assertThat(subtotalMatchesItems(invoiceId)).isTrue();
+    }
+
+    @Test
+    void addingAndRemovingAnItemAdjustsTheSubtotalWithoutLoadingTheOthers() {
+        long invoiceId = insertInvoice(insertPatient(), 50);
+        CreateInvoiceRequest.CreateInvoiceItemRequest itemRequest = new CreateInvoiceRequest.CreateInvoiceItemRequest();
+        itemRequest.setItemName("Extra procedure");
+        itemRequest.setItemType("PROCEDURE");
+        itemRequest.setQuantity(2);
+        itemRequest.setUnitPrice(new BigDecimal("7500"));
+
+        InvoiceItemDto[] added = new InvoiceItemDto[1];
+        assertNoItemSelect(() -> added[0] = financeService.addInvoiceItem(invoiceId, itemRequest));
+        assertThat((BigDecimal) totals(invoiceId).get("subtotal")).isEqualByComparingTo("65000");
+        assertThat(subtotalMatchesItems(invoiceId)).isTrue();
+
+        assertNoItemSelect(() -> financeService.removeInvoiceItem(invoiceId, added[0].getId()));
+        assertThat((BigDecimal) totals(invoiceId).get("subtotal")).isEqualByComparingTo("50000");
+        assertThat(subtotalMatchesItems(invoiceId)).isTrue();
+    }
+
+    @Test
+    void reconciliationRepairsADriftedSubtotal() {
+        long invoiceId = insertInvoice(insertPatient(), 5);
+        transactionTemplate().executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE invoices SET subtotal = subtotal + 1 WHERE id = ?", invoiceId));
+        assertThat(subtotalMatchesItems(invoiceId)).isFalse();
+
+        assertThat(reconciliation.reconcile()).isPositive();
+
+        assertThat(subtotalMatchesItems(invoiceId)).isTrue();
+    }
+
+    private void update(long invoiceId, Consumer<Invoice> change) {
+        transactionTemplate().executeWithoutResult(status -> {
+            Invoice invoice = invoiceRepository.findById(invoiceId).orElseThrow();
+            change.accept(invoice);
+            invoiceRepository.saveAndFlush(invoice);
+        });
+    }
+
+    private static void assertNoItemSelect(Runnable action) {
+        List<String> statements = SqlCapture.capture(action);
+        assertThat(statements).noneMatch(sql -> ITEM_COLLECTION_SELECT.matcher(sql).find());
+    }
+
+    private boolean subtotalMatchesItems(long invoiceId) {
+        Map<String, Object> totals = totals(invoiceId);
+        return ((BigDecimal) totals.get("subtotal")).compareTo((BigDecimal) totals.get("item_sum")) == 0;
+    }
+
+    private Map<String, Object> totals(long invoiceId) {
+        return jdbcTemplate.queryForMap("""
+                SELECT i.subtotal,
+                       COALESCE((SELECT SUM(ii.unit_price * ii.quantity) FROM invoice_items ii WHERE ii.invoice_id = i.id), 0) AS item_sum
+                FROM invoices i WHERE i.id = ?
+                """, invoiceId);
+    }
+}
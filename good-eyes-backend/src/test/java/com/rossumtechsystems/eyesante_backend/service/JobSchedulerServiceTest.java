@@ -0,0 +1,136 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.PostgresIntegrationTest;
+import com.rossumtechsystems.eyesante_backend.dto.ScheduledJobDto;
+import com.rossumtechsystems.eyesante_backend.dto.ScheduledJobRunDto;
+import com.rossumtechsystems.eyesante_backend.exception.ResourceConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * One node at a time per job, through the Postgres advisory lock, with every run recorded.
+ */
+class JobSchedulerServiceTest extends PostgresIntegrationTest {
+
+    private static final String JOB = "invoice-overdue";
+
+    // JobSchedulerService.LOCK_NAMESPACE
+    private static final int LOCK_NAMESPACE = 0x4A4F4253;
+
+    @Autowired
+    private JobSchedulerService scheduler;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void awaitStartupRuns() throws InterruptedException {
+        // The startup runs go to the job threads when the context is ready and hold their locks meanwhile
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (runningOnThisNode() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(runningOnThisNode()).as("job runs still going after startup").isZero();
+    }
+
+    @Test
+    void runIsRefusedWhileAnotherNodeHoldsTheLock() throws Exception {
+        try (Connection otherNode = dataSource.getConnection()) {
+            otherNode.setAutoCommit(true);
+            advisoryLock(otherNode, "pg_advisory_lock");
+            try {
+                assertThatThrownBy(() -> scheduler.runNow(JOB)).isInstanceOf(ResourceConflictException.class);
+            } finally {
+                advisoryLock(otherNode, "pg_advisory_unlock");
+            }
+        }
+    }
+
+    @Test
+    void concurrentRunsNeverOverlap() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ScheduledJobRunDto>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return scheduler.runNow(JOB);
+                    } catch (ResourceConflictException refused) {
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            List<ScheduledJobRunDto> ran = new ArrayList<>();
+            for (Future<ScheduledJobRunDto> future : futures) {
+                ScheduledJobRunDto run = future.get(60, TimeUnit.SECONDS);
+                if (run != null) {
+                    ran.add(run);
+                }
+            }
+
+            assertThat(ran).isNotEmpty().allMatch(run -> "SUCCEEDED".equals(run.getStatus()));
+        } finally {
+            executor.shutdownNow();
+        }
+        Integer overlapping = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM scheduled_job_runs a JOIN scheduled_job_runs b
+                  ON a.job_name = b.job_name AND a.id < b.id
+                 AND tsrange(a.started_at, a.finished_at) && tsrange(b.started_at, b.finished_at)
+                WHERE a.job_name = ? AND a.trigger_type = 'MANUAL' AND b.trigger_type = 'MANUAL'
+                """, Integer.class, JOB);
+        assertThat(overlapping).isZero();
+    }
+
+    @Test
+    void runAbandonsADeadNodesRunAndFinishesItsPass() {
+        Long deadRunId = transactionTemplate().execute(status -> jdbcTemplate.queryForObject("""
+                INSERT INTO scheduled_job_runs (job_name, trigger_type, node, status, started_at)
+                VALUES (?, 'SCHEDULE', 'dead-node', 'RUNNING', NOW() - INTERVAL '1 hour') RETURNING id
+                """, Long.class, JOB));
+        // Due ten days ago
+        long pastDue = insertInvoice(insertPatient(), 1, 40);
+
+        ScheduledJobRunDto run = scheduler.runNow(JOB);
+
+        assertThat(run.getStatus()).isEqualTo("SUCCEEDED");
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM scheduled_job_runs WHERE id = ?",
+                String.class, deadRunId)).isEqualTo("ABANDONED");
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM invoices WHERE id = ?",
+                String.class, pastDue)).isEqualTo("OVERDUE");
+        ScheduledJobDto job = scheduler.getJobs().stream()
+                .filter(j -> j.getJobName().equals(JOB)).findFirst().orElseThrow();
+        assertThat(job.getCheckpoint()).as("checkpoint after a complete pass").isZero();
+        assertThat(job.getRuns()).isPositive();
+    }
+
+    private int runningOnThisNode() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM scheduled_job_runs WHERE status = 'RUNNING' AND node <> 'dead-node'", Integer.class);
+    }
+
+    private static void advisoryLock(Connection connection, String function) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?, hashtext(?))")) {
+            statement.setInt(1, LOCK_NAMESPACE);
+            statement.setString(2, JOB);
+            statement.executeQuery().close();
+        }
+    }
+}
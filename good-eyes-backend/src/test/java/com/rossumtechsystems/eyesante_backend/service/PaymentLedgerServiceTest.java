@@ -0,0 +1,158 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.PostgresIntegrationTest;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import com.rossumtechsystems.eyesante_backend.exception.ResourceConflictException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentLedgerServiceTest extends PostgresIntegrationTest {
+
+    private static final BigDecimal INSTALMENT = new BigDecimal("1000.00");
+
+    @Autowired
+    private PaymentLedgerService paymentLedgerService;
+
+    @Test
+    void parallelInstalmentsAndRetriesLandExactlyOnce() throws Exception {
+        long invoiceId = insertInvoice(insertPatient(), 10);
+
+        // Every instalment twice with the same key, shuffled so retries race their originals
+        List<Callable<PaymentLedgerService.PostedPayment>> posts = new ArrayList<>();
+        for (int n = 0; n < 10; n++) {
+            String key = "IT-PAY-" + invoiceId + "-" + n;
+            Callable<PaymentLedgerService.PostedPayment> post = () -> paymentLedgerService.post(invoiceId, INSTALMENT,
+                    Invoice.PaymentMethod.CASH, "IT", key, "test");
+            posts.add(post);
+            posts.add(post);
+        }
+        Collections.shuffle(posts, new Random(20250106L));
+
+        List<PaymentLedgerService.PostedPayment> results = runInParallel(posts);
+
+        assertThat(results).hasSize(20);
+        assertThat(results).filteredOn(PaymentLedgerService.PostedPayment::replayed).hasSize(10);
+        assertThat(results).filteredOn(PaymentLedgerService.PostedPayment::settledInvoice).hasSize(1);
+        Map<String, Object> invoice = balance(invoiceId);
+        assertThat((BigDecimal) invoice.get("amount_paid")).isEqualByComparingTo("10000");
+        assertThat((BigDecimal) invoice.get("ledger_sum")).isEqualByComparingTo("10000");
+        assertThat((BigDecimal) invoice.get("balance_due")).isEqualByComparingTo("0");
+        assertThat(invoice.get("ledger_rows")).isEqualTo(10L);
+        assertThat(invoice.get("payment_status")).isEqualTo("PAID");
+    }
+
+    @Test
+    void racingPaymentsNeverOverpay() throws Exception {
+        long invoiceId = insertInvoice(insertPatient(), 3);
+
+        // Six payments of 2000 against 3000 owed: only one fits
+        List<Callable<PaymentLedgerService.PostedPayment>> posts = new ArrayList<>();
+        for (int n = 0; n < 6; n++) {
+            String key = "IT-OVER-" + invoiceId + "-" + n;
+            posts.add(() -> paymentLedgerService.post(invoiceId, new BigDecimal("2000"),
+                    Invoice.PaymentMethod.MOBILE_MONEY, null, key, "test"));
+        }
+
+        List<Throwable> failures = new ArrayList<>();
+        List<PaymentLedgerService.PostedPayment> results = runInParallel(posts, failures);
+
+        assertThat(results).hasSize(1);
+        assertThat(failures).hasSize(5).allMatch(ResourceConflictException.class::isInstance);
+        Map<String, Object> invoice = balance(invoiceId);
+        assertThat((BigDecimal) invoice.get("amount_paid")).isEqualByComparingTo("2000");
+        assertThat((BigDecimal) invoice.get("balance_due")).isEqualByComparingTo("1000");
+        assertThat(invoice.get("ledger_rows")).isEqualTo(1L);
+        assertThat(invoice.get("payment_status")).isEqualTo("PARTIAL");
+    }
+
+    @Test
+    void replayedKeyReturnsTheOriginalPayment() {
+        long invoiceId = insertInvoice(insertPatient(), 2);
+        String key = "IT-REPLAY-" + invoiceId;
+
+        PaymentLedgerService.PostedPayment first = paymentLedgerService.post(invoiceId, INSTALMENT,
+                Invoice.PaymentMethod.CASH, "R1", key, "test");
+        PaymentLedgerService.PostedPayment retry = paymentLedgerService.post(invoiceId, INSTALMENT,
+                Invoice.PaymentMethod.CASH, "R1", key, "test");
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.paymentId()).isEqualTo(first.paymentId());
+        assertThat((BigDecimal) balance(invoiceId).get("amount_paid")).isEqualByComparingTo("1000");
+        assertThat(balance(invoiceId).get("ledger_rows")).isEqualTo(1L);
+    }
+
+    @Test
+    void keyReusedForAnotherAmountIsRefused() {
+        long invoiceId = insertInvoice(insertPatient(), 2);
+        String key = "IT-REUSE-" + invoiceId;
+        paymentLedgerService.post(invoiceId, INSTALMENT, Invoice.PaymentMethod.CASH, null, key, "test");
+
+        assertThatThrownBy(() -> paymentLedgerService.post(invoiceId, new BigDecimal("500"),
+                Invoice.PaymentMethod.CASH, null, key, "test"))
+                .isInstanceOf(ResourceConflictException.class);
+        assertThat((BigDecimal) balance(invoiceId).get("amount_paid")).isEqualByComparingTo("1000");
+    }
+
+    private Map<String, Object> balance(long invoiceId) {
+        return jdbcTemplate.queryForMap("""
+                SELECT i.amount_paid, i.balance_due, i.payment_status,
+                       (SELECT COUNT(*) FROM payments p WHERE p.invoice_id = i.id) AS ledger_rows,
+                       (SELECT COALESCE(SUM(p.amount), 0) FROM payments p WHERE p.invoice_id = i.id) AS ledger_sum
+                FROM invoices i WHERE i.id = ?
+                """, invoiceId);
+    }
+
+    private static <T> List<T> runInParallel(List<Callable<T>> calls) throws Exception {
+        List<Throwable> failures = new ArrayList<>();
+        List<T> results = runInParallel(calls, failures);
+        assertThat(failures).isEmpty();
+        return results;
+    }
+
+    /**
+     * Runs every call on its own thread, released together; failures are collected, not thrown
+     */
+    private static <T> List<T> runInParallel(List<Callable<T>> calls, List<Throwable> failures) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> call : calls) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get(30, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.PostgresIntegrationTest;
+import com.rossumtechsystems.eyesante_backend.dto.ReceivableAgingDto;
+import com.rossumtechsystems.eyesante_backend.dto.ReceivableAgingInvoiceDto;
+import com.rossumtechsystems.eyesante_backend.entity.Invoice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The receivables aging table against the invoices it summarises: kept in step as invoices are
+ * paid or cancelled, and repaired by the nightly refresh when it drifts.
+ */
+class ReceivableAgingServiceTest extends PostgresIntegrationTest {
+
+    // The aging buckets straight from invoices, as V88 defines open invoices and bucket boundaries
+    private static final String SCAN_SUMMARY = """
+            SELECT COALESCE(SUM(balance_due) FILTER (WHERE age <= 30), 0) AS days0to30,
+                   COALESCE(SUM(balance_due) FILTER (WHERE age BETWEEN 31 AND 60), 0) AS days31to60,
+                   COALESCE(SUM(balance_due) FILTER (WHERE age BETWEEN 61 AND 90), 0) AS days61to90,
+                   COALESCE(SUM(balance_due) FILTER (WHERE age > 90), 0) AS days90plus,
+                   COALESCE(SUM(balance_due), 0) AS total,
+                   COUNT(*) AS invoice_count
+            FROM (SELECT balance_due, (CLOCK_TIMESTAMP() AT TIME ZONE 'Africa/Kampala')::DATE - invoice_date AS age
+                  FROM invoices
+                  WHERE balance_due > 0 AND status NOT IN ('PAID', 'CANCELLED', 'REFUNDED', 'DRAFT')) open
+            """;
+
+    @Autowired
+    private ReceivableAgingService agingService;
+
+    @Autowired
+    private FinanceService financeService;
+
+    private long patientId;
+
+    @BeforeEach
+    void seed() {
+        patientId = insertPatient();
+        for (int daysAgo : new int[]{5, 45, 75, 120}) {
+            insertInvoice(patientId, 1, daysAgo);
+        }
+    }
+
+    @Test
+    void openInvoicesAreBucketedByAge() {
+        assertThat(bucketsOf(patientId)).containsExactly(
+                "DAYS_90_PLUS", "DAYS_61_90", "DAYS_31_60", "DAYS_0_30");
+        assertSummaryMatchesInvoices();
+    }
+
+    @Test
+    void settledAndCancelledInvoicesLeaveOnCommit() {
+        List<ReceivableAgingInvoiceDto> open = openInvoicesOf(patientId);
+
+        financeService.recordPayment(open.get(0).getInvoiceId(), open.get(0).getBalanceDue(),
+                Invoice.PaymentMethod.CASH, "IT-AGING", "IT-AGING-" + open.get(0).getInvoiceId());
+        financeService.updateInvoiceStatus(open.get(1).getInvoiceId(), Invoice.InvoiceStatus.CANCELLED);
+
+        assertThat(bucketsOf(patientId)).containsExactly("DAYS_31_60", "DAYS_0_30");
+        assertSummaryMatchesInvoices();
+    }
+
+    @Test
+    void partialPaymentLowersTheAgedBalance() {
+        long invoiceId = openInvoicesOf(patientId).get(0).getInvoiceId();
+
+        financeService.recordPayment(invoiceId, new BigDecimal("400"), Invoice.PaymentMethod.CASH,
+                "IT-AGING", "IT-AGING-PART-" + invoiceId);
+
+        assertThat(openInvoicesOf(patientId).get(0).getBalanceDue()).isEqualByComparingTo("600");
+        assertSummaryMatchesInvoices();
+    }
+
+    @Test
+    void refreshRepairsRowsChangedBehindTheTrigger() {
+        List<ReceivableAgingInvoiceDto> open = openInvoicesOf(patientId);
+        transactionTemplate().executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE receivable_aging SET age_bucket = 'DAYS_0_30' WHERE invoice_id = ?",
+                    open.get(0).getInvoiceId());
+            jdbcTemplate.update("DELETE FROM receivable_aging WHERE invoice_id = ?", open.get(2).getInvoiceId());
+        });
+
+        ReceivableAgingService.RefreshResult refresh = agingService.refresh();
+
+        assertThat(refresh.rebucketed()).isPositive();
+        assertThat(refresh.resynced()).isPositive();
+        assertThat(bucketsOf(patientId)).containsExactly(
+                "DAYS_90_PLUS", "DAYS_61_90", "DAYS_31_60", "DAYS_0_30");
+        assertSummaryMatchesInvoices();
+    }
+
+    private List<ReceivableAgingInvoiceDto> openInvoicesOf(long patientId) {
+        return agingService.getInvoices(null, patientId, null, null, false, PageRequest.of(0, 20)).getContent();
+    }
+
+    private List<String> bucketsOf(long patientId) {
+        return openInvoicesOf(patientId).stream().map(ReceivableAgingInvoiceDto::getAgeBucket).toList();
+    }
+
+    private void assertSummaryMatchesInvoices() {
+        ReceivableAgingDto expected = jdbcTemplate.queryForObject(SCAN_SUMMARY,
+                new BeanPropertyRowMapper<>(ReceivableAgingDto.class));
+        ReceivableAgingDto actual = agingService.getSummary();
+        assertThat(figures(actual)).isEqualTo(figures(expected));
+    }
+
+    private static Map<String, Object> figures(ReceivableAgingDto aging) {
+        return Map.of(
+                "0-30", aging.getDays0To30().stripTrailingZeros(),
+                "31-60", aging.getDays31To60().stripTrailingZeros(),
+                "61-90", aging.getDays61To90().stripTrailingZeros(),
+                "90+", aging.getDays90Plus().stripTrailingZeros(),
+                "total", aging.getTotal().stripTrailingZeros(),
+                "invoices", aging.getInvoiceCount());
+    }
+}
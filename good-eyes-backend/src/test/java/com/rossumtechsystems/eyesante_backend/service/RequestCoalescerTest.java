@@ -0,0 +1,192 @@
+package com.rossumtechsystems.eyesante_backend.service;
+
+import com.rossumtechsystems.eyesante_backend.config.BranchContext;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer(true, 2000, 1000);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @AfterEach
+    void clearBranch() {
+        BranchContext.clear();
+    }
+
+    @Coalesced
+    String report(String period) {
+        return period;
+    }
+
+    @Coalesced(ttlMillis = 50)
+    String shortWindow(String period) {
+        return period;
+    }
+
+    @Coalesced(ttlMillis = 0)
+    String overlapOnly(String period) {
+        return period;
+    }
+
+    @Test
+    void concurrentEqualCallsShareOneExecution() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<Object> call = () -> invoke("report", () -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "result-" + executions.incrementAndGet();
+        }, "2026-Q1");
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            results.add(pool.submit(call));
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 3; i++) {
+                results.add(pool.submit(call));
+            }
+            // Let the joiners reach the running entry before it completes
+            awaitJoined(3);
+            release.countDown();
+            for (Future<Object> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result-1");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(executions).hasValue(1);
+        RequestCoalescer.MethodStats stats = coalescer.getStats().get(0);
+        assertThat(stats.calls()).isEqualTo(4);
+        assertThat(stats.executions()).isEqualTo(1);
+        assertThat(stats.joined()).isEqualTo(3);
+        assertThat(stats.coalescingRatio()).isEqualTo(0.75);
+    }
+
+    @Test
+    void finishedResultAnswersEqualCallsWithinTheWindow() throws Exception {
+        assertThat(invoke("report", this::execute, "2026-Q1")).isEqualTo("result-1");
+        assertThat(invoke("report", this::execute, "2026-Q1")).isEqualTo("result-1");
+        assertThat(invoke("report", this::execute, "2026-Q2")).isEqualTo("result-2");
+
+        assertThat(coalescer.getStats().get(0).cacheHits()).isEqualTo(1);
+    }
+
+    @Test
+    void resultExpiresAfterTheWindow() throws Exception {
+        assertThat(invoke("shortWindow", this::execute, "2026-Q1")).isEqualTo("result-1");
+        Thread.sleep(80);
+        assertThat(invoke("shortWindow", this::execute, "2026-Q1")).isEqualTo("result-2");
+    }
+
+    @Test
+    void zeroWindowKeepsNoResult() throws Exception {
+        assertThat(invoke("overlapOnly", this::execute, "2026-Q1")).isEqualTo("result-1");
+        assertThat(invoke("overlapOnly", this::execute, "2026-Q1")).isEqualTo("result-2");
+    }
+
+    @Test
+    void failureIsNotKept() throws Exception {
+        assertThatThrownBy(() -> invoke("report", () -> {
+            executions.incrementAndGet();
+            throw new IllegalStateException("database unavailable");
+        }, "2026-Q1")).isInstanceOf(IllegalStateException.class);
+
+        assertThat(invoke("report", this::execute, "2026-Q1")).isEqualTo("result-2");
+        assertThat(coalescer.getStats().get(0).failures()).isEqualTo(1);
+    }
+
+    @Test
+    void branchesDoNotShareResults() throws Exception {
+        BranchContext.set(1L);
+        assertThat(invoke("report", this::execute, "2026-Q1")).isEqualTo("result-1");
+        BranchContext.set(2L);
+        assertThat(invoke("report", this::execute, "2026-Q1")).isEqualTo("result-2");
+        BranchContext.set(1L);
+        assertThat(invoke("report", this::execute, "2026-Q1")).isEqualTo("result-1");
+    }
+
+    @Test
+    void disabledAlwaysExecutes() throws Throwable {
+        RequestCoalescer disabled = new RequestCoalescer(false, 2000, 1000);
+        Method method = method("report");
+        for (int i = 1; i <= 2; i++) {
+            assertThat(disabled.invoke(invocation(method, this::execute, "2026-Q1"), method.getAnnotation(Coalesced.class)))
+                    .isEqualTo("result-" + i);
+        }
+        assertThat(disabled.getStats()).isEmpty();
+    }
+
+    private Object execute() {
+        return "result-" + executions.incrementAndGet();
+    }
+
+    private void awaitJoined(long joined) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.getStats().get(0).joined() < joined && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private Object invoke(String methodName, Callable<Object> body, Object... args) throws Exception {
+        Method method = method(methodName);
+        try {
+            return coalescer.invoke(invocation(method, body, args), method.getAnnotation(Coalesced.class));
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Method method(String name) throws NoSuchMethodException {
+        return RequestCoalescerTest.class.getDeclaredMethod(name, String.class);
+    }
+
+    private MethodInvocation invocation(Method method, Callable<Object> body, Object... args) {
+        return new MethodInvocation() {
+            @Override
+            public Method getMethod() {
+                return method;
+            }
+
+            @Override
+            public Object[] getArguments() {
+                return args;
+            }
+
+            @Override
+            public Object proceed() throws Throwable {
+                return body.call();
+            }
+
+            @Override
+            public Object getThis() {
+                return RequestCoalescerTest.this;
+            }
+
+            @Override
+            public AccessibleObject getStaticPart() {
+                return method;
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package com.rossumtechsystems.eyesante_backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheValidatorTest {
+
+    private static final Instant MODIFIED = Instant.parse("2026-03-01T10:15:30.250Z");
+
+    private final CacheValidator strong = CacheValidator.strong(MODIFIED, "invoice", 42L, 3);
+    private final AtomicInteger bodyCalls = new AtomicInteger();
+
+    @Test
+    void noConditionalHeadersLoadsTheBody() {
+        ResponseEntity<String> response = strong.respond(request(), this::body);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("body");
+        assertThat(response.getHeaders().getETag()).isEqualTo(strong.etag());
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModifiedWithoutLoadingTheBody() {
+        ResponseEntity<String> response = strong.respond(ifNoneMatch(strong.etag()), this::body);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo(strong.etag());
+        assertThat(bodyCalls).hasValue(0);
+    }
+
+    @Test
+    void ifNoneMatchComparesWeakly() {
+        // The compression filter weakens the strong tag the client then sends back
+        assertThat(status(strong, ifNoneMatch("W/" + strong.etag()))).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        CacheValidator weak = CacheValidator.weak("summary", 7);
+        assertThat(status(weak, ifNoneMatch(weak.etag().substring(2)))).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void ifNoneMatchListMatchesAnyTag() {
+        assertThat(status(strong, ifNoneMatch("\"other\", " + strong.etag() + ", W/\"stale\"")))
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(status(strong, ifNoneMatch("*"))).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void differentIfNoneMatchLoadsTheBody() {
+        assertThat(status(strong, ifNoneMatch("\"other\", W/\"stale\""))).isEqualTo(HttpStatus.OK);
+        assertThat(status(CacheValidator.strong(MODIFIED, "invoice", 42L, 4), ifNoneMatch(strong.etag())))
+                .isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void ifNoneMatchTakesPrecedenceOverIfModifiedSince() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED.getEpochSecond() + 60));
+
+        assertThat(status(strong, new ServletWebRequest(request))).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void ifModifiedSinceComparesWholeSeconds() {
+        assertThat(status(strong, ifModifiedSince(MODIFIED.getEpochSecond())))
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(status(strong, ifModifiedSince(MODIFIED.getEpochSecond() - 1)))
+                .isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void ifModifiedSinceIsIgnoredWithoutLastModified() {
+        CacheValidator weak = CacheValidator.weak("summary", 7);
+        assertThat(status(weak, ifModifiedSince(MODIFIED.getEpochSecond() + 60))).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void respondIfPresentIsNotFoundForAnEmptyLookup() {
+        ResponseEntity<String> response = strong.respondIfPresent(request(), java.util.Optional::empty);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private String body() {
+        bodyCalls.incrementAndGet();
+        return "body";
+    }
+
+    private HttpStatus status(CacheValidator validator, ServletWebRequest request) {
+        return HttpStatus.valueOf(validator.respond(request, this::body).getStatusCode().value());
+    }
+
+    private static ServletWebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest());
+    }
+
+    private static ServletWebRequest ifNoneMatch(String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, value);
+        return new ServletWebRequest(request);
+    }
+
+    private static ServletWebRequest ifModifiedSince(long epochSecond) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, httpDate(epochSecond));
+        return new ServletWebRequest(request);
+    }
+
+    private static String httpDate(long epochSecond) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochSecond(epochSecond).atOffset(ZoneOffset.UTC));
+    }
+}
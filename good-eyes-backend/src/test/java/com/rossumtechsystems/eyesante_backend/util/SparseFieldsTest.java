@@ -0,0 +1,76 @@
+package com.rossumtechsystems.eyesante_backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SparseFieldsTest {
+
+    private final SparseFields fields = SparseFields.from("invoices i", "i")
+            .columns("invoiceNumber", "totalAmount")
+            .field("patientName", "p.first_name")
+            .defaultOrder("i.invoice_date DESC, i.id DESC")
+            .build();
+
+    @Test
+    void parseReturnsIdFirstThenRequestedFieldsInOrder() {
+        assertThat(fields.parse("totalAmount, invoiceNumber")).containsExactly("id", "totalAmount", "invoiceNumber");
+    }
+
+    @Test
+    void parseIgnoresBlanksAndDuplicates() {
+        assertThat(fields.parse("id,,invoiceNumber, ,invoiceNumber")).containsExactly("id", "invoiceNumber");
+    }
+
+    @Test
+    void parseRejectsUnknownField() {
+        assertThatThrownBy(() -> fields.parse("invoiceNumber,password"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'password'");
+    }
+
+    @Test
+    void parseRejectsSqlInFieldName() {
+        assertThatThrownBy(() -> fields.parse("id; DROP TABLE invoices"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void selectListMapsFieldsToTheirColumns() {
+        assertThat(fields.selectList(fields.parse("invoiceNumber,patientName")))
+                .isEqualTo("i.id AS \"id\", i.invoice_number AS \"invoiceNumber\", p.first_name AS \"patientName\"");
+    }
+
+    @Test
+    void orderByUsesDefaultWhenUnsorted() {
+        assertThat(fields.orderBy(Sort.unsorted())).isEqualTo("i.invoice_date DESC, i.id DESC");
+    }
+
+    @Test
+    void orderByMapsSortToColumnsAndBreaksTiesOnId() {
+        Sort sort = Sort.by(Sort.Order.desc("totalAmount"), Sort.Order.asc("patientName"));
+        assertThat(fields.orderBy(sort)).isEqualTo("i.total_amount DESC, p.first_name ASC, i.id");
+    }
+
+    @Test
+    void orderByRejectsUnknownProperty() {
+        assertThatThrownBy(() -> fields.orderBy(Sort.by("balanceDue")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'balanceDue'");
+    }
+
+    @Test
+    void defaultOrderFallsBackToIdDescending() {
+        SparseFields plain = SparseFields.from("patients p", "p").columns("firstName").build();
+        assertThat(plain.orderBy(Sort.unsorted())).isEqualTo("p.id DESC");
+        assertThat(plain.getBranchColumn()).isNull();
+    }
+
+    @Test
+    void branchScopedUsesTheMainTablesClinicColumn() {
+        SparseFields scoped = SparseFields.from("invoices i", "i").branchScoped().build();
+        assertThat(scoped.getBranchColumn()).isEqualTo("i.clinic_id");
+    }
+}